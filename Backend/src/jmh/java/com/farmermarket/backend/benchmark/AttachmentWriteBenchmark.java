@@ -0,0 +1,65 @@
+package com.farmermarket.backend.benchmark;
+
+import com.farmermarket.backend.storage.AttachmentStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Message attachment uploads: sniffing, channel copy to a temp file, fsync and move into place.
+ * Each stored file is deleted after the invocation so the directory does not grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AttachmentWriteBenchmark {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    @Param({"65536", "1048576"})
+    int bytes;
+
+    private Path root;
+    private AttachmentStore store;
+    private byte[] payload;
+    private AttachmentStore.StoredAttachment last;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jmh-attachments-");
+        store = new AttachmentStore(root.toString(), 10L * 1024 * 1024);
+        payload = new byte[bytes];
+        new Random(42).nextBytes(payload);
+        System.arraycopy(PNG_SIGNATURE, 0, payload, 0, PNG_SIGNATURE.length);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteLast() throws IOException {
+        if (last != null) {
+            Files.deleteIfExists(last.path());
+            last = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public AttachmentStore.StoredAttachment store() throws IOException {
+        last = store.store(new ByteArrayInputStream(payload));
+        return last;
+    }
+}
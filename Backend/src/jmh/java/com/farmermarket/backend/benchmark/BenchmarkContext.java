@@ -0,0 +1,28 @@
+package com.farmermarket.backend.benchmark;
+
+import com.farmermarket.backend.BackendApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application without a web server for benchmarks that need real beans. The
+ * datasource comes from the test config/application.properties (in-memory H2 in MySQL
+ * mode) unless overridden with -Dspring.datasource.* in the fork's JVM arguments.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {}
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.com.farmermarket.backend=WARN",
+                        // Background jobs would only add noise to the measurements
+                        "--app.analytics.enabled=false",
+                        "--app.orders.archive.enabled=false",
+                        "--app.storage.product-images-dir=target/jmh-uploads/products",
+                        "--app.storage.message-attachments-dir=target/jmh-uploads/messages");
+    }
+}
@@ -0,0 +1,89 @@
+package com.farmermarket.backend.benchmark;
+
+import com.farmermarket.backend.dto.OrderDTO;
+import com.farmermarket.backend.dto.OrderSummaryDTO;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The buyer-orders lookup behind GET /api/orders/buyer/{email}: first page of full orders
+ * (ids, then orders with items) and of summaries, against a database holding other buyers' orders too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BuyerOrdersBenchmark {
+
+    static final String BUYER = "bench-buyer@example.com";
+
+    @Param({"20", "200"})
+    int ordersPerBuyer;
+
+    @Param({"5"})
+    int otherBuyers;
+
+    @Param({"50"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        for (int b = 0; b <= otherBuyers; b++) {
+            String email = b == 0 ? BUYER : "other-" + b + "@example.com";
+            for (int o = 0; o < ordersPerBuyer; o++) {
+                orderService.placeOrder(newOrder(email, o));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderDTO> fullPage() {
+        return orderService.getBuyerOrders(BUYER, null, pageSize);
+    }
+
+    @Benchmark
+    public List<OrderSummaryDTO> summaryPage() {
+        return orderService.getBuyerOrderSummaries(BUYER, null, pageSize);
+    }
+
+    // Items without a product id, so seeding does not depend on catalog stock
+    private static Order newOrder(String email, int n) {
+        Order order = new Order();
+        order.setBuyerEmail(email);
+        order.setFirstName("Bench");
+        order.setLastName("Buyer");
+        order.setPhone("0770000000");
+        order.setDistrict("Colombo");
+        order.setAddress("1 Main Street");
+        order.setPayment("COD");
+        order.setDeliveryFee(new BigDecimal("200.00"));
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductName("Item " + (n + i));
+            item.setPrice(new BigDecimal("99.00"));
+            item.setQuantity(1);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotal(new BigDecimal("497.00"));
+        return order;
+    }
+}
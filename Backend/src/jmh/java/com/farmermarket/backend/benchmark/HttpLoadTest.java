@@ -0,0 +1,142 @@
+package com.farmermarket.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running backend, for comparing the platform-thread and
+ * virtual-thread modes: each of `clients` threads sends a request, waits for the answer and
+ * sends the next, for `seconds` seconds per path. Prints throughput, errors (non-2xx or I/O
+ * failures) and latency percentiles per path.
+ *
+ * Given statsPath (GET /api/admin/jdbc), the server's connection-wait counters are read before
+ * and after each path, adding how many connection acquires had to wait and for how long on
+ * average. That endpoint is for farmers: pass a farmer's bearer token as statsToken.
+ *
+ * The buyer paths need a signed-in caller: pass a bearer token (from POST /api/users/login for
+ * the buyer in the paths) as token. It is sent on every request.
+ *
+ * Usage: HttpLoadTest baseUrl clients seconds path[,path...] [statsPath] [token] [statsToken]
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {}
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: HttpLoadTest baseUrl clients seconds path[,path...] [statsPath] [token] [statsToken]");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        URI stats = args.length > 4 && !args[4].isBlank() ? URI.create(baseUrl + args[4].trim()) : null;
+        String token = args.length > 5 && !args[5].isBlank() ? args[5].trim() : null;
+        String statsToken = args.length > 6 && !args[6].isBlank() ? args[6].trim() : null;
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        System.out.printf("%-50s %8s %10s %8s %9s %9s %9s %9s %9s%n",
+                "Path", "Clients", "Req/s", "Errors", "p50 ms", "p95 ms", "p99 ms", "Waits", "Wait ms");
+        for (String path : args[3].split(",")) {
+            run(http, URI.create(baseUrl + path.trim()), stats, statsToken, token, clients, duration);
+        }
+    }
+
+    private static void run(HttpClient http, URI uri, URI stats, String statsToken, String token, int clients,
+                            Duration duration) throws InterruptedException, IOException {
+        long[] waitsBefore = connectionWaits(http, stats, statsToken);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            LatencyLog log = new LatencyLog();
+            int slot = c;
+            Thread client = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 != 2) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    log.add(System.nanoTime() - start);
+                }
+                latencies[slot] = log.toArray();
+                done.countDown();
+            }, "load-" + c);
+            client.start();
+        }
+        done.await();
+
+        // done.await() makes every client's slot visible here
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toNanos() / 1e9;
+        long[] waitsAfter = connectionWaits(http, stats, statsToken);
+        long waits = waitsAfter[0] - waitsBefore[0];
+        long waitMs = waitsAfter[1] - waitsBefore[1];
+        System.out.printf("%-50s %8d %10.1f %8d %9.2f %9.2f %9.2f %9s %9s%n",
+                uri.getPath() + (uri.getQuery() != null ? "?" + uri.getQuery() : ""), clients,
+                all.length / seconds, errors.get(), percentile(all, 50), percentile(all, 95), percentile(all, 99),
+                stats != null ? Long.toString(waits) : "-",
+                stats != null ? String.format("%.1f", waits > 0 ? (double) waitMs / waits : 0) : "-");
+    }
+
+    // {waits, waitMs} summed over the server's pools; zeros without a stats path
+    private static long[] connectionWaits(HttpClient http, URI stats, String statsToken)
+            throws InterruptedException, IOException {
+        if (stats == null) return new long[2];
+        HttpRequest.Builder request = HttpRequest.newBuilder(stats).GET();
+        if (statsToken != null) {
+            request.header("Authorization", "Bearer " + statsToken);
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + stats + " returned " + response.statusCode());
+        }
+        long[] totals = new long[2];
+        for (JsonNode pool : new ObjectMapper().readTree(response.body())) {
+            totals[0] += pool.path("waits").asLong();
+            totals[1] += pool.path("waitMs").asLong();
+        }
+        return totals;
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    // One client's latencies in nanoseconds, appended without boxing
+    private static final class LatencyLog {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.farmermarket.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (name plus parameters) and prints
+ * the change in score. Exits with status 1 when any benchmark got worse by more than the
+ * threshold percentage (lower is better for time modes, higher for throughput).
+ *
+ * Usage: JmhResultDiff baseline.json current.json [thresholdPercent]
+ */
+public final class JmhResultDiff {
+
+    private JmhResultDiff() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultDiff baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> e : current.entrySet()) {
+            JsonNode now = e.getValue();
+            JsonNode before = baseline.get(e.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", e.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double old = before.path("primaryMetric").path("score").asDouble();
+            double change = old == 0 ? 0 : (score - old) / old * 100;
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            boolean regressed = (higherIsBetter ? -change : change) > threshold;
+            if (regressed) regressions++;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n",
+                    e.getKey(), old, score, change, unit, regressed ? "  REGRESSION" : "");
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-90s %14s %14s %9s%n", missing, "", "-", "removed");
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    // Keyed by benchmark name plus its parameters, sorted so the key is stable across runs
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> p = fields.next();
+                params.put(p.getKey(), p.getValue().asText());
+            }
+            String key = run.path("benchmark").asText() + " [" + run.path("mode").asText() + "]"
+                    + (params.isEmpty() ? "" : " " + params);
+            results.put(key, run);
+        }
+        return results;
+    }
+}
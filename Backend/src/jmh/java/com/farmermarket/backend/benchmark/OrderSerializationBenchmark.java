@@ -0,0 +1,96 @@
+package com.farmermarket.backend.benchmark;
+
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing an order as the entity graph (Order with its items) against the OrderDTO the
+ * order endpoints return, for a page of orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderSerializationBenchmark {
+
+    @Param({"1", "10", "50"})
+    int itemsPerOrder;
+
+    // One page of GET /api/orders/buyer/{email}
+    @Param({"50"})
+    int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private ObjectMapper mapper;
+    private List<Order> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        mapper = context.getBean(ObjectMapper.class);
+
+        page = new ArrayList<>(orders);
+        for (int o = 0; o < orders; o++) {
+            Order order = new Order();
+            order.setId((long) o + 1);
+            order.setOrderId("ORD" + (100000 + o));
+            order.setBuyerEmail("buyer@example.com");
+            order.setFirstName("Nimal");
+            order.setLastName("Perera");
+            order.setPhone("0771234567");
+            order.setProvince("Western");
+            order.setDistrict("Colombo");
+            order.setCity("Dehiwala");
+            order.setAddress("12 Galle Road");
+            order.setPayment("COD");
+            order.setDeliveryFee(new BigDecimal("200.00"));
+            order.setStatus(OrderStatus.PENDING);
+            order.setOrderDate(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(o));
+            order.setVersion(0L);
+            List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < itemsPerOrder; i++) {
+                OrderItem item = new OrderItem();
+                item.setId((long) o * itemsPerOrder + i + 1);
+                item.setProductId((long) i + 1);
+                item.setProductName("Product " + i);
+                item.setCategory(i % 2 == 0 ? "FRUIT" : "VEGETABLE");
+                item.setPrice(new BigDecimal("120.50"));
+                item.setQuantity(1 + i % 3);
+                item.setImageUrl("/api/products/" + (i + 1) + "/image?v=0123456789abcdef");
+                items.add(item);
+                total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+            order.setItems(items);
+            order.setTotal(total.add(order.getDeliveryFee()));
+            page.add(order);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entityGraph() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] dto() throws Exception {
+        return mapper.writeValueAsBytes(page.stream().map(orderService::toDTO).toList());
+    }
+}
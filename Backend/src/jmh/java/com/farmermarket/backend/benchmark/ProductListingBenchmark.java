@@ -0,0 +1,101 @@
+package com.farmermarket.backend.benchmark;
+
+import com.farmermarket.backend.dto.ProductDTO;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.service.ProductService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/products: entity to DTO mapping and serialization of the listing. withImages gives
+ * every product an image (so a versioned imageUrl); serializeListingWithInlineImages measures
+ * the same listing carrying base64 thumbnails, the shape the image endpoint replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductListingBenchmark {
+
+    @Param({"100", "1000"})
+    int products;
+
+    @Param({"false", "true"})
+    boolean withImages;
+
+    // Size of each inline thumbnail for serializeListingWithInlineImages
+    @Param({"8192"})
+    int inlineImageBytes;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+    private ObjectMapper mapper;
+    private List<Product> catalog;
+    private List<ProductDTO> dtos;
+    private List<Map<String, Object>> inlineListing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        service = context.getBean(ProductService.class);
+        mapper = context.getBean(ObjectMapper.class);
+
+        Random random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            catalog.add(new Product((long) i + 1, "Product " + i,
+                    i % 2 == 0 ? Product.Category.FRUIT : Product.Category.VEGETABLE, 10.0 + i % 90,
+                    "Fresh from the farm, batch " + i,
+                    withImages ? HexFormat.of().formatHex(hash) : null,
+                    withImages ? 50_000L : null, withImages ? "image/jpeg" : null));
+        }
+        dtos = catalog.stream().map(service::toDTO).toList();
+
+        inlineListing = new ArrayList<>(products);
+        byte[] thumbnail = new byte[inlineImageBytes];
+        random.nextBytes(thumbnail);
+        String encoded = Base64.getEncoder().encodeToString(thumbnail);
+        for (ProductDTO dto : dtos) {
+            Map<String, Object> row = mapper.convertValue(dto, new TypeReference<LinkedHashMap<String, Object>>() {});
+            row.put("image", encoded);
+            inlineListing.add(row);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> toDTO() {
+        return catalog.stream().map(service::toDTO).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeListing() throws Exception {
+        return mapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeListing() throws Exception {
+        return mapper.writeValueAsBytes(catalog.stream().map(service::toDTO).toList());
+    }
+
+    @Benchmark
+    public byte[] serializeListingWithInlineImages() throws Exception {
+        return mapper.writeValueAsBytes(inlineListing);
+    }
+}
@@ -0,0 +1,8 @@
+package com.farmermarket.backend.auth;
+
+/**
+ * The caller of a request. TokenAuthFilter builds it from the cached account once the token's
+ * signature, expiry and version check out, so a revoked token never produces one.
+ */
+public record AuthUser(Long id, String email, String role, String name, int tokenVersion) {
+}
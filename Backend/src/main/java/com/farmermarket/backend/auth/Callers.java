@@ -0,0 +1,57 @@
+package com.farmermarket.backend.auth;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Checks on the AUTH_USER of a request, for controllers. No caller is 401 "Sign in required",
+ * a caller without access 403.
+ *
+ * Emails in URLs and bodies are only trusted after one of these checks: a buyer can only name
+ * themselves, while the farmer (the store operator) may act on any buyer.
+ */
+public final class Callers {
+
+    public static final String FARMER = "farmer";
+    public static final String BUYER = "buyer";
+
+    private Callers() {}
+
+    public static AuthUser require(AuthUser caller) {
+        if (caller == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sign in required");
+        }
+        return caller;
+    }
+
+    public static boolean isFarmer(AuthUser caller) {
+        return caller != null && FARMER.equals(caller.role());
+    }
+
+    public static boolean isSelf(AuthUser caller, String email) {
+        return caller != null && email != null && email.equalsIgnoreCase(caller.email());
+    }
+
+    // The caller must be the account with this email
+    public static AuthUser requireEmail(AuthUser caller, String email) {
+        if (!isSelf(require(caller), email)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only access your own account");
+        }
+        return caller;
+    }
+
+    // The account with this email, or the farmer
+    public static AuthUser requireEmailOrFarmer(AuthUser caller, String email) {
+        if (!isFarmer(require(caller)) && !isSelf(caller, email)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only access your own account");
+        }
+        return caller;
+    }
+
+    public static AuthUser requireFarmer(AuthUser caller) {
+        if (!isFarmer(require(caller))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Farmers only");
+        }
+        return caller;
+    }
+}
@@ -0,0 +1,149 @@
+package com.farmermarket.backend.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashes, stored as "pbkdf2$iterations$salt$hash" (Base64).
+ *
+ * The work factor is app.auth.pbkdf2-iterations. Raising it later is safe: older hashes
+ * still verify and report needsRehash, so they are upgraded at the next login. Rows saved
+ * before hashing hold the plain password; those verify by constant-time comparison and
+ * are upgraded the same way.
+ *
+ * A hash costs tens of milliseconds of CPU on purpose, so it runs on a small bounded pool
+ * instead of the request thread. Once app.auth.hash-queue-size jobs are waiting, new ones
+ * fail at once with RejectedExecutionException rather than queueing without limit.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final String SCHEME = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+    private final ThreadPoolExecutor executor;
+    // Verified against when the account does not exist, so unknown emails take as long as wrong passwords
+    private final String decoy;
+
+    public PasswordHasher(@Value("${app.auth.pbkdf2-iterations:210000}") int iterations,
+                          @Value("${app.auth.hash-threads:2}") int threads,
+                          @Value("${app.auth.hash-queue-size:100}") int queueSize) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("app.auth.pbkdf2-iterations must be positive");
+        }
+        this.iterations = iterations;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.decoy = hashNow("decoy-" + random.nextLong());
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> hashNow(password));
+    }
+
+    /**
+     * Whether password matches stored. A null stored value (no such account) still costs one hash.
+     */
+    public CompletableFuture<Boolean> verify(String password, String stored) {
+        return submit(() -> {
+            if (stored == null) {
+                matches(password, decoy);
+                return false;
+            }
+            return matches(password, stored);
+        });
+    }
+
+    // Plain legacy values and hashes made with fewer iterations than currently configured
+    public boolean needsRehash(String stored) {
+        String[] parts = parse(stored);
+        return parts == null || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    String hashNow(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return SCHEME + "$" + iterations + "$" + b64.encodeToString(salt) + "$"
+                + b64.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    boolean matches(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        String[] parts = parse(stored);
+        if (parts == null) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        Base64.Decoder b64 = Base64.getDecoder();
+        byte[] expected = b64.decode(parts[3]);
+        byte[] actual = pbkdf2(password, b64.decode(parts[2]), Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    // [scheme, iterations, salt, hash], or null when stored is not one of our hashes
+    private static String[] parse(String stored) {
+        if (stored == null || !stored.startsWith(SCHEME + "$")) {
+            return null;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || parts[1].isEmpty() || parts[1].length() > 9
+                || !parts[1].chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
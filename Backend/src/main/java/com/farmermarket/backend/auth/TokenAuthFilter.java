@@ -0,0 +1,80 @@
+package com.farmermarket.backend.auth;
+
+import com.farmermarket.backend.service.UserService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Reads "Authorization: Bearer token" on /api requests and, when the token verifies, exposes
+ * the caller as the AUTH_USER request attribute. Besides the signature and expiry, the token's
+ * version must equal the account's (from UserService's cache), so tokens issued before an
+ * email or password change, or for a deleted account, are ignored. The attribute carries the
+ * account's current email and role, not the ones in the token.
+ *
+ * EventSource cannot set headers, so the message streams may pass the token as an
+ * access_token query parameter instead.
+ *
+ * Requests without a valid token continue anonymously; endpoints that need a caller answer
+ * 401 themselves, so the response still goes through CORS handling.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TokenAuthFilter extends OncePerRequestFilter {
+
+    public static final String AUTH_USER = "authUser";
+
+    private static final String BEARER = "Bearer ";
+    private static final String STREAM_PATH = "/api/messages/stream/";
+    private static final String TOKEN_PARAM = "access_token";
+
+    private final TokenService tokens;
+    private final UserService users;
+
+    public TokenAuthFilter(TokenService tokens, UserService users) {
+        this.tokens = tokens;
+        this.users = users;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        tokens.verify(token(request))
+                .flatMap(this::current)
+                .ifPresent(user -> request.setAttribute(AUTH_USER, user));
+        chain.doFilter(request, response);
+    }
+
+    private static String token(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return header.substring(BEARER.length()).trim();
+        }
+        if (request.getRequestURI().startsWith(STREAM_PATH)) {
+            return request.getParameter(TOKEN_PARAM);
+        }
+        return null;
+    }
+
+    // The caller as the account is now, when the token has not been revoked since
+    private Optional<AuthUser> current(AuthUser claimed) {
+        return users.findById(claimed.id())
+                .filter(account -> account.tokenVersion() == claimed.tokenVersion())
+                .map(account -> new AuthUser(account.id(), account.email(), account.role(),
+                        account.name(), account.tokenVersion()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.farmermarket.backend.auth;
+
+import com.farmermarket.backend.repository.UserRepository.Account;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Stateless bearer tokens: base64url(JSON claims) + "." + base64url(HMAC-SHA256 of that).
+ * The claims carry the user's id, email, role, name and token version plus an expiry.
+ * verify() checks only the signature and expiry; TokenAuthFilter then compares the version
+ * with the account's, so changing the email or password revokes older tokens.
+ *
+ * Every instance must share app.auth.token-secret. When it is blank a random secret is
+ * generated at startup, which is fine for a single dev instance but signs everyone out on
+ * restart.
+ */
+@Component
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String MAC = "HmacSHA256";
+
+    // Tokens issued before versions existed have no "ver" and read as version 0
+    private record Claims(Long id, String email, String role, String name, int ver, long exp) {}
+
+    private final ObjectMapper json;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final LongSupplier clock;
+
+    @Autowired
+    public TokenService(ObjectMapper json,
+                        @Value("${app.auth.token-secret:}") String secret,
+                        @Value("${app.auth.token-ttl-minutes:720}") long ttlMinutes) {
+        this(json, secret, ttlMinutes, System::currentTimeMillis);
+    }
+
+    TokenService(ObjectMapper json, String secret, long ttlMinutes, LongSupplier clock) {
+        this.json = json;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.clock = clock;
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("app.auth.token-secret is not set; using a random secret, tokens will not survive a restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, MAC);
+    }
+
+    public String issue(Account account) {
+        Claims claims = new Claims(account.id(), account.email(), account.role(), account.name(),
+                account.tokenVersion(), (clock.getAsLong() + ttl.toMillis()) / 1000);
+        try {
+            String payload = encode(json.writeValueAsBytes(claims));
+            return payload + "." + encode(sign(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write token claims", e);
+        }
+    }
+
+    // Empty when the token is malformed, wrongly signed or expired
+    public Optional<AuthUser> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return Optional.empty();
+            }
+            Claims claims = json.readValue(Base64.getUrlDecoder().decode(payload), Claims.class);
+            if (claims.id() == null || clock.getAsLong() / 1000 >= claims.exp()) {
+                return Optional.empty();
+            }
+            return Optional.of(new AuthUser(claims.id(), claims.email(), claims.role(), claims.name(), claims.ver()));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac instances are not thread-safe; creating one is cheap next to a request
+            Mac mac = Mac.getInstance(MAC);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC + " unavailable", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
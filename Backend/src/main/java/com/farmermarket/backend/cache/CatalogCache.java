@@ -0,0 +1,319 @@
+package com.farmermarket.backend.cache;
+
+import com.farmermarket.backend.dto.ProductDTO;
+import com.farmermarket.backend.model.CatalogVersion;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.model.ProductStockChange;
+import com.farmermarket.backend.repository.CatalogVersionRepository;
+import com.farmermarket.backend.repository.ProductStockChangeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for catalog reads, with three regions:
+ * the product listing (as DTOs), single products by id, and image bytes by content key.
+ *
+ * Local writes invalidate immediately and bump the shared catalog_version row, remembering
+ * the version number each bump produced. Every instance polls that row; any version in
+ * between that it did not produce itself came from another instance, and the listing and
+ * product regions are dropped. As a safety net against a missed change, listing and
+ * product entries also expire app.cache.products.ttl-seconds after loading.
+ * Images are keyed by content hash, so they never go stale.
+ *
+ * Stock moves with every order, so it does not count as a catalog change. Changed product ids
+ * are written to product_stock_changes once per poll, and each instance reads that log to drop
+ * just those products and patch their stock into the cached listing, leaving the rest of the
+ * cache (and the search index) alone.
+ *
+ * Cached products are shared between requests, so callers get a copy of each.
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+    private static final String LISTING_KEY = "all";
+    private static final int STOCK_CHANGES_PAGE = 1000;
+    // Far longer than any instance goes between polls
+    private static final Duration STOCK_CHANGES_RETENTION = Duration.ofHours(1);
+
+    /**
+     * The cached listing together with an ETag computed once when it was loaded.
+     */
+    public record Listing(List<ProductDTO> products, String etag) {}
+
+    private final Cache<String, Listing> listing;
+    private final Cache<Long, Product> products;
+    private final Cache<String, byte[]> images;
+    private final int maxImageBytes;
+
+    private final CatalogVersionRepository versions;
+    private final TransactionTemplate tx;
+    private final AtomicLong lastSeenVersion = new AtomicLong(-1);
+    // Versions produced by this instance's own bumps and not yet passed by a poll
+    private final Set<Long> ownVersions = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> remoteChangeListeners = new ArrayList<>();
+
+    private final ProductStockChangeRepository stockChanges;
+    private final long stockSettleNanos;
+    private final Set<Long> pendingStockChanges = ConcurrentHashMap.newKeySet();
+    // Log rows written by this instance and not yet passed by a poll
+    private final Set<Long> ownStockChanges = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lastStockChangeId = new AtomicLong(-1);
+    private volatile Function<Collection<Long>, Map<Long, Integer>> stockReader = ids -> Map.of();
+
+    public CatalogCache(CatalogVersionRepository versions, ProductStockChangeRepository stockChanges,
+                        PlatformTransactionManager txManager,
+                        @Value("${app.cache.products.max-entries:10000}") long maxProducts,
+                        @Value("${app.cache.products.ttl-seconds:300}") long ttlSeconds,
+                        @Value("${app.cache.stock-settle-ms:2000}") long stockSettleMs,
+                        @Value("${app.cache.images.max-bytes:67108864}") long maxImageBudget,
+                        @Value("${app.cache.images.max-item-bytes:2097152}") int maxImageBytes) {
+        this.versions = versions;
+        this.stockChanges = stockChanges;
+        this.tx = new TransactionTemplate(txManager);
+        this.stockSettleNanos = stockSettleMs * 1_000_000L;
+        this.maxImageBytes = maxImageBytes;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        // Stock patches replace the listing in place; they must not push back its expiry
+        this.listing = Caffeine.newBuilder().maximumSize(1)
+                .expireAfter(Expiry.creating((String key, Listing value) -> ttl))
+                .recordStats().build();
+        this.products = Caffeine.newBuilder().maximumSize(maxProducts).expireAfterWrite(ttl).recordStats().build();
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maxImageBudget)
+                .weigher((String key, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+    }
+
+    public Listing listing(Supplier<Listing> loader) {
+        return listing.get(LISTING_KEY, k -> loader.get());
+    }
+
+    /**
+     * A copy of the cached product. Returns null (and caches nothing) when the loader finds no product.
+     */
+    public Product product(Long id, Function<Long, Product> loader) {
+        Product cached = products.get(id, loader);
+        return cached == null ? null : copyOf(cached);
+    }
+
+    /**
+     * Copies of the cached products, in the order of ids; misses are loaded together in one call.
+     * Ids the loader finds no product for are left out.
+     */
+    public List<Product> products(List<Long> ids, Function<Set<Long>, Map<Long, Product>> loader) {
+        Map<Long, Product> found = products.getAll(ids, missing -> loader.apply(Set.copyOf(missing)));
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product p = found.get(id);
+            if (p != null) {
+                result.add(copyOf(p));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Only images up to app.cache.images.max-item-bytes are cached; larger ones should be streamed.
+     */
+    public boolean isCacheableImage(long size) {
+        return size <= maxImageBytes;
+    }
+
+    public byte[] image(String key, Function<String, byte[]> loader) {
+        return images.get(key, loader);
+    }
+
+    /**
+     * Called after every local catalog write.
+     */
+    public void invalidateProduct(Long id) {
+        listing.invalidateAll();
+        products.invalidate(id);
+        bumpVersion();
+    }
+
+    /**
+     * Called after a bulk write that touched too many products to invalidate one by one.
+     */
+    public void invalidateAll() {
+        listing.invalidateAll();
+        products.invalidateAll();
+        bumpVersion();
+    }
+
+    /**
+     * Called after an order or cancellation moved a product's stock. The product is dropped here
+     * at once; the listing is patched, and other instances told, on the next poll.
+     */
+    public void stockChanged(Long id) {
+        products.invalidate(id);
+        pendingStockChanges.add(id);
+    }
+
+    public void onRemoteChange(Runnable listener) {
+        remoteChangeListeners.add(listener);
+    }
+
+    /**
+     * Current stock of the given products (null values for untracked ones), used to patch the listing.
+     */
+    public void readStockWith(Function<Collection<Long>, Map<Long, Integer>> reader) {
+        this.stockReader = reader;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.version-poll-ms:2000}")
+    public void pollVersion() {
+        pollStockChanges();
+
+        Long current = versions.currentVersion();
+        if (current == null) {
+            versions.saveAndFlush(new CatalogVersion(CatalogVersion.SINGLETON_ID, 0));
+            current = 0L;
+        }
+
+        long previous = lastSeenVersion.getAndSet(current);
+        long seen = current;
+        long own = ownVersions.stream().filter(v -> v > previous && v <= seen).count();
+        ownVersions.removeIf(v -> v <= seen);
+        if (previous < 0) return;
+
+        // Each write bumps the version by exactly one, so any version in the gap we did not produce came from elsewhere
+        if (current - previous > own) {
+            log.debug("Catalog version {} -> {} changed remotely, dropping cached products", previous, current);
+            listing.invalidateAll();
+            products.invalidateAll();
+            remoteChangeListeners.forEach(Runnable::run);
+        }
+    }
+
+    private void pollStockChanges() {
+        boolean first = lastStockChangeId.get() < 0;
+        if (first) {
+            Long max = stockChanges.findMaxId();
+            lastStockChangeId.set(max != null ? max : 0);
+        }
+
+        Set<Long> changed = new HashSet<>();
+        if (!pendingStockChanges.isEmpty()) {
+            List<Long> local = new ArrayList<>(pendingStockChanges);
+            pendingStockChanges.removeAll(local);
+            changed.addAll(local);
+            stockChanges.saveAll(local.stream().map(ProductStockChange::new).toList())
+                    .forEach(c -> ownStockChanges.add(c.getId()));
+            stockChanges.deleteOlderThan(LocalDateTime.now().minus(STOCK_CHANGES_RETENTION));
+        }
+
+        if (!first) {
+            // Rows are read in id order up to the first one still inside the settle window, so a
+            // lower id whose insert commits late is picked up by a later poll instead of skipped
+            LocalDateTime until = LocalDateTime.now().minusNanos(stockSettleNanos);
+            List<ProductStockChange> page;
+            do {
+                page = stockChanges.findAfter(lastStockChangeId.get(), PageRequest.of(0, STOCK_CHANGES_PAGE));
+                for (ProductStockChange c : page) {
+                    if (c.getChangedAt().isAfter(until)) {
+                        page = List.of();
+                        break;
+                    }
+                    lastStockChangeId.set(c.getId());
+                    if (!ownStockChanges.remove(c.getId())) {
+                        changed.add(c.getProductId());
+                    }
+                }
+            } while (page.size() == STOCK_CHANGES_PAGE);
+        }
+
+        if (!changed.isEmpty()) {
+            products.invalidateAll(changed);
+            patchListingStock(changed);
+        }
+    }
+
+    private void patchListingStock(Set<Long> ids) {
+        Listing current = listing.getIfPresent(LISTING_KEY);
+        if (current == null) return;
+        Map<Long, Integer> stock = stockReader.apply(ids);
+        StringBuilder changes = new StringBuilder(current.etag());
+        List<ProductDTO> patched = new ArrayList<>(current.products().size());
+        for (ProductDTO dto : current.products()) {
+            if (ids.contains(dto.getId())) {
+                Integer units = stock.get(dto.getId());
+                changes.append(';').append(dto.getId()).append(':').append(units);
+                dto = new ProductDTO(dto.getId(), dto.getName(), dto.getCategory(), dto.getPrice(),
+                        dto.getDescription(), dto.getImageUrl(), units);
+            }
+            patched.add(dto);
+        }
+        String etag = DigestUtils.md5DigestAsHex(changes.toString().getBytes(StandardCharsets.UTF_8));
+        // A listing reloaded meanwhile already has current stock
+        listing.asMap().replace(LISTING_KEY, current, new Listing(List.copyOf(patched), etag));
+    }
+
+    // The bump and the read run in one transaction, so the version read is the one this bump produced
+    private void bumpVersion() {
+        Long produced = tx.execute(status -> {
+            versions.bump();
+            return versions.currentVersion();
+        });
+        if (produced != null) {
+            ownVersions.add(produced);
+        }
+    }
+
+    private static Product copyOf(Product p) {
+        Product copy = new Product(p.getId(), p.getName(), p.getCategory(), p.getPrice(), p.getDescription(),
+                p.getImageKey(), p.getImageSize(), p.getImageContentType());
+        copy.setStock(p.getStock());
+        copy.setCreatedAt(p.getCreatedAt());
+        copy.setUpdatedAt(p.getUpdatedAt());
+        return copy;
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("listing", describe(listing));
+        stats.put("products", describe(products));
+        stats.put("images", describe(images));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        m.put("evictionWeight", s.evictionWeight());
+        return m;
+    }
+}
@@ -1,5 +1,8 @@
 package com.farmermarket.backend.controller;
 
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
 import com.farmermarket.backend.model.Address;
 import com.farmermarket.backend.repository.AddressRepository;
 import org.springframework.web.bind.annotation.*;
@@ -18,15 +21,22 @@ public class AddressController {
         this.addressRepository = addressRepository;
     }
 
-    // Get address by buyer email
+    // Get address by buyer email: the buyer themselves, or the farmer
     @GetMapping("/{buyerEmail}")
-    public Address getAddress(@PathVariable String buyerEmail) {
+    public Address getAddress(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                              @PathVariable String buyerEmail) {
+        Callers.requireEmailOrFarmer(caller, buyerEmail);
         return addressRepository.findByBuyerEmail(buyerEmail).orElse(null);
     }
 
-    // Save or update address
+    // Save or update the signed-in buyer's address; buyerEmail defaults to the caller's
     @PostMapping("/save")
-    public Address saveAddress(@RequestBody Address address) {
+    public Address saveAddress(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                               @RequestBody Address address) {
+        if (address.getBuyerEmail() == null || address.getBuyerEmail().isBlank()) {
+            address.setBuyerEmail(Callers.require(caller).email());
+        }
+        Callers.requireEmail(caller, address.getBuyerEmail());
         Optional<Address> existing = addressRepository.findByBuyerEmail(address.getBuyerEmail());
         if (existing.isPresent()) {
             Address addr = existing.get();
@@ -42,9 +52,11 @@ public class AddressController {
         }
     }
 
-    // Delete address by buyer email
+    // Delete address by buyer email: only the buyer themselves
     @DeleteMapping("/{buyerEmail}")
-    public String deleteAddress(@PathVariable String buyerEmail) {
+    public String deleteAddress(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                @PathVariable String buyerEmail) {
+        Callers.requireEmail(caller, buyerEmail);
         Optional<Address> existing = addressRepository.findByBuyerEmail(buyerEmail);
         if (existing.isPresent()) {
             addressRepository.delete(existing.get());
@@ -0,0 +1,65 @@
+package com.farmermarket.backend.controller;
+
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.jdbc.ConnectionWaitStats;
+import com.farmermarket.backend.logging.RequestTraceBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Operational counters and traces, for farmers only
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminController {
+
+    private final RequestTraceBuffer traces;
+    private final CatalogCache catalogCache;
+    private final ConnectionWaitStats connectionWaits;
+
+    public AdminController(RequestTraceBuffer traces, CatalogCache catalogCache,
+                           ConnectionWaitStats connectionWaits) {
+        this.traces = traces;
+        this.catalogCache = catalogCache;
+        this.connectionWaits = connectionWaits;
+    }
+
+    // -------------------------------------------
+    // Most recent request traces, newest first
+    // GET /api/admin/traces?limit=100
+    // -------------------------------------------
+    @GetMapping("/traces")
+    public ResponseEntity<List<RequestTraceBuffer.Trace>> getRecentTraces(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(defaultValue = "100") int limit) {
+        Callers.requireFarmer(caller);
+        return ResponseEntity.ok(traces.recent(limit));
+    }
+
+    // -------------------------------------------
+    // Catalog cache hit/miss/eviction counters per region
+    // GET /api/admin/cache
+    // -------------------------------------------
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller) {
+        Callers.requireFarmer(caller);
+        return ResponseEntity.ok(catalogCache.stats());
+    }
+
+    // -------------------------------------------
+    // JDBC connection acquires and waits per pool since startup
+    // GET /api/admin/jdbc
+    // -------------------------------------------
+    @GetMapping("/jdbc")
+    public ResponseEntity<Map<String, Map<String, Object>>> getConnectionWaits(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller) {
+        Callers.requireFarmer(caller);
+        return ResponseEntity.ok(connectionWaits.stats());
+    }
+}
@@ -0,0 +1,110 @@
+package com.farmermarket.backend.controller;
+
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.service.AnalyticsService;
+import com.farmermarket.backend.service.AnalyticsService.TopBy;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.function.BiFunction;
+
+/**
+ * Sales reports served from the daily rollups. Every endpoint takes an optional
+ * from/to date range (yyyy-MM-dd, inclusive), defaulting to the last 30 days. Farmers only.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AnalyticsController {
+
+    static final int DEFAULT_DAYS = 30;
+    static final int MAX_DAYS = 366;
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // -------------------------------------------
+    // Best-selling products
+    // GET /api/analytics/top-products?from=&to=&by=revenue|units&limit=10
+    // -------------------------------------------
+    @GetMapping("/top-products")
+    public ResponseEntity<?> getTopProducts(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "revenue") String by,
+            @RequestParam(defaultValue = "10") int limit) {
+        Callers.requireFarmer(caller);
+        TopBy order;
+        try {
+            order = TopBy.valueOf(by.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown ranking: " + by);
+        }
+        int size = Math.min(Math.max(limit, 1), 100);
+        return inRange(from, to, (f, t) -> analyticsService.getTopProducts(f, t, order, size));
+    }
+
+    // -------------------------------------------
+    // Daily revenue / units / orders, store-wide or for one product or category
+    // GET /api/analytics/trend?from=&to=&productId=&category=
+    // -------------------------------------------
+    @GetMapping("/trend")
+    public ResponseEntity<?> getTrend(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String category) {
+        Callers.requireFarmer(caller);
+        return inRange(from, to, (f, t) -> analyticsService.getTrend(f, t, productId, category));
+    }
+
+    // -------------------------------------------
+    // Totals per product category
+    // GET /api/analytics/categories?from=&to=
+    // -------------------------------------------
+    @GetMapping("/categories")
+    public ResponseEntity<?> getCategorySales(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Callers.requireFarmer(caller);
+        return inRange(from, to, analyticsService::getCategorySales);
+    }
+
+    // -------------------------------------------
+    // Totals per delivery district (heatmap)
+    // GET /api/analytics/districts?from=&to=
+    // -------------------------------------------
+    @GetMapping("/districts")
+    public ResponseEntity<?> getDistrictSales(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Callers.requireFarmer(caller);
+        return inRange(from, to, analyticsService::getDistrictSales);
+    }
+
+    private static ResponseEntity<?> inRange(LocalDate from, LocalDate to,
+                                             BiFunction<LocalDate, LocalDate, ?> report) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from must not be after to.");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+            return ResponseEntity.badRequest().body("Date range is limited to " + MAX_DAYS + " days.");
+        }
+        return ResponseEntity.ok(report.apply(start, end));
+    }
+}
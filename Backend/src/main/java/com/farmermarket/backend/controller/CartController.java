@@ -0,0 +1,131 @@
+package com.farmermarket.backend.controller;
+
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.jdbc.ReplicaReads;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.service.CartService;
+import com.farmermarket.backend.service.IdempotencyKeyReusedException;
+import com.farmermarket.backend.service.InsufficientStockException;
+import com.farmermarket.backend.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cart")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = ReplicaReads.PRIMARY_UNTIL_HEADER)
+public class CartController {
+
+    private static final Logger log = LoggerFactory.getLogger(CartController.class);
+
+    private final CartService cartService;
+    private final OrderService orderService;
+
+    public CartController(CartService cartService, OrderService orderService) {
+        this.cartService = cartService;
+        this.orderService = orderService;
+    }
+
+    public record AddRequest(String buyerEmail, Long productId, Integer quantity) {}
+
+    // -------------------------------------------
+    // Buyer adds a product to their cart. Every cart route is for the signed-in buyer's own cart.
+    // POST /api/cart/add  {buyerEmail, productId, quantity}   (buyerEmail defaults to the caller's)
+    // -------------------------------------------
+    @PostMapping("/add")
+    public ResponseEntity<?> addToCart(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                       @RequestBody AddRequest request) {
+        String email = request.buyerEmail() == null || request.buyerEmail().isBlank()
+                ? Callers.require(caller).email() : request.buyerEmail();
+        Callers.requireEmail(caller, email);
+        if (request.productId() == null) {
+            return ResponseEntity.badRequest().body("productId is required.");
+        }
+        int quantity = request.quantity() != null ? request.quantity() : 1;
+        if (quantity < 1) {
+            return ResponseEntity.badRequest().body("quantity must be at least 1.");
+        }
+        try {
+            return cartService.addItem(email, request.productId(), quantity)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // -------------------------------------------
+    // Buyer's cart with server-side prices and totals
+    // GET /api/cart/{email}
+    // -------------------------------------------
+    @GetMapping("/{email}")
+    public ResponseEntity<CartService.CartView> getCart(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                       @PathVariable String email) {
+        Callers.requireEmail(caller, email);
+        return ResponseEntity.ok(cartService.getCart(email));
+    }
+
+    // PUT /api/cart/{email}/items/{productId}?quantity=3  (0 removes the line)
+    @PutMapping("/{email}/items/{productId}")
+    public ResponseEntity<?> updateQuantity(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @PathVariable String email,
+            @PathVariable Long productId,
+            @RequestParam int quantity) {
+        Callers.requireEmail(caller, email);
+        try {
+            return cartService.updateQuantity(email, productId, quantity)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{email}/items/{productId}")
+    public ResponseEntity<CartService.CartView> removeItem(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                          @PathVariable String email, @PathVariable Long productId) {
+        Callers.requireEmail(caller, email);
+        return ResponseEntity.ok(cartService.removeItem(email, productId));
+    }
+
+    @DeleteMapping("/{email}")
+    public ResponseEntity<Void> clearCart(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                          @PathVariable String email) {
+        Callers.requireEmail(caller, email);
+        cartService.clear(email);
+        return ResponseEntity.noContent().build();
+    }
+
+    // -------------------------------------------
+    // Turn the cart into an order
+    // POST /api/cart/{email}/checkout  body: shipping and payment details
+    // Items, prices and totals are taken from the cart, not the request.
+    // A repeated Idempotency-Key returns the order placed by the first request (422 if the details differ).
+    // -------------------------------------------
+    @PostMapping("/{email}/checkout")
+    public ResponseEntity<?> checkout(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                      @PathVariable String email, @RequestBody Order details,
+                                      @RequestHeader(value = OrderController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        Callers.requireEmail(caller, email);
+        if (idempotencyKey != null && idempotencyKey.length() > OrderController.MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(OrderController.IDEMPOTENCY_KEY + " must be at most "
+                    + OrderController.MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+        try {
+            Order order = cartService.checkout(email, details, idempotencyKey);
+            return ResponseEntity.ok(orderService.toDTO(order));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.info("Checkout rejected for [{}]: {}", email, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.farmermarket.backend.controller;
+
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.dto.DashboardDTO;
+import com.farmermarket.backend.service.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "http://localhost:5173")
+public class DashboardController {
+
+    static final int MAX_RECENT = 20;
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // -------------------------------------------
+    // Buyer overview: product total, order counts by status, newest pending orders
+    // GET /api/dashboard/buyer/{email}?recent=3
+    // -------------------------------------------
+    @GetMapping("/buyer/{email}")
+    public ResponseEntity<DashboardDTO> getBuyerDashboard(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                          @PathVariable String email,
+                                                          @RequestParam(defaultValue = "3") int recent) {
+        Callers.requireEmailOrFarmer(caller, email);
+        return ResponseEntity.ok(dashboardService.getBuyerDashboard(email, clampRecent(recent)));
+    }
+
+    // -------------------------------------------
+    // Farmer overview: the same figures store-wide
+    // GET /api/dashboard/farmer?recent=5
+    // -------------------------------------------
+    @GetMapping("/farmer")
+    public ResponseEntity<DashboardDTO> getFarmerDashboard(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                           @RequestParam(defaultValue = "5") int recent) {
+        Callers.requireFarmer(caller);
+        return ResponseEntity.ok(dashboardService.getFarmerDashboard(clampRecent(recent)));
+    }
+
+    private static int clampRecent(int recent) {
+        return Math.min(Math.max(recent, 0), MAX_RECENT);
+    }
+}
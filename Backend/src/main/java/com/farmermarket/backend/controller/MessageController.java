@@ -1,32 +1,59 @@
 package com.farmermarket.backend.controller;
 
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.model.ConversationSummary;
 import com.farmermarket.backend.model.Message;
 import com.farmermarket.backend.service.MessageService;
+import com.farmermarket.backend.storage.AttachmentStore;
+import com.farmermarket.backend.storage.ImageVariant;
+import com.farmermarket.backend.storage.ImageVariantProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/messages")
-@CrossOrigin(origins = "http://localhost:5173")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = "X-Next-Cursor")
 public class MessageController {
 
-    private final MessageService service;
-    private static final String UPLOAD_DIR = "uploads/messages/";
+    private static final Logger log = LoggerFactory.getLogger(MessageController.class);
 
-    public MessageController(MessageService service) {
+    private final MessageService service;
+    private final AttachmentStore attachments;
+    private final ImageVariantProcessor variantProcessor;
+    private static final int MAX_PAGE_SIZE = 200;
+    // senderRole of messages written by the farmer
+    static final String ADMIN_SENDER = "admin";
+
+    public MessageController(MessageService service, AttachmentStore attachments,
+                             ImageVariantProcessor variantProcessor) {
         this.service = service;
+        this.attachments = attachments;
+        this.variantProcessor = variantProcessor;
     }
 
+    // A buyer writes in their own conversation as "buyer"; the farmer replies in any as "admin"
     @PostMapping("/send")
     public ResponseEntity<?> sendMessage(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
             @RequestParam("buyerName") String buyerName,
             @RequestParam("buyerEmail") String buyerEmail,
             @RequestParam("senderRole") String senderRole,
@@ -34,27 +61,35 @@ public class MessageController {
             @RequestParam(value = "message", required = false) String message,
             @RequestParam(value = "image", required = false) MultipartFile image) {
 
+        if (Callers.isFarmer(Callers.require(caller))) {
+            if (!ADMIN_SENDER.equals(senderRole)) {
+                return ResponseEntity.badRequest().body("senderRole must be " + ADMIN_SENDER + ".");
+            }
+        } else {
+            Callers.requireEmail(caller, buyerEmail);
+            if (!caller.role().equals(senderRole)) {
+                return ResponseEntity.badRequest().body("senderRole must be " + caller.role() + ".");
+            }
+        }
+
         try {
             String imagePath = null;
 
-            // ✅ Handle image upload
+            // ✅ Handle image upload: streamed to disk, type checked from the file's own bytes
             if (image != null && !image.isEmpty()) {
-                String contentType = image.getContentType();
-                if (contentType == null || !contentType.startsWith("image/")) {
-                    return ResponseEntity.badRequest().body("Only image files are allowed.");
+                AttachmentStore.StoredAttachment stored;
+                try (InputStream in = image.getInputStream()) {
+                    stored = attachments.store(in);
+                } catch (AttachmentStore.RejectedAttachmentException e) {
+                    return ResponseEntity.badRequest().body(e.getMessage());
                 }
 
-                // Ensure upload directory exists
-                File dir = new File(UPLOAD_DIR);
-                if (!dir.exists()) dir.mkdirs();
-
-                // Save with unique name
-                String uniqueName = UUID.randomUUID() + "_" + image.getOriginalFilename();
-                Path path = Paths.get(UPLOAD_DIR + uniqueName);
-                Files.write(path, image.getBytes());
+                // Downscaled renditions are written next to the original in the background
+                String name = stored.name();
+                variantProcessor.submit(stored.path(),
+                        (variant, ext) -> attachments.variantPath(name, variant, ext));
 
-                // Store relative path for frontend
-                imagePath = "/uploads/messages/" + uniqueName;
+                imagePath = MessageService.ATTACHMENT_URL_PREFIX + name;
             }
 
             // Create message object
@@ -70,18 +105,126 @@ public class MessageController {
             return ResponseEntity.ok(saved);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error sending message for [{}]", buyerEmail, e);
             return ResponseEntity.internalServerError().body("Error sending message: " + e.getMessage());
         }
     }
 
+    // ?since=<id> returns only messages newer than the last one the client has
+    // ?size=<n>[&before=<id>] returns the newest n messages (older than before), oldest first
     @GetMapping("/buyer/{email}")
-    public ResponseEntity<List<Message>> getBuyerMessages(@PathVariable String email) {
-        return ResponseEntity.ok(service.getBuyerMessages(email));
+    public ResponseEntity<List<Message>> getBuyerMessages(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                          @PathVariable String email,
+                                                          @RequestParam(required = false) Long since,
+                                                          @RequestParam(required = false) Long before,
+                                                          @RequestParam(required = false) Integer size) {
+        Callers.requireEmailOrFarmer(caller, email);
+        if (since != null) {
+            return ResponseEntity.ok(service.getBuyerMessagesSince(email, since));
+        }
+        if (size == null && before == null) {
+            return ResponseEntity.ok(service.getBuyerMessages(email));
+        }
+        int pageSize = Math.min(Math.max(size != null ? size : 50, 1), MAX_PAGE_SIZE);
+        List<Message> page = service.getBuyerMessagesPage(email, before, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(page.get(0).getId()));
+        }
+        return response.body(page);
+    }
+
+    // -------------------------------------------
+    // Farmer inbox: one row per buyer, most recent conversation first
+    // GET /api/messages/inbox?before=<lastMessageId>&size=50
+    // -------------------------------------------
+    @GetMapping("/inbox")
+    public ResponseEntity<List<ConversationSummary>> getInbox(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                              @RequestParam(required = false) Long before,
+                                                              @RequestParam(defaultValue = "50") int size) {
+        Callers.requireFarmer(caller);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ConversationSummary> page = service.getInbox(before, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).getLastMessageId()));
+        }
+        return response.body(page);
+    }
+
+    @PutMapping("/inbox/{email}/read")
+    public ResponseEntity<Void> markConversationRead(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                     @PathVariable String email) {
+        Callers.requireFarmer(caller);
+        service.markConversationRead(email);
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/admin")
-    public ResponseEntity<List<Message>> getAllMessages() {
+    public ResponseEntity<List<Message>> getAllMessages(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                        @RequestParam(required = false) Long since) {
+        Callers.requireFarmer(caller);
+        if (since != null) {
+            return ResponseEntity.ok(service.getMessagesSince(since));
+        }
         return ResponseEntity.ok(service.getAllMessages());
     }
+
+    // -------------------------------------------
+    // Attachment download, streamed from disk; Range requests get 206 partial content
+    // GET /api/messages/attachments/{name}?size=thumb|card|full
+    // -------------------------------------------
+    @GetMapping("/attachments/{name:.+}")
+    public ResponseEntity<Resource> getAttachment(@PathVariable String name,
+                                                  @RequestParam(required = false) String size,
+                                                  WebRequest request) throws IOException {
+        Optional<Path> original = attachments.find(name);
+        if (original.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ImageVariant variant = ImageVariant.fromParam(size);
+        Path path = original.get();
+        String etag = name;
+        if (variant != null) {
+            Optional<Path> scaled = attachments.findVariant(name, variant);
+            if (scaled.isPresent()) {
+                path = scaled.get();
+                etag = name + "-" + variant.suffix();
+            } else {
+                // Not generated yet (or an upload from before the pipeline): serve the original, uncached
+                variantProcessor.submit(path,
+                        (v, ext) -> attachments.variantPath(name, v, ext));
+                etag = null;
+            }
+        }
+
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        if (etag != null ? request.checkNotModified(etag, lastModified) : request.checkNotModified(lastModified)) {
+            return null;
+        }
+        CacheControl cacheControl = etag != null
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(attachments.contentTypeOf(path)))
+                .header("Accept-Ranges", "bytes")
+                .body(new FileSystemResource(path));
+    }
+
+    // Server-Sent Events: one "message" event per new message in the buyer's conversation.
+    // EventSource cannot send headers, so the streams take the token as ?access_token=
+    @GetMapping(path = "/stream/buyer/{email}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBuyerMessages(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                          @PathVariable String email) {
+        Callers.requireEmailOrFarmer(caller, email);
+        return service.subscribeBuyer(email);
+    }
+
+    // Server-Sent Events: every new message, for the farmer inbox
+    @GetMapping(path = "/stream/admin", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllMessages(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller) {
+        Callers.requireFarmer(caller);
+        return service.subscribeAdmin();
+    }
 }
@@ -1,107 +1,273 @@
 package com.farmermarket.backend.controller;
 
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.dto.OrderDTO;
+import com.farmermarket.backend.dto.OrderSummaryDTO;
+import com.farmermarket.backend.jdbc.ReplicaReads;
 import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.model.OrderStatusEvent;
+import com.farmermarket.backend.service.IdempotencyKeyReusedException;
+import com.farmermarket.backend.service.InsufficientStockException;
+import com.farmermarket.backend.service.OrderArchiveService;
 import com.farmermarket.backend.service.OrderService;
+import com.farmermarket.backend.service.OrderStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/orders")
-@CrossOrigin(origins = "http://localhost:5173")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = {"X-Next-Cursor", ReplicaReads.PRIMARY_UNTIL_HEADER})
 public class OrderController {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    // ?view=summary drops the items (and address) for list views
+    static final String SUMMARY_VIEW = "summary";
+
     private final OrderService orderService;
+    private final OrderArchiveService archiveService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderArchiveService archiveService) {
         this.orderService = orderService;
+        this.archiveService = archiveService;
     }
 
     // -------------------------------------------
-    // Buyer places a new order
-    // POST /api/orders
+    // Buyer places a new order; the order number, prices and total are set by the server
+    // POST /api/orders   (optional Idempotency-Key header makes retries safe;
+    // reusing a key for a different order is 422). buyerEmail defaults to the caller's.
+    // Items need a productId and a quantity of at least 1, otherwise 400.
     // -------------------------------------------
     @PostMapping
-    public ResponseEntity<Order> placeOrder(@RequestBody Order order) {
-        System.out.println("=== POST /api/orders ===");
-        System.out.println("Received order for: " + order.getBuyerEmail());
+    public ResponseEntity<?> placeOrder(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                        @RequestBody Order order,
+                                        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (order.getBuyerEmail() == null || order.getBuyerEmail().isBlank()) {
+            order.setBuyerEmail(Callers.require(caller).email());
+        }
+        Callers.requireEmail(caller, order.getBuyerEmail());
+        log.debug("POST /api/orders for [{}]", order.getBuyerEmail());
 
-        Order savedOrder = orderService.placeOrder(order);
-        return ResponseEntity.ok(savedOrder);
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(IDEMPOTENCY_KEY + " must be at most "
+                    + MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+        try {
+            Order savedOrder = orderService.placeClientOrder(order, idempotencyKey);
+            return ResponseEntity.ok(orderService.toDTO(savedOrder));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        }
     }
 
     // -------------------------------------------
-    // Buyer fetches their orders
-    // GET /api/orders/buyer/{email}
+    // Buyer fetches their orders, newest first
+    // GET /api/orders/buyer/{email}?beforeId=&size=&view=summary
+    // X-Next-Cursor holds the beforeId for the next page
     // -------------------------------------------
     @GetMapping("/buyer/{email}")
-    public ResponseEntity<List<Order>> getBuyerOrders(@PathVariable String email) {
-        System.out.println("========================================");
-        System.out.println("=== GET /api/orders/buyer/{email} ===");
-        System.out.println("Received email parameter: [" + email + "]");
-        System.out.println("Email length: " + email.length());
-        System.out.println("Email bytes: " + java.util.Arrays.toString(email.getBytes()));
-        System.out.println("========================================");
+    public ResponseEntity<List<?>> getBuyerOrders(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @PathVariable String email,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String view) {
+        Callers.requireEmailOrFarmer(caller, email);
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            List<OrderSummaryDTO> summaries = orderService.getBuyerOrderSummaries(email, beforeId, pageSize);
+            return page(summaries, pageSize, s -> s.id);
+        }
+        List<OrderDTO> orders = orderService.getBuyerOrders(email, beforeId, pageSize);
 
-        List<Order> orders = orderService.getBuyerOrders(email);
+        log.debug("Returning {} order(s) for [{}]", orders.size(), email);
 
-        System.out.println("Returning " + orders.size() + " orders");
-        System.out.println("========================================");
+        return page(orders, pageSize, o -> o.id);
+    }
 
-        return ResponseEntity.ok(orders);
+    private static <T> ResponseEntity<List<?>> page(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(idOf.apply(rows.get(rows.size() - 1))));
+        }
+        return response.body(rows);
     }
 
     // -------------------------------------------
-    // Farmer fetches all pending orders
-    // GET /api/orders/pending
+    // Farmer works through the pending queue, oldest first
+    // GET /api/orders/pending?after=&size=&view=summary
+    // X-Next-Cursor holds the after= value for the next page
     // -------------------------------------------
     @GetMapping("/pending")
-    public ResponseEntity<List<Order>> getPendingOrders() {
-        List<Order> pendingOrders = orderService.getAllPendingOrders();
-        return ResponseEntity.ok(pendingOrders);
+    public ResponseEntity<?> getPendingOrders(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String view) {
+        Callers.requireFarmer(caller);
+        Optional<OrderService.Cursor> cursor = OrderService.Cursor.parse(after);
+        if (after != null && cursor.isEmpty()) {
+            return ResponseEntity.badRequest().body("Invalid cursor.");
+        }
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        if (SUMMARY_VIEW.equalsIgnoreCase(view)) {
+            List<OrderSummaryDTO> summaries = orderService.getPendingOrderSummaries(cursor.orElse(null), pageSize);
+            return queuePage(summaries, pageSize, s -> new OrderService.Cursor(s.orderDate, s.id));
+        }
+        List<OrderDTO> orders = orderService.getPendingOrders(cursor.orElse(null), pageSize);
+        return queuePage(orders, pageSize, o -> new OrderService.Cursor(o.orderDate, o.id));
+    }
+
+    private static <T> ResponseEntity<List<?>> queuePage(List<T> rows, int pageSize,
+                                                         Function<T, OrderService.Cursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() == pageSize) {
+            response.header("X-Next-Cursor", cursorOf.apply(rows.get(rows.size() - 1)).toString());
+        }
+        return response.body(rows);
+    }
+
+    // -------------------------------------------
+    // Farmer polls for changes to the pending queue instead of reloading it
+    // GET /api/orders/pending/changes?since=
+    // Without since= only the starting cursor is returned; pass each response's cursor back.
+    // -------------------------------------------
+    @GetMapping("/pending/changes")
+    public ResponseEntity<?> getPendingChanges(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                               @RequestParam(required = false) String since,
+                                               @RequestParam(defaultValue = "200") int limit) {
+        Callers.requireFarmer(caller);
+        Optional<OrderService.Cursor> cursor = OrderService.Cursor.parse(since);
+        if (since != null && cursor.isEmpty()) {
+            return ResponseEntity.badRequest().body("Invalid cursor.");
+        }
+        int pageLimit = Math.min(Math.max(limit, 1), 500);
+        return ResponseEntity.ok(orderService.getPendingChanges(cursor.orElse(null), pageLimit));
     }
 
     // -------------------------------------------
-    // Farmer updates order status (confirm/reject)
-    // PUT /api/orders/status/{orderId}?status=confirmed
+    // Farmer updates order status (confirm/reject/dispatch/deliver)
+    // PUT /api/orders/status/{orderId}?status=confirmed&version=
+    // 409 if the transition is not allowed, or if version is given and the order has changed since
     // -------------------------------------------
     @PutMapping("/status/{orderId}")
-    public ResponseEntity<Order> updateStatus(
+    public ResponseEntity<?> updateStatus(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
             @PathVariable String orderId,
-            @RequestParam String status) {
+            @RequestParam String status,
+            @RequestParam(required = false) Long version) {
+        Callers.requireFarmer(caller);
 
-        Order updatedOrder = orderService.updateOrderStatus(orderId, status);
-        if (updatedOrder == null) {
-            return ResponseEntity.notFound().build();
+        Optional<OrderStatus> target = OrderStatus.parse(status);
+        if (target.isEmpty()) {
+            return ResponseEntity.badRequest().body("Unknown status: " + status);
+        }
+        try {
+            return orderService.updateOrderStatus(orderId, target.get(), version)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (OrderStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
-        return ResponseEntity.ok(updatedOrder);
     }
 
     // -------------------------------------------
-    // Buyer cancels an order
+    // Buyer cancels their order (while Pending or Confirmed); the farmer may cancel any
     // DELETE /api/orders/cancel/{orderId}
     // -------------------------------------------
     @DeleteMapping("/cancel/{orderId}")
-    public ResponseEntity<Void> cancelOrder(@PathVariable String orderId) {
-        boolean cancelled = orderService.cancelOrder(orderId);
-        if (!cancelled) {
+    public ResponseEntity<?> cancelOrder(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                         @PathVariable String orderId) {
+        try {
+            boolean cancelled = orderService.cancelOrder(orderId, buyerScope(caller));
+            if (!cancelled) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().build();
+        } catch (OrderStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // -------------------------------------------
+    // Append-only status log for downstream consumers
+    // GET /api/orders/events?after=&limit=   (pass the last id seen as after=)
+    // -------------------------------------------
+    @GetMapping("/events")
+    public ResponseEntity<List<OrderStatusEvent>> getStatusEvents(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        Callers.requireFarmer(caller);
+        return ResponseEntity.ok(orderService.getStatusEvents(after, Math.min(Math.max(limit, 1), 1000)));
+    }
+
+    // -------------------------------------------
+    // Status history of one order
+    // GET /api/orders/{orderId}/history
+    // -------------------------------------------
+    @GetMapping("/{orderId}/history")
+    public ResponseEntity<List<OrderStatusEvent>> getStatusHistory(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                                   @PathVariable String orderId) {
+        String buyer = buyerScope(caller);
+        if (buyer != null && !orderService.isBuyerOf(orderId, buyer) && !archiveService.isBuyerOf(orderId, buyer)) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(orderService.getStatusHistory(orderId));
+    }
+
+    // -------------------------------------------
+    // Buyer fetches their archived (closed, older) orders, newest first
+    // GET /api/orders/archive/buyer/{email}?beforeId=&size=
+    // -------------------------------------------
+    @GetMapping("/archive/buyer/{email}")
+    public ResponseEntity<List<?>> getBuyerArchive(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @PathVariable String email,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size) {
+        Callers.requireEmailOrFarmer(caller, email);
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        return page(archiveService.getBuyerArchive(email, beforeId, pageSize), pageSize, o -> o.id);
     }
 
     // -------------------------------------------
-    // Fetch order by ID (optional, helpful for testing)
+    // Fetch an archived order by ID
+    // GET /api/orders/archive/{orderId}
+    // -------------------------------------------
+    @GetMapping("/archive/{orderId}")
+    public ResponseEntity<OrderDTO> getArchivedOrder(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                     @PathVariable String orderId) {
+        return archiveService.getArchivedOrder(orderId, buyerScope(caller))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // -------------------------------------------
+    // Fetch order by ID: the buyer's own orders, or any for the farmer
     // GET /api/orders/{orderId}
     // -------------------------------------------
     @GetMapping("/{orderId}")
-    public ResponseEntity<Order> getOrderById(@PathVariable String orderId) {
-        Order order = orderService.getOrderById(orderId);
-        if (order == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(order);
+    public ResponseEntity<OrderDTO> getOrderById(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                                 @PathVariable String orderId) {
+        return orderService.getOrderById(orderId, buyerScope(caller))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // -------------------------------------------
@@ -109,17 +275,14 @@ public class OrderController {
     // GET /api/orders/debug/all
     // -------------------------------------------
     @GetMapping("/debug/all")
-    public ResponseEntity<List<Order>> getAllOrdersDebug() {
-        System.out.println("=== DEBUG: Fetching ALL orders ===");
-        List<Order> allOrders = orderService.getAllOrders();
-        System.out.println("Total orders in database: " + allOrders.size());
-
-        allOrders.forEach(order -> {
-            System.out.println("Order ID: " + order.getOrderId() +
-                    " | Email: [" + order.getBuyerEmail() + "]" +
-                    " | Status: " + order.getStatus());
-        });
-
+    public ResponseEntity<List<OrderDTO>> getAllOrdersDebug(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller) {
+        Callers.requireFarmer(caller);
+        List<OrderDTO> allOrders = orderService.getAllOrders();
         return ResponseEntity.ok(allOrders);
     }
+
+    // Orders a caller may see by id: a buyer only their own (null: the farmer, any order)
+    private static String buyerScope(AuthUser caller) {
+        return Callers.isFarmer(Callers.require(caller)) ? null : caller.email();
+    }
 }
\ No newline at end of file
@@ -1,48 +1,167 @@
 package com.farmermarket.backend.controller;
 
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.dto.BulkImportResult;
 import com.farmermarket.backend.dto.ProductDTO;
 import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.service.ProductBulkService;
 import com.farmermarket.backend.service.ProductService;
+import com.farmermarket.backend.service.StockChangedException;
+import com.farmermarket.backend.storage.ImageVariant;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/products")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "X-Next-Cursor")
 public class ProductController {
 
     private final ProductService service;
+    private final ProductBulkService bulkService;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service, ProductBulkService bulkService) {
         this.service = service;
+        this.bulkService = bulkService;
     }
 
-    // Create product
+    // Create product (farmers only, as are the other catalog writes, import and export)
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ProductDTO> createProduct(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
             @RequestParam String name,
             @RequestParam Product.Category category,
             @RequestParam Double price,
             @RequestParam(required = false) String description,
+            @RequestParam(required = false) Integer stock,
             @RequestPart(required = false) MultipartFile image
     ) throws Exception {
-        Product p = service.saveProduct(name, category, price, description, image);
-        ProductDTO dto = toDTO(p);
+        Callers.requireFarmer(caller);
+        if (stock != null && stock < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Product p = service.saveProduct(name, category, price, description, stock, image);
+        ProductDTO dto = service.toDTO(p);
         return ResponseEntity.created(URI.create("/api/products/" + p.getId())).body(dto);
     }
 
-    // List all products
+    // Bulk import: a CSV (header row) or NDJSON file, plus an optional zip of the images its rows name
+    // POST /api/products/bulk   multipart: file, images (optional), format=csv|ndjson (default: by file name)
+    // Invalid rows are skipped and listed in the result; the rest are saved
+    @PostMapping(path = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importProducts(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestPart MultipartFile file,
+            @RequestPart(required = false) MultipartFile images,
+            @RequestParam(required = false) String format
+    ) throws Exception {
+        Callers.requireFarmer(caller);
+        Optional<ProductBulkService.Format> detected =
+                ProductBulkService.Format.detect(format, file.getOriginalFilename());
+        if (detected.isEmpty()) {
+            return ResponseEntity.badRequest().body("Unknown format: " + format);
+        }
+        try {
+            BulkImportResult result = bulkService.importProducts(file, images, detected.get());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Export the whole catalog, streamed row by row
+    // GET /api/products/export?format=csv|ndjson
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestParam(defaultValue = "csv") String format) {
+        Callers.requireFarmer(caller);
+        Optional<ProductBulkService.Format> detected = ProductBulkService.Format.detect(format, null);
+        if (detected.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductBulkService.Format f = detected.get();
+        return ResponseEntity.ok()
+                .contentType(f.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + f.extension()).build().toString())
+                .body(out -> bulkService.exportProducts(f, out));
+    }
+
+    // List all products (conditional: 304 when the client's ETag is current)
+    // GET /api/products
+    // Any of category/minPrice/maxPrice/sort/after/limit switches to one filtered page read from the database:
+    // GET /api/products?category=&minPrice=&maxPrice=&sort=newest|price&after=&limit=
+    // X-Next-Cursor holds the after= value for the next page
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> listProducts() {
-        List<Product> products = service.listAll();
-        List<ProductDTO> dtos = products.stream().map(this::toDTO).collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<?> listProducts(
+            WebRequest request,
+            @RequestParam(required = false) Product.Category category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (category != null || minPrice != null || maxPrice != null || sort != null || after != null || limit != null) {
+            Optional<ProductService.ListingSort> order = ProductService.ListingSort.parse(sort);
+            if (order.isEmpty()) {
+                return ResponseEntity.badRequest().body("Unknown sort: " + sort);
+            }
+            int size = Math.min(Math.max(limit != null ? limit : 50, 1), 200);
+            List<Product> products;
+            try {
+                products = service.listProducts(category, minPrice, maxPrice, order.get(), after, size);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (products.size() == size) {
+                response.header("X-Next-Cursor",
+                        ProductService.listingCursor(products.get(products.size() - 1), order.get()));
+            }
+            return response.body(products.stream().map(service::toDTO).toList());
+        }
+
+        CatalogCache.Listing listing = service.listAllDTOs();
+        if (request.checkNotModified(listing.etag())) {
+            return null;
+        }
+        // checkNotModified has already written the ETag header
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(listing.products());
+    }
+
+    // Typeahead search served from the in-memory index
+    // GET /api/products/search?q=&category=&minPrice=&maxPrice=&page=&size=
+    @GetMapping("/search")
+    public ResponseEntity<Page<ProductDTO>> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Product.Category category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+        Page<Product> results = service.search(q, category, minPrice, maxPrice, pageable);
+        return ResponseEntity.ok(results.map(service::toDTO));
     }
 
     // Get single product
@@ -51,61 +170,92 @@ public class ProductController {
         Optional<Product> optionalProduct = service.findById(id);
         if (optionalProduct.isPresent()) {
             Product p = optionalProduct.get();
-            return ResponseEntity.ok(toDTO(p));
+            return ResponseEntity.ok(service.toDTO(p));
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
-    // Get product image
+    // Get product image (streamed from the image store)
+    // GET /api/products/{id}/image?size=thumb|card|full (omit size for the original upload)
+    // The content hash is the ETag, so revalidation answers 304 before any image bytes are read.
+    // Requests carrying the current ?v= version are cacheable for a year.
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id) {
+    public ResponseEntity<Resource> getImage(@PathVariable Long id,
+                                             @RequestParam(required = false) String v,
+                                             @RequestParam(required = false) String size,
+                                             WebRequest request) {
         Optional<Product> optionalProduct = service.findById(id);
         if (optionalProduct.isPresent()) {
             Product p = optionalProduct.get();
-            if (p.getImage() == null) {
+            if (p.getImageKey() == null) {
                 return ResponseEntity.notFound().build();
             }
+            Optional<ProductService.ProductImage> resolved = service.resolveImage(p, ImageVariant.fromParam(size));
+            if (resolved.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            ProductService.ProductImage image = resolved.get();
+
+            long lastModified = p.getUpdatedAt() != null
+                    ? p.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : -1;
+            if (request.checkNotModified(image.etag(), lastModified)) {
+                return null;
+            }
+
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(p.getImageContentType()));
-            headers.setContentLength(p.getImage().length);
-            return new ResponseEntity<>(p.getImage(), headers, HttpStatus.OK);
+            headers.setContentType(image.contentType() != null
+                    ? MediaType.parseMediaType(image.contentType())
+                    : MediaType.APPLICATION_OCTET_STREAM);
+            if (image.size() >= 0) {
+                headers.setContentLength(image.size());
+            }
+            // ETag and Last-Modified were written by checkNotModified.
+            // A fallback original must not be cached forever under a variant URL.
+            headers.setCacheControl(ProductService.imageVersion(p).equals(v) && !image.fallback()
+                    ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                    : CacheControl.noCache());
+            return new ResponseEntity<>(service.openImage(image), headers, HttpStatus.OK);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
     // Update product
+    // Omit stock to leave it unchanged. To change it, send stockWas too: the stock the form was loaded
+    // with (omitted if it was not tracked). 409 when stock has moved since, e.g. through orders.
     @PutMapping(path = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ProductDTO> updateProduct(
+    public ResponseEntity<?> updateProduct(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
             @PathVariable Long id,
             @RequestParam String name,
             @RequestParam Product.Category category,
             @RequestParam Double price,
             @RequestParam(required = false) String description,
+            @RequestParam(required = false) Integer stock,
+            @RequestParam(required = false) Integer stockWas,
             @RequestPart(required = false) MultipartFile image
     ) throws Exception {
-        Product p = service.updateProduct(id, name, category, price, description, image);
-        return ResponseEntity.ok(toDTO(p));
+        Callers.requireFarmer(caller);
+        if (stock != null && stock < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Product p = service.updateProduct(id, name, category, price, description, stock, stockWas, image);
+            return ResponseEntity.ok(service.toDTO(p));
+        } catch (StockChangedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
     // Delete product
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteProduct(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @PathVariable Long id) {
+        Callers.requireFarmer(caller);
         service.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-
-    // Convert Product to ProductDTO
-    private ProductDTO toDTO(Product p) {
-        String imageUrl = (p.getImage() != null) ? "/api/products/" + p.getId() + "/image" : null;
-        return new ProductDTO(
-                p.getId(),
-                p.getName(),
-                p.getCategory().name(),
-                p.getPrice(),
-                p.getDescription(),
-                imageUrl
-        );
-    }
 }
@@ -1,64 +1,127 @@
 package com.farmermarket.backend.controller;
 
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.TokenAuthFilter;
+import com.farmermarket.backend.auth.TokenService;
+import com.farmermarket.backend.dto.LoginDTO;
+import com.farmermarket.backend.dto.UserDTO;
 import com.farmermarket.backend.model.User;
-import com.farmermarket.backend.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.farmermarket.backend.service.UserService;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
-    @Autowired
-    private UserRepository userRepository;
+    private final UserService userService;
+    private final TokenService tokenService;
+
+    public UserController(UserService userService, TokenService tokenService) {
+        this.userService = userService;
+        this.tokenService = tokenService;
+    }
 
     // Registration
     @PostMapping("/register")
-    public User registerUser(@RequestBody User user) {
-        if(user.getRole() == null || (!user.getRole().equals("farmer") && !user.getRole().equals("buyer"))) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Role must be 'farmer' or 'buyer'");
+    public CompletableFuture<UserDTO> registerUser(@RequestBody User user) {
+        try {
+            return mapErrors(userService.register(user).thenApply(UserDTO::new));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
+    }
 
-        if(userRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already exists");
-        }
+    // Login: the account plus a bearer token; the password check runs on the hashing pool
+    @PostMapping("/login")
+    public CompletableFuture<LoginDTO> loginUser(@RequestBody User user) {
+        return mapErrors(userService.login(user.getEmail(), user.getPassword()).thenApply(found -> found
+                .map(u -> new LoginDTO(u, tokenService.issue(u)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password"))));
+    }
 
-        return userRepository.save(user);
+    // The signed-in user, from the token's id
+    @GetMapping("/me")
+    public UserDTO getCurrentUser(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller) {
+        return userService.findById(Callers.require(caller).id())
+                .map(UserDTO::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
-    // Login
-    @PostMapping("/login")
-    public User loginUser(@RequestBody User user) {
-        Optional<User> existingUser = userRepository.findByEmail(user.getEmail());
-        if(existingUser.isPresent() && existingUser.get().getPassword().equals(user.getPassword())) {
-            return existingUser.get();
-        } else {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password");
-        }
+    // Update the signed-in user; a blank password keeps the current one. Returns a fresh token.
+    @PutMapping("/me")
+    public CompletableFuture<LoginDTO> updateCurrentUser(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @RequestBody User updatedUser) {
+        return update(Callers.require(caller).id(), updatedUser);
     }
 
-    // Get user details by email
+    // Get user details by email: the user themselves, or the farmer
     @GetMapping("/{email}")
-    public User getUserByEmail(@PathVariable String email) {
-        return userRepository.findByEmail(email)
+    public UserDTO getUserByEmail(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                                  @PathVariable String email) {
+        Callers.requireEmailOrFarmer(caller, email);
+        return userService.findByEmail(email)
+                .map(UserDTO::new)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
-    // Update user details
+    // Farmer grants or takes back the farmer role: PUT /api/users/{email}/role?role=farmer|buyer
+    @PutMapping("/{email}/role")
+    public UserDTO setRole(@RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+                           @PathVariable String email, @RequestParam String role) {
+        Callers.requireFarmer(caller);
+        try {
+            return userService.setRole(email, role)
+                    .map(UserDTO::new)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Update user details: only the signed-in owner of that email may do this
     @PutMapping("/update/{email}")
-    public User updateUser(@PathVariable String email, @RequestBody User updatedUser) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public CompletableFuture<LoginDTO> updateUser(
+            @RequestAttribute(name = TokenAuthFilter.AUTH_USER, required = false) AuthUser caller,
+            @PathVariable String email, @RequestBody User updatedUser) {
+        return update(Callers.requireEmail(caller, email).id(), updatedUser);
+    }
 
-        user.setName(updatedUser.getName());
-        user.setEmail(updatedUser.getEmail());
-        user.setPassword(updatedUser.getPassword());
+    private CompletableFuture<LoginDTO> update(Long id, User updatedUser) {
+        try {
+            return mapErrors(userService.update(id, updatedUser.getName(), updatedUser.getEmail(), updatedUser.getPassword())
+                    .thenApply(found -> found
+                            .map(u -> new LoginDTO(u, tokenService.issue(u)))
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
-        return userRepository.save(user);
+    // Failures inside the future: a full hashing queue is 503, bad input 400
+    private static <T> CompletableFuture<T> mapErrors(CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                cause = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-ins, try again shortly");
+            } else if (cause instanceof IllegalArgumentException) {
+                cause = new ResponseStatusException(HttpStatus.BAD_REQUEST, cause.getMessage());
+            }
+            result.completeExceptionally(cause);
+        });
+        return result;
     }
 }
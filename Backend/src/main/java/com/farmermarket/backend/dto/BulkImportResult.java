@@ -0,0 +1,26 @@
+package com.farmermarket.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of POST /api/products/bulk; rows are numbered from 1, not counting the CSV header
+public class BulkImportResult {
+    public int created;
+    public int updated;
+    public int failed;
+    public List<RowError> errors = new ArrayList<>();
+    // More rows failed than are listed in errors
+    public boolean errorsTruncated;
+
+    public static class RowError {
+        public long row;
+        public String error;
+
+        public RowError() {}
+
+        public RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+    }
+}
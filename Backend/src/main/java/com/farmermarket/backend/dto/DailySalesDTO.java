@@ -0,0 +1,24 @@
+package com.farmermarket.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One point of a sales trend
+public class DailySalesDTO {
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    public LocalDate date;
+
+    public BigDecimal revenue;
+    public long units;
+    public long orders;
+
+    public DailySalesDTO() {}
+
+    public DailySalesDTO(LocalDate date, BigDecimal revenue, Long units, Long orders) {
+        this.date = date;
+        this.revenue = revenue;
+        this.units = units != null ? units : 0;
+        this.orders = orders != null ? orders : 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.farmermarket.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Everything a dashboard overview shows, in one response
+public class DashboardDTO {
+    public long totalProducts;
+    public long totalOrders;
+    // Status label ("Pending", ...) to count; every status is listed
+    public Map<String, Long> ordersByStatus;
+    // Newest pending orders first
+    public List<OrderSummaryDTO> recentPending;
+
+    public DashboardDTO() {}
+
+    public DashboardDTO(long totalProducts, long totalOrders, Map<String, Long> ordersByStatus,
+                        List<OrderSummaryDTO> recentPending) {
+        this.totalProducts = totalProducts;
+        this.totalOrders = totalOrders;
+        this.ordersByStatus = ordersByStatus;
+        this.recentPending = recentPending;
+    }
+}
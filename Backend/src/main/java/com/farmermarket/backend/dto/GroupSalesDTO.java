@@ -0,0 +1,20 @@
+package com.farmermarket.backend.dto;
+
+import java.math.BigDecimal;
+
+// Totals for one category or district over a date range
+public class GroupSalesDTO {
+    public String name;
+    public BigDecimal revenue;
+    public long units;
+    public long orders;
+
+    public GroupSalesDTO() {}
+
+    public GroupSalesDTO(String name, BigDecimal revenue, Long units, Long orders) {
+        this.name = name;
+        this.revenue = revenue;
+        this.units = units != null ? units : 0;
+        this.orders = orders != null ? orders : 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.farmermarket.backend.dto;
+
+import com.farmermarket.backend.repository.UserRepository.Account;
+
+// Login / profile-update response: the account plus a bearer token for later requests
+public class LoginDTO extends UserDTO {
+    public String token;
+
+    public LoginDTO() {}
+
+    public LoginDTO(Account account, String token) {
+        super(account);
+        this.token = token;
+    }
+}
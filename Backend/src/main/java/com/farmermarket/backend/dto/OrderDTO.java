@@ -1,13 +1,19 @@
 package com.farmermarket.backend.dto;
 
+import com.farmermarket.backend.model.OrderStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// An order as the orders panels render it
 public class OrderDTO {
+    // Keyset cursor only; not sent to clients
+    @JsonIgnore
+    public Long id;
+
     public String orderId;
-    public String buyerEmail;
     public String firstName;
     public String lastName;
     public String phone;
@@ -15,10 +21,11 @@ public class OrderDTO {
     public String district;
     public String city;
     public String address;
-    public String payment;
     public BigDecimal deliveryFee;
     public BigDecimal total;
-    public String status;
+    public OrderStatus status;
+    // Send back as ?version= on status changes to refuse them if the order changed meanwhile
+    public Long version;
 
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     public LocalDateTime orderDate;
@@ -0,0 +1,31 @@
+package com.farmermarket.backend.dto;
+
+import com.farmermarket.backend.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Order header for list views (?view=summary): selected as a projection, items are never loaded
+public class OrderSummaryDTO {
+    // Keyset cursor only; not sent to clients
+    @JsonIgnore
+    public Long id;
+
+    public String orderId;
+    public OrderStatus status;
+    public BigDecimal total;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    public LocalDateTime orderDate;
+
+    public OrderSummaryDTO() {}
+
+    public OrderSummaryDTO(Long id, String orderId, OrderStatus status, BigDecimal total, LocalDateTime orderDate) {
+        this.id = id;
+        this.orderId = orderId;
+        this.status = status;
+        this.total = total;
+        this.orderDate = orderDate;
+    }
+}
@@ -7,6 +7,7 @@ public class ProductDTO {
     private Double price;
     private String description;
     private String imageUrl;
+    private Integer stock;
 
     public ProductDTO() {}
 
@@ -19,6 +20,12 @@ public class ProductDTO {
         this.imageUrl = imageUrl;
     }
 
+    public ProductDTO(Long id, String name, String category, Double price, String description, String imageUrl,
+                      Integer stock) {
+        this(id, name, category, price, description, imageUrl);
+        this.stock = stock;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -37,4 +44,7 @@ public class ProductDTO {
 
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
 }
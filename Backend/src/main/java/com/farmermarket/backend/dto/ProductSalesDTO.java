@@ -0,0 +1,25 @@
+package com.farmermarket.backend.dto;
+
+import java.math.BigDecimal;
+
+// One product's totals over a date range, selected from sales_daily_product
+public class ProductSalesDTO {
+    public Long productId;
+    public String productName;
+    public String category;
+    public BigDecimal revenue;
+    public long units;
+    public long orders;
+
+    public ProductSalesDTO() {}
+
+    public ProductSalesDTO(Long productId, String productName, String category, BigDecimal revenue,
+                           Long units, Long orders) {
+        this.productId = productId;
+        this.productName = productName;
+        this.category = category;
+        this.revenue = revenue;
+        this.units = units != null ? units : 0;
+        this.orders = orders != null ? orders : 0;
+    }
+}
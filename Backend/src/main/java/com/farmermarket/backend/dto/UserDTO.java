@@ -0,0 +1,20 @@
+package com.farmermarket.backend.dto;
+
+import com.farmermarket.backend.repository.UserRepository.Account;
+
+// An account as the API shows it: never includes the password hash
+public class UserDTO {
+    public Long id;
+    public String name;
+    public String email;
+    public String role;
+
+    public UserDTO() {}
+
+    public UserDTO(Account account) {
+        this.id = account.id();
+        this.name = account.name();
+        this.email = account.email();
+        this.role = account.role();
+    }
+}
@@ -0,0 +1,124 @@
+package com.farmermarket.backend.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long callers wait for a JDBC connection, per pool, for GET /api/admin/jdbc and the
+ * HTTP load test.
+ *
+ * Wraps each Hikari pool after JdbcConcurrencyGovernor, so in virtual-thread mode the time
+ * spent queued for a governor permit counts too. An acquire taking a millisecond or more is
+ * counted as a wait: handing out an idle connection takes microseconds.
+ */
+@Component
+public class ConnectionWaitStats implements BeanPostProcessor, Ordered {
+
+    private static final long WAIT_NANOS = 1_000_000;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource ds && isHikari(ds)) {
+            Pool pool = pools.computeIfAbsent(beanName, n -> new Pool());
+            return new TimedDataSource(ds, pool);
+        }
+        return bean;
+    }
+
+    /**
+     * Counters per pool since startup: acquires, waits, waitMs (total), maxWaitMs, and waiting
+     * (callers blocked in getConnection right now).
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        pools.forEach((name, pool) -> {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("acquires", pool.acquires.sum());
+            s.put("waits", pool.waits.sum());
+            s.put("waitMs", pool.waitNanos.sum() / 1_000_000);
+            s.put("maxWaitMs", pool.maxWaitNanos.get() / 1_000_000);
+            s.put("waiting", pool.waiting.get());
+            result.put(name, s);
+        });
+        return result;
+    }
+
+    private static boolean isHikari(DataSource ds) {
+        try {
+            return ds instanceof HikariDataSource || ds.isWrapperFor(HikariDataSource.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static final class Pool {
+        final LongAdder acquires = new LongAdder();
+        final LongAdder waits = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        final AtomicInteger waiting = new AtomicInteger();
+
+        void record(long nanos) {
+            acquires.increment();
+            if (nanos >= WAIT_NANOS) {
+                waits.increment();
+                waitNanos.add(nanos);
+                maxWaitNanos.accumulate(nanos);
+            }
+        }
+    }
+
+    private static final class TimedDataSource extends DelegatingDataSource {
+
+        private final Pool pool;
+
+        TimedDataSource(DataSource target, Pool pool) {
+            super(target);
+            this.pool = pool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            pool.waiting.incrementAndGet();
+            try {
+                return super.getConnection();
+            } finally {
+                pool.waiting.decrementAndGet();
+                pool.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long start = System.nanoTime();
+            pool.waiting.incrementAndGet();
+            try {
+                return super.getConnection(username, password);
+            } finally {
+                pool.waiting.decrementAndGet();
+                pool.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
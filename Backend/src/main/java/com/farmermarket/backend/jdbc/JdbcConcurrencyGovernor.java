@@ -0,0 +1,141 @@
+package com.farmermarket.backend.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many threads may hold or wait for a JDBC connection.
+ *
+ * On platform threads Tomcat's pool (200 threads) bounds how many requests can reach the
+ * database at once. With spring.threads.virtual.enabled every request gets its own thread,
+ * so a burst would pile up thousands of waiters inside Hikari, all timing out together.
+ * Here a connection is only requested after taking one of as many permits as the pool has
+ * connections. Callers wait for a permit at most app.jdbc.governor.acquire-timeout-ms, and
+ * once app.jdbc.governor.max-waiting are already queued new ones fail at once. The permit
+ * is returned when the connection is closed.
+ *
+ * Only installed in virtual-thread mode.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class JdbcConcurrencyGovernor implements BeanPostProcessor, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcConcurrencyGovernor.class);
+
+    private final long acquireTimeoutMs;
+    private final int maxWaiting;
+
+    public JdbcConcurrencyGovernor(@Value("${app.jdbc.governor.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                                   @Value("${app.jdbc.governor.max-waiting:1000}") int maxWaiting) {
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxWaiting = maxWaiting;
+    }
+
+    // Before ConnectionWaitStats, so time spent waiting for a permit is measured as a pool wait
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // Runs after the spring.datasource.hikari.* settings are bound, so the pool size is final
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource hikari) {
+            int permits = hikari.getMaximumPoolSize();
+            log.info("JDBC governor on {}: {} permits, at most {} waiting", beanName, permits, maxWaiting);
+            return new GovernedDataSource(hikari, permits, acquireTimeoutMs, maxWaiting);
+        }
+        return bean;
+    }
+
+    static final class GovernedDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutMs;
+        private final int maxWaiting;
+
+        GovernedDataSource(DataSource target, int permits, long acquireTimeoutMs, int maxWaiting) {
+            super(target);
+            this.permits = new Semaphore(permits, true);
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            this.maxWaiting = maxWaiting;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasingOnClose(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            if (permits.getQueueLength() >= maxWaiting) {
+                throw new SQLTransientConnectionException("Too many requests waiting for a database connection.");
+            }
+            try {
+                if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "No database connection available within " + acquireTimeoutMs + " ms.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted waiting for a database connection.", e);
+            }
+        }
+
+        private Connection releasingOnClose(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("equals")) {
+                            return proxy == args[0];
+                        }
+                        if (method.getName().equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.farmermarket.backend.jdbc;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Read-only transactions for service reads, run on the replica pool when one is configured
+ * (app.datasource.replica.url) and on the primary otherwise.
+ *
+ * Only uncached reads belong here: a cache filled from a lagging replica would keep the
+ * stale value after the write that invalidated it. Reads called inside a running
+ * transaction join it and stay on its connection.
+ *
+ * Read-your-writes: a request that writes (places or cancels an order) answers with an
+ * X-Read-Primary-Until header, app.datasource.replica.sticky-ms from now in epoch millis.
+ * The client sends it back on its following requests, whichever instance serves them, and
+ * their reads go to the primary until then. A value further ahead than sticky-ms is ignored,
+ * so a client cannot pin itself to the primary.
+ */
+@Component
+public class ReplicaReads {
+
+    public static final String PRIMARY_UNTIL_HEADER = "X-Read-Primary-Until";
+
+    private final TransactionTemplate readOnlyTx;
+    private final long stickyMs;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ReplicaReads(PlatformTransactionManager txManager,
+                        @Value("${app.datasource.replica.sticky-ms:5000}") long stickyMs) {
+        this(txManager, stickyMs, System::currentTimeMillis);
+    }
+
+    ReplicaReads(PlatformTransactionManager txManager, long stickyMs, LongSupplier clock) {
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.stickyMs = stickyMs;
+        this.clock = clock;
+    }
+
+    // On the replica, unless the current request carries an unexpired X-Read-Primary-Until
+    public <T> T read(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        if (readsPrimary()) {
+            return readOnlyTx.execute(status -> work.get());
+        }
+        return ReplicaRoutingDataSource.onReplica(() -> readOnlyTx.execute(status -> work.get()));
+    }
+
+    // Always on the primary: for reads that must agree with a cursor or state taken from it
+    public <T> T readPrimary(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        return readOnlyTx.execute(status -> work.get());
+    }
+
+    // Send this client's reads to the primary for the sticky window
+    public void stickToPrimary() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader(PRIMARY_UNTIL_HEADER, Long.toString(clock.getAsLong() + stickyMs));
+            }
+        }
+    }
+
+    private boolean readsPrimary() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        String header = request.getHeader(PRIMARY_UNTIL_HEADER);
+        if (header == null) {
+            return false;
+        }
+        long until;
+        try {
+            until = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        return until > now && until - now <= stickyMs;
+    }
+}
@@ -0,0 +1,46 @@
+package com.farmermarket.backend.jdbc;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections while ReplicaReads is running read-only work on the
+ * current thread, primary connections otherwise.
+ *
+ * The choice is made when a connection is taken, i.e. when a transaction starts; work that
+ * joins a running transaction stays on that transaction's connection, so writes never reach
+ * the replica.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> ON_REPLICA = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    static <T> T onReplica(Supplier<T> work) {
+        Boolean previous = ON_REPLICA.get();
+        ON_REPLICA.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                ON_REPLICA.remove();
+            } else {
+                ON_REPLICA.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Boolean.TRUE.equals(ON_REPLICA.get()) ? Target.REPLICA : Target.PRIMARY;
+    }
+}
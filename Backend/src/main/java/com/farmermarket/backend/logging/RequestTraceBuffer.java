@@ -0,0 +1,47 @@
+package com.farmermarket.backend.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer of the most recent API requests.
+ * Writers claim a slot with a single atomic increment, so recording never blocks a request thread.
+ */
+@Component
+public class RequestTraceBuffer {
+
+    public record Trace(String requestId, String method, String path, int status,
+                        long durationMs, Instant startedAt) {}
+
+    private final AtomicReferenceArray<Trace> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public RequestTraceBuffer(@Value("${app.tracing.buffer-size:500}") int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(capacity, 1));
+    }
+
+    public void record(Trace trace) {
+        long seq = next.getAndIncrement();
+        slots.set((int) (seq % slots.length()), trace);
+    }
+
+    /**
+     * Most recent traces first, at most limit entries.
+     */
+    public List<Trace> recent(int limit) {
+        long end = next.get();
+        int count = (int) Math.min(Math.min(end, slots.length()), Math.max(limit, 0));
+        List<Trace> result = new ArrayList<>(count);
+        for (long seq = end - 1; seq >= end - count; seq--) {
+            Trace t = slots.get((int) (seq % slots.length()));
+            if (t != null) result.add(t);
+        }
+        return result;
+    }
+}
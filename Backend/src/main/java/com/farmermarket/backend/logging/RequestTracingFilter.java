@@ -0,0 +1,106 @@
+package com.farmermarket.backend.logging;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every /api request a correlation id (taken from X-Request-Id or generated),
+ * puts it in the MDC for the duration of the request, echoes it back on the response
+ * and records a trace in the RequestTraceBuffer.
+ *
+ * A request that went async (CompletableFuture results, SSE streams) is recorded when its
+ * async processing completes, so the trace has the final status and the full duration.
+ *
+ * Several endpoints take a buyer's email as a path segment; it is replaced with "{email}"
+ * in the recorded path and the debug line, so traces carry no personal data.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTracingFilter.class);
+    // A path segment containing '@', raw or percent-encoded
+    private static final Pattern EMAIL_SEGMENT = Pattern.compile("[^/]*(@|%40)[^/]*");
+
+    private final RequestTraceBuffer traces;
+
+    public RequestTracingFilter(RequestTraceBuffer traces) {
+        this.traces = traces;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isBlank() || requestId.length() > 64) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        MDC.put(MDC_KEY, requestId);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                String id = requestId;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(id, request, response, start, startedAt);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            } else {
+                record(requestId, request, response, start, startedAt);
+            }
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    private void record(String requestId, HttpServletRequest request, HttpServletResponse response,
+                        long start, Instant startedAt) {
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        String path = redact(request.getRequestURI());
+        traces.record(new RequestTraceBuffer.Trace(requestId, request.getMethod(), path,
+                response.getStatus(), durationMs, startedAt));
+        log.debug("{} {} -> {} in {} ms", request.getMethod(), path, response.getStatus(), durationMs);
+    }
+
+    static String redact(String path) {
+        return EMAIL_SEGMENT.matcher(path).replaceAll("{email}");
+    }
+}
@@ -0,0 +1,31 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * How far a rollup has read the order_status_events log. The row is locked while a batch
+ * is applied, so instances take turns and every event is counted exactly once.
+ * The archive job keeps a row here too, used only as that lock.
+ */
+@Entity
+@Table(name = "analytics_watermarks")
+public class AnalyticsWatermark {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    protected AnalyticsWatermark() {}
+
+    public AnalyticsWatermark(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    public long getLastEventId() { return lastEventId; }
+    public void setLastEventId(long lastEventId) { this.lastEventId = lastEventId; }
+}
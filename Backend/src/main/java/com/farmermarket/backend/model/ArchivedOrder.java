@@ -0,0 +1,80 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A closed order moved out of the live orders table by OrderArchiveService.
+ * Keeps the original id, without the columns only live orders need
+ * (version, idempotency key); read-only once written.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_buyer_email_id", columnList = "buyer_email, id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", unique = true, nullable = false)
+    private String orderId;
+
+    @Column(name = "buyer_email", nullable = false)
+    private String buyerEmail;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    private String phone;
+    private String province;
+    private String district;
+    private String city;
+    private String address;
+    private String payment;
+
+    @Column(name = "delivery_fee")
+    private BigDecimal deliveryFee;
+
+    private BigDecimal total;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private OrderStatus status;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    // When the order reached its final status
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    public Long getId() { return id; }
+    public String getOrderId() { return orderId; }
+    public String getBuyerEmail() { return buyerEmail; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getPhone() { return phone; }
+    public String getProvince() { return province; }
+    public String getDistrict() { return district; }
+    public String getCity() { return city; }
+    public String getAddress() { return address; }
+    public String getPayment() { return payment; }
+    public BigDecimal getDeliveryFee() { return deliveryFee; }
+    public BigDecimal getTotal() { return total; }
+    public OrderStatus getStatus() { return status; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public LocalDateTime getClosedAt() { return closedAt; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
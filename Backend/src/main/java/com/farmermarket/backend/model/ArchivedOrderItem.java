@@ -0,0 +1,37 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * An item of an ArchivedOrder; order_id refers to orders_archive.id as it did to orders.id.
+ */
+@Entity
+@Table(name = "order_items_archive", indexes = {
+        @Index(name = "idx_order_items_archive_order_id", columnList = "order_id")
+})
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long archivedOrderId;
+
+    private Long productId;
+    private String productName;
+    private String category;
+    private BigDecimal price;
+    private Integer quantity;
+    private String imageUrl;
+
+    public Long getId() { return id; }
+    public Long getArchivedOrderId() { return archivedOrderId; }
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public String getCategory() { return category; }
+    public BigDecimal getPrice() { return price; }
+    public Integer getQuantity() { return quantity; }
+    public String getImageUrl() { return imageUrl; }
+}
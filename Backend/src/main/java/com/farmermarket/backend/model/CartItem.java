@@ -0,0 +1,74 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Persistent copy of a cart line. The live cart is held in memory by CartService
+ * and written here in the background, so a restart does not empty anyone's cart.
+ */
+@Entity
+@Table(name = "cart_items", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cart_items_buyer_product", columnNames = {"buyer_email", "product_id"})
+})
+public class CartItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "buyer_email", nullable = false)
+    private String buyerEmail;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private String productName;
+    private String category;
+
+    // Price when the product was added; checkout charges this while the hold is live
+    @Column(precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    private Integer quantity;
+    private String imageUrl;
+    private LocalDateTime heldUntil;
+    // When unitPrice was taken; holds are not renewed past app.cart.max-hold-minutes after it
+    private LocalDateTime pricedAt;
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBuyerEmail() { return buyerEmail; }
+    public void setBuyerEmail(String buyerEmail) { this.buyerEmail = buyerEmail; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public LocalDateTime getHeldUntil() { return heldUntil; }
+    public void setHeldUntil(LocalDateTime heldUntil) { this.heldUntil = heldUntil; }
+
+    public LocalDateTime getPricedAt() { return pricedAt; }
+    public void setPricedAt(LocalDateTime pricedAt) { this.pricedAt = pricedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
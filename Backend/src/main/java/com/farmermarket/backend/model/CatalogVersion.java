@@ -0,0 +1,34 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Single-row version stamp, bumped on every catalog write.
+ * Backend instances poll it to invalidate their local caches.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    public CatalogVersion() {}
+
+    public CatalogVersion(Long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
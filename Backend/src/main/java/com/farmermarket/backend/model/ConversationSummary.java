@@ -0,0 +1,59 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One row per buyer conversation, kept current by MessageService.save
+ * so the farmer inbox never has to scan the messages table.
+ */
+@Entity
+@Table(name = "conversation_summaries", indexes = {
+        @Index(name = "idx_conversation_last_message", columnList = "last_message_id")
+})
+public class ConversationSummary {
+
+    public static final int PREVIEW_LENGTH = 200;
+
+    @Id
+    @Column(name = "buyer_email")
+    private String buyerEmail;
+
+    private String buyerName;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(length = PREVIEW_LENGTH)
+    private String lastMessage;
+
+    private String lastSenderRole;
+
+    private LocalDateTime lastActivity;
+
+    // Buyer messages the farmer has not read yet
+    @Column(nullable = false)
+    private int unreadCount;
+
+    // Getters and Setters
+    public String getBuyerEmail() { return buyerEmail; }
+    public void setBuyerEmail(String buyerEmail) { this.buyerEmail = buyerEmail; }
+
+    public String getBuyerName() { return buyerName; }
+    public void setBuyerName(String buyerName) { this.buyerName = buyerName; }
+
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+
+    public String getLastMessage() { return lastMessage; }
+    public void setLastMessage(String lastMessage) { this.lastMessage = lastMessage; }
+
+    public String getLastSenderRole() { return lastSenderRole; }
+    public void setLastSenderRole(String lastSenderRole) { this.lastSenderRole = lastSenderRole; }
+
+    public LocalDateTime getLastActivity() { return lastActivity; }
+    public void setLastActivity(LocalDateTime lastActivity) { this.lastActivity = lastActivity; }
+
+    public int getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+}
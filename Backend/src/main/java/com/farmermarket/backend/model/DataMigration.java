@@ -0,0 +1,27 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker for a one-time data fix that has been applied to this database, so it does not run
+ * (and scan its tables) again on later starts.
+ */
+@Entity
+@Table(name = "data_migrations")
+public class DataMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+
+    protected DataMigration() {}
+
+    public String getName() { return name; }
+
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+}
@@ -1,18 +1,31 @@
 package com.farmermarket.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_buyer_email_id", columnList = "buyer_email, id"),
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"),
+        @Index(name = "idx_orders_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_orders_status_updated_at", columnList = "status, updated_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_orders_buyer_idempotency", columnNames = {"buyer_email", "idempotency_key"})
+})
 public class Order {
 
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", unique = true, nullable = false)
@@ -40,13 +53,39 @@ public class Order {
     private BigDecimal deliveryFee;
 
     private BigDecimal total;
-    private String status;
+
+    // VARCHAR rather than a native ENUM column so new states do not need an ALTER TABLE
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private OrderStatus status;
 
     @Column(name = "order_date", nullable = false)
     private LocalDateTime orderDate;
 
+    // Last insert or status change; drives the pending-orders change feed
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Optimistic lock: status changes are conditional on the version the caller read
+    @Version
+    private Long version;
+
+    // Client's Idempotency-Key for the request that created this order
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    // Digest of that request's payload, so a key reused for a different order can be refused
+    @JsonIgnore
+    @Column(name = "idempotency_fingerprint", length = 32)
+    private String idempotencyFingerprint;
+
+    // Lazy: list views never touch items, detail queries join-fetch them,
+    // and anything else loads them for up to 50 orders per IN query
     @JsonManagedReference
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<OrderItem> items = new ArrayList<>();
 
     @PrePersist
@@ -55,8 +94,14 @@ public class Order {
             orderDate = LocalDateTime.now();
         }
         if (status == null) {
-            status = "Pending";
+            status = OrderStatus.PENDING;
         }
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 
     // Getters and Setters
@@ -99,12 +144,24 @@ public class Order {
     public BigDecimal getTotal() { return total; }
     public void setTotal(BigDecimal total) { this.total = total; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
 
     public LocalDateTime getOrderDate() { return orderDate; }
     public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
 
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getIdempotencyFingerprint() { return idempotencyFingerprint; }
+    public void setIdempotencyFingerprint(String idempotencyFingerprint) { this.idempotencyFingerprint = idempotencyFingerprint; }
+
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) {
         this.items = items;
@@ -0,0 +1,75 @@
+package com.farmermarket.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Order lifecycle states. Stored by name (PENDING, ...); sent to clients as the
+ * label the UI has always shown ("Pending", ...).
+ *
+ * Pending -> Confirmed -> Dispatched -> Delivered, with Pending -> Rejected and
+ * Pending/Confirmed -> Cancelled. Delivered, Rejected and Cancelled are final.
+ */
+public enum OrderStatus {
+    PENDING("Pending"),
+    CONFIRMED("Confirmed"),
+    DISPATCHED("Dispatched"),
+    DELIVERED("Delivered"),
+    REJECTED("Rejected"),
+    CANCELLED("Cancelled");
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, REJECTED, CANCELLED));
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(DISPATCHED, CANCELLED));
+        TRANSITIONS.put(DISPATCHED, EnumSet.of(DELIVERED));
+        TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(REJECTED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    private final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    @JsonValue
+    public String label() {
+        return label;
+    }
+
+    public boolean canMoveTo(OrderStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    public boolean isFinal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
+
+    /**
+     * Case-insensitive lookup by name or label, e.g. "confirmed" or "Confirmed".
+     */
+    public static Optional<OrderStatus> parse(String value) {
+        if (value == null) return Optional.empty();
+        String v = value.trim();
+        for (OrderStatus s : values()) {
+            if (s.name().equalsIgnoreCase(v) || s.label.equalsIgnoreCase(v)) {
+                return Optional.of(s);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @JsonCreator
+    static OrderStatus fromJson(String value) {
+        return parse(value).orElseThrow(() -> new IllegalArgumentException("Unknown order status: " + value));
+    }
+}
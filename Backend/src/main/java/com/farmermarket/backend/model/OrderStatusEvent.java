@@ -0,0 +1,56 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * One status change of an order. Rows are only ever inserted, so consumers can follow
+ * the table by id (GET /api/orders/events?after=). Kept without a foreign key so the
+ * history outlives the order row.
+ */
+@Entity
+@Table(name = "order_status_events", indexes = {
+        @Index(name = "idx_order_status_events_order_id", columnList = "order_id, id")
+})
+public class OrderStatusEvent {
+
+    // IDENTITY so ids follow insert order, which incremental readers rely on
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private String orderId;
+
+    // Null for the event that created the order
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "from_status", length = 20, updatable = false)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "to_status", length = 20, nullable = false, updatable = false)
+    private OrderStatus toStatus;
+
+    @Column(name = "changed_at", nullable = false, updatable = false)
+    private LocalDateTime changedAt;
+
+    protected OrderStatusEvent() {}
+
+    public OrderStatusEvent(String orderId, OrderStatus fromStatus, OrderStatus toStatus, LocalDateTime changedAt) {
+        this.orderId = orderId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() { return id; }
+    public String getOrderId() { return orderId; }
+    public OrderStatus getFromStatus() { return fromStatus; }
+    public OrderStatus getToStatus() { return toStatus; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
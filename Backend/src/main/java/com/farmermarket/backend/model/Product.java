@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_created_at", columnList = "category, created_at"),
+        @Index(name = "idx_products_category_price", columnList = "category, price"),
+        @Index(name = "idx_products_created_at", columnList = "created_at"),
+        @Index(name = "idx_products_price", columnList = "price")
+})
 public class Product {
 
     public enum Category {
@@ -25,27 +30,41 @@ public class Product {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @Lob
-    @Column(name = "image", columnDefinition = "LONGBLOB")
-    private byte[] image;
+    // SHA-256 of the image bytes; the bytes themselves live in the ImageStore
+    @Column(name = "image_key", length = 64)
+    private String imageKey;
+
+    @Column(name = "image_size")
+    private Long imageSize;
 
     @Column(name = "image_content_type")
     private String imageContentType;
 
+    // Units available to sell; null means stock is not tracked for this product.
+    // Only changed by conditional UPDATEs (ProductRepository), so saving a stale copy cannot overwrite it.
+    @Column(name = "stock", updatable = false)
+    private Integer stock;
+
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
     // Constructors
     public Product() {}
 
     public Product(Long id, String name, Category category, Double price, String description,
-                   byte[] image, String imageContentType) {
+                   String imageKey, Long imageSize, String imageContentType) {
         this.id = id;
         this.name = name;
         this.category = category;
         this.price = price;
         this.description = description;
-        this.image = image;
+        this.imageKey = imageKey;
+        this.imageSize = imageSize;
         this.imageContentType = imageContentType;
     }
 
@@ -65,12 +84,18 @@ public class Product {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public byte[] getImage() { return image; }
-    public void setImage(byte[] image) { this.image = image; }
+    public String getImageKey() { return imageKey; }
+    public void setImageKey(String imageKey) { this.imageKey = imageKey; }
+
+    public Long getImageSize() { return imageSize; }
+    public void setImageSize(Long imageSize) { this.imageSize = imageSize; }
 
     public String getImageContentType() { return imageContentType; }
     public void setImageContentType(String imageContentType) { this.imageContentType = imageContentType; }
 
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
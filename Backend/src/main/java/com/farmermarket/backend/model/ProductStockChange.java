@@ -0,0 +1,40 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product whose stock changed through an order or a cancellation. Instances follow this
+ * table by id to refresh just those products' stock, instead of treating every sale as a
+ * catalog change. Rows are pruned after an hour.
+ */
+@Entity
+@Table(name = "product_stock_changes", indexes = {
+        @Index(name = "idx_product_stock_changes_changed_at", columnList = "changed_at")
+})
+public class ProductStockChange {
+
+    // IDENTITY so ids follow insert order, which incremental readers rely on
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false, updatable = false)
+    private Long productId;
+
+    // Stamped when the row is inserted
+    @Column(name = "changed_at", nullable = false, updatable = false)
+    private LocalDateTime changedAt;
+
+    protected ProductStockChange() {}
+
+    public ProductStockChange(Long productId) {
+        this.productId = productId;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
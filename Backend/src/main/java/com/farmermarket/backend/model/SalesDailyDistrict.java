@@ -0,0 +1,56 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales delivered to one district on one day (by order date), maintained by SalesRollupJob.
+ * Order-level, so it also gives exact daily totals when summed over districts.
+ */
+@Entity
+@Table(name = "sales_daily_district", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_daily_district", columnNames = {"sales_date", "district"})
+})
+public class SalesDailyDistrict {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private String district;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    protected SalesDailyDistrict() {}
+
+    public SalesDailyDistrict(LocalDate salesDate, String district) {
+        this.salesDate = salesDate;
+        this.district = district;
+    }
+
+    public void add(BigDecimal revenue, long units, long orders) {
+        this.revenue = this.revenue.add(revenue);
+        this.units += units;
+        this.orderCount += orders;
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getSalesDate() { return salesDate; }
+    public String getDistrict() { return district; }
+    public BigDecimal getRevenue() { return revenue; }
+    public long getUnits() { return units; }
+    public long getOrderCount() { return orderCount; }
+}
@@ -0,0 +1,69 @@
+package com.farmermarket.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one product on one day (by order date), maintained by SalesRollupJob.
+ * productId 0 collects items that were not linked to a product.
+ */
+@Entity
+@Table(name = "sales_daily_product", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_daily_product", columnNames = {"sales_date", "product_id"})
+})
+public class SalesDailyProduct {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    private String category;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long units;
+
+    // Orders containing the product
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    protected SalesDailyProduct() {}
+
+    public SalesDailyProduct(LocalDate salesDate, Long productId) {
+        this.salesDate = salesDate;
+        this.productId = productId;
+    }
+
+    public void add(BigDecimal revenue, long units, long orders) {
+        this.revenue = this.revenue.add(revenue);
+        this.units += units;
+        this.orderCount += orders;
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getSalesDate() { return salesDate; }
+    public Long getProductId() { return productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public long getUnits() { return units; }
+    public long getOrderCount() { return orderCount; }
+}
@@ -0,0 +1,26 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.AnalyticsWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsWatermarkRepository extends JpaRepository<AnalyticsWatermark, String> {
+
+    // SELECT ... FOR UPDATE: held until the batch that advances it commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM AnalyticsWatermark w WHERE w.name = :name")
+    Optional<AnalyticsWatermark> findForUpdate(@Param("name") String name);
+
+    // Plain insert rather than save(): a merge could overwrite a mark another instance just created
+    @Modifying
+    @Query(value = "INSERT INTO analytics_watermarks (name, last_event_id) VALUES (:name, 0)", nativeQuery = true)
+    int create(@Param("name") String name);
+}
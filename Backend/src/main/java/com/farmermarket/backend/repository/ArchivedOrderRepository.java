@@ -0,0 +1,64 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.ArchivedOrder;
+import com.farmermarket.backend.model.ArchivedOrderItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // ----- Moving closed orders out of the live tables (one batch of ids per transaction) -----
+
+    // Closed orders whose last change is older than cutoff (legacy rows without updated_at use order_date).
+    // Both branches are ranges on idx_orders_status_updated_at; no ORDER BY, so the scan stops at the limit.
+    @Query(value = "SELECT id FROM orders WHERE status IN ('DELIVERED', 'REJECTED', 'CANCELLED') "
+            + "AND (updated_at < :cutoff OR (updated_at IS NULL AND order_date < :cutoff))", nativeQuery = true)
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, order_id, buyer_email, first_name, last_name, phone, province, "
+            + "district, city, address, payment, delivery_fee, total, status, order_date, closed_at, archived_at) "
+            + "SELECT id, order_id, buyer_email, first_name, last_name, phone, province, district, city, address, "
+            + "payment, delivery_fee, total, status, order_date, COALESCE(updated_at, order_date), :now "
+            + "FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, order_id, product_id, product_name, category, price, "
+            + "quantity, image_url) "
+            + "SELECT id, order_id, product_id, product_name, category, price, quantity, image_url "
+            + "FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int copyItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteLiveItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteLiveOrders(@Param("ids") Collection<Long> ids);
+
+    // ----- Read path -----
+
+    // Keyset page of a buyer's archived orders, newest first (served by idx_orders_archive_buyer_email_id)
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.buyerEmail = :email AND o.id < :beforeId ORDER BY o.id DESC")
+    List<ArchivedOrder> findByBuyerEmail(@Param("email") String email, @Param("beforeId") Long beforeId,
+                                         Pageable pageable);
+
+    Optional<ArchivedOrder> findByOrderId(String orderId);
+
+    List<ArchivedOrder> findByOrderIdIn(Collection<String> orderIds);
+
+    @Query("SELECT i FROM ArchivedOrderItem i WHERE i.archivedOrderId IN :orderIds ORDER BY i.id")
+    List<ArchivedOrderItem> findItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
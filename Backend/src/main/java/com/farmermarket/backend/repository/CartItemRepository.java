@@ -0,0 +1,17 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    List<CartItem> findByBuyerEmail(String buyerEmail);
+
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.buyerEmail = :email")
+    int deleteByBuyerEmail(@Param("email") String email);
+}
@@ -0,0 +1,20 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CatalogVersion v SET v.version = v.version + 1 WHERE v.id = 1")
+    int bump();
+
+    @Query("SELECT v.version FROM CatalogVersion v WHERE v.id = 1")
+    Long currentVersion();
+}
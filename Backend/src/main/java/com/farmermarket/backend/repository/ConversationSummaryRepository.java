@@ -0,0 +1,53 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.ConversationSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, String> {
+
+    // Inbox page, most recently active first (keyset on last_message_id)
+    List<ConversationSummary> findByLastMessageIdLessThanOrderByLastMessageIdDesc(Long beforeId, Pageable pageable);
+
+    // First message of a conversation; a row another request created meanwhile is left alone (returns 0)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversation_summaries " +
+                   "(buyer_email, buyer_name, last_message_id, last_message, last_sender_role, last_activity, unread_count) " +
+                   "VALUES (:email, :buyerName, :messageId, :preview, :senderRole, :createdAt, :unread)",
+           nativeQuery = true)
+    int createIfAbsent(@Param("email") String email,
+                       @Param("buyerName") String buyerName,
+                       @Param("messageId") Long messageId,
+                       @Param("preview") String preview,
+                       @Param("senderRole") String senderRole,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("unread") int unread);
+
+    // Move the "last message" fields forward; a late, older message never overwrites a newer one
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET s.buyerName = :buyerName, s.lastMessageId = :messageId, " +
+           "s.lastMessage = :preview, s.lastSenderRole = :senderRole, s.lastActivity = :createdAt " +
+           "WHERE s.buyerEmail = :email AND s.lastMessageId < :messageId")
+    int advance(@Param("email") String email,
+                @Param("buyerName") String buyerName,
+                @Param("messageId") Long messageId,
+                @Param("preview") String preview,
+                @Param("senderRole") String senderRole,
+                @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET s.unreadCount = s.unreadCount + 1 WHERE s.buyerEmail = :email")
+    int incrementUnread(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE ConversationSummary s SET s.unreadCount = 0 WHERE s.buyerEmail = :email")
+    int clearUnread(@Param("email") String email);
+}
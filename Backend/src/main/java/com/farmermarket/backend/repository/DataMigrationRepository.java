@@ -0,0 +1,19 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+
+    // Plain insert rather than save(): a second instance applying the same fix must fail here
+    @Modifying
+    @Query(value = "INSERT INTO data_migrations (name, applied_at) VALUES (:name, :appliedAt)", nativeQuery = true)
+    int create(@Param("name") String name, @Param("appliedAt") LocalDateTime appliedAt);
+}
@@ -0,0 +1,52 @@
+package com.farmermarket.backend.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Runs one-time data fixes for rows written by older versions, once per database.
+ *
+ * The fix and its data_migrations row commit in one transaction, so a fix that fails is
+ * retried on the next start and one that succeeded never runs again. When two instances start
+ * together both may run it; the second marker insert fails and rolls that copy back.
+ */
+@Component
+public class DataMigrations {
+
+    private static final Logger log = LoggerFactory.getLogger(DataMigrations.class);
+
+    private final DataMigrationRepository markers;
+    private final TransactionTemplate tx;
+
+    public DataMigrations(DataMigrationRepository markers, PlatformTransactionManager txManager) {
+        this.markers = markers;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Run work unless a migration with this name has already been applied.
+     * Returns whether it ran here.
+     */
+    public boolean runOnce(String name, Runnable work) {
+        if (markers.existsById(name)) {
+            return false;
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                work.run();
+                markers.create(name, LocalDateTime.now());
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Data migration {} was applied by another instance", name);
+            return false;
+        }
+        log.info("Applied data migration {}", name);
+        return true;
+    }
+}
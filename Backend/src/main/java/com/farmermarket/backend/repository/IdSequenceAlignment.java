@@ -0,0 +1,55 @@
+package com.farmermarket.backend.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * orders and order_items used IDENTITY keys before moving to pooled sequences.
+ * On MySQL, Hibernate emulates each sequence with a one-row table that starts at 1,
+ * so before the first insert the sequence is moved past the highest existing id.
+ * Runs once per startup and is a no-op when the sequence is already ahead.
+ */
+@Component
+public class IdSequenceAlignment {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceAlignment.class);
+
+    // table -> sequence, with the allocationSize used by its @SequenceGenerator
+    private static final String[][] SEQUENCES = {
+            {"orders", "orders_seq"},
+            {"order_items", "order_items_seq"},
+    };
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbc;
+
+    // Depends on the EntityManagerFactory so the schema update has already created the tables
+    public IdSequenceAlignment(JdbcTemplate jdbc, EntityManagerFactory entityManagerFactory) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void align() {
+        for (String[] s : SEQUENCES) {
+            String table = s[0];
+            String sequence = s[1];
+            try {
+                Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (maxId == null) continue;
+                long next = maxId + ALLOCATION_SIZE + 1;
+                int updated = jdbc.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", next, next);
+                if (updated > 0) {
+                    log.info("Moved {} past existing {} ids to {}", sequence, table, next);
+                }
+            } catch (DataAccessException e) {
+                // Native sequences (not table-emulated): nothing to align
+                log.debug("Skipping id alignment for {}: {}", sequence, e.getMessage());
+            }
+        }
+    }
+}
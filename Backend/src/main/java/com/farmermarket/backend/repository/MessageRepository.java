@@ -1,9 +1,37 @@
 package com.farmermarket.backend.repository;
 
 import com.farmermarket.backend.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByBuyerEmailOrderByCreatedAtAsc(String buyerEmail);
+
+    // Incremental fetches for clients reconnecting to the message stream
+    List<Message> findByBuyerEmailAndIdGreaterThanOrderByIdAsc(String buyerEmail, Long id);
+
+    List<Message> findByIdGreaterThanOrderByIdAsc(Long id);
+
+    // Keyset page of a conversation, newest first (served by idx_messages_buyer_email_id)
+    List<Message> findByBuyerEmailAndIdLessThanOrderByIdDesc(String buyerEmail, Long beforeId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.status = 'read' WHERE m.buyerEmail = :email AND m.senderRole = 'buyer' AND m.status = 'unread'")
+    int markBuyerMessagesRead(@Param("email") String email);
+
+    // Per-buyer aggregates used to backfill conversation_summaries, keyed like the summaries are
+    @Query("SELECT LOWER(TRIM(m.buyerEmail)), MAX(m.id), SUM(CASE WHEN m.senderRole = 'buyer' AND m.status = 'unread' THEN 1 ELSE 0 END) " +
+           "FROM Message m GROUP BY LOWER(TRIM(m.buyerEmail))")
+    List<Object[]> summarizeByBuyer();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Message m SET m.imagePath = CONCAT(:newPrefix, SUBSTRING(m.imagePath, LENGTH(:oldPrefix) + 1)) " +
+           "WHERE m.imagePath LIKE CONCAT(:oldPrefix, '%')")
+    int rewriteAttachmentPaths(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix);
 }
@@ -1,29 +1,144 @@
 package com.farmermarket.backend.repository;
 
+import com.farmermarket.backend.dto.OrderSummaryDTO;
 import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    // Find orders by buyer email (case-insensitive for better matching)
-    @Query("SELECT o FROM Order o WHERE LOWER(o.buyerEmail) = LOWER(:email)")
-    List<Order> findByBuyerEmailIgnoreCase(@Param("email") String email);
+    // Replays of an Idempotency-Key (served by uk_orders_buyer_idempotency)
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.buyerEmail = :email AND o.idempotencyKey = :key")
+    Optional<Order> findByBuyerEmailAndIdempotencyKey(@Param("email") String buyerEmail, @Param("key") String idempotencyKey);
 
-    // Alternative: exact match (keep this as backup)
-    List<Order> findByBuyerEmail(String email);
+    // Keyset page of a buyer's order ids, newest first (served by idx_orders_buyer_email_id)
+    @Query("SELECT o.id FROM Order o WHERE o.buyerEmail = :email AND o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsByBuyerEmail(@Param("email") String email, @Param("beforeId") Long beforeId, Pageable pageable);
 
-    // Find orders by status
-    List<Order> findByStatusIgnoreCase(String status);
+    // Load a page of orders together with their items in one statement
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids ORDER BY o.id DESC")
+    List<Order> findWithItemsByIdIn(@Param("ids") List<Long> ids);
+
+    // Orders named by a batch of status events, with their items (served by the unique order_id index)
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.orderId IN :orderIds")
+    List<Order> findWithItemsByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    // Keyset page of a buyer's order headers, newest first; no entities or items are loaded
+    @Query("SELECT new com.farmermarket.backend.dto.OrderSummaryDTO(o.id, o.orderId, o.status, o.total, o.orderDate) "
+            + "FROM Order o WHERE o.buyerEmail = :email AND o.id < :beforeId ORDER BY o.id DESC")
+    List<OrderSummaryDTO> findSummariesByBuyerEmail(@Param("email") String email, @Param("beforeId") Long beforeId,
+                                                    Pageable pageable);
+
+    // Keyset page of a status queue, oldest first, after (afterDate, afterId)
+    // (served by idx_orders_status_order_date; InnoDB appends id to the index)
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status "
+            + "AND (o.orderDate > :afterDate OR (o.orderDate = :afterDate AND o.id > :afterId)) "
+            + "ORDER BY o.orderDate, o.id")
+    List<Long> findIdsByStatus(@Param("status") OrderStatus status, @Param("afterDate") LocalDateTime afterDate,
+                               @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.farmermarket.backend.dto.OrderSummaryDTO(o.id, o.orderId, o.status, o.total, o.orderDate) "
+            + "FROM Order o WHERE o.status = :status "
+            + "AND (o.orderDate > :afterDate OR (o.orderDate = :afterDate AND o.id > :afterId)) "
+            + "ORDER BY o.orderDate, o.id")
+    List<OrderSummaryDTO> findSummariesByStatus(@Param("status") OrderStatus status,
+                                                @Param("afterDate") LocalDateTime afterDate,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    // Orders inserted or changed after (afterTime, afterId) and no later than until, in change order
+    // (served by idx_orders_updated_at)
+    @Query("SELECT o FROM Order o WHERE o.updatedAt <= :until "
+            + "AND (o.updatedAt > :afterTime OR (o.updatedAt = :afterTime AND o.id > :afterId)) "
+            + "ORDER BY o.updatedAt, o.id")
+    List<Order> findChangedAfter(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                 @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.orderId = :orderId")
+    Optional<Order> findWithItemsByOrderId(@Param("orderId") String orderId);
+
+    // Normalize emails stored before placeOrder started doing it
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.buyerEmail = LOWER(TRIM(o.buyerEmail)) WHERE o.buyerEmail <> LOWER(TRIM(o.buyerEmail))")
+    int normalizeBuyerEmails();
+
+    // The fixes below scan the table; OrderService runs each once per database through DataMigrations
+
+    // Legacy free-text statuses ("Pending", "confirmed", ...) that need mapping onto OrderStatus names
+    @Query(value = "SELECT DISTINCT status FROM orders", nativeQuery = true)
+    List<String> findDistinctStoredStatuses();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE orders SET status = :to WHERE status = :from", nativeQuery = true)
+    int rewriteStoredStatus(@Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE orders SET status = 'PENDING' WHERE status IS NULL", nativeQuery = true)
+    int fillMissingStatus();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE orders SET version = 0 WHERE version IS NULL", nativeQuery = true)
+    int fillMissingVersion();
+
+    interface StatusView {
+        OrderStatus getStatus();
+        Long getVersion();
+        String getBuyerEmail();
+    }
+
+    // Current status and version, without loading the order or its items
+    @Query("SELECT o.status AS status, o.version AS version, o.buyerEmail AS buyerEmail "
+            + "FROM Order o WHERE o.orderId = :orderId")
+    Optional<StatusView> findStatusByOrderId(@Param("orderId") String orderId);
+
+    // Single conditional UPDATE: applies only if nobody changed the order since (from, version) was read
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.version = o.version + 1, o.updatedAt = :now "
+            + "WHERE o.orderId = :orderId AND o.status = :from AND o.version = :version")
+    int transition(@Param("orderId") String orderId, @Param("from") OrderStatus from, @Param("to") OrderStatus to,
+                   @Param("version") Long version, @Param("now") LocalDateTime now);
 
     // Find order by orderId
     Optional<Order> findByOrderId(String orderId);
 
-    List<Order> findByBuyerEmailContaining(String cleanEmail);
-}
\ No newline at end of file
+    // ----- Dashboard figures -----
+
+    interface StatusCount {
+        OrderStatus getStatus();
+        long getCount();
+    }
+
+    // Served by idx_orders_buyer_email_id
+    @Query("SELECT o.status AS status, COUNT(o) AS count FROM Order o WHERE o.buyerEmail = :email GROUP BY o.status")
+    List<StatusCount> countByStatusForBuyer(@Param("email") String email);
+
+    // Served by idx_orders_status_order_date
+    @Query("SELECT o.status AS status, COUNT(o) AS count FROM Order o GROUP BY o.status")
+    List<StatusCount> countByStatus();
+
+    // A buyer's newest orders in one status
+    @Query("SELECT new com.farmermarket.backend.dto.OrderSummaryDTO(o.id, o.orderId, o.status, o.total, o.orderDate) "
+            + "FROM Order o WHERE o.buyerEmail = :email AND o.status = :status ORDER BY o.id DESC")
+    List<OrderSummaryDTO> findRecentSummariesByBuyerEmail(@Param("email") String email,
+                                                          @Param("status") OrderStatus status, Pageable pageable);
+
+    // Newest orders in one status store-wide, read backwards along idx_orders_status_order_date
+    @Query("SELECT new com.farmermarket.backend.dto.OrderSummaryDTO(o.id, o.orderId, o.status, o.total, o.orderDate) "
+            + "FROM Order o WHERE o.status = :status ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderSummaryDTO> findRecentSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+}
@@ -0,0 +1,72 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.OrderStatusEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+
+    @Query("SELECT e FROM OrderStatusEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<OrderStatusEvent> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Incremental read of the log: events after afterId in id order, up to (not including) the
+     * first one stamped after until. Events are stamped when inserted, so a younger event may
+     * still have a lower id that has not committed; stopping there keeps a reader that moves
+     * its cursor to the last returned id from ever jumping over it.
+     */
+    default List<OrderStatusEvent> findSettledAfter(long afterId, LocalDateTime until, int limit) {
+        List<OrderStatusEvent> events = findAfter(afterId, PageRequest.of(0, limit));
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).getChangedAt().isAfter(until)) {
+                return events.subList(0, i);
+            }
+        }
+        return events;
+    }
+
+    // One order's history (served by idx_order_status_events_order_id)
+    List<OrderStatusEvent> findByOrderIdOrderByIdAsc(String orderId);
+
+    // ----- One-off: give orders placed before the log existed a history, live and archived -----
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_events (order_id, from_status, to_status, changed_at) "
+            + "SELECT o.order_id, NULL, 'PENDING', COALESCE(o.order_date, CURRENT_TIMESTAMP) FROM orders o "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_status_events e WHERE e.order_id = o.order_id)",
+            nativeQuery = true)
+    int backfillCreated();
+
+    // Run after backfillCreated: one jump to the current status for orders with no recorded transition
+    @Modifying
+    @Query(value = "INSERT INTO order_status_events (order_id, from_status, to_status, changed_at) "
+            + "SELECT o.order_id, 'PENDING', o.status, COALESCE(o.updated_at, o.order_date, CURRENT_TIMESTAMP) "
+            + "FROM orders o WHERE o.status <> 'PENDING' AND NOT EXISTS "
+            + "(SELECT 1 FROM order_status_events e WHERE e.order_id = o.order_id AND e.from_status IS NOT NULL)",
+            nativeQuery = true)
+    int backfillCurrentStatus();
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_events (order_id, from_status, to_status, changed_at) "
+            + "SELECT o.order_id, NULL, 'PENDING', COALESCE(o.order_date, o.archived_at) FROM orders_archive o "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_status_events e WHERE e.order_id = o.order_id)",
+            nativeQuery = true)
+    int backfillArchivedCreated();
+
+    @Modifying
+    @Query(value = "INSERT INTO order_status_events (order_id, from_status, to_status, changed_at) "
+            + "SELECT o.order_id, 'PENDING', o.status, COALESCE(o.closed_at, o.archived_at) FROM orders_archive o "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_status_events e "
+            + "WHERE e.order_id = o.order_id AND e.from_status IS NOT NULL)",
+            nativeQuery = true)
+    int backfillArchivedStatus();
+}
@@ -1,9 +1,93 @@
 package com.farmermarket.backend.repository;
 
 import com.farmermarket.backend.model.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Conditional decrement: 0 rows updated means not enough stock (or stock is not tracked)
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :qty WHERE p.id = :id AND p.stock >= :qty")
+    int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :qty WHERE p.id = :id AND p.stock IS NOT NULL")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Integer findStockById(@Param("id") Long id);
+
+    interface StockView {
+        Long getId();
+        Integer getStock();
+    }
+
+    @Query("SELECT p.id AS id, p.stock AS stock FROM Product p WHERE p.id IN :ids")
+    List<StockView> findStockByIds(@Param("ids") Collection<Long> ids);
+
+    // Farmer edits as compare-and-set: 0 rows updated means stock moved since the form was loaded
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :stock WHERE p.id = :id AND p.stock = :expected")
+    int replaceStock(@Param("id") Long id, @Param("stock") Integer stock, @Param("expected") int expected);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :stock WHERE p.id = :id AND p.stock IS NULL")
+    int startTrackingStock(@Param("id") Long id, @Param("stock") int stock);
+
+    // Forward-only read of the whole catalog for export; must be consumed inside a transaction.
+    // On MySQL the fetch size becomes a server-side cursor (useCursorFetch=true on the URL).
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // ----- Filtered listing: keyset pages, id breaks ties -----
+
+    // Served by idx_products_created_at
+    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice "
+            + "AND (p.createdAt < :at OR (p.createdAt = :at AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findNewest(@Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                             @Param("at") LocalDateTime beforeAt, @Param("id") long beforeId, Pageable pageable);
+
+    // Served by idx_products_category_created_at
+    @Query("SELECT p FROM Product p WHERE p.category = :category AND p.price BETWEEN :minPrice AND :maxPrice "
+            + "AND (p.createdAt < :at OR (p.createdAt = :at AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findNewestInCategory(@Param("category") Product.Category category,
+                                       @Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                                       @Param("at") LocalDateTime beforeAt, @Param("id") long beforeId, Pageable pageable);
+
+    // Served by idx_products_price
+    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice "
+            + "AND (p.price > :price OR (p.price = :price AND p.id > :id)) ORDER BY p.price ASC, p.id ASC")
+    List<Product> findCheapest(@Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                               @Param("price") double afterPrice, @Param("id") long afterId, Pageable pageable);
+
+    // Served by idx_products_category_price
+    @Query("SELECT p FROM Product p WHERE p.category = :category AND p.price BETWEEN :minPrice AND :maxPrice "
+            + "AND (p.price > :price OR (p.price = :price AND p.id > :id)) ORDER BY p.price ASC, p.id ASC")
+    List<Product> findCheapestInCategory(@Param("category") Product.Category category,
+                                         @Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                                         @Param("price") double afterPrice, @Param("id") long afterId, Pageable pageable);
+
+    // Rows from before created_at was set on insert would drop out of the newest listing
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.createdAt = COALESCE(p.updatedAt, CURRENT_TIMESTAMP) WHERE p.createdAt IS NULL")
+    int fillMissingCreatedAt();
 }
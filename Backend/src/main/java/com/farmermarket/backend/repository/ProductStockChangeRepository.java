@@ -0,0 +1,29 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.ProductStockChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductStockChangeRepository extends JpaRepository<ProductStockChange, Long> {
+
+    @Query("SELECT c FROM ProductStockChange c WHERE c.id > :afterId ORDER BY c.id")
+    List<ProductStockChange> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT MAX(c.id) FROM ProductStockChange c")
+    Long findMaxId();
+
+    // Served by idx_product_stock_changes_changed_at
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProductStockChange c WHERE c.changedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,31 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.dto.DailySalesDTO;
+import com.farmermarket.backend.dto.GroupSalesDTO;
+import com.farmermarket.backend.model.SalesDailyDistrict;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Every read below is a range scan of uk_sales_daily_district (sales_date, district)
+@Repository
+public interface SalesDailyDistrictRepository extends JpaRepository<SalesDailyDistrict, Long> {
+
+    List<SalesDailyDistrict> findBySalesDateAndDistrictIn(LocalDate salesDate, Collection<String> districts);
+
+    // Store-wide daily totals: rows are per order, so orders is exact here
+    @Query("SELECT new com.farmermarket.backend.dto.DailySalesDTO(s.salesDate, SUM(s.revenue), SUM(s.units), "
+            + "SUM(s.orderCount)) FROM SalesDailyDistrict s WHERE s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.salesDate ORDER BY s.salesDate")
+    List<DailySalesDTO> findDaily(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.farmermarket.backend.dto.GroupSalesDTO(s.district, SUM(s.revenue), SUM(s.units), "
+            + "SUM(s.orderCount)) FROM SalesDailyDistrict s WHERE s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.district HAVING SUM(s.orderCount) > 0 ORDER BY SUM(s.revenue) DESC")
+    List<GroupSalesDTO> findByDistrict(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
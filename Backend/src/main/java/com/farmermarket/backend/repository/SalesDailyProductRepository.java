@@ -0,0 +1,57 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.dto.DailySalesDTO;
+import com.farmermarket.backend.dto.GroupSalesDTO;
+import com.farmermarket.backend.dto.ProductSalesDTO;
+import com.farmermarket.backend.model.SalesDailyProduct;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// Every read below is a range scan of uk_sales_daily_product (sales_date, product_id);
+// rankings skip groups whose orders were all cancelled
+@Repository
+public interface SalesDailyProductRepository extends JpaRepository<SalesDailyProduct, Long> {
+
+    List<SalesDailyProduct> findBySalesDateAndProductIdIn(LocalDate salesDate, Collection<Long> productIds);
+
+    @Query("SELECT new com.farmermarket.backend.dto.ProductSalesDTO(s.productId, MAX(s.productName), "
+            + "MAX(s.category), SUM(s.revenue), SUM(s.units), SUM(s.orderCount)) "
+            + "FROM SalesDailyProduct s WHERE s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.productId HAVING SUM(s.orderCount) > 0 ORDER BY SUM(s.revenue) DESC, s.productId")
+    List<ProductSalesDTO> findTopByRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                           Pageable pageable);
+
+    @Query("SELECT new com.farmermarket.backend.dto.ProductSalesDTO(s.productId, MAX(s.productName), "
+            + "MAX(s.category), SUM(s.revenue), SUM(s.units), SUM(s.orderCount)) "
+            + "FROM SalesDailyProduct s WHERE s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.productId HAVING SUM(s.orderCount) > 0 ORDER BY SUM(s.units) DESC, s.productId")
+    List<ProductSalesDTO> findTopByUnits(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                         Pageable pageable);
+
+    @Query("SELECT new com.farmermarket.backend.dto.DailySalesDTO(s.salesDate, SUM(s.revenue), SUM(s.units), "
+            + "SUM(s.orderCount)) FROM SalesDailyProduct s "
+            + "WHERE s.productId = :productId AND s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.salesDate ORDER BY s.salesDate")
+    List<DailySalesDTO> findDailyForProduct(@Param("productId") Long productId, @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    // orders counts an order once per matching product it contains
+    @Query("SELECT new com.farmermarket.backend.dto.DailySalesDTO(s.salesDate, SUM(s.revenue), SUM(s.units), "
+            + "SUM(s.orderCount)) FROM SalesDailyProduct s "
+            + "WHERE s.category = :category AND s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.salesDate ORDER BY s.salesDate")
+    List<DailySalesDTO> findDailyForCategory(@Param("category") String category, @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to);
+
+    @Query("SELECT new com.farmermarket.backend.dto.GroupSalesDTO(s.category, SUM(s.revenue), SUM(s.units), "
+            + "SUM(s.orderCount)) FROM SalesDailyProduct s WHERE s.salesDate BETWEEN :from AND :to "
+            + "GROUP BY s.category HAVING SUM(s.orderCount) > 0 ORDER BY SUM(s.revenue) DESC")
+    List<GroupSalesDTO> findByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -9,4 +9,17 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    /**
+     * An account without its password hash. Immutable, so it can be cached and handed out freely.
+     */
+    record Account(Long id, String name, String email, String role, int tokenVersion) {
+        public static Account of(User user) {
+            return new Account(user.getId(), user.getName(), user.getEmail(), user.getRole(), user.getTokenVersion());
+        }
+    }
+
+    Optional<Account> findAccountById(Long id);
+
+    Optional<Account> findAccountByEmail(String email);
 }
@@ -0,0 +1,75 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.DailySalesDTO;
+import com.farmermarket.backend.dto.GroupSalesDTO;
+import com.farmermarket.backend.dto.ProductSalesDTO;
+import com.farmermarket.backend.repository.SalesDailyDistrictRepository;
+import com.farmermarket.backend.repository.SalesDailyProductRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sales reports for farmers, answered from the rollups kept by SalesRollupJob only.
+ * Figures lag live orders by one rollup run (app.analytics.rollup-ms).
+ */
+@Service
+public class AnalyticsService {
+
+    public enum TopBy { REVENUE, UNITS }
+
+    private final SalesDailyProductRepository productRollups;
+    private final SalesDailyDistrictRepository districtRollups;
+
+    public AnalyticsService(SalesDailyProductRepository productRollups,
+                            SalesDailyDistrictRepository districtRollups) {
+        this.productRollups = productRollups;
+        this.districtRollups = districtRollups;
+    }
+
+    public List<ProductSalesDTO> getTopProducts(LocalDate from, LocalDate to, TopBy by, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return by == TopBy.UNITS
+                ? productRollups.findTopByUnits(from, to, page)
+                : productRollups.findTopByRevenue(from, to, page);
+    }
+
+    /**
+     * One point per day from from to to (days without sales are zero), for the whole store,
+     * one product, or one category.
+     */
+    public List<DailySalesDTO> getTrend(LocalDate from, LocalDate to, Long productId, String category) {
+        List<DailySalesDTO> days;
+        if (productId != null) {
+            days = productRollups.findDailyForProduct(productId, from, to);
+        } else if (category != null && !category.isBlank()) {
+            days = productRollups.findDailyForCategory(category.trim().toUpperCase(), from, to);
+        } else {
+            days = districtRollups.findDaily(from, to);
+        }
+        Map<LocalDate, DailySalesDTO> byDate = days.stream()
+                .collect(Collectors.toMap(d -> d.date, Function.identity()));
+        List<DailySalesDTO> series = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailySalesDTO point = byDate.get(day);
+            series.add(point != null ? point : new DailySalesDTO(day, BigDecimal.ZERO, 0L, 0L));
+        }
+        return series;
+    }
+
+    public List<GroupSalesDTO> getCategorySales(LocalDate from, LocalDate to) {
+        return productRollups.findByCategory(from, to);
+    }
+
+    // Heatmap input: totals per delivery district
+    public List<GroupSalesDTO> getDistrictSales(LocalDate from, LocalDate to) {
+        return districtRollups.findByDistrict(from, to);
+    }
+}
@@ -0,0 +1,397 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.CartItem;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.CartItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buyer carts, kept in memory and keyed by normalized email.
+ *
+ * Each line carries a price snapshot taken from the product when it was added and a
+ * stock hold that is renewed whenever the line changes, but never beyond
+ * app.cart.max-hold-minutes after the snapshot was taken. Changes mark the cart dirty;
+ * dirty carts are written to cart_items every app.cart.flush-ms, and idle clean carts
+ * are dropped from memory and reloaded from cart_items on next use.
+ *
+ * Checkout turns the cart into an order using the snapshots, so the client no longer
+ * supplies prices or totals. Lines whose hold has lapsed are re-priced first.
+ */
+@Service
+public class CartService {
+
+    private static final Logger log = LoggerFactory.getLogger(CartService.class);
+
+    public record CartLine(Long productId, String name, String category, BigDecimal price,
+                           int quantity, String imageUrl, LocalDateTime heldUntil, LocalDateTime pricedAt) {
+        public BigDecimal getLineTotal() {
+            return price.multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    public record CartView(String buyerEmail, List<CartLine> items, BigDecimal subtotal,
+                           BigDecimal deliveryFee, BigDecimal total) {}
+
+    // Guarded by lock rather than synchronized: checkout and flush do JDBC while holding it,
+    // which would pin the carrier thread in virtual-thread mode
+    private static final class Cart {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        boolean dirty;
+        // Set under lock when flush drops the cart from the map; a caller holding a stale reference retries
+        boolean evicted;
+        LocalDateTime lastTouched = LocalDateTime.now();
+    }
+
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+    private final CartItemRepository repo;
+    private final ProductService productService;
+    private final OrderService orderService;
+    private final StockHolds holds;
+    private final IdempotentOrders idempotentOrders;
+    private final TransactionTemplate tx;
+    private final BigDecimal deliveryFee;
+    private final Duration idleEviction;
+    private final Duration maxHold;
+
+    public CartService(CartItemRepository repo, ProductService productService, OrderService orderService,
+                       StockHolds holds, IdempotentOrders idempotentOrders, PlatformTransactionManager txManager,
+                       @Value("${app.orders.delivery-fee:200}") BigDecimal deliveryFee,
+                       @Value("${app.cart.idle-eviction-minutes:30}") long idleEvictionMinutes,
+                       @Value("${app.cart.max-hold-minutes:60}") long maxHoldMinutes) {
+        this.repo = repo;
+        this.productService = productService;
+        this.orderService = orderService;
+        this.holds = holds;
+        this.idempotentOrders = idempotentOrders;
+        this.tx = new TransactionTemplate(txManager);
+        this.deliveryFee = deliveryFee;
+        this.idleEviction = Duration.ofMinutes(idleEvictionMinutes);
+        this.maxHold = Duration.ofMinutes(maxHoldMinutes);
+    }
+
+    public CartView getCart(String email) {
+        String buyer = OrderService.normalizeEmail(email);
+        Cart cart = lockedCart(buyer);
+        try {
+            cart.lastTouched = LocalDateTime.now();
+            return view(buyer, cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Add quantity of a product. Empty when the product does not exist.
+     */
+    public Optional<CartView> addItem(String email, Long productId, int quantity) {
+        Optional<Product> product = productService.findById(productId);
+        if (product.isEmpty()) {
+            return Optional.empty();
+        }
+        String buyer = OrderService.normalizeEmail(email);
+        Cart cart = lockedCart(buyer);
+        try {
+            CartLine existing = cart.lines.get(productId);
+            int newQuantity = (existing != null ? existing.quantity() : 0) + quantity;
+            checkAvailable(buyer, product.get(), newQuantity);
+            // Keep the original snapshot while its hold is live; a lapsed line takes the current price
+            CartLine base = existing != null && isLive(existing) ? existing : snapshot(product.get(), 0);
+            putLine(buyer, cart, base, newQuantity);
+            return Optional.of(view(buyer, cart));
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Set a line's quantity; zero or less removes it. Empty when the product is not in the cart.
+     */
+    public Optional<CartView> updateQuantity(String email, Long productId, int quantity) {
+        String buyer = OrderService.normalizeEmail(email);
+        Cart cart = lockedCart(buyer);
+        try {
+            CartLine existing = cart.lines.get(productId);
+            if (existing == null) {
+                return Optional.empty();
+            }
+            if (quantity <= 0) {
+                removeLine(buyer, cart, productId);
+            } else {
+                Optional<Product> product = quantity > existing.quantity() || !isLive(existing)
+                        ? productService.findById(productId)
+                        : Optional.empty();
+                if (quantity > existing.quantity()) {
+                    product.ifPresent(p -> checkAvailable(buyer, p, quantity));
+                }
+                // A lapsed line takes the current price, as in addItem
+                CartLine base = isLive(existing) ? existing : product.map(p -> snapshot(p, 0)).orElse(existing);
+                putLine(buyer, cart, base, quantity);
+            }
+            return Optional.of(view(buyer, cart));
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    public CartView removeItem(String email, Long productId) {
+        String buyer = OrderService.normalizeEmail(email);
+        Cart cart = lockedCart(buyer);
+        try {
+            removeLine(buyer, cart, productId);
+            return view(buyer, cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    public void clear(String email) {
+        String buyer = OrderService.normalizeEmail(email);
+        Cart cart = lockedCart(buyer);
+        try {
+            for (Long productId : List.copyOf(cart.lines.keySet())) {
+                removeLine(buyer, cart, productId);
+            }
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Place an order from the cart. Shipping and payment details come from the request;
+     * items, prices and totals come from the cart. The cart is emptied once the order is saved.
+     *
+     * @throws IllegalStateException if the cart is empty or a product has been removed
+     */
+    public Order checkout(String email, Order details) {
+        return checkout(email, details, null);
+    }
+
+    /**
+     * Checkout at most once per Idempotency-Key: a retry after a lost response returns the
+     * order that was placed instead of failing on the now-empty cart.
+     *
+     * @throws IdempotencyKeyReusedException if the key was first used with different details
+     */
+    public Order checkout(String email, Order details, String idempotencyKey) {
+        String buyer = OrderService.normalizeEmail(email);
+        return idempotentOrders.execute(buyer, idempotencyKey, details, () -> placeFromCart(buyer, details));
+    }
+
+    private Order placeFromCart(String buyer, Order details) {
+        Cart cart = lockedCart(buyer);
+        try {
+            if (cart.lines.isEmpty()) {
+                throw new IllegalStateException("Cart is empty.");
+            }
+
+            List<OrderItem> items = new ArrayList<>();
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (CartLine current : List.copyOf(cart.lines.values())) {
+                CartLine line = current;
+                if (!isLive(current)) {
+                    Product product = productService.findById(current.productId())
+                            .orElseThrow(() -> new IllegalStateException(current.name() + " is no longer available."));
+                    line = putLine(buyer, cart, snapshot(product, 0), current.quantity());
+                }
+                OrderItem item = new OrderItem();
+                item.setProductId(line.productId());
+                item.setProductName(line.name());
+                item.setCategory(line.category());
+                item.setPrice(line.price());
+                item.setQuantity(line.quantity());
+                item.setImageUrl(line.imageUrl());
+                items.add(item);
+                subtotal = subtotal.add(line.getLineTotal());
+            }
+
+            details.setId(null);
+            details.setBuyerEmail(buyer);
+            details.setItems(items);
+            details.setDeliveryFee(deliveryFee);
+            details.setTotal(subtotal.add(deliveryFee));
+            Order saved = orderService.placeOrder(details, null);
+
+            cart.lines.keySet().forEach(productId -> holds.release(productId, buyer));
+            cart.lines.clear();
+            cart.dirty = false;
+            tx.executeWithoutResult(status -> repo.deleteByBuyerEmail(buyer));
+            return saved;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Write-behind: persist every cart changed since the last flush, then drop idle clean carts.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.flush-ms:5000}")
+    public void flush() {
+        LocalDateTime idleBefore = LocalDateTime.now().minus(idleEviction);
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            String buyer = entry.getKey();
+            Cart cart = entry.getValue();
+            // Written under the cart's lock so a concurrent checkout can never be overwritten by a stale snapshot
+            cart.lock.lock();
+            try {
+                if (cart.dirty) {
+                    List<CartItem> rows = toRows(buyer, cart);
+                    try {
+                        tx.executeWithoutResult(status -> {
+                            repo.deleteByBuyerEmail(buyer);
+                            repo.saveAll(rows);
+                        });
+                        cart.dirty = false;
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to flush cart for [{}], will retry", buyer, e);
+                    }
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+            carts.computeIfPresent(buyer, (k, c) -> {
+                // A cart in use is not idle; skip it rather than wait for it inside the map's lock
+                if (!c.lock.tryLock()) {
+                    return c;
+                }
+                try {
+                    if (c.dirty || !c.lastTouched.isBefore(idleBefore)) {
+                        return c;
+                    }
+                    c.evicted = true;
+                    return null;
+                } finally {
+                    c.lock.unlock();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // The buyer's cart, locked. Looks again if flush evicted it between the lookup and the lock.
+    private Cart lockedCart(String buyer) {
+        while (true) {
+            Cart cart = cartFor(buyer);
+            cart.lock.lock();
+            if (!cart.evicted) {
+                return cart;
+            }
+            cart.lock.unlock();
+        }
+    }
+
+    private Cart cartFor(String buyer) {
+        if (buyer == null || buyer.isEmpty()) {
+            throw new IllegalArgumentException("Buyer email is required.");
+        }
+        return carts.computeIfAbsent(buyer, this::load);
+    }
+
+    private Cart load(String buyer) {
+        Cart cart = new Cart();
+        LocalDateTime now = LocalDateTime.now();
+        for (CartItem row : repo.findByBuyerEmail(buyer)) {
+            CartLine line = new CartLine(row.getProductId(), row.getProductName(), row.getCategory(),
+                    row.getUnitPrice(), row.getQuantity(), row.getImageUrl(), row.getHeldUntil(),
+                    row.getPricedAt() != null ? row.getPricedAt() : now);
+            cart.lines.put(line.productId(), line);
+            if (line.heldUntil() != null && line.heldUntil().isAfter(now)) {
+                holds.restore(line.productId(), buyer, line.quantity(), line.heldUntil());
+            }
+        }
+        return cart;
+    }
+
+    /**
+     * Stock not already held by other buyers' carts must cover the requested quantity.
+     * Advisory only: checkout still decrements stock atomically.
+     */
+    private void checkAvailable(String buyer, Product product, int quantity) {
+        if (product.getStock() == null) return;
+        int available = product.getStock() - holds.heldQuantity(product.getId(), buyer);
+        if (quantity > available) {
+            throw new InsufficientStockException(product.getId(),
+                    "Only " + Math.max(0, available) + " of " + product.getName() + " available.");
+        }
+    }
+
+    private CartLine putLine(String buyer, Cart cart, CartLine base, int quantity) {
+        // Renewed on every change, but the snapshot's price is only honoured for maxHold
+        LocalDateTime heldUntil = holds.hold(base.productId(), buyer, quantity, base.pricedAt().plus(maxHold));
+        CartLine line = new CartLine(base.productId(), base.name(), base.category(), base.price(),
+                quantity, base.imageUrl(), heldUntil, base.pricedAt());
+        cart.lines.put(line.productId(), line);
+        cart.dirty = true;
+        cart.lastTouched = LocalDateTime.now();
+        return line;
+    }
+
+    private void removeLine(String buyer, Cart cart, Long productId) {
+        if (cart.lines.remove(productId) != null) {
+            holds.release(productId, buyer);
+            cart.dirty = true;
+        }
+        cart.lastTouched = LocalDateTime.now();
+    }
+
+    private CartLine snapshot(Product p, int quantity) {
+        return new CartLine(p.getId(), p.getName(), p.getCategory() != null ? p.getCategory().name() : "",
+                BigDecimal.valueOf(p.getPrice()), quantity, productService.toDTO(p).getImageUrl(), null,
+                LocalDateTime.now());
+    }
+
+    private static boolean isLive(CartLine line) {
+        return line.heldUntil() != null && line.heldUntil().isAfter(LocalDateTime.now());
+    }
+
+    private CartView view(String buyer, Cart cart) {
+        List<CartLine> items = List.copyOf(cart.lines.values());
+        BigDecimal subtotal = items.stream().map(CartLine::getLineTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal fee = items.isEmpty() ? BigDecimal.ZERO : deliveryFee;
+        return new CartView(buyer, items, subtotal, fee, subtotal.add(fee));
+    }
+
+    private static List<CartItem> toRows(String buyer, Cart cart) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CartItem> rows = new ArrayList<>(cart.lines.size());
+        for (CartLine line : cart.lines.values()) {
+            CartItem row = new CartItem();
+            row.setBuyerEmail(buyer);
+            row.setProductId(line.productId());
+            row.setProductName(line.name());
+            row.setCategory(line.category());
+            row.setUnitPrice(line.price());
+            row.setQuantity(line.quantity());
+            row.setImageUrl(line.imageUrl());
+            row.setHeldUntil(line.heldUntil());
+            row.setPricedAt(line.pricedAt());
+            row.setUpdatedAt(now);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
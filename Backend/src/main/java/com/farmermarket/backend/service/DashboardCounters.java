@@ -0,0 +1,165 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Order counts by status, per buyer and store-wide, for the dashboards.
+ *
+ * A miss runs one GROUP BY status query; after that every status change made through
+ * OrderService is applied to the cached counts when its transaction commits, so a
+ * dashboard load does not touch the orders table. Entries are still reloaded after
+ * app.dashboard.counts-ttl-seconds to pick up changes made by other instances.
+ *
+ * A load that overlaps a write to the same key is returned but not cached: writers bump a
+ * striped change counter at start and end, and the loader only stores its result if the
+ * counter did not move and no write was open while it queried.
+ */
+@Component
+public class DashboardCounters {
+
+    private static final String STORE = "*";
+    private static final int STRIPES = 64;
+
+    private record Counts(Map<OrderStatus, Long> byStatus, long loadedAt) {}
+
+    private final OrderRepository orderRepo;
+    private final Cache<String, Counts> cache;
+    private final long ttlNanos;
+    private final AtomicLongArray changes = new AtomicLongArray(STRIPES);
+    private final AtomicIntegerArray writing = new AtomicIntegerArray(STRIPES);
+
+    public DashboardCounters(OrderRepository orderRepo,
+                             @Value("${app.dashboard.counts-ttl-seconds:30}") long ttlSeconds,
+                             @Value("${app.dashboard.max-buyers:10000}") long maxBuyers) {
+        this.orderRepo = orderRepo;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxBuyers + 1)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    // Every status is present, zero when the buyer has no orders in it
+    public Map<OrderStatus, Long> forBuyer(String email) {
+        String key = OrderService.normalizeEmail(email);
+        return get(key, () -> orderRepo.countByStatusForBuyer(key));
+    }
+
+    public Map<OrderStatus, Long> forStore() {
+        return get(STORE, orderRepo::countByStatus);
+    }
+
+    /**
+     * Record an order of this buyer moving between statuses (from null for a new order).
+     * Inside a transaction the counts change when it commits; otherwise immediately.
+     */
+    public void recordMove(String email, OrderStatus from, OrderStatus to) {
+        String buyer = OrderService.normalizeEmail(email);
+        int[] stripes = {stripe(buyer), stripe(STORE)};
+        begin(stripes);
+        Runnable apply = () -> {
+            cache.asMap().computeIfPresent(buyer, (k, counts) -> moved(counts, from, to));
+            cache.asMap().computeIfPresent(STORE, (k, counts) -> moved(counts, from, to));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                apply.run();
+            } finally {
+                end(stripes);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply.run();
+                    }
+                } finally {
+                    end(stripes);
+                }
+            }
+        });
+    }
+
+    // After bulk changes to the orders table (archiving): reload everything on next read
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            changes.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    private Map<OrderStatus, Long> get(String key, Supplier<List<OrderRepository.StatusCount>> query) {
+        if (key == null || key.isEmpty()) {
+            return counts(List.of());
+        }
+        Counts cached = cache.getIfPresent(key);
+        if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+            return cached.byStatus();
+        }
+        int stripe = stripe(key);
+        long seen = changes.get(stripe);
+        Counts loaded = new Counts(counts(query.get()), System.nanoTime());
+        cache.asMap().compute(key, (k, old) ->
+                writing.get(stripe) == 0 && changes.get(stripe) == seen ? loaded : old);
+        return loaded.byStatus();
+    }
+
+    private static Map<OrderStatus, Long> counts(List<OrderRepository.StatusCount> rows) {
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        for (OrderRepository.StatusCount row : rows) {
+            if (row.getStatus() != null) {
+                byStatus.put(row.getStatus(), row.getCount());
+            }
+        }
+        return Collections.unmodifiableMap(byStatus);
+    }
+
+    private static Counts moved(Counts counts, OrderStatus from, OrderStatus to) {
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(counts.byStatus());
+        if (from != null) {
+            byStatus.merge(from, -1L, Long::sum);
+        }
+        byStatus.merge(to, 1L, Long::sum);
+        return new Counts(Collections.unmodifiableMap(byStatus), counts.loadedAt());
+    }
+
+    private void begin(int[] stripes) {
+        for (int s : stripes) {
+            writing.incrementAndGet(s);
+            changes.incrementAndGet(s);
+        }
+    }
+
+    private void end(int[] stripes) {
+        for (int s : stripes) {
+            changes.incrementAndGet(s);
+            writing.decrementAndGet(s);
+        }
+    }
+
+    private static int stripe(String key) {
+        return (key == null ? 0 : key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+}
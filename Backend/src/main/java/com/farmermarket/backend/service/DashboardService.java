@@ -0,0 +1,55 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.DashboardDTO;
+import com.farmermarket.backend.dto.OrderSummaryDTO;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.repository.OrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard overviews. Counts come from DashboardCounters and the product total from the
+ * search index, so a load costs at most one indexed query for the recent pending orders.
+ */
+@Service
+public class DashboardService {
+
+    private final OrderRepository orderRepo;
+    private final DashboardCounters counters;
+    private final ProductService productService;
+
+    public DashboardService(OrderRepository orderRepo, DashboardCounters counters, ProductService productService) {
+        this.orderRepo = orderRepo;
+        this.counters = counters;
+        this.productService = productService;
+    }
+
+    public DashboardDTO getBuyerDashboard(String email, int recent) {
+        String cleanEmail = OrderService.normalizeEmail(email);
+        List<OrderSummaryDTO> pending = cleanEmail == null || cleanEmail.isEmpty() || recent == 0
+                ? List.of()
+                : orderRepo.findRecentSummariesByBuyerEmail(cleanEmail, OrderStatus.PENDING, PageRequest.of(0, recent));
+        return toDTO(counters.forBuyer(cleanEmail), pending);
+    }
+
+    public DashboardDTO getFarmerDashboard(int recent) {
+        List<OrderSummaryDTO> pending = recent == 0
+                ? List.of()
+                : orderRepo.findRecentSummariesByStatus(OrderStatus.PENDING, PageRequest.of(0, recent));
+        return toDTO(counters.forStore(), pending);
+    }
+
+    private DashboardDTO toDTO(Map<OrderStatus, Long> counts, List<OrderSummaryDTO> pending) {
+        Map<String, Long> byLabel = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<OrderStatus, Long> e : counts.entrySet()) {
+            byLabel.put(e.getKey().label(), e.getValue());
+            total += e.getValue();
+        }
+        return new DashboardDTO(productService.countProducts(), total, byLabel, pending);
+    }
+}
@@ -0,0 +1,12 @@
+package com.farmermarket.backend.service;
+
+/**
+ * Thrown when an Idempotency-Key is sent again with a payload different from the request
+ * that first used it.
+ */
+public class IdempotencyKeyReusedException extends IllegalStateException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,120 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Replay cache for order submissions carrying an Idempotency-Key header.
+ *
+ * The first request with a given (buyer, key) runs; concurrent duplicates wait for it and
+ * every later duplicate gets the same order back. Failures are not cached, so the client
+ * may retry with the same key. The order stores a digest of the request that created it,
+ * and a duplicate whose payload differs is refused rather than answered with that order. Entries expire after app.orders.idempotency-ttl-minutes;
+ * beyond that (or on another instance) the unique (buyer_email, idempotency_key) column
+ * on orders still finds the original order.
+ */
+@Component
+public class IdempotentOrders {
+
+    private final Cache<String, CompletableFuture<Order>> replays;
+    private final OrderRepository orderRepo;
+
+    public IdempotentOrders(OrderRepository orderRepo,
+                            @Value("${app.orders.idempotency-ttl-minutes:60}") long ttlMinutes,
+                            @Value("${app.orders.idempotency-max-entries:100000}") long maxEntries) {
+        this.orderRepo = orderRepo;
+        this.replays = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Run action once per (buyerEmail, key). A null or blank key runs it unconditionally.
+     * request is the order as submitted (before action fills it in); the key and a digest of
+     * its payload are stamped on it for action to save.
+     *
+     * @throws IdempotencyKeyReusedException if the key's order was created from a different payload
+     */
+    public Order execute(String buyerEmail, String key, Order request, Supplier<Order> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String fingerprint = fingerprint(request);
+        request.setIdempotencyKey(key);
+        request.setIdempotencyFingerprint(fingerprint);
+
+        String cacheKey = buyerEmail + "\n" + key;
+        CompletableFuture<Order> mine = new CompletableFuture<>();
+        CompletableFuture<Order> existing = replays.asMap().putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            try {
+                return sameRequest(existing.join(), fingerprint);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            Order order = findExisting(buyerEmail, key).orElseGet(action);
+            mine.complete(order);
+            return sameRequest(order, fingerprint);
+        } catch (IdempotencyKeyReusedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            replays.asMap().remove(cacheKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public Optional<Order> findExisting(String buyerEmail, String key) {
+        return orderRepo.findByBuyerEmailAndIdempotencyKey(buyerEmail, key);
+    }
+
+    // Orders saved before fingerprints were recorded have none and are accepted as they are
+    private static Order sameRequest(Order order, String fingerprint) {
+        String original = order.getIdempotencyFingerprint();
+        if (original != null && !original.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different order.");
+        }
+        return order;
+    }
+
+    /**
+     * Digest of what the client submitted: shipping, payment, total and items. Server-assigned
+     * fields (order number, status, dates) are not part of it.
+     */
+    static String fingerprint(Order request) {
+        StringBuilder s = new StringBuilder();
+        for (Object field : new Object[]{request.getFirstName(), request.getLastName(), request.getPhone(),
+                request.getProvince(), request.getDistrict(), request.getCity(), request.getAddress(),
+                request.getPayment(), amount(request.getTotal())}) {
+            s.append(Objects.toString(field, "")).append('\u001f');
+        }
+        if (request.getItems() != null) {
+            request.getItems().forEach(item -> s.append(item.getProductId()).append('x').append(item.getQuantity())
+                    .append('@').append(amount(item.getPrice())).append('\u001f'));
+        }
+        return DigestUtils.md5DigestAsHex(s.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 100 and 100.00 are the same amount
+    private static String amount(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : "";
+    }
+}
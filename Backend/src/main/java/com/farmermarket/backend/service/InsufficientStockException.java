@@ -0,0 +1,16 @@
+package com.farmermarket.backend.service;
+
+/**
+ * Thrown when an order or cart asks for more of a product than is in stock.
+ */
+public class InsufficientStockException extends IllegalStateException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, String message) {
+        super(message);
+        this.productId = productId;
+    }
+
+    public Long getProductId() { return productId; }
+}
@@ -0,0 +1,215 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events fan-out for new messages.
+ * Each buyer has a topic keyed by email; the farmer/admin inbox subscribes to every message.
+ *
+ * Every subscriber has its own queue of at most app.messages.subscriber-queue events, drained
+ * by one sender task at a time, so a slow client only ever holds up its own stream. A client
+ * whose queue fills up, or whose send has been blocked for app.messages.send-timeout-ms
+ * (checked on each heartbeat), is dropped; the browser reconnects and catches up with since=.
+ * Publishing only enqueues, so it never waits on a client.
+ */
+@Component
+public class MessageBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageBroadcaster.class);
+    public static final String EVENT_NAME = "message";
+
+    private final Map<String, Set<Subscriber>> buyerTopics = new ConcurrentHashMap<>();
+    private final Set<Subscriber> adminTopic = new CopyOnWriteArraySet<>();
+    // One running task per subscriber with queued events, so threads grow only with stalled clients
+    private final ExecutorService sender;
+    private final long timeoutMs;
+    private final int queueSize;
+    private final long sendTimeoutNanos;
+
+    public MessageBroadcaster(@Value("${app.messages.stream-timeout-ms:1800000}") long timeoutMs,
+                              @Value("${app.messages.subscriber-queue:100}") int queueSize,
+                              @Value("${app.messages.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.queueSize = queueSize;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger count = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "message-push-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public SseEmitter subscribeBuyer(String email) {
+        return subscribeBuyer(email, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribeBuyer(String email, SseEmitter emitter) {
+        String key = topicKey(email);
+        Subscriber subscriber = new Subscriber(emitter, () -> buyerTopics.computeIfPresent(key, (k, topic) -> {
+            topic.removeIf(s -> s.emitter == emitter);
+            return topic.isEmpty() ? null : topic;
+        }));
+        // compute() keeps this atomic with the heartbeat's removal of empty topics
+        buyerTopics.compute(key, (k, topic) -> {
+            Set<Subscriber> t = topic != null ? topic : new CopyOnWriteArraySet<>();
+            t.add(subscriber);
+            return t;
+        });
+        return watch(subscriber);
+    }
+
+    public SseEmitter subscribeAdmin() {
+        return subscribeAdmin(new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribeAdmin(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, () -> adminTopic.removeIf(s -> s.emitter == emitter));
+        adminTopic.add(subscriber);
+        return watch(subscriber);
+    }
+
+    private SseEmitter watch(Subscriber subscriber) {
+        subscriber.emitter.onCompletion(subscriber::unsubscribe);
+        subscriber.emitter.onTimeout(subscriber::unsubscribe);
+        subscriber.emitter.onError(e -> subscriber.unsubscribe());
+        return subscriber.emitter;
+    }
+
+    public void publish(Message msg) {
+        Set<ResponseBodyEmitter.DataWithMediaType> event =
+                SseEmitter.event().id(String.valueOf(msg.getId())).name(EVENT_NAME).data(msg).build();
+        Set<Subscriber> topic = buyerTopics.get(topicKey(msg.getBuyerEmail()));
+        if (topic != null) {
+            topic.forEach(s -> s.enqueue(event));
+        }
+        adminTopic.forEach(s -> s.enqueue(event));
+    }
+
+    // Comment frames keep idle connections open through proxies and flush out dead clients
+    @Scheduled(fixedDelayString = "${app.messages.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        long now = System.nanoTime();
+        buyerTopics.values().forEach(topic -> topic.forEach(s -> s.heartbeat(ping, now)));
+        adminTopic.forEach(s -> s.heartbeat(ping, now));
+        buyerTopics.keySet().forEach(key ->
+                buyerTopics.computeIfPresent(key, (k, topic) -> topic.isEmpty() ? null : topic));
+    }
+
+    // Subscribers currently registered, across all topics
+    int subscriberCount() {
+        return adminTopic.size() + buyerTopics.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static String topicKey(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List.copyOf(adminTopic).forEach(s -> s.emitter.complete());
+        buyerTopics.values().forEach(topic -> List.copyOf(topic).forEach(s -> s.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        private final Runnable removal;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue =
+                new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        // System.nanoTime() when the send in progress started; 0 when not sending
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, Runnable removal) {
+            this.emitter = emitter;
+            this.removal = removal;
+        }
+
+        void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (dropped.get()) return;
+            if (!queue.offer(event)) {
+                drop("its queue is full");
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void heartbeat(Set<ResponseBodyEmitter.DataWithMediaType> ping, long now) {
+            long since = sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                drop("a send has been blocked for over " + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms");
+                return;
+            }
+            enqueue(ping);
+        }
+
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> event = queue.poll();
+                if (event == null) {
+                    draining.set(false);
+                    // An event queued after the poll but before the flag was cleared
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+                    continue;
+                }
+                if (dropped.get()) return;
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe();
+                    log.debug("Dropped message stream subscriber: {}", e.getMessage());
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        // Closed on a sender thread: completing waits for a send that may be the one stuck
+        private void drop(String reason) {
+            if (!dropped.compareAndSet(false, true)) return;
+            removal.run();
+            queue.clear();
+            log.info("Dropped slow message stream subscriber: {}", reason);
+            sender.execute(emitter::complete);
+        }
+
+        void unsubscribe() {
+            dropped.set(true);
+            removal.run();
+            queue.clear();
+        }
+    }
+}
@@ -1,28 +1,182 @@
 package com.farmermarket.backend.service;
 
+import com.farmermarket.backend.jdbc.ReplicaReads;
+import com.farmermarket.backend.model.ConversationSummary;
 import com.farmermarket.backend.model.Message;
+import com.farmermarket.backend.repository.ConversationSummaryRepository;
+import com.farmermarket.backend.repository.DataMigrations;
 import com.farmermarket.backend.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
 public class MessageService {
 
+    private static final Logger log = LoggerFactory.getLogger(MessageService.class);
+    public static final String ATTACHMENT_URL_PREFIX = "/api/messages/attachments/";
+
     private final MessageRepository repo;
+    private final ConversationSummaryRepository summaries;
+    private final MessageBroadcaster broadcaster;
+    private final TransactionTemplate tx;
+    private final ReplicaReads replicaReads;
+    private final DataMigrations migrations;
 
-    public MessageService(MessageRepository repo) {
+    public MessageService(MessageRepository repo, ConversationSummaryRepository summaries,
+                          MessageBroadcaster broadcaster, PlatformTransactionManager txManager,
+                          ReplicaReads replicaReads, DataMigrations migrations) {
         this.repo = repo;
+        this.summaries = summaries;
+        this.broadcaster = broadcaster;
+        this.tx = new TransactionTemplate(txManager);
+        this.replicaReads = replicaReads;
+        this.migrations = migrations;
     }
 
+    /**
+     * Stores the message and moves its conversation summary forward in one transaction,
+     * so the inbox never shows a message that was rolled back or misses one that was saved.
+     */
     public Message save(Message msg) {
-        return repo.save(msg);
+        Message saved = tx.execute(status -> {
+            Message m = repo.save(msg);
+            applyToSummary(m);
+            return m;
+        });
+        broadcaster.publish(saved);
+        return saved;
     }
 
     public List<Message> getBuyerMessages(String email) {
-        return repo.findByBuyerEmailOrderByCreatedAtAsc(email);
+        return replicaReads.read(() -> repo.findByBuyerEmailOrderByCreatedAtAsc(email));
+    }
+
+    /**
+     * One page of a conversation ending just before beforeId (or at the newest message),
+     * returned oldest-first for display.
+     */
+    public List<Message> getBuyerMessagesPage(String email, Long beforeId, int size) {
+        List<Message> page = new ArrayList<>(replicaReads.read(() -> repo.findByBuyerEmailAndIdLessThanOrderByIdDesc(
+                email, beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, size))));
+        Collections.reverse(page);
+        return page;
+    }
+
+    // The since-id catch-ups stay on the primary: a reconnecting client must not miss a message
+    // it was sent while the replica lags
+    public List<Message> getBuyerMessagesSince(String email, Long sinceId) {
+        return repo.findByBuyerEmailAndIdGreaterThanOrderByIdAsc(email, sinceId);
+    }
+
+    public List<Message> getMessagesSince(Long sinceId) {
+        return repo.findByIdGreaterThanOrderByIdAsc(sinceId);
+    }
+
+    /**
+     * Farmer inbox: one row per buyer, most recently active first.
+     */
+    public List<ConversationSummary> getInbox(Long beforeMessageId, int size) {
+        return replicaReads.read(() -> summaries.findByLastMessageIdLessThanOrderByLastMessageIdDesc(
+                beforeMessageId != null ? beforeMessageId : Long.MAX_VALUE, PageRequest.of(0, size)));
+    }
+
+    /**
+     * Farmer opened the conversation: mark the buyer's messages read and reset the unread count.
+     */
+    public void markConversationRead(String email) {
+        tx.executeWithoutResult(status -> {
+            repo.markBuyerMessagesRead(email);
+            summaries.clearUnread(OrderService.normalizeEmail(email));
+        });
+    }
+
+    public SseEmitter subscribeBuyer(String email) {
+        return broadcaster.subscribeBuyer(email);
+    }
+
+    public SseEmitter subscribeAdmin() {
+        return broadcaster.subscribeAdmin();
     }
 
     public List<Message> getAllMessages() {
-        return repo.findAll();
+        return replicaReads.read(repo::findAll);
+    }
+
+    // Summaries are keyed by the normalized email, so "Ann@x.com " and "ann@x.com" share one row
+    private void applyToSummary(Message msg) {
+        String email = OrderService.normalizeEmail(msg.getBuyerEmail());
+        boolean fromBuyer = "buyer".equals(msg.getSenderRole());
+        int created = summaries.createIfAbsent(email, msg.getBuyerName(), msg.getId(), preview(msg),
+                msg.getSenderRole(), msg.getCreatedAt(), fromBuyer ? 1 : 0);
+        if (created > 0) return;
+
+        summaries.advance(email, msg.getBuyerName(), msg.getId(), preview(msg),
+                msg.getSenderRole(), msg.getCreatedAt());
+        if (fromBuyer) {
+            summaries.incrementUnread(email);
+        }
+    }
+
+    /**
+     * Builds conversation_summaries from the messages table the first time it is empty.
+     * Summaries written before their keys were normalized are dropped once and rebuilt here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSummaries() {
+        migrations.runOnce("conversation-summaries-normalize-emails", summaries::deleteAllInBatch);
+        if (summaries.count() > 0) return;
+        List<Object[]> rows = repo.summarizeByBuyer();
+        for (Object[] row : rows) {
+            String email = (String) row[0];
+            Long lastId = (Long) row[1];
+            int unread = row[2] != null ? ((Number) row[2]).intValue() : 0;
+            repo.findById(lastId).ifPresent(last -> {
+                ConversationSummary s = new ConversationSummary();
+                s.setBuyerEmail(email);
+                s.setBuyerName(last.getBuyerName());
+                s.setLastMessageId(last.getId());
+                s.setLastMessage(preview(last));
+                s.setLastSenderRole(last.getSenderRole());
+                s.setLastActivity(last.getCreatedAt());
+                s.setUnreadCount(unread);
+                summaries.save(s);
+            });
+        }
+        if (!rows.isEmpty()) {
+            log.info("Backfilled {} conversation summaries", rows.size());
+        }
+    }
+
+    /**
+     * Attachments used to be linked as /uploads/messages/{name}, which nothing served.
+     * Point those rows at the attachment endpoint; the files already live in the same directory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rewriteLegacyAttachmentPaths() {
+        int updated = repo.rewriteAttachmentPaths("/uploads/messages/", ATTACHMENT_URL_PREFIX);
+        if (updated > 0) {
+            log.info("Rewrote {} legacy attachment paths", updated);
+        }
+    }
+
+    private static String preview(Message msg) {
+        String text = msg.getMessage();
+        if (text == null || text.isBlank()) {
+            return msg.getImagePath() != null ? "[image]" : "";
+        }
+        return text.length() > ConversationSummary.PREVIEW_LENGTH
+                ? text.substring(0, ConversationSummary.PREVIEW_LENGTH)
+                : text;
     }
 }
@@ -0,0 +1,189 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.OrderDTO;
+import com.farmermarket.backend.dto.OrderItemDTO;
+import com.farmermarket.backend.model.ArchivedOrder;
+import com.farmermarket.backend.model.ArchivedOrderItem;
+import com.farmermarket.backend.repository.AnalyticsWatermarkRepository;
+import com.farmermarket.backend.repository.ArchivedOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the live orders table small: closed orders (Delivered, Rejected, Cancelled) that have
+ * not changed for app.orders.archive.after-days are moved to orders_archive / order_items_archive.
+ *
+ * Each batch of up to app.orders.archive.batch-size orders is moved in one transaction with
+ * four set-based statements (copy orders, copy items, delete items, delete orders), so a
+ * failed batch leaves everything in the live tables. Archived orders are read through
+ * getBuyerArchive / getArchivedOrder; the live order endpoints no longer see them.
+ *
+ * Every batch first locks the job's analytics_watermarks row (as the sales rollup does with
+ * its own), so instances running the job at the same time take turns instead of picking
+ * the same orders and colliding on the archive's primary keys.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+    static final String LOCK = "orders-archive";
+
+    private final ArchivedOrderRepository archiveRepo;
+    private final AnalyticsWatermarkRepository watermarks;
+    private final DashboardCounters dashboardCounters;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration closedFor;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public OrderArchiveService(ArchivedOrderRepository archiveRepo, AnalyticsWatermarkRepository watermarks,
+                               DashboardCounters dashboardCounters, PlatformTransactionManager txManager,
+                               @Value("${app.orders.archive.enabled:true}") boolean enabled,
+                               @Value("${app.orders.archive.after-days:90}") long afterDays,
+                               @Value("${app.orders.archive.batch-size:500}") int batchSize,
+                               @Value("${app.orders.archive.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.archiveRepo = archiveRepo;
+        this.watermarks = watermarks;
+        this.dashboardCounters = dashboardCounters;
+        this.tx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.closedFor = Duration.ofDays(afterDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+    }
+
+    @Scheduled(initialDelayString = "${app.orders.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${app.orders.archive.interval-ms:3600000}")
+    public void archiveClosedOrders() {
+        if (!enabled) return;
+        int moved = archiveClosedBefore(LocalDateTime.now().minus(closedFor));
+        if (moved > 0) {
+            log.info("Archived {} closed order(s)", moved);
+        }
+    }
+
+    /**
+     * Move closed orders last changed before cutoff, in batches. Returns the number moved.
+     */
+    public int archiveClosedBefore(LocalDateTime cutoff) {
+        createLockIfMissing();
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = tx.execute(status -> {
+                // Held until this batch commits; a waiting instance then picks from what is left
+                watermarks.findForUpdate(LOCK).orElseThrow();
+                List<Long> ids = archiveRepo.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archiveRepo.copyOrders(ids, LocalDateTime.now());
+                archiveRepo.copyItems(ids);
+                archiveRepo.deleteLiveItems(ids);
+                return archiveRepo.deleteLiveOrders(ids);
+            });
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            // Archived orders no longer count on the dashboards
+            dashboardCounters.invalidateAll();
+        }
+        return total;
+    }
+
+    private void createLockIfMissing() {
+        if (watermarks.existsById(LOCK)) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> watermarks.create(LOCK));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Archive lock row created by another instance");
+        }
+    }
+
+    /**
+     * Page of a buyer's archived orders, newest first; pass the smallest id of the previous page as beforeId.
+     */
+    public List<OrderDTO> getBuyerArchive(String email, Long beforeId, int size) {
+        String cleanEmail = OrderService.normalizeEmail(email);
+        if (cleanEmail == null || cleanEmail.isEmpty()) {
+            return List.of();
+        }
+        List<ArchivedOrder> orders = archiveRepo.findByBuyerEmail(
+                cleanEmail, beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, size));
+        return withItems(orders);
+    }
+
+    public Optional<OrderDTO> getArchivedOrder(String orderId) {
+        return getArchivedOrder(orderId, null);
+    }
+
+    // Empty for another buyer's order too; a null buyerEmail reads any order
+    public Optional<OrderDTO> getArchivedOrder(String orderId, String buyerEmail) {
+        return archiveRepo.findByOrderId(orderId)
+                .filter(o -> OrderService.isBuyer(o.getBuyerEmail(), buyerEmail))
+                .map(o -> withItems(List.of(o)).get(0));
+    }
+
+    // Whether this archived order was placed by email
+    public boolean isBuyerOf(String orderId, String email) {
+        return archiveRepo.findByOrderId(orderId)
+                .filter(o -> OrderService.isBuyer(o.getBuyerEmail(), email))
+                .isPresent();
+    }
+
+    // Items for the whole page in one IN query
+    private List<OrderDTO> withItems(List<ArchivedOrder> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<ArchivedOrderItem>> items = archiveRepo
+                .findItemsByOrderIds(orders.stream().map(ArchivedOrder::getId).toList()).stream()
+                .collect(Collectors.groupingBy(ArchivedOrderItem::getArchivedOrderId));
+        return orders.stream().map(o -> toDTO(o, items.getOrDefault(o.getId(), List.of()))).toList();
+    }
+
+    private static OrderDTO toDTO(ArchivedOrder order, List<ArchivedOrderItem> items) {
+        OrderDTO dto = new OrderDTO();
+        dto.id = order.getId();
+        dto.orderId = order.getOrderId();
+        dto.firstName = order.getFirstName();
+        dto.lastName = order.getLastName();
+        dto.phone = order.getPhone();
+        dto.province = order.getProvince();
+        dto.district = order.getDistrict();
+        dto.city = order.getCity();
+        dto.address = order.getAddress();
+        dto.deliveryFee = order.getDeliveryFee();
+        dto.total = order.getTotal();
+        dto.status = order.getStatus();
+        dto.orderDate = order.getOrderDate();
+        dto.items = items.stream().map(item -> {
+            OrderItemDTO itemDto = new OrderItemDTO();
+            itemDto.productName = item.getProductName();
+            itemDto.price = item.getPrice();
+            itemDto.quantity = item.getQuantity();
+            itemDto.imageUrl = item.getImageUrl();
+            return itemDto;
+        }).toList();
+        return dto;
+    }
+}
@@ -0,0 +1,69 @@
+package com.farmermarket.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Server-side order numbers: "ORD" followed by a ULID (48-bit millisecond timestamp plus
+ * 80 random bits, Crockford base32). IDs sort by creation time, and IDs issued in the same
+ * millisecond by this instance are strictly increasing.
+ */
+@Component
+public class OrderIdGenerator {
+
+    public static final String PREFIX = "ORD";
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final LongSupplier clock;
+    private final Random random;
+    private long lastMillis = -1;
+    private long randomHigh; // top 16 of the 80 random bits
+    private long randomLow;  // bottom 64
+
+    public OrderIdGenerator() {
+        this(System::currentTimeMillis, new SecureRandom());
+    }
+
+    OrderIdGenerator(LongSupplier clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    public synchronized String next() {
+        long now = clock.getAsLong();
+        if (now > lastMillis) {
+            lastMillis = now;
+            randomHigh = random.nextInt() & 0xFFFFL;
+            randomLow = random.nextLong();
+        } else if (++randomLow == 0) {
+            // Same millisecond (or the clock stepped back): carry into the high bits to stay monotonic
+            randomHigh = (randomHigh + 1) & 0xFFFFL;
+            if (randomHigh == 0) lastMillis++;
+        }
+        return PREFIX + encode((lastMillis << 16) | randomHigh, randomLow);
+    }
+
+    private static String encode(long high, long low) {
+        char[] out = new char[26];
+        for (int i = 25, offset = 0; i >= 0; i--, offset += 5) {
+            out[i] = CROCKFORD[fiveBits(high, low, offset)];
+        }
+        return new String(out);
+    }
+
+    // 5 bits of the 128-bit value high:low, starting at offset (0 = least significant)
+    private static int fiveBits(long high, long low, int offset) {
+        long v;
+        if (offset >= 64) {
+            v = high >>> (offset - 64);
+        } else if (offset + 5 <= 64) {
+            v = low >>> offset;
+        } else {
+            v = (low >>> offset) | (high << (64 - offset));
+        }
+        return (int) (v & 31);
+    }
+}
@@ -1,266 +1,599 @@
 package com.farmermarket.backend.service;
 
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.dto.OrderDTO;
+import com.farmermarket.backend.dto.OrderItemDTO;
+import com.farmermarket.backend.dto.OrderSummaryDTO;
+import com.farmermarket.backend.jdbc.ReplicaReads;
 import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.model.OrderStatusEvent;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.DataMigrations;
 import com.farmermarket.backend.repository.OrderRepository;
+import com.farmermarket.backend.repository.OrderStatusEventRepository;
+import com.farmermarket.backend.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class OrderService {
 
-    private final OrderRepository orderRepo;
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
-    public OrderService(OrderRepository orderRepo) {
+    private final OrderRepository orderRepo;
+    private final OrderStatusEventRepository eventRepo;
+    private final ProductRepository productRepo;
+    private final StockCounters stockCounters;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate tx;
+    private final OrderIdGenerator orderIds;
+    private final IdempotentOrders idempotentOrders;
+    private final DashboardCounters dashboardCounters;
+    private final ReplicaReads replicaReads;
+    private final DataMigrations migrations;
+    private final ProductService productService;
+    private final BigDecimal deliveryFee;
+    private final long feedSettleMs;
+
+    public OrderService(OrderRepository orderRepo, OrderStatusEventRepository eventRepo, ProductRepository productRepo,
+                        StockCounters stockCounters, CatalogCache catalogCache,
+                        PlatformTransactionManager txManager, OrderIdGenerator orderIds,
+                        IdempotentOrders idempotentOrders, DashboardCounters dashboardCounters,
+                        ReplicaReads replicaReads, DataMigrations migrations, ProductService productService,
+                        @Value("${app.orders.delivery-fee:200}") BigDecimal deliveryFee,
+                        @Value("${app.orders.feed-settle-ms:2000}") long feedSettleMs) {
         this.orderRepo = orderRepo;
+        this.eventRepo = eventRepo;
+        this.productRepo = productRepo;
+        this.stockCounters = stockCounters;
+        this.catalogCache = catalogCache;
+        this.tx = new TransactionTemplate(txManager);
+        this.orderIds = orderIds;
+        this.idempotentOrders = idempotentOrders;
+        this.dashboardCounters = dashboardCounters;
+        this.replicaReads = replicaReads;
+        this.migrations = migrations;
+        this.productService = productService;
+        this.deliveryFee = deliveryFee;
+        this.feedSettleMs = feedSettleMs;
     }
 
     /**
-     * Place a new order
+     * Keyset position in an ordered list of orders: a timestamp plus the id that breaks ties.
+     * Sent to clients as "<timestamp>_<id>".
      */
-    public Order placeOrder(Order order) {
-        // Set default values
-        order.setStatus("Pending");
-        order.setOrderDate(LocalDateTime.now());
+    public record Cursor(LocalDateTime at, long id) {
+        // Before every order: the first page of a queue starts here
+        static final Cursor START = new Cursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+        public static Optional<Cursor> parse(String value) {
+            if (value == null || value.isBlank()) return Optional.empty();
+            int sep = value.lastIndexOf('_');
+            if (sep < 0) return Optional.empty();
+            try {
+                return Optional.of(new Cursor(LocalDateTime.parse(value.substring(0, sep)),
+                        Long.parseLong(value.substring(sep + 1))));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
 
-        // Debug logging
-        System.out.println("╔════════════════════════════════════════╗");
-        System.out.println("║     PLACING NEW ORDER                  ║");
-        System.out.println("╚════════════════════════════════════════╝");
-        System.out.println("Order ID: " + order.getOrderId());
-        System.out.println("Buyer Email: [" + order.getBuyerEmail() + "]");
-        System.out.println("Buyer Name: " + order.getFirstName() + " " + order.getLastName());
-        System.out.println("Status: " + order.getStatus());
-        System.out.println("Total: " + order.getTotal());
-        System.out.println("Items Count: " + (order.getItems() != null ? order.getItems().size() : 0));
+        @Override
+        public String toString() {
+            return at + "_" + id;
+        }
+    }
 
-        Order savedOrder = orderRepo.save(order);
+    /**
+     * Delta of the pending queue since a feed cursor: orders that are (still or newly) pending,
+     * and order numbers that have left the queue. Pass cursor back as since= for the next delta.
+     */
+    public record PendingChanges(List<OrderDTO> pending, List<String> removed, String cursor) {}
 
-        System.out.println("✅ Order saved successfully with DB ID: " + savedOrder.getId());
-        System.out.println("════════════════════════════════════════\n");
+    /**
+     * Place a new order, taking its items out of stock.
+     *
+     * Quantities are first taken from the in-memory StockCounters, which turn away sold-out
+     * products cheaply. The order is then saved in one transaction with a conditional
+     * decrement per product (in product id order, so concurrent orders lock rows consistently);
+     * if any product is short the whole order rolls back.
+     *
+     * @throws InsufficientStockException if a product does not have enough stock
+     */
+    public Order placeOrder(Order order) {
+        return placeOrder(order, null);
+    }
 
-        return savedOrder;
+    /**
+     * Place an order at most once per (buyer, idempotencyKey): a retried or double-submitted
+     * request returns the order created by the first one instead of creating another.
+     *
+     * @throws IdempotencyKeyReusedException if the key was first used for a different order
+     */
+    public Order placeOrder(Order order, String idempotencyKey) {
+        String buyer = normalizeEmail(order.getBuyerEmail());
+        return idempotentOrders.execute(buyer, idempotencyKey, order, () -> insertOrder(order));
     }
 
     /**
-     * Get orders by buyer email (with extensive debugging)
+     * Place an order as a client submitted it (POST /api/orders). Only products and quantities
+     * are taken from the request: items are priced from the catalog, and the delivery fee and
+     * total are worked out here, as checkout does for a cart.
+     *
+     * @throws IllegalArgumentException if there are no items, or an item has no product, an
+     *         unknown product or a quantity below one
      */
-    public List<Order> getBuyerOrders(String email) {
-        System.out.println("\n╔════════════════════════════════════════╗");
-        System.out.println("║   FETCHING ORDERS BY EMAIL             ║");
-        System.out.println("╚════════════════════════════════════════╝");
-        System.out.println("📧 Requested Email: [" + email + "]");
-        System.out.println("📏 Email Length: " + (email != null ? email.length() : "NULL"));
-
-        // Validate email
-        if (email == null || email.trim().isEmpty()) {
-            System.out.println("❌ ERROR: Email is null or empty!");
-            System.out.println("════════════════════════════════════════\n");
-            return List.of();
+    public Order placeClientOrder(Order order, String idempotencyKey) {
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one item.");
+        }
+        for (OrderItem item : order.getItems()) {
+            if (item.getProductId() == null) {
+                throw new IllegalArgumentException("Every item needs a productId.");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity for product " + item.getProductId() + " must be at least 1.");
+            }
         }
+        String buyer = normalizeEmail(order.getBuyerEmail());
+        // Priced inside the action, so a replayed key answers with the order first placed
+        return idempotentOrders.execute(buyer, idempotencyKey, order, () -> insertOrder(priceFromCatalog(order)));
+    }
 
-        String cleanEmail = email.trim();
-        System.out.println("🧹 Clean Email: [" + cleanEmail + "]");
-        System.out.println("📏 Clean Length: " + cleanEmail.length());
+    private Order priceFromCatalog(Order order) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (OrderItem item : order.getItems()) {
+            Product p = productService.findById(item.getProductId())
+                    .orElseThrow(() -> new IllegalArgumentException("Product " + item.getProductId() + " does not exist."));
+            item.setId(null);
+            item.setProductName(p.getName());
+            item.setCategory(p.getCategory() != null ? p.getCategory().name() : "");
+            item.setPrice(BigDecimal.valueOf(p.getPrice()));
+            item.setImageUrl(productService.toDTO(p).getImageUrl());
+            subtotal = subtotal.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        order.setDeliveryFee(deliveryFee);
+        order.setTotal(subtotal.add(deliveryFee));
+        return order;
+    }
 
-        // Get all orders for comparison
-        List<Order> allOrders = orderRepo.findAll();
-        System.out.println("\n📊 DATABASE STATISTICS:");
-        System.out.println("   Total Orders in DB: " + allOrders.size());
+    private Order insertOrder(Order order) {
+        // Set default values; the order number is always assigned here, never by the client
+        order.setId(null);
+        order.setVersion(null);
+        order.setOrderId(orderIds.next());
+        order.setStatus(OrderStatus.PENDING);
+        order.setOrderDate(LocalDateTime.now());
+        order.setBuyerEmail(normalizeEmail(order.getBuyerEmail()));
 
-        if (allOrders.isEmpty()) {
-            System.out.println("⚠️  WARNING: Database is empty! No orders found.");
-            System.out.println("════════════════════════════════════════\n");
-            return List.of();
+        if (log.isDebugEnabled()) {
+            log.debug("Placing order {} for [{}] ({} {}), total={}, items={}",
+                    order.getOrderId(), order.getBuyerEmail(), order.getFirstName(), order.getLastName(),
+                    order.getTotal(), order.getItems() != null ? order.getItems().size() : 0);
         }
 
-        // Show all emails in database
-        System.out.println("\n📋 ALL EMAILS IN DATABASE:");
-        System.out.println("┌─────────────────────────────────────────────────────────────┐");
-        for (int i = 0; i < allOrders.size(); i++) {
-            Order order = allOrders.get(i);
-            String dbEmail = order.getBuyerEmail();
-            boolean matches = dbEmail != null && dbEmail.trim().equalsIgnoreCase(cleanEmail);
-
-            System.out.printf("│ %2d. Order: %-15s │ Email: %-30s │ Match: %s │%n",
-                    i + 1,
-                    order.getOrderId(),
-                    "[" + dbEmail + "]",
-                    matches ? "✓" : "✗"
-            );
+        Map<Long, Integer> quantities = quantitiesByProduct(order.getItems());
+        Map<Long, Integer> acquired = new TreeMap<>();
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            if (!stockCounters.tryAcquire(e.getKey(), e.getValue())) {
+                acquired.forEach(stockCounters::release);
+                log.info("Order {} rejected: product {} is sold out", order.getOrderId(), e.getKey());
+                throw outOfStock(e.getKey());
+            }
+            acquired.put(e.getKey(), e.getValue());
         }
-        System.out.println("└─────────────────────────────────────────────────────────────┘");
 
-        // Try multiple search strategies
-        List<Order> orders = List.of();
-
-        // Strategy 1: Case-insensitive with trim
-        System.out.println("\n🔍 SEARCH STRATEGY 1: Case-insensitive + Trim");
+        Order savedOrder;
         try {
-            orders = orderRepo.findByBuyerEmailIgnoreCase(cleanEmail);
-            System.out.println("   Result: " + orders.size() + " order(s) found");
-            if (orders.size() > 0) {
-                System.out.println("   ✅ SUCCESS with Strategy 1!");
+            savedOrder = tx.execute(status -> {
+                for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+                    if (productRepo.decrementStock(e.getKey(), e.getValue()) == 0
+                            && stockCounters.isTracked(e.getKey())) {
+                        throw outOfStock(e.getKey());
+                    }
+                }
+                Order saved = orderRepo.save(order);
+                // Stamped at insert (not with the order date, taken before the stock work) so the feed's settle cut holds
+                eventRepo.save(new OrderStatusEvent(saved.getOrderId(), null, saved.getStatus(), LocalDateTime.now()));
+                dashboardCounters.recordMove(saved.getBuyerEmail(), null, saved.getStatus());
+                replicaReads.stickToPrimary();
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            acquired.forEach(stockCounters::release);
+            if (e instanceof InsufficientStockException shortage) {
+                // The counter let this through but the row did not: re-seed it from the database
+                stockCounters.invalidate(shortage.getProductId());
+                log.info("Order {} rejected: {}", order.getOrderId(), shortage.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("   ❌ Error: " + e.getMessage());
-        }
-
-        // Strategy 2: Exact match (if Strategy 1 failed)
-        if (orders.isEmpty()) {
-            System.out.println("\n🔍 SEARCH STRATEGY 2: Exact Match");
-            try {
-                orders = orderRepo.findByBuyerEmail(cleanEmail);
-                System.out.println("   Result: " + orders.size() + " order(s) found");
-                if (orders.size() > 0) {
-                    System.out.println("   ✅ SUCCESS with Strategy 2!");
+            if (e instanceof DataIntegrityViolationException && order.getIdempotencyKey() != null) {
+                // Same key submitted through another instance: return the order it created
+                Optional<Order> original = idempotentOrders.findExisting(order.getBuyerEmail(), order.getIdempotencyKey());
+                if (original.isPresent()) {
+                    log.info("Order for [{}] replayed from idempotency key", order.getBuyerEmail());
+                    return original.get();
                 }
-            } catch (Exception e) {
-                System.out.println("   ❌ Error: " + e.getMessage());
             }
+            throw e;
         }
+        quantities.keySet().forEach(catalogCache::stockChanged);
 
-        // Strategy 3: Contains search (last resort)
-        if (orders.isEmpty()) {
-            System.out.println("\n🔍 SEARCH STRATEGY 3: Contains Search");
-            try {
-                orders = orderRepo.findByBuyerEmailContaining(cleanEmail);
-                System.out.println("   Result: " + orders.size() + " order(s) found");
-                if (orders.size() > 0) {
-                    System.out.println("   ✅ SUCCESS with Strategy 3!");
+        log.info("Order {} placed (id={})", savedOrder.getOrderId(), savedOrder.getId());
+
+        return savedOrder;
+    }
+
+    private static Map<Long, Integer> quantitiesByProduct(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        if (items != null) {
+            for (OrderItem item : items) {
+                if (item.getProductId() != null && item.getQuantity() != null && item.getQuantity() > 0) {
+                    quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
                 }
-            } catch (Exception e) {
-                System.out.println("   ❌ Error: " + e.getMessage());
             }
         }
+        return quantities;
+    }
 
-        // Display results
-        System.out.println("\n📦 FINAL RESULTS:");
-        System.out.println("═══════════════════════════════════════════════════════════════");
-
-        if (orders.isEmpty()) {
-            System.out.println("❌ NO ORDERS FOUND for email: [" + cleanEmail + "]");
-            System.out.println("\n💡 TROUBLESHOOTING TIPS:");
-            System.out.println("   1. Check if email has extra spaces in database");
-            System.out.println("   2. Verify email case sensitivity");
-            System.out.println("   3. Check database column name (@Column annotation)");
-            System.out.println("   4. Run SQL: SELECT * FROM orders WHERE buyer_email LIKE '%" + cleanEmail + "%'");
-        } else {
-            System.out.println("✅ FOUND " + orders.size() + " ORDER(S):");
-            System.out.println("┌─────────────────────────────────────────────────────────────┐");
-            for (int i = 0; i < orders.size(); i++) {
-                Order order = orders.get(i);
-                System.out.printf("│ %2d. %-15s │ Status: %-10s │ Items: %2d │ Total: %8.2f │%n",
-                        i + 1,
-                        order.getOrderId(),
-                        order.getStatus(),
-                        order.getItems() != null ? order.getItems().size() : 0,
-                        order.getTotal()
-                );
+    private static InsufficientStockException outOfStock(Long productId) {
+        return new InsufficientStockException(productId, "Not enough stock for product " + productId + ".");
+    }
+
+    /**
+     * Get a page of a buyer's orders with their items, newest first.
+     * Pass the smallest id of the previous page as beforeId to continue.
+     */
+    public List<OrderDTO> getBuyerOrders(String email, Long beforeId, int size) {
+        String cleanEmail = normalizeEmail(email);
+        if (cleanEmail == null || cleanEmail.isEmpty()) {
+            return List.of();
+        }
+
+        return replicaReads.read(() -> {
+            List<Long> ids = orderRepo.findIdsByBuyerEmail(
+                    cleanEmail,
+                    beforeId != null ? beforeId : Long.MAX_VALUE,
+                    PageRequest.of(0, size));
+            if (ids.isEmpty()) {
+                return List.<OrderDTO>of();
             }
-            System.out.println("└─────────────────────────────────────────────────────────────┘");
+            return orderRepo.findWithItemsByIdIn(ids).stream().map(this::toDTO).toList();
+        });
+    }
+
+    /**
+     * Same page as getBuyerOrders, headers only.
+     */
+    public List<OrderSummaryDTO> getBuyerOrderSummaries(String email, Long beforeId, int size) {
+        String cleanEmail = normalizeEmail(email);
+        if (cleanEmail == null || cleanEmail.isEmpty()) {
+            return List.of();
         }
+        return replicaReads.read(() -> orderRepo.findSummariesByBuyerEmail(
+                cleanEmail,
+                beforeId != null ? beforeId : Long.MAX_VALUE,
+                PageRequest.of(0, size)));
+    }
 
-        System.out.println("═══════════════════════════════════════════════════════════════\n");
+    /**
+     * Cleanup of emails stored before they were normalized on write; buyer lookups match the
+     * normalized email exactly. The update reads every order row, so it runs once per database
+     * (see DataMigrations), while the context starts and before the server takes requests.
+     */
+    @PostConstruct
+    public void normalizeStoredBuyerEmails() {
+        migrations.runOnce("orders-normalize-buyer-emails", () -> {
+            int updated = orderRepo.normalizeBuyerEmails();
+            if (updated > 0) {
+                log.info("Normalized buyer email on {} order(s)", updated);
+            }
+        });
+    }
+
+    /**
+     * Statuses used to be free text ("Pending", "confirmed", ...). Map them onto OrderStatus
+     * names so the enum column can be read; anything unrecognised goes back to PENDING for
+     * a farmer to look at. Rows from before versioning get version 0. Both scan the orders
+     * table, so each runs once per database (see DataMigrations). Runs while the context starts,
+     * so no request or scheduled job (rollups, archiving) reads an order before it is valid.
+     */
+    @PostConstruct
+    public void normalizeStoredStatuses() {
+        migrations.runOnce("orders-fill-missing-version", () -> {
+            int versioned = orderRepo.fillMissingVersion();
+            if (versioned > 0) {
+                log.info("Initialized version on {} order(s)", versioned);
+            }
+        });
+        migrations.runOnce("orders-normalize-statuses", () -> {
+            int updated = orderRepo.fillMissingStatus();
+            for (String stored : orderRepo.findDistinctStoredStatuses()) {
+                if (stored == null) continue;
+                OrderStatus status = OrderStatus.parse(stored).orElse(OrderStatus.PENDING);
+                if (!status.name().equals(stored)) {
+                    if (OrderStatus.parse(stored).isEmpty()) {
+                        log.warn("Unknown stored order status '{}' reset to {}", stored, status);
+                    }
+                    updated += orderRepo.rewriteStoredStatus(stored, status.name());
+                }
+            }
+            if (updated > 0) {
+                log.info("Normalized status on {} order(s)", updated);
+            }
+        });
+    }
 
-        return orders;
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
-     * Get all pending orders
+     * Page of the pending queue with items, oldest first, after the given cursor (null for the start).
+     *
+     * Read from the primary, like getPendingChanges: a page from a lagging replica would miss
+     * orders that the change feed, following on from this page's cursor, then skips as well.
      */
-    public List<Order> getAllPendingOrders() {
-        System.out.println("🔍 Fetching all pending orders...");
-        List<Order> pendingOrders = orderRepo.findByStatusIgnoreCase("Pending");
-        System.out.println("✅ Found " + pendingOrders.size() + " pending order(s)");
-        return pendingOrders;
+    public List<OrderDTO> getPendingOrders(Cursor after, int size) {
+        Cursor from = after != null ? after : Cursor.START;
+        List<OrderDTO> page = replicaReads.readPrimary(() -> {
+            List<Long> ids = orderRepo.findIdsByStatus(OrderStatus.PENDING, from.at(), from.id(), PageRequest.of(0, size));
+            if (ids.isEmpty()) {
+                return List.<OrderDTO>of();
+            }
+            // The fetch query does not keep queue order: restore it from the id page
+            Map<Long, Integer> position = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                position.put(ids.get(i), i);
+            }
+            return orderRepo.findWithItemsByIdIn(ids).stream()
+                    .sorted((a, b) -> Integer.compare(position.get(a.getId()), position.get(b.getId())))
+                    .map(this::toDTO)
+                    .toList();
+        });
+        log.debug("Returning {} pending order(s)", page.size());
+        return page;
     }
 
     /**
-     * Update order status
+     * Same page as getPendingOrders, headers only.
      */
-    public Order updateOrderStatus(String orderId, String status) {
-        System.out.println("🔄 Updating order status...");
-        System.out.println("   Order ID: " + orderId);
-        System.out.println("   New Status: " + status);
-
-        Optional<Order> optionalOrder = orderRepo.findByOrderId(orderId);
-        if (optionalOrder.isPresent()) {
-            Order order = optionalOrder.get();
-            String oldStatus = order.getStatus();
-            order.setStatus(status);
-            Order updated = orderRepo.save(order);
-            System.out.println("✅ Status updated: " + oldStatus + " → " + status);
-            return updated;
+    public List<OrderSummaryDTO> getPendingOrderSummaries(Cursor after, int size) {
+        Cursor from = after != null ? after : Cursor.START;
+        return replicaReads.readPrimary(() ->
+                orderRepo.findSummariesByStatus(OrderStatus.PENDING, from.at(), from.id(), PageRequest.of(0, size)));
+    }
+
+    /**
+     * Changes to the pending queue after since (null: no changes, just the current cursor).
+     *
+     * Only changes at least app.orders.feed-settle-ms old are returned, so a transaction that
+     * commits slightly after a later-stamped one is not skipped by a client already past it.
+     */
+    public PendingChanges getPendingChanges(Cursor since, int limit) {
+        LocalDateTime until = LocalDateTime.now().minusNanos(feedSettleMs * 1_000_000L);
+        if (since == null) {
+            return new PendingChanges(List.of(), List.of(), new Cursor(until, Long.MAX_VALUE).toString());
+        }
+
+        return tx.execute(status -> {
+            List<Order> changed = orderRepo.findChangedAfter(since.at(), since.id(), until, PageRequest.of(0, limit));
+            if (changed.isEmpty()) {
+                // Nothing new: keep the client's cursor rather than jumping over late commits
+                return new PendingChanges(List.of(), List.of(), since.toString());
+            }
+            List<OrderDTO> pending = changed.stream()
+                    .filter(o -> o.getStatus() == OrderStatus.PENDING)
+                    .map(this::toDTO)
+                    .toList();
+            List<String> removed = changed.stream()
+                    .filter(o -> o.getStatus() != OrderStatus.PENDING)
+                    .map(Order::getOrderId)
+                    .toList();
+            Order last = changed.get(changed.size() - 1);
+            return new PendingChanges(pending, removed, new Cursor(last.getUpdatedAt(), last.getId()).toString());
+        });
+    }
+
+    /**
+     * Move an order to a new status, if the transition table allows it.
+     *
+     * Applied as one conditional UPDATE on (status, version), so of two sessions racing on
+     * the same order exactly one wins; the other gets an OrderStateException. Pass the version
+     * the caller last saw as expectedVersion to also refuse changes made since then.
+     * Setting the status an order already has is a no-op.
+     *
+     * @throws OrderStateException if the transition is not allowed or the order changed concurrently
+     */
+    public Optional<OrderDTO> updateOrderStatus(String orderId, OrderStatus target, Long expectedVersion) {
+        Optional<OrderDTO> updated = tx.execute(s -> {
+            Optional<OrderRepository.StatusView> current = orderRepo.findStatusByOrderId(orderId);
+            if (current.isEmpty()) {
+                return Optional.<OrderDTO>empty();
+            }
+            transition(orderId, current.get(), target, expectedVersion);
+            return orderRepo.findWithItemsByOrderId(orderId).map(this::toDTO);
+        });
+
+        if (updated.isEmpty()) {
+            log.warn("Status update for unknown order {}", orderId);
+        }
+        return updated;
+    }
+
+    // Call inside a transaction. Returns false when the order already had the target status.
+    private boolean transition(String orderId, OrderRepository.StatusView current, OrderStatus target,
+                               Long expectedVersion) {
+        OrderStatus from = current.getStatus();
+        if (from == target) {
+            return false;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw changedConcurrently(orderId, from);
+        }
+        if (!from.canMoveTo(target)) {
+            throw new OrderStateException(from, "Order " + orderId + " is " + from.label()
+                    + " and cannot be changed to " + target.label() + ".");
         }
 
-        System.out.println("❌ Order not found: " + orderId);
-        return null;
+        LocalDateTime now = LocalDateTime.now();
+        if (orderRepo.transition(orderId, from, target, current.getVersion(), now) == 0) {
+            throw changedConcurrently(orderId, from);
+        }
+        // Stamped at insert, after any wait for the row lock in the update above
+        eventRepo.save(new OrderStatusEvent(orderId, from, target, LocalDateTime.now()));
+        dashboardCounters.recordMove(current.getBuyerEmail(), from, target);
+        log.info("Order {} status {} -> {}", orderId, from, target);
+        return true;
+    }
+
+    private static OrderStateException changedConcurrently(String orderId, OrderStatus seen) {
+        return new OrderStateException(seen, "Order " + orderId + " was changed by someone else. Reload and try again.");
     }
 
     /**
-     * Cancel order
+     * Cancel order (only while Pending or Confirmed)
+     *
+     * @throws OrderStateException if the order can no longer be cancelled
      */
     public boolean cancelOrder(String orderId) {
-        System.out.println("🗑️  Attempting to cancel order: " + orderId);
+        return cancelOrder(orderId, null);
+    }
+
+    /**
+     * Cancel order on behalf of buyerEmail; another buyer's order counts as not found.
+     * A null buyerEmail cancels any order.
+     */
+    public boolean cancelOrder(String orderId, String buyerEmail) {
+        Map<Long, Integer> quantities = tx.execute(status -> {
+            Optional<OrderRepository.StatusView> current = orderRepo.findStatusByOrderId(orderId)
+                    .filter(view -> isBuyer(view.getBuyerEmail(), buyerEmail));
+            if (current.isEmpty()) {
+                return null;
+            }
+            replicaReads.stickToPrimary();
+            if (!transition(orderId, current.get(), OrderStatus.CANCELLED, null)) {
+                // Already cancelled: its stock went back the first time
+                return Map.<Long, Integer>of();
+            }
 
-        Optional<Order> optionalOrder = orderRepo.findByOrderId(orderId);
-        if (optionalOrder.isPresent()) {
-            orderRepo.delete(optionalOrder.get());
-            System.out.println("✅ Order deleted successfully");
-            return true;
+            // The order stays, as Cancelled, until OrderArchiveService moves it out
+            Order order = orderRepo.findWithItemsByOrderId(orderId).orElseThrow();
+            Map<Long, Integer> returned = quantitiesByProduct(order.getItems());
+            returned.forEach(productRepo::incrementStock);
+            return returned;
+        });
+        if (quantities == null) {
+            log.warn("Cancel requested for unknown order {}", orderId);
+            return false;
         }
 
-        System.out.println("❌ Order not found: " + orderId);
-        return false;
+        // Return the units to the counters too, so they can be sold again straight away
+        quantities.forEach(stockCounters::release);
+        quantities.keySet().forEach(catalogCache::stockChanged);
+        log.info("Order {} cancelled", orderId);
+        return true;
+    }
+
+    /**
+     * Status events after afterId, oldest first. The page ends before the first event younger
+     * than app.orders.feed-settle-ms, so an insert that commits late is not skipped by a reader
+     * already past its id.
+     */
+    public List<OrderStatusEvent> getStatusEvents(long afterId, int limit) {
+        LocalDateTime until = LocalDateTime.now().minusNanos(feedSettleMs * 1_000_000L);
+        return eventRepo.findSettledAfter(afterId, until, limit);
+    }
+
+    public List<OrderStatusEvent> getStatusHistory(String orderId) {
+        return eventRepo.findByOrderIdOrderByIdAsc(orderId);
     }
 
     /**
      * Get order by ID
      */
-    public Order getOrderById(String orderId) {
-        System.out.println("🔍 Fetching order by ID: " + orderId);
-        Optional<Order> order = orderRepo.findByOrderId(orderId);
+    public Optional<OrderDTO> getOrderById(String orderId) {
+        return getOrderById(orderId, null);
+    }
 
-        if (order.isPresent()) {
-            System.out.println("✅ Order found");
-            return order.get();
+    // Empty for another buyer's order too; a null buyerEmail reads any order
+    public Optional<OrderDTO> getOrderById(String orderId, String buyerEmail) {
+        Optional<OrderDTO> order = replicaReads.read(() -> orderRepo.findWithItemsByOrderId(orderId)
+                .filter(o -> isBuyer(o.getBuyerEmail(), buyerEmail))
+                .map(this::toDTO));
+        if (order.isEmpty()) {
+            log.debug("Order {} not found", orderId);
         }
+        return order;
+    }
+
+    // Whether this live order was placed by email
+    public boolean isBuyerOf(String orderId, String email) {
+        return replicaReads.read(() -> orderRepo.findStatusByOrderId(orderId)
+                .filter(view -> isBuyer(view.getBuyerEmail(), email))
+                .isPresent());
+    }
 
-        System.out.println("❌ Order not found");
-        return null;
+    static boolean isBuyer(String orderBuyer, String buyerEmail) {
+        return buyerEmail == null || buyerEmail.equalsIgnoreCase(orderBuyer);
     }
 
     /**
-     * DEBUG: Get all orders
+     * DEBUG: Get all orders (items are loaded 50 orders at a time)
      */
-    public List<Order> getAllOrders() {
-        System.out.println("🔍 DEBUG: Fetching ALL orders from database...");
-        List<Order> allOrders = orderRepo.findAll();
-        System.out.println("✅ Total orders: " + allOrders.size());
-
-        if (!allOrders.isEmpty()) {
-            System.out.println("\n📋 ALL ORDERS SUMMARY:");
-            System.out.println("┌──────────────────────────────────────────────────────────────────┐");
-            for (int i = 0; i < allOrders.size(); i++) {
-                Order order = allOrders.get(i);
-                System.out.printf("│ %2d. %-15s │ Email: %-35s │%n",
-                        i + 1,
-                        order.getOrderId(),
-                        "[" + order.getBuyerEmail() + "]"
-                );
-                System.out.printf("│     Status: %-10s │ Total: LKR %10.2f │ Date: %s │%n",
-                        order.getStatus(),
-                        order.getTotal(),
-                        order.getOrderDate()
-                );
-                System.out.println("├──────────────────────────────────────────────────────────────────┤");
-            }
-            System.out.println("└──────────────────────────────────────────────────────────────────┘");
-        }
+    public List<OrderDTO> getAllOrders() {
+        List<OrderDTO> allOrders = replicaReads.read(() -> orderRepo.findAll().stream().map(this::toDTO).toList());
+        log.debug("Fetched all {} order(s)", allOrders.size());
 
         return allOrders;
     }
-}
\ No newline at end of file
+
+    /**
+     * Map an order for the client. Reads order.getItems(), so call it while the items
+     * are loaded (join-fetched, just saved, or inside a transaction).
+     */
+    public OrderDTO toDTO(Order order) {
+        OrderDTO dto = new OrderDTO();
+        dto.id = order.getId();
+        dto.orderId = order.getOrderId();
+        dto.firstName = order.getFirstName();
+        dto.lastName = order.getLastName();
+        dto.phone = order.getPhone();
+        dto.province = order.getProvince();
+        dto.district = order.getDistrict();
+        dto.city = order.getCity();
+        dto.address = order.getAddress();
+        dto.deliveryFee = order.getDeliveryFee();
+        dto.total = order.getTotal();
+        dto.status = order.getStatus();
+        dto.version = order.getVersion();
+        dto.orderDate = order.getOrderDate();
+        dto.items = order.getItems() == null ? List.of() : order.getItems().stream().map(item -> {
+            OrderItemDTO itemDto = new OrderItemDTO();
+            itemDto.productName = item.getProductName();
+            itemDto.price = item.getPrice();
+            itemDto.quantity = item.getQuantity();
+            itemDto.imageUrl = item.getImageUrl();
+            return itemDto;
+        }).toList();
+        return dto;
+    }
+}
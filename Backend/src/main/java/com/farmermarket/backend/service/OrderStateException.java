@@ -0,0 +1,19 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.OrderStatus;
+
+/**
+ * Thrown when a status change is not allowed from the order's current status, or when the
+ * order was changed by someone else since the caller read it.
+ */
+public class OrderStateException extends IllegalStateException {
+
+    private final OrderStatus currentStatus;
+
+    public OrderStateException(OrderStatus currentStatus, String message) {
+        super(message);
+        this.currentStatus = currentStatus;
+    }
+
+    public OrderStatus getCurrentStatus() { return currentStatus; }
+}
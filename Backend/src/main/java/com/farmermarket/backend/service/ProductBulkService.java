@@ -0,0 +1,679 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.dto.BulkImportResult;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import com.farmermarket.backend.storage.ImageStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Bulk product import and export, in CSV (with a header row) or NDJSON (one object per line).
+ *
+ * Both directions stream: the import reads one row at a time and writes valid rows in JDBC
+ * batches of app.products.bulk.batch-size (one transaction per batch), the export walks a
+ * forward-only cursor and detaches each product once written. Memory use does not grow with
+ * the size of the catalog.
+ *
+ * Columns are id, name, category, price, description, stock, stock_was and image. A row whose id
+ * names an existing product updates it; any other row creates a product. image is a file name in
+ * the uploaded zip or, as written by the export, the key of an image already in the image store;
+ * a row without one keeps the product's current image.
+ *
+ * Stock on an existing product follows the edit form: a row without stock leaves it alone, and a
+ * row with stock sets it only if the product still has stock_was (blank: not tracked), the value
+ * the export wrote. Units sold since the file was exported make the row fail instead of being
+ * written back, and re-importing an unedited export leaves live stock as it is.
+ */
+@Service
+public class ProductBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkService.class);
+    static final List<String> COLUMNS = List.of("id", "name", "category", "price", "description", "stock", "stock_was", "image");
+    static final List<String> REQUIRED_COLUMNS = List.of("name", "category", "price");
+    private static final Pattern IMAGE_KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final String INSERT_SQL = "INSERT INTO products (name, category, price, description, stock, "
+            + "image_key, image_size, image_content_type, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // An image-less or stock-less row keeps the current image or stock. A row with stock only
+    // matches while stock is still stock_was; stock is never negative, so -1 stands for untracked.
+    private static final String UPDATE_SQL = "UPDATE products SET name = ?, category = ?, price = ?, description = ?, "
+            + "stock = COALESCE(?, stock), image_key = COALESCE(?, image_key), image_size = COALESCE(?, image_size), "
+            + "image_content_type = COALESCE(?, image_content_type), updated_at = ? "
+            + "WHERE id = ? AND (? = 0 OR COALESCE(stock, -1) = ?)";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() { return MediaType.parseMediaType(mediaType); }
+        public String extension() { return extension; }
+
+        /**
+         * The explicit format parameter if given, otherwise guessed from the file name (CSV by default).
+         */
+        public static Optional<Format> detect(String param, String filename) {
+            if (param != null && !param.isBlank()) {
+                return Arrays.stream(values()).filter(f -> f.name().equalsIgnoreCase(param.trim())).findFirst();
+            }
+            String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+            return Optional.of(name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV);
+        }
+    }
+
+    private final ProductRepository repo;
+    private final ProductService productService;
+    private final ImageStore imageStore;
+    private final CatalogCache cache;
+    private final StockCounters stockCounters;
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final int batchSize;
+    private final int maxErrors;
+    private final long maxImageBytes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductBulkService(ProductRepository repo, ProductService productService, ImageStore imageStore,
+                              CatalogCache cache, StockCounters stockCounters, JdbcTemplate jdbc,
+                              ObjectMapper mapper, PlatformTransactionManager txManager,
+                              @Value("${app.products.bulk.batch-size:500}") int batchSize,
+                              @Value("${app.products.bulk.max-errors:1000}") int maxErrors,
+                              @Value("${app.products.bulk.max-image-bytes:10485760}") long maxImageBytes) {
+        this.repo = repo;
+        this.productService = productService;
+        this.imageStore = imageStore;
+        this.cache = cache;
+        this.stockCounters = stockCounters;
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+        this.tx = new TransactionTemplate(txManager);
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = Math.max(0, maxErrors);
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    // ----- Import -----
+
+    /**
+     * Import every row of file; invalid rows are reported and skipped, the rest are saved.
+     * Throws IllegalArgumentException when the file as a whole is unusable (e.g. a CSV header
+     * without the required columns, or images that are not a zip).
+     */
+    public BulkImportResult importProducts(MultipartFile file, MultipartFile images, Format format) throws IOException {
+        Path zipPath = null;
+        try {
+            if (images != null && !images.isEmpty()) {
+                // ZipFile needs random access: rows may name the images in any order
+                zipPath = Files.createTempFile("product-images-", ".zip");
+                images.transferTo(zipPath);
+            }
+            try (ZipFile zip = openZip(zipPath);
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+                return importRows(format == Format.NDJSON ? new NdjsonRows(reader, mapper) : new CsvRows(reader),
+                        new ZipImages(zip));
+            }
+        } finally {
+            if (zipPath != null) {
+                Files.deleteIfExists(zipPath);
+            }
+        }
+    }
+
+    private BulkImportResult importRows(RowSource rows, ZipImages images) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<Row> batch = new ArrayList<>(batchSize);
+        long rowNumber = 0;
+        while (true) {
+            Map<String, String> fields;
+            try {
+                fields = rows.next();
+            } catch (IllegalArgumentException e) {
+                // Unparseable record: report it and carry on with the next one
+                fail(result, rows.lastRow(), e.getMessage());
+                continue;
+            }
+            if (fields == null) {
+                break;
+            }
+            rowNumber = rows.lastRow();
+            try {
+                batch.add(toRow(rowNumber, fields, images));
+            } catch (IllegalArgumentException e) {
+                fail(result, rowNumber, e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                save(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch, result);
+        }
+        if (result.created + result.updated > 0) {
+            cache.invalidateAll();
+            productService.buildSearchIndex();
+        }
+        log.info("Bulk import: {} created, {} updated, {} failed of {} row(s)",
+                result.created, result.updated, result.failed, rowNumber);
+        return result;
+    }
+
+    private Row toRow(long rowNumber, Map<String, String> fields, ZipImages images) throws IOException {
+        Row row = new Row(rowNumber);
+        row.id = parseLong(fields.get("id"), "id");
+
+        row.name = trimToNull(fields.get("name"));
+        if (row.name == null) throw new IllegalArgumentException("name is required");
+        if (row.name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+
+        String category = trimToNull(fields.get("category"));
+        if (category == null) throw new IllegalArgumentException("category is required");
+        try {
+            row.category = Product.Category.valueOf(category.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown category: " + category);
+        }
+
+        String price = trimToNull(fields.get("price"));
+        if (price == null) throw new IllegalArgumentException("price is required");
+        try {
+            row.price = Double.parseDouble(price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + price);
+        }
+        if (!Double.isFinite(row.price) || row.price < 0) {
+            throw new IllegalArgumentException("price must be zero or more");
+        }
+
+        row.description = trimToNull(fields.get("description"));
+
+        row.stock = parseStock(fields.get("stock"), "stock");
+        row.stockWas = parseStock(fields.get("stock_was"), "stock_was");
+
+        String image = trimToNull(fields.get("image"));
+        if (image != null) {
+            resolveImage(row, image, images);
+        }
+        return row;
+    }
+
+    // A zip entry wins over a store key of the same name
+    private void resolveImage(Row row, String image, ZipImages images) throws IOException {
+        Optional<ZipEntry> entry = images.find(image);
+        if (entry.isPresent()) {
+            ZipEntry e = entry.get();
+            if (e.getSize() > maxImageBytes) {
+                throw new IllegalArgumentException("Image " + image + " is larger than " + maxImageBytes + " bytes");
+            }
+            try (InputStream in = new BufferedInputStream(images.zip.getInputStream(e))) {
+                row.imageContentType = contentTypeOf(in, e.getName());
+                ImageStore.StoredImage stored = productService.storeImage(in);
+                row.imageKey = stored.key();
+                row.imageSize = stored.size();
+            }
+            return;
+        }
+        Optional<Path> existing = IMAGE_KEY.matcher(image).matches() ? imageStore.find(image) : Optional.empty();
+        if (existing.isEmpty()) {
+            throw new IllegalArgumentException("Image not found: " + image);
+        }
+        row.imageKey = image;
+        row.imageSize = Files.size(existing.get());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(existing.get()))) {
+            row.imageContentType = contentTypeOf(in, null);
+        }
+    }
+
+    // One transaction per batch; a batch the database refuses is reported row by row
+    private void save(List<Row> batch, BulkImportResult result) {
+        List<Row> stockChanged = new ArrayList<>();
+        Map<Long, Integer> currentStock = new HashMap<>();
+        try {
+            int[] counts = tx.execute(status -> {
+                stockChanged.clear();
+                currentStock.clear();
+                List<Long> ids = batch.stream().map(r -> r.id).filter(Objects::nonNull).toList();
+                Set<Long> existing = ids.isEmpty() ? Set.of() : new HashSet<>(repo.findExistingIds(ids));
+                List<Long> stockIds = batch.stream()
+                        .filter(r -> r.stock != null && r.id != null && existing.contains(r.id)).map(r -> r.id).toList();
+                if (!stockIds.isEmpty()) {
+                    repo.findStockByIds(stockIds).forEach(v -> currentStock.put(v.getId(), v.getStock()));
+                }
+                List<Row> inserts = new ArrayList<>();
+                List<Row> updates = new ArrayList<>();
+                for (Row row : batch) {
+                    if (row.id == null || !existing.contains(row.id)) {
+                        inserts.add(row);
+                    } else if (row.stock != null && !Objects.equals(currentStock.get(row.id), row.stockWas)) {
+                        stockChanged.add(row);
+                    } else {
+                        updates.add(row);
+                    }
+                }
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbc.batchUpdate(INSERT_SQL, inserts, batchSize, (ps, row) -> {
+                    bindProduct(ps, row);
+                    ps.setTimestamp(9, now);
+                    ps.setTimestamp(10, now);
+                });
+                int[][] updated = jdbc.batchUpdate(UPDATE_SQL, updates, batchSize, (ps, row) -> {
+                    bindProduct(ps, row);
+                    ps.setTimestamp(9, now);
+                    ps.setLong(10, row.id);
+                    ps.setInt(11, row.stock != null ? 1 : 0);
+                    ps.setInt(12, row.stockWas != null ? row.stockWas : -1);
+                });
+                // Stock sold between the read above and the update: 0 rows matched. A rewritten
+                // batch on MySQL reports SUCCESS_NO_INFO instead, and the read above stands.
+                int i = 0;
+                int saved = updates.size();
+                for (int[] chunk : updated) {
+                    for (int count : chunk) {
+                        Row row = updates.get(i++);
+                        if (count == 0) {
+                            currentStock.put(row.id, repo.findStockById(row.id));
+                            stockChanged.add(row);
+                            saved--;
+                        }
+                    }
+                }
+                return new int[] {inserts.size(), saved};
+            });
+            result.created += counts[0];
+            result.updated += counts[1];
+            for (Row row : stockChanged) {
+                Integer current = currentStock.get(row.id);
+                fail(result, row.number, "Not saved: stock has changed to "
+                        + (current != null ? current : "untracked") + " since the file was exported");
+            }
+            batch.stream().filter(r -> r.id != null).forEach(r -> stockCounters.invalidate(r.id));
+        } catch (DataAccessException e) {
+            log.warn("Bulk import batch of {} row(s) failed", batch.size(), e);
+            String message = "Not saved: " + e.getMostSpecificCause().getMessage();
+            batch.forEach(row -> fail(result, row.number, message));
+        }
+    }
+
+    private static void bindProduct(PreparedStatement ps, Row row) throws SQLException {
+        ps.setString(1, row.name);
+        ps.setString(2, row.category.name());
+        ps.setDouble(3, row.price);
+        setNullable(ps, 4, row.description, Types.VARCHAR);
+        setNullable(ps, 5, row.stock, Types.INTEGER);
+        setNullable(ps, 6, row.imageKey, Types.VARCHAR);
+        setNullable(ps, 7, row.imageSize, Types.BIGINT);
+        setNullable(ps, 8, row.imageContentType, Types.VARCHAR);
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value, sqlType);
+        }
+    }
+
+    private void fail(BulkImportResult result, long row, String error) {
+        result.failed++;
+        if (result.errors.size() < maxErrors) {
+            result.errors.add(new BulkImportResult.RowError(row, error));
+        } else {
+            result.errorsTruncated = true;
+        }
+    }
+
+    private static ZipFile openZip(Path path) throws IOException {
+        if (path == null) return null;
+        try {
+            return new ZipFile(path.toFile());
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("images must be a zip file");
+        }
+    }
+
+    // Sniffed from the bytes first; the file name only breaks ties
+    private static String contentTypeOf(InputStream in, String filename) throws IOException {
+        String type = URLConnection.guessContentTypeFromStream(in);
+        if (type == null && filename != null) {
+            type = URLConnection.guessContentTypeFromName(filename);
+        }
+        return type != null ? type : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static Integer parseStock(String value, String column) {
+        Long stock = parseLong(value, column);
+        if (stock != null && (stock < 0 || stock > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(column + " must be between 0 and " + Integer.MAX_VALUE);
+        }
+        return stock != null ? stock.intValue() : null;
+    }
+
+    private static Long parseLong(String value, String column) {
+        String v = trimToNull(value);
+        if (v == null) return null;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + v);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) return null;
+        String v = value.trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private static final class Row {
+        final long number;
+        Long id;
+        String name;
+        Product.Category category;
+        double price;
+        String description;
+        Integer stock;
+        Integer stockWas;
+        String imageKey;
+        Long imageSize;
+        String imageContentType;
+
+        Row(long number) {
+            this.number = number;
+        }
+    }
+
+    // Entries looked up by full path or by bare file name
+    private static final class ZipImages {
+        final ZipFile zip;
+        final Map<String, String> byFileName = new HashMap<>();
+
+        ZipImages(ZipFile zip) {
+            this.zip = zip;
+            if (zip != null) {
+                zip.stream().filter(e -> !e.isDirectory()).forEach(e ->
+                        byFileName.putIfAbsent(e.getName().substring(e.getName().lastIndexOf('/') + 1), e.getName()));
+            }
+        }
+
+        Optional<ZipEntry> find(String name) {
+            if (zip == null) return Optional.empty();
+            ZipEntry entry = zip.getEntry(name);
+            if (entry == null && byFileName.containsKey(name)) {
+                entry = zip.getEntry(byFileName.get(name));
+            }
+            return Optional.ofNullable(entry).filter(e -> !e.isDirectory());
+        }
+    }
+
+    interface RowSource {
+        // Next record as column -> value, or null at the end; IllegalArgumentException for a bad record
+        Map<String, String> next() throws IOException;
+
+        long lastRow();
+    }
+
+    private static final class NdjsonRows implements RowSource {
+        private final BufferedReader reader;
+        private final ObjectMapper mapper;
+        private long row;
+
+        NdjsonRows(BufferedReader reader, ObjectMapper mapper) {
+            this.reader = reader;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+            row++;
+            JsonNode node;
+            try {
+                node = mapper.readTree(line);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid JSON");
+            }
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (String column : COLUMNS) {
+                JsonNode value = node.get(column);
+                if (value != null && !value.isNull()) {
+                    fields.put(column, value.asText());
+                }
+            }
+            return fields;
+        }
+
+        @Override
+        public long lastRow() { return row; }
+    }
+
+    /**
+     * RFC 4180 records: comma separated, fields optionally quoted with "" for a quote, CRLF or LF
+     * line ends, quoted fields may span lines. The header names the columns in any order.
+     */
+    static final class CsvRows implements RowSource {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private long row;
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            // A BOM written by spreadsheet programs would stick to the first column name
+            names.set(0, names.get(0).replace("\uFEFF", ""));
+            this.header = names.stream().map(n -> n.trim().toLowerCase(Locale.ROOT)).toList();
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !header.contains(c)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing column(s): " + String.join(", ", missing));
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) return null;
+            } while (values.size() == 1 && values.get(0).isBlank());
+            row++;
+            if (values.size() > header.size()) {
+                throw new IllegalArgumentException("Expected " + header.size() + " fields, found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return fields;
+        }
+
+        @Override
+        public long lastRow() { return row; }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') reader.reset();
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (quoted) {
+                // Nothing after this can be trusted: the rest of the file was swallowed by the field
+                row++;
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            if (!any) return null;
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    // ----- Export -----
+
+    /**
+     * Write the whole catalog to out, ordered by id. Runs in its own read-only transaction so it
+     * can be called from a StreamingResponseBody.
+     */
+    public void exportProducts(Format format, OutputStream out) {
+        readOnlyTx.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            try (Stream<Product> products = repo.streamAllOrderById()) {
+                if (format == Format.CSV) {
+                    writer.write(String.join(",", COLUMNS));
+                    writer.write("\r\n");
+                }
+                Iterator<Product> it = products.iterator();
+                while (it.hasNext()) {
+                    Product p = it.next();
+                    if (format == Format.CSV) {
+                        writeCsv(writer, p);
+                    } else {
+                        writer.write(mapper.writeValueAsString(toExportRow(p)));
+                        writer.write('\n');
+                    }
+                    // Keep the persistence context from growing with the catalog
+                    entityManager.detach(p);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Map<String, Object> toExportRow(Product p) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", p.getId());
+        row.put("name", p.getName());
+        row.put("category", p.getCategory() != null ? p.getCategory().name() : null);
+        row.put("price", p.getPrice());
+        row.put("description", p.getDescription());
+        row.put("stock", p.getStock());
+        // What the stock was when exported, so an import changes it only if nothing was sold since
+        row.put("stock_was", p.getStock());
+        row.put("image", p.getImageKey());
+        return row;
+    }
+
+    private static void writeCsv(Writer writer, Product p) throws IOException {
+        Map<String, Object> row = toExportRow(p);
+        boolean first = true;
+        for (Object value : row.values()) {
+            if (!first) writer.write(',');
+            first = false;
+            if (value != null) writer.write(csvField(value.toString()));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvField(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,143 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index over product name and description.
+ * Queries of 3+ characters use trigram postings; shorter queries use word-prefix postings.
+ * Candidates are always re-checked against the indexed text, so results are exact substring matches.
+ *
+ * Only what matching, filtering and ranking need is kept. Results are product ids, which callers
+ * hydrate from CatalogCache, so stock and other fields are as current as the listing's.
+ */
+@Component
+public class ProductSearchIndex {
+
+    // name is the normalized product name, kept so ranking never re-normalizes
+    private record Entry(Long id, Product.Category category, Double price, String name, String text,
+                         Set<String> grams) {}
+
+    private record Match(Entry entry, int rank) {}
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public synchronized void rebuild(Collection<Product> products) {
+        entries.clear();
+        postings.clear();
+        products.forEach(this::put);
+    }
+
+    public synchronized void put(Product p) {
+        remove(p.getId());
+        String name = normalize(p.getName());
+        String text = name + "\n" + normalize(p.getDescription());
+        Set<String> grams = gramsOf(text);
+        for (String g : grams) {
+            postings.computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).add(p.getId());
+        }
+        entries.put(p.getId(), new Entry(p.getId(), p.getCategory(), p.getPrice(), name, text, grams));
+    }
+
+    public synchronized void remove(Long id) {
+        Entry old = entries.remove(id);
+        if (old == null) return;
+        for (String g : old.grams()) {
+            Set<Long> ids = postings.get(g);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) postings.remove(g);
+            }
+        }
+    }
+
+    // Ids of the matching products, best match first
+    public Page<Long> search(String q, Product.Category category, Double minPrice, Double maxPrice, Pageable pageable) {
+        String query = normalize(q);
+        Collection<Long> candidates = query.isEmpty() ? entries.keySet() : candidatesFor(query);
+
+        List<Match> matches = new ArrayList<>();
+        for (Long id : candidates) {
+            Entry e = entries.get(id);
+            if (e == null) continue;
+            if (!query.isEmpty() && !e.text().contains(query)) continue;
+            if (category != null && e.category() != category) continue;
+            if (minPrice != null && (e.price() == null || e.price() < minPrice)) continue;
+            if (maxPrice != null && (e.price() == null || e.price() > maxPrice)) continue;
+            matches.add(new Match(e, rank(e, query)));
+        }
+
+        // Name-prefix hits first, then name matches, then description-only matches
+        matches.sort(Comparator
+                .comparingInt(Match::rank)
+                .thenComparing((Match m) -> m.entry().name())
+                .thenComparing(m -> m.entry().id()));
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<Long> content = matches.subList(from, to).stream().map(m -> m.entry().id()).toList();
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Collection<Long> candidatesFor(String query) {
+        Set<String> grams = query.length() >= 3 ? trigrams(query) : Set.of(prefixKey(query));
+        Set<Long> smallest = null;
+        for (String g : grams) {
+            Set<Long> ids = postings.get(g);
+            if (ids == null) return List.of();
+            if (smallest == null || ids.size() < smallest.size()) smallest = ids;
+        }
+        return smallest == null ? List.of() : new ArrayList<>(smallest);
+    }
+
+    private static int rank(Entry e, String query) {
+        if (e.name().startsWith(query)) return 0;
+        if (e.name().contains(query)) return 1;
+        return 2;
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> grams = trigrams(text);
+        for (String word : text.split("\\s+")) {
+            if (word.isEmpty()) continue;
+            grams.add(prefixKey(word.substring(0, 1)));
+            if (word.length() >= 2) grams.add(prefixKey(word.substring(0, 2)));
+        }
+        return grams;
+    }
+
+    private static Set<String> trigrams(String s) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            grams.add(s.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Prefix keys are tagged with '^' to keep them apart from ordinary trigrams
+    private static String prefixKey(String prefix) {
+        return "^" + prefix;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,58 +1,333 @@
 package com.farmermarket.backend.service;
 
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.dto.ProductDTO;
+import com.farmermarket.backend.jdbc.ReplicaReads;
 import com.farmermarket.backend.model.Product;
 import com.farmermarket.backend.repository.ProductRepository;
+import com.farmermarket.backend.storage.ImageStore;
+import com.farmermarket.backend.storage.ImageVariant;
+import com.farmermarket.backend.storage.ImageVariantProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductService {
 
     private final ProductRepository repo;
+    private final ImageStore imageStore;
+    private final ProductSearchIndex searchIndex;
+    private final CatalogCache cache;
+    private final ImageVariantProcessor variantProcessor;
+    private final StockCounters stockCounters;
+    private final ReplicaReads replicaReads;
+    private final TransactionTemplate tx;
 
-    public ProductService(ProductRepository repo) {
+    public ProductService(ProductRepository repo, ImageStore imageStore, ProductSearchIndex searchIndex,
+                          CatalogCache cache, ImageVariantProcessor variantProcessor, StockCounters stockCounters,
+                          ReplicaReads replicaReads, PlatformTransactionManager txManager) {
         this.repo = repo;
+        this.imageStore = imageStore;
+        this.searchIndex = searchIndex;
+        this.cache = cache;
+        this.variantProcessor = variantProcessor;
+        this.stockCounters = stockCounters;
+        this.replicaReads = replicaReads;
+        this.tx = new TransactionTemplate(txManager);
+        // Another instance changed the catalog: our index is stale too
+        cache.onRemoteChange(this::buildSearchIndex);
+        cache.readStockWith(this::currentStock);
     }
 
-    public Product saveProduct(String name, Product.Category category, Double price, String description, MultipartFile imageFile) throws IOException {
+    // Built after startup runners (e.g. the legacy image migration) have finished
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.rebuild(repo.findAll());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingCreatedAt() {
+        repo.fillMissingCreatedAt();
+    }
+
+    public Product saveProduct(String name, Product.Category category, Double price, String description,
+                               Integer stock, MultipartFile imageFile) throws IOException {
         Product p = new Product();
         p.setName(name);
         p.setCategory(category);
         p.setPrice(price);
         p.setDescription(description);
+        p.setStock(stock);
         if (imageFile != null && !imageFile.isEmpty()) {
-            p.setImage(imageFile.getBytes());
-            p.setImageContentType(imageFile.getContentType());
+            storeImage(p, imageFile);
         }
-        return repo.save(p);
+        Product saved = repo.save(p);
+        searchIndex.put(saved);
+        cache.invalidateProduct(saved.getId());
+        return saved;
     }
 
     public List<Product> listAll() {
         return repo.findAll();
     }
 
+    public CatalogCache.Listing listAllDTOs() {
+        return cache.listing(() -> {
+            List<Product> products = repo.findAll();
+            // Fingerprint of every row version; changes whenever any product does
+            StringBuilder versions = new StringBuilder();
+            for (Product p : products) {
+                versions.append(p.getId()).append(':').append(p.getUpdatedAt()).append(':')
+                        .append(p.getImageKey()).append(':').append(p.getStock()).append(';');
+            }
+            String etag = DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+            return new CatalogCache.Listing(products.stream().map(this::toDTO).toList(), etag);
+        });
+    }
+
+    // Later than any created_at, and still a valid DATETIME
+    private static final LocalDateTime LISTING_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    /**
+     * Orders of the filtered listing: newest first by created_at, or cheapest first by price.
+     */
+    public enum ListingSort {
+        NEWEST, PRICE;
+
+        public static Optional<ListingSort> parse(String value) {
+            if (value == null || value.isBlank()) return Optional.of(NEWEST);
+            try {
+                return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * One page of the listing, filtered in the database (the replica, if configured) and read
+     * along an index in sort order.
+     * after is the cursor of the previous page ("<created_at or price>_<id>", see listingCursor),
+     * null for the first page.
+     *
+     * @throws IllegalArgumentException if after is not a cursor for this sort
+     */
+    public List<Product> listProducts(Product.Category category, Double minPrice, Double maxPrice,
+                                      ListingSort sort, String after, int limit) {
+        double min = minPrice != null ? minPrice : -Double.MAX_VALUE;
+        double max = maxPrice != null ? maxPrice : Double.MAX_VALUE;
+        Pageable page = PageRequest.of(0, limit);
+        int sep = after != null ? after.lastIndexOf('_') : -1;
+        if (after != null && sep < 0) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        try {
+            long id = after != null ? Long.parseLong(after.substring(sep + 1)) : 0;
+            if (sort == ListingSort.PRICE) {
+                double price = after != null ? Double.parseDouble(after.substring(0, sep)) : -Double.MAX_VALUE;
+                return replicaReads.read(() -> category != null
+                        ? repo.findCheapestInCategory(category, min, max, price, id, page)
+                        : repo.findCheapest(min, max, price, id, page));
+            }
+            LocalDateTime at = after != null ? LocalDateTime.parse(after.substring(0, sep)) : LISTING_END;
+            long beforeId = after != null ? id : Long.MAX_VALUE;
+            return replicaReads.read(() -> category != null
+                    ? repo.findNewestInCategory(category, min, max, at, beforeId, page)
+                    : repo.findNewest(min, max, at, beforeId, page));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    // Cursor for the page after the one ending with p
+    public static String listingCursor(Product p, ListingSort sort) {
+        return (sort == ListingSort.PRICE ? String.valueOf(p.getPrice()) : String.valueOf(p.getCreatedAt()))
+                + "_" + p.getId();
+    }
+
+    // Answered from the search index, which holds every product
+    public long countProducts() {
+        return searchIndex.size();
+    }
+
     public Optional<Product> findById(Long id) {
-        return repo.findById(id);
+        return Optional.ofNullable(cache.product(id, key -> repo.findById(key).orElse(null)));
+    }
+
+    /**
+     * A resolved image file: enough to answer conditional requests without reading any bytes.
+     * fallback is true when the original is served because the requested variant is not ready yet.
+     */
+    public record ProductImage(Path path, String contentType, long size, String etag, boolean fallback) {}
+
+    /**
+     * Resolve the requested variant, or the original when variant is null or not generated yet.
+     * A missing variant is (re)queued so later requests get it.
+     */
+    public Optional<ProductImage> resolveImage(Product p, ImageVariant variant) {
+        Optional<Path> original = imageStore.find(p.getImageKey());
+        if (original.isEmpty()) {
+            return Optional.empty();
+        }
+        if (variant != null) {
+            Optional<Path> rendition = imageStore.findVariant(p.getImageKey(), variant);
+            if (rendition.isPresent()) {
+                Path path = rendition.get();
+                String type = path.getFileName().toString().endsWith(".png") ? "image/png" : "image/jpeg";
+                return Optional.of(new ProductImage(path, type, fileSize(path),
+                        p.getImageKey() + "-" + variant.suffix(), false));
+            }
+            submitVariants(p.getImageKey());
+        }
+        long size = p.getImageSize() != null ? p.getImageSize() : fileSize(original.get());
+        return Optional.of(new ProductImage(original.get(), p.getImageContentType(), size, p.getImageKey(),
+                variant != null));
+    }
+
+    public Resource openImage(ProductImage image) {
+        if (!cache.isCacheableImage(image.size())) {
+            return new FileSystemResource(image.path());
+        }
+        byte[] bytes = cache.image(image.path().toString(), key -> imageStore.readPath(image.path()));
+        return new ByteArrayResource(bytes);
+    }
+
+    // Matched by the index, with each product read through the cache so stock is current
+    public Page<Product> search(String q, Product.Category category, Double minPrice, Double maxPrice, Pageable pageable) {
+        Page<Long> ids = searchIndex.search(q, category, minPrice, maxPrice, pageable);
+        // A product deleted since it was matched is left out of the page
+        List<Product> products = cache.products(ids.getContent(), missing -> {
+            Map<Long, Product> loaded = new HashMap<>();
+            repo.findAllById(missing).forEach(p -> loaded.put(p.getId(), p));
+            return loaded;
+        });
+        return new PageImpl<>(products, pageable, ids.getTotalElements());
     }
 
     public void deleteById(Long id) {
         repo.deleteById(id);
+        searchIndex.remove(id);
+        cache.invalidateProduct(id);
+        stockCounters.invalidate(id);
     }
 
-    public Product updateProduct(Long id, String name, Product.Category category, Double price, String description, MultipartFile imageFile) throws IOException {
+    /**
+     * Update a product's details. Stock is left alone when stock is null; otherwise it is set only
+     * if it still equals stockWas, the value the edit started from (null: it was not tracked), so
+     * units sold while the form was open are not written back.
+     *
+     * @throws StockChangedException if stock has moved away from stockWas
+     */
+    public Product updateProduct(Long id, String name, Product.Category category, Double price, String description,
+                                 Integer stock, Integer stockWas, MultipartFile imageFile) throws IOException {
         Product p = repo.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
         p.setName(name);
         p.setCategory(category);
         p.setPrice(price);
         p.setDescription(description);
         if (imageFile != null && !imageFile.isEmpty()) {
-            p.setImage(imageFile.getBytes());
-            p.setImageContentType(imageFile.getContentType());
+            storeImage(p, imageFile);
+        }
+        Product saved = tx.execute(status -> {
+            if (stock != null) {
+                int updated = stockWas != null
+                        ? repo.replaceStock(id, stock, stockWas)
+                        : repo.startTrackingStock(id, stock);
+                if (updated == 0) {
+                    Integer current = repo.findStockById(id);
+                    throw new StockChangedException(current, "Stock has changed to "
+                            + (current != null ? current : "untracked") + " since the product was loaded");
+                }
+            }
+            Product result = repo.save(p);
+            // The stock column is not written by save, so report what the update left there
+            result.setStock(stock != null ? stock : repo.findStockById(id));
+            return result;
+        });
+        searchIndex.put(saved);
+        cache.invalidateProduct(saved.getId());
+        stockCounters.invalidate(saved.getId());
+        return saved;
+    }
+
+    private Map<Long, Integer> currentStock(Collection<Long> ids) {
+        Map<Long, Integer> stock = new HashMap<>();
+        repo.findStockByIds(ids).forEach(v -> stock.put(v.getId(), v.getStock()));
+        return stock;
+    }
+
+    public static String imageVersion(Product p) {
+        return p.getImageKey().substring(0, 16);
+    }
+
+    private void storeImage(Product p, MultipartFile imageFile) throws IOException {
+        try (InputStream in = imageFile.getInputStream()) {
+            ImageStore.StoredImage stored = storeImage(in);
+            p.setImageKey(stored.key());
+            p.setImageSize(stored.size());
         }
-        return repo.save(p);
+        p.setImageContentType(imageFile.getContentType());
+    }
+
+    // Also used by the bulk import, which writes its rows without going through this service
+    ImageStore.StoredImage storeImage(InputStream in) throws IOException {
+        ImageStore.StoredImage stored = imageStore.store(in);
+        submitVariants(stored.key());
+        return stored;
+    }
+
+    private void submitVariants(String key) {
+        variantProcessor.submit(imageStore.pathFor(key),
+                (variant, ext) -> imageStore.variantPath(key, variant, ext));
+    }
+
+    private static long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public ProductDTO toDTO(Product p) {
+        // Versioned by content hash, so the URL changes whenever the image does and can be cached forever
+        String imageUrl = (p.getImageKey() != null)
+                ? "/api/products/" + p.getId() + "/image?v=" + imageVersion(p)
+                : null;
+        return new ProductDTO(
+                p.getId(),
+                p.getName(),
+                p.getCategory().name(),
+                p.getPrice(),
+                p.getDescription(),
+                imageUrl,
+                p.getStock()
+        );
     }
 }
@@ -0,0 +1,286 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.AnalyticsWatermark;
+import com.farmermarket.backend.model.ArchivedOrder;
+import com.farmermarket.backend.model.ArchivedOrderItem;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.model.OrderStatusEvent;
+import com.farmermarket.backend.model.SalesDailyDistrict;
+import com.farmermarket.backend.model.SalesDailyProduct;
+import com.farmermarket.backend.repository.AnalyticsWatermarkRepository;
+import com.farmermarket.backend.repository.ArchivedOrderRepository;
+import com.farmermarket.backend.repository.OrderRepository;
+import com.farmermarket.backend.repository.OrderStatusEventRepository;
+import com.farmermarket.backend.repository.SalesDailyDistrictRepository;
+import com.farmermarket.backend.repository.SalesDailyProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the sales rollups (sales_daily_product, sales_daily_district) by following
+ * order_status_events from a high-water mark, so analytics never has to scan order_items.
+ *
+ * An order counts towards the day it was placed: its creation event adds its items and a
+ * later move to Cancelled or Rejected takes them off again. Each batch is applied in the
+ * transaction that advances the mark, with the mark row locked, so instances take turns and
+ * every event is counted once. Events younger than app.orders.feed-settle-ms are left for the
+ * next run, as for the other readers of the log.
+ *
+ * On the very first run the log is backfilled for orders placed before it existed (live and
+ * archived), which makes the first catch-up build the rollups from the full order history.
+ */
+@Service
+public class SalesRollupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupJob.class);
+    static final String WATERMARK = "sales";
+    // Items without a product link, orders without a district or category
+    static final long UNLINKED_PRODUCT = 0L;
+    static final String UNKNOWN_DISTRICT = "Unknown";
+    static final String OTHER_CATEGORY = "OTHER";
+
+    private final OrderStatusEventRepository eventRepo;
+    private final OrderRepository orderRepo;
+    private final ArchivedOrderRepository archiveRepo;
+    private final SalesDailyProductRepository productRollups;
+    private final SalesDailyDistrictRepository districtRollups;
+    private final AnalyticsWatermarkRepository watermarks;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long settleMs;
+
+    public SalesRollupJob(OrderStatusEventRepository eventRepo, OrderRepository orderRepo,
+                          ArchivedOrderRepository archiveRepo, SalesDailyProductRepository productRollups,
+                          SalesDailyDistrictRepository districtRollups, AnalyticsWatermarkRepository watermarks,
+                          PlatformTransactionManager txManager,
+                          @Value("${app.analytics.enabled:true}") boolean enabled,
+                          @Value("${app.analytics.batch-size:500}") int batchSize,
+                          @Value("${app.analytics.max-batches-per-run:100}") int maxBatchesPerRun,
+                          @Value("${app.orders.feed-settle-ms:2000}") long settleMs) {
+        this.eventRepo = eventRepo;
+        this.orderRepo = orderRepo;
+        this.archiveRepo = archiveRepo;
+        this.productRollups = productRollups;
+        this.districtRollups = districtRollups;
+        this.watermarks = watermarks;
+        this.tx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.settleMs = Math.max(0, settleMs);
+    }
+
+    @Scheduled(initialDelayString = "${app.analytics.initial-delay-ms:15000}",
+            fixedDelayString = "${app.analytics.rollup-ms:30000}")
+    public void rollUp() {
+        if (!enabled) return;
+        int read = catchUp();
+        if (read > 0) {
+            log.debug("Sales rollups advanced over {} order event(s)", read);
+        }
+    }
+
+    /**
+     * Apply every settled event after the mark, in batches. Returns the number of events read.
+     */
+    public int catchUp() {
+        createWatermarkIfMissing();
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer read = tx.execute(status -> applyNextBatch());
+            total += read;
+            if (read < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void createWatermarkIfMissing() {
+        if (watermarks.existsById(WATERMARK)) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> {
+                watermarks.create(WATERMARK);
+                int live = eventRepo.backfillCreated();
+                eventRepo.backfillCurrentStatus();
+                int archived = eventRepo.backfillArchivedCreated();
+                eventRepo.backfillArchivedStatus();
+                if (live + archived > 0) {
+                    log.info("Backfilled order history for {} order(s) placed before the event log", live + archived);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Sales watermark created by another instance");
+        }
+    }
+
+    private int applyNextBatch() {
+        AnalyticsWatermark mark = watermarks.findForUpdate(WATERMARK).orElseThrow();
+        List<OrderStatusEvent> events = eventRepo.findSettledAfter(mark.getLastEventId(),
+                LocalDateTime.now().minusNanos(settleMs * 1_000_000L), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Net effect per order; placed and cancelled within one batch cancels out
+        Map<String, Integer> signs = new LinkedHashMap<>();
+        for (OrderStatusEvent event : events) {
+            int effect = effectOf(event);
+            if (effect != 0) {
+                signs.merge(event.getOrderId(), effect, Integer::sum);
+            }
+        }
+        signs.values().removeIf(sign -> sign == 0);
+
+        if (!signs.isEmpty()) {
+            Map<LocalDate, Map<Long, Totals>> byProduct = new HashMap<>();
+            Map<LocalDate, Map<String, Totals>> byDistrict = new HashMap<>();
+            for (Sale sale : loadSales(signs.keySet())) {
+                int sign = signs.get(sale.orderId());
+                Totals orderTotals = byDistrict.computeIfAbsent(sale.day(), d -> new HashMap<>())
+                        .computeIfAbsent(sale.district(), d -> new Totals());
+                orderTotals.orders += sign;
+                Map<Long, Totals> products = byProduct.computeIfAbsent(sale.day(), d -> new HashMap<>());
+                Set<Long> seen = new HashSet<>();
+                for (Line line : sale.lines()) {
+                    Totals productTotals = products.computeIfAbsent(line.productId(), id -> new Totals());
+                    productTotals.add(line, sign);
+                    productTotals.name = line.name() != null ? line.name() : productTotals.name;
+                    productTotals.category = line.category();
+                    if (seen.add(line.productId())) {
+                        productTotals.orders += sign;
+                    }
+                    orderTotals.add(line, sign);
+                }
+            }
+            byProduct.forEach(this::applyProductTotals);
+            byDistrict.forEach(this::applyDistrictTotals);
+        }
+
+        mark.setLastEventId(events.get(events.size() - 1).getId());
+        return events.size();
+    }
+
+    // +1 when an order is placed, -1 when it is cancelled or rejected; other moves do not change sales
+    private static int effectOf(OrderStatusEvent event) {
+        if (event.getFromStatus() == null) {
+            return event.getToStatus() == OrderStatus.PENDING ? 1 : 0;
+        }
+        OrderStatus to = event.getToStatus();
+        return to == OrderStatus.CANCELLED || to == OrderStatus.REJECTED ? -1 : 0;
+    }
+
+    // Live orders first, then the archive; orders deleted outright (pre-soft-cancel) are skipped
+    private List<Sale> loadSales(Set<String> orderIds) {
+        List<Sale> sales = new ArrayList<>();
+        Set<String> missing = new HashSet<>(orderIds);
+        for (Order order : orderRepo.findWithItemsByOrderIdIn(orderIds)) {
+            missing.remove(order.getOrderId());
+            if (order.getOrderDate() == null) continue;
+            sales.add(new Sale(order.getOrderId(), order.getOrderDate().toLocalDate(), districtOf(order.getDistrict()),
+                    order.getItems().stream().map(i -> new Line(i.getProductId(), i.getProductName(),
+                            i.getCategory(), i.getPrice(), i.getQuantity())).toList()));
+        }
+        if (!missing.isEmpty()) {
+            List<ArchivedOrder> archived = archiveRepo.findByOrderIdIn(missing);
+            Map<Long, List<ArchivedOrderItem>> items = archived.isEmpty() ? Map.of() : archiveRepo
+                    .findItemsByOrderIds(archived.stream().map(ArchivedOrder::getId).toList()).stream()
+                    .collect(Collectors.groupingBy(ArchivedOrderItem::getArchivedOrderId));
+            for (ArchivedOrder order : archived) {
+                missing.remove(order.getOrderId());
+                if (order.getOrderDate() == null) continue;
+                sales.add(new Sale(order.getOrderId(), order.getOrderDate().toLocalDate(),
+                        districtOf(order.getDistrict()),
+                        items.getOrDefault(order.getId(), List.of()).stream().map(i -> new Line(i.getProductId(),
+                                i.getProductName(), i.getCategory(), i.getPrice(), i.getQuantity())).toList()));
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.debug("Sales rollups skipped {} order(s) that no longer exist", missing.size());
+        }
+        return sales;
+    }
+
+    private void applyProductTotals(LocalDate day, Map<Long, Totals> totals) {
+        Map<Long, SalesDailyProduct> rows = productRollups.findBySalesDateAndProductIdIn(day, totals.keySet())
+                .stream().collect(Collectors.toMap(SalesDailyProduct::getProductId, r -> r));
+        List<SalesDailyProduct> created = new ArrayList<>();
+        totals.forEach((productId, t) -> {
+            SalesDailyProduct row = rows.get(productId);
+            if (row == null) {
+                row = new SalesDailyProduct(day, productId);
+                created.add(row);
+            }
+            row.add(t.revenue, t.units, t.orders);
+            if (t.name != null) row.setProductName(t.name);
+            row.setCategory(t.category);
+        });
+        productRollups.saveAll(created);
+    }
+
+    private void applyDistrictTotals(LocalDate day, Map<String, Totals> totals) {
+        Map<String, SalesDailyDistrict> rows = districtRollups.findBySalesDateAndDistrictIn(day, totals.keySet())
+                .stream().collect(Collectors.toMap(SalesDailyDistrict::getDistrict, r -> r));
+        List<SalesDailyDistrict> created = new ArrayList<>();
+        totals.forEach((district, t) -> {
+            SalesDailyDistrict row = rows.get(district);
+            if (row == null) {
+                row = new SalesDailyDistrict(day, district);
+                created.add(row);
+            }
+            row.add(t.revenue, t.units, t.orders);
+        });
+        districtRollups.saveAll(created);
+    }
+
+    private static String districtOf(String district) {
+        return district == null || district.isBlank() ? UNKNOWN_DISTRICT : district.trim();
+    }
+
+    private record Sale(String orderId, LocalDate day, String district, List<Line> lines) {}
+
+    private record Line(Long productId, String name, String category, BigDecimal price, Integer quantity) {
+        Line {
+            productId = productId != null ? productId : UNLINKED_PRODUCT;
+            category = category == null || category.isBlank() ? OTHER_CATEGORY : category;
+            price = price != null ? price : BigDecimal.ZERO;
+            quantity = quantity != null ? quantity : 0;
+        }
+    }
+
+    private static final class Totals {
+        BigDecimal revenue = BigDecimal.ZERO;
+        long units;
+        long orders;
+        String name;
+        String category;
+
+        void add(Line line, int sign) {
+            revenue = revenue.add(line.price().multiply(BigDecimal.valueOf((long) line.quantity() * sign)));
+            units += (long) line.quantity() * sign;
+        }
+    }
+}
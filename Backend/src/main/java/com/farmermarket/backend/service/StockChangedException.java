@@ -0,0 +1,18 @@
+package com.farmermarket.backend.service;
+
+/**
+ * Thrown when a stock edit was based on a stock value that has since changed, e.g. through orders
+ * placed while the edit form was open.
+ */
+public class StockChangedException extends IllegalStateException {
+
+    private final Integer currentStock;
+
+    public StockChangedException(Integer currentStock, String message) {
+        super(message);
+        this.currentStock = currentStock;
+    }
+
+    // Null when stock is not tracked
+    public Integer getCurrentStock() { return currentStock; }
+}
@@ -0,0 +1,143 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Striped in-memory counters of sellable stock for recently ordered products.
+ *
+ * The products.stock column stays the source of truth. These counters sit in front of it
+ * so concurrent checkouts of one product spread their updates over several cells, and once
+ * a product sells out further checkouts are turned away without touching its row.
+ *
+ * A counter is seeded from the database on first use and dropped whenever the product is
+ * edited or the database disagrees with it. A refusal is double-checked against the database
+ * at most once per app.stock.resync-ms, so a counter can never keep refusing stock that exists.
+ */
+@Component
+public class StockCounters {
+
+    private final ProductRepository repo;
+    private final Cache<Long, Striped> counters;
+    private final int stripes;
+    private final long resyncNanos;
+
+    public StockCounters(ProductRepository repo,
+                         @Value("${app.stock.hot-products:1000}") long hotProducts,
+                         @Value("${app.stock.stripes:8}") int stripes,
+                         @Value("${app.stock.resync-ms:250}") long resyncMs) {
+        this.repo = repo;
+        this.counters = Caffeine.newBuilder().maximumSize(hotProducts).build();
+        this.stripes = Math.max(1, stripes);
+        this.resyncNanos = resyncMs * 1_000_000L;
+    }
+
+    /**
+     * Take qty units from the counter. Always true for products without tracked stock.
+     */
+    public boolean tryAcquire(Long productId, int qty) {
+        Striped counter = counterFor(productId);
+        if (counter.untracked) return true;
+        if (counter.tryAcquire(qty)) return true;
+
+        // Possibly stale (e.g. restocked by another instance): re-read the row, rate limited
+        if (System.nanoTime() - counter.seededAt > resyncNanos) {
+            counters.asMap().remove(productId, counter);
+            Striped fresh = counterFor(productId);
+            return fresh.untracked || fresh.tryAcquire(qty);
+        }
+        return false;
+    }
+
+    /**
+     * Return units taken by tryAcquire, e.g. after a failed or cancelled order.
+     */
+    public void release(Long productId, int qty) {
+        Striped counter = counters.getIfPresent(productId);
+        if (counter != null && !counter.untracked) {
+            counter.release(qty);
+        }
+    }
+
+    /**
+     * Called from inside the order transaction, so a missing counter is answered by reading
+     * the row on that transaction's connection rather than by seeding one: seeding can wait
+     * on a loader that is itself waiting for a free pool connection.
+     */
+    public boolean isTracked(Long productId) {
+        Striped counter = counters.getIfPresent(productId);
+        return counter != null ? !counter.untracked : repo.findStockById(productId) != null;
+    }
+
+    /**
+     * Forget the counter so the next checkout re-reads stock from the database.
+     */
+    public void invalidate(Long productId) {
+        counters.invalidate(productId);
+    }
+
+    private Striped counterFor(Long productId) {
+        return counters.get(productId, id -> {
+            Integer stock = repo.findStockById(id);
+            return stock == null ? Striped.UNTRACKED : new Striped(stripes, stock);
+        });
+    }
+
+    private static final class Striped {
+        static final Striped UNTRACKED = new Striped();
+
+        final boolean untracked;
+        final AtomicIntegerArray cells;
+        final long seededAt = System.nanoTime();
+
+        private Striped() {
+            this.untracked = true;
+            this.cells = new AtomicIntegerArray(0);
+        }
+
+        Striped(int stripes, int available) {
+            this.untracked = false;
+            this.cells = new AtomicIntegerArray(stripes);
+            int share = Math.max(0, available) / stripes;
+            int remainder = Math.max(0, available) % stripes;
+            for (int i = 0; i < stripes; i++) {
+                cells.set(i, share + (i < remainder ? 1 : 0));
+            }
+        }
+
+        boolean tryAcquire(int qty) {
+            int n = cells.length();
+            int start = ThreadLocalRandom.current().nextInt(n);
+            int[] taken = new int[n];
+            int needed = qty;
+            for (int i = 0; i < n && needed > 0; i++) {
+                int idx = (start + i) % n;
+                while (true) {
+                    int current = cells.get(idx);
+                    if (current <= 0) break;
+                    int take = Math.min(current, needed);
+                    if (cells.compareAndSet(idx, current, current - take)) {
+                        taken[idx] += take;
+                        needed -= take;
+                        break;
+                    }
+                }
+            }
+            if (needed == 0) return true;
+            for (int i = 0; i < n; i++) {
+                if (taken[i] > 0) cells.addAndGet(i, taken[i]);
+            }
+            return false;
+        }
+
+        void release(int qty) {
+            cells.addAndGet(ThreadLocalRandom.current().nextInt(cells.length()), qty);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.farmermarket.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-bounded reservations of product quantity by buyers' carts.
+ * A hold lasts app.cart.hold-minutes from the buyer's last change to that line, or less when
+ * the caller caps it; expired holds stop counting immediately and are swept out periodically.
+ */
+@Component
+public class StockHolds {
+
+    public record Hold(int quantity, LocalDateTime expiresAt) {
+        boolean isLive(LocalDateTime now) {
+            return expiresAt.isAfter(now);
+        }
+    }
+
+    // productId -> buyer email -> hold
+    private final Map<Long, Map<String, Hold>> holds = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    public StockHolds(@Value("${app.cart.hold-minutes:15}") long holdMinutes) {
+        this.ttl = Duration.ofMinutes(holdMinutes);
+    }
+
+    /**
+     * Hold quantity of productId for buyer, replacing any previous hold. The hold lasts the
+     * usual app.cart.hold-minutes, or until notAfter if that is sooner. Returns when it expires.
+     */
+    public LocalDateTime hold(Long productId, String buyer, int quantity, LocalDateTime notAfter) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        if (notAfter.isBefore(expiresAt)) {
+            expiresAt = notAfter;
+        }
+        restore(productId, buyer, quantity, expiresAt);
+        return expiresAt;
+    }
+
+    /**
+     * Re-register a hold with a known expiry, e.g. when a persisted cart is loaded.
+     */
+    public void restore(Long productId, String buyer, int quantity, LocalDateTime expiresAt) {
+        holds.compute(productId, (id, byBuyer) -> {
+            Map<String, Hold> m = byBuyer != null ? byBuyer : new ConcurrentHashMap<>();
+            m.put(buyer, new Hold(quantity, expiresAt));
+            return m;
+        });
+    }
+
+    public void release(Long productId, String buyer) {
+        holds.computeIfPresent(productId, (id, byBuyer) -> {
+            byBuyer.remove(buyer);
+            return byBuyer.isEmpty() ? null : byBuyer;
+        });
+    }
+
+    /**
+     * Quantity of productId currently held by live carts, optionally ignoring one buyer's own hold.
+     */
+    public int heldQuantity(Long productId, String excludingBuyer) {
+        Map<String, Hold> byBuyer = holds.get(productId);
+        if (byBuyer == null) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (Map.Entry<String, Hold> e : byBuyer.entrySet()) {
+            if (e.getValue().isLive(now) && !e.getKey().equals(excludingBuyer)) {
+                total += e.getValue().quantity();
+            }
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.hold-sweep-ms:60000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        holds.keySet().forEach(productId -> holds.computeIfPresent(productId, (id, byBuyer) -> {
+            byBuyer.values().removeIf(h -> !h.isLive(now));
+            return byBuyer.isEmpty() ? null : byBuyer;
+        }));
+    }
+}
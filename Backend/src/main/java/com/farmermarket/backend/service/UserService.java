@@ -0,0 +1,186 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.auth.Callers;
+import com.farmermarket.backend.auth.PasswordHasher;
+import com.farmermarket.backend.model.User;
+import com.farmermarket.backend.repository.UserRepository;
+import com.farmermarket.backend.repository.UserRepository.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Accounts: registration, login and profile updates, with passwords hashed by PasswordHasher.
+ *
+ * The hashing steps complete on the hasher's pool, and the save that follows a hash runs
+ * there too, so the returned futures never tie up the calling request thread.
+ *
+ * Lookups by id are served from a small cache (app.auth.user-cache-size entries) of
+ * Accounts, which carry no password hash. Every write through this service refreshes it;
+ * another instance's cached copy expires after app.auth.user-cache-ttl-seconds, which bounds
+ * how long a token revoked there is still accepted here.
+ *
+ * Changing the email, password or role bumps the account's token version, which revokes every
+ * token issued before the change.
+ *
+ * Anyone may register as a buyer. The farmer role is only taken at registration by an email
+ * listed in app.auth.farmer-emails (to set up the first farmer); after that a farmer grants it
+ * with setRole.
+ */
+@Service
+public class UserService {
+
+    private final UserRepository userRepo;
+    private final PasswordHasher hasher;
+    private final Cache<Long, Account> byId;
+    private final Set<String> farmerEmails;
+
+    public UserService(UserRepository userRepo, PasswordHasher hasher,
+                       @Value("${app.auth.user-cache-size:1000}") long cacheSize,
+                       @Value("${app.auth.user-cache-ttl-seconds:60}") long cacheTtlSeconds,
+                       @Value("${app.auth.farmer-emails:}") List<String> farmerEmails) {
+        this.userRepo = userRepo;
+        this.hasher = hasher;
+        this.farmerEmails = farmerEmails.stream()
+                .map(e -> e.trim().toLowerCase(Locale.ROOT))
+                .filter(e -> !e.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    public CompletableFuture<Account> register(User user) {
+        if (!Callers.FARMER.equals(user.getRole()) && !Callers.BUYER.equals(user.getRole())) {
+            throw new IllegalArgumentException("Role must be 'farmer' or 'buyer'");
+        }
+        if (user.getEmail() == null || user.getEmail().isBlank()) {
+            throw new IllegalArgumentException("Email is required");
+        }
+        if (Callers.FARMER.equals(user.getRole())
+                && !farmerEmails.contains(user.getEmail().trim().toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Farmer accounts cannot be registered; ask a farmer to grant the role");
+        }
+        if (user.getPassword() == null || user.getPassword().isEmpty()) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        if (userRepo.findByEmail(user.getEmail()).isPresent()) {
+            throw new IllegalArgumentException("Email already exists");
+        }
+        user.setId(null);
+        user.setTokenVersion(0);
+        return hasher.hash(user.getPassword()).thenApply(hash -> {
+            user.setPassword(hash);
+            return cache(userRepo.save(user));
+        });
+    }
+
+    /**
+     * The account when email and password match, empty otherwise. A stored plain-text or
+     * weaker hash is replaced with a current one before the future completes.
+     */
+    public CompletableFuture<Optional<Account>> login(String email, String password) {
+        Optional<User> user = email == null ? Optional.empty() : userRepo.findByEmail(email);
+        String stored = user.map(User::getPassword).orElse(null);
+        return hasher.verify(password, stored).thenCompose(ok -> {
+            if (!ok || user.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            if (!hasher.needsRehash(stored)) {
+                return CompletableFuture.completedFuture(Optional.of(cache(user.get())));
+            }
+            return hasher.hash(password)
+                    .thenApply(hash -> {
+                        User u = user.get();
+                        u.setPassword(hash);
+                        return Optional.of(cache(userRepo.save(u)));
+                    })
+                    // A busy hasher only postpones the upgrade; the login itself succeeded
+                    .exceptionally(e -> Optional.of(cache(user.get())));
+        });
+    }
+
+    /**
+     * Make the account with this email a farmer or a buyer. Its earlier tokens, which carry
+     * the old role, are revoked. Empty when there is no such account.
+     */
+    public Optional<Account> setRole(String email, String role) {
+        if (!Callers.FARMER.equals(role) && !Callers.BUYER.equals(role)) {
+            throw new IllegalArgumentException("Role must be 'farmer' or 'buyer'");
+        }
+        return userRepo.findByEmail(email).map(user -> {
+            if (role.equals(user.getRole())) {
+                return cache(user);
+            }
+            user.setRole(role);
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            return cache(userRepo.save(user));
+        });
+    }
+
+    public Optional<Account> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Account cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return userRepo.findAccountById(id).map(this::cache);
+    }
+
+    public Optional<Account> findByEmail(String email) {
+        return userRepo.findAccountByEmail(email).map(this::cache);
+    }
+
+    /**
+     * Change name, email and, when password is non-blank, the password.
+     * A new email or password revokes the account's earlier tokens.
+     * Completes empty when the account no longer exists.
+     */
+    public CompletableFuture<Optional<Account>> update(Long id, String name, String email, String password) {
+        Optional<User> found = userRepo.findById(id);
+        if (found.isEmpty()) {
+            byId.invalidate(id);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        User user = found.get();
+        if (email != null && !email.isBlank() && !email.equals(user.getEmail())) {
+            userRepo.findByEmail(email).ifPresent(other -> {
+                throw new IllegalArgumentException("Email already exists");
+            });
+            user.setEmail(email);
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
+        if (name != null && !name.isBlank()) {
+            user.setName(name);
+        }
+        if (password == null || password.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.of(cache(userRepo.save(user))));
+        }
+        return hasher.hash(password).thenApply(hash -> {
+            user.setPassword(hash);
+            user.setTokenVersion(user.getTokenVersion() + 1);
+            return Optional.of(cache(userRepo.save(user)));
+        });
+    }
+
+    private Account cache(User user) {
+        return cache(Account.of(user));
+    }
+
+    private Account cache(Account account) {
+        byId.put(account.id(), account);
+        return account;
+    }
+}
@@ -0,0 +1,182 @@
+package com.farmermarket.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Message attachments on the local filesystem: {root}/{uuid}.{ext}
+ *
+ * Uploads are copied channel-to-channel into a temp file and moved into place,
+ * so only a small fixed buffer is ever held in heap. The type is decided from the
+ * file's leading bytes; the client-supplied content type and file name are ignored.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final int SNIFF_BYTES = 12;
+    private static final long CHUNK = 1L << 20;
+
+    private final Path root;
+    private final long maxBytes;
+
+    public AttachmentStore(@Value("${app.storage.message-attachments-dir:uploads/messages}") String rootDir,
+                           @Value("${app.messages.attachments.max-bytes:10485760}") long maxBytes) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create attachment store at " + root, e);
+        }
+    }
+
+    public record StoredAttachment(String name, Path path, String contentType, long size) {}
+
+    /**
+     * Thrown when an upload is too large or is not an allowed image type.
+     */
+    public static class RejectedAttachmentException extends IOException {
+        public RejectedAttachmentException(String message) {
+            super(message);
+        }
+    }
+
+    public StoredAttachment store(InputStream in) throws IOException {
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try (ReadableByteChannel src = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+
+            ByteBuffer head = ByteBuffer.allocate(SNIFF_BYTES);
+            while (head.hasRemaining() && src.read(head) >= 0) {
+                // fill the sniff buffer; short files simply leave it partly empty
+            }
+            head.flip();
+            AttachmentType type = AttachmentType.sniff(head.duplicate());
+            if (type == null) {
+                throw new RejectedAttachmentException("Only JPEG, PNG, GIF or WebP images are allowed.");
+            }
+            long size = out.write(head);
+
+            // Read one byte past the limit so oversize uploads are detected without trusting Content-Length
+            long transferred;
+            while (size <= maxBytes
+                    && (transferred = out.transferFrom(src, size, Math.min(CHUNK, maxBytes + 1 - size))) > 0) {
+                size += transferred;
+            }
+            if (size > maxBytes) {
+                throw new RejectedAttachmentException("Attachment exceeds " + maxBytes + " bytes.");
+            }
+            out.force(false);
+
+            String name = UUID.randomUUID() + "." + type.extension();
+            Path target = root.resolve(name);
+            out.close();
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target);
+            }
+            return new StoredAttachment(name, target, type.contentType(), size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Resolve a stored attachment by name; anything that would escape the root is treated as missing.
+     */
+    public Optional<Path> find(String name) {
+        if (name == null || name.isBlank() || name.contains("/") || name.contains("\\")) {
+            return Optional.empty();
+        }
+        Path path = root.resolve(name).normalize();
+        if (!path.getParent().equals(root) || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Variants sit next to the original: {root}/{name}.thumb.jpg
+     */
+    public Path variantPath(String name, ImageVariant variant, String ext) {
+        return root.resolve(name + "." + variant.suffix() + "." + ext);
+    }
+
+    public Optional<Path> findVariant(String name, ImageVariant variant) {
+        if (find(name).isEmpty()) {
+            return Optional.empty();
+        }
+        for (String ext : new String[] {"jpg", "png"}) {
+            Path path = variantPath(name, variant, ext);
+            if (Files.isReadable(path)) return Optional.of(path);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Content type for a stored file, sniffed from disk so legacy uploads are served correctly too.
+     */
+    public String contentTypeOf(Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(SNIFF_BYTES);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && ch.read(head) >= 0) {
+                // fill
+            }
+        }
+        head.flip();
+        AttachmentType type = AttachmentType.sniff(head);
+        return type != null ? type.contentType() : "application/octet-stream";
+    }
+
+    enum AttachmentType {
+        JPEG("image/jpeg", "jpg"),
+        PNG("image/png", "png"),
+        GIF("image/gif", "gif"),
+        WEBP("image/webp", "webp");
+
+        private final String contentType;
+        private final String extension;
+
+        AttachmentType(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        String contentType() { return contentType; }
+
+        String extension() { return extension; }
+
+        static AttachmentType sniff(ByteBuffer b) {
+            int n = b.remaining();
+            if (n >= 3 && u(b, 0) == 0xFF && u(b, 1) == 0xD8 && u(b, 2) == 0xFF) return JPEG;
+            if (n >= 8 && u(b, 0) == 0x89 && u(b, 1) == 'P' && u(b, 2) == 'N' && u(b, 3) == 'G'
+                    && u(b, 4) == 0x0D && u(b, 5) == 0x0A && u(b, 6) == 0x1A && u(b, 7) == 0x0A) return PNG;
+            if (n >= 6 && u(b, 0) == 'G' && u(b, 1) == 'I' && u(b, 2) == 'F' && u(b, 3) == '8'
+                    && (u(b, 4) == '7' || u(b, 4) == '9') && u(b, 5) == 'a') return GIF;
+            if (n >= 12 && u(b, 0) == 'R' && u(b, 1) == 'I' && u(b, 2) == 'F' && u(b, 3) == 'F'
+                    && u(b, 8) == 'W' && u(b, 9) == 'E' && u(b, 10) == 'B' && u(b, 11) == 'P') return WEBP;
+            return null;
+        }
+
+        private static int u(ByteBuffer b, int i) {
+            return b.get(b.position() + i) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.farmermarket.backend.storage;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The EXIF Orientation tag of a JPEG, and applying it to decoded pixels.
+ *
+ * Cameras and phones store the sensor image as shot and record how to turn it for display.
+ * ImageIO ignores the tag, and variants are written without metadata, so the turn has to be
+ * applied to the pixels before they are scaled.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    // The tag sits in APP1 near the start of the file; stop looking after this many bytes
+    private static final int MAX_SCAN_BYTES = 256 * 1024;
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    private ExifOrientation() {}
+
+    /**
+     * Orientation 1-8 from the file's EXIF data; NORMAL when absent, unreadable or not a JPEG.
+     */
+    static int read(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(new DataInputStream(in));
+        } catch (IOException | RuntimeException e) {
+            return NORMAL;
+        }
+    }
+
+    private static int read(DataInputStream in) throws IOException {
+        if (in.readUnsignedShort() != 0xFFD8) return NORMAL; // not a JPEG
+        int scanned = 2;
+        while (scanned < MAX_SCAN_BYTES) {
+            int marker = in.readUnsignedShort();
+            if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA) return NORMAL; // start of scan: no EXIF
+            int length = in.readUnsignedShort() - 2;
+            if (length < 0) return NORMAL;
+            scanned += 4 + length;
+            if (marker == 0xFFE1 && length > 14) {
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f'
+                        && segment[4] == 0 && segment[5] == 0) {
+                    return fromTiff(segment, 6);
+                }
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+        return NORMAL;
+    }
+
+    // TIFF header at start: byte order, magic 42, offset of IFD0, then 12-byte entries
+    private static int fromTiff(byte[] b, int start) {
+        boolean little = b[start] == 'I' && b[start + 1] == 'I';
+        if (!little && !(b[start] == 'M' && b[start + 1] == 'M')) return NORMAL;
+        if (u16(b, start + 2, little) != 42) return NORMAL;
+        int ifd = start + (int) u32(b, start + 4, little);
+        if (ifd < start || ifd + 2 > b.length) return NORMAL;
+        int entries = u16(b, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > b.length) return NORMAL;
+            if (u16(b, entry, little) == TAG_ORIENTATION) {
+                int value = u16(b, entry + 8, little);
+                return value >= 1 && value <= 8 ? value : NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * The image as it should be displayed. Orientations 5-8 swap width and height.
+     */
+    static BufferedImage apply(BufferedImage src, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) return src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        // Maps source pixel (x, y) to its displayed position
+        AffineTransform t = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // upside down
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // mirrored vertically
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // needs 90 degrees clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transversed
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);  // 8: needs 90 degrees counter-clockwise
+        };
+        boolean swap = orientation >= 5;
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = out.createGraphics();
+        g.drawImage(src, t, null);
+        g.dispose();
+        return out;
+    }
+
+    private static int u16(byte[] b, int i, boolean little) {
+        int b0 = b[i] & 0xFF;
+        int b1 = b[i + 1] & 0xFF;
+        return little ? b0 | b1 << 8 : b0 << 8 | b1;
+    }
+
+    private static long u32(byte[] b, int i, boolean little) {
+        long lo = u16(b, little ? i : i + 2, little);
+        long hi = u16(b, little ? i + 2 : i, little);
+        return hi << 16 | lo;
+    }
+}
@@ -0,0 +1,117 @@
+package com.farmermarket.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed image storage on the local filesystem.
+ * Each blob is stored once under its SHA-256 hash: {root}/ab/abcdef...
+ */
+@Component
+public class ImageStore {
+
+    private final Path root;
+
+    public ImageStore(@Value("${app.storage.product-images-dir:uploads/products}") String rootDir) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create image store at " + root, e);
+        }
+    }
+
+    public record StoredImage(String key, long size) {}
+
+    /**
+     * Stream the input to a temp file while hashing it, then move it into place.
+     * Identical content is only kept once.
+     */
+    public StoredImage store(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            long size;
+            try (DigestInputStream din = new DigestInputStream(in, digest)) {
+                size = Files.copy(din, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return new StoredImage(key, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Optional<Path> find(String key) {
+        if (key == null || !isValidKey(key)) {
+            return Optional.empty();
+        }
+        Path path = pathFor(key);
+        return Files.isReadable(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Path pathFor(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * Variants sit next to the original: {root}/ab/abcdef....thumb.jpg
+     */
+    public Path variantPath(String key, ImageVariant variant, String ext) {
+        return root.resolve(key.substring(0, 2)).resolve(key + "." + variant.suffix() + "." + ext);
+    }
+
+    public Optional<Path> findVariant(String key, ImageVariant variant) {
+        if (key == null || !isValidKey(key)) {
+            return Optional.empty();
+        }
+        for (String ext : new String[] {"jpg", "png"}) {
+            Path path = variantPath(key, variant, ext);
+            if (Files.isReadable(path)) return Optional.of(path);
+        }
+        return Optional.empty();
+    }
+
+    public byte[] readPath(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isValidKey(String key) {
+        return key.length() == 64 && key.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
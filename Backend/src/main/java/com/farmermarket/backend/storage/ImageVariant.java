@@ -0,0 +1,36 @@
+package com.farmermarket.backend.storage;
+
+import java.util.Locale;
+
+/**
+ * Downscaled renditions generated for every uploaded image.
+ * Each is bounded by maxEdge on its longest side and never upscaled.
+ */
+public enum ImageVariant {
+    THUMB(160),
+    CARD(480),
+    FULL(1600);
+
+    private final int maxEdge;
+
+    ImageVariant(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int getMaxEdge() { return maxEdge; }
+
+    public String suffix() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses the ?size= request parameter; null or unknown values mean the original.
+     */
+    public static ImageVariant fromParam(String size) {
+        if (size == null) return null;
+        for (ImageVariant v : values()) {
+            if (v.suffix().equalsIgnoreCase(size)) return v;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.farmermarket.backend.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Generates THUMB/CARD/FULL renditions of uploaded images off the request thread.
+ *
+ * The source is decoded once; each smaller variant is scaled from the previous one.
+ * Output is re-encoded from raw pixels, so EXIF/GPS and other metadata are dropped.
+ * Opaque images become JPEG, images with transparency become PNG
+ * (the JDK ships no WebP encoder). An EXIF orientation is applied to the pixels first,
+ * since the variants carry no metadata to say how to turn them.
+ *
+ * Work runs on a small bounded pool. When the queue is full the job is dropped:
+ * callers keep serving the original until a later request re-submits it.
+ * A source that cannot be decoded is remembered with its modification time and not
+ * retried until the file changes (or app.images.pipeline.failure-ttl-minutes pass).
+ *
+ * A small file can declare huge dimensions and expand to gigabytes once decoded, so the
+ * header is read first and images over app.images.pipeline.max-pixels are refused undecoded.
+ */
+@Component
+public class ImageVariantProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantProcessor.class);
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    // Sources whose variants failed, with the modification time they had then
+    private final Cache<Path, FileTime> failed;
+    private final long maxPixels;
+
+    public ImageVariantProcessor(@Value("${app.images.pipeline.threads:2}") int threads,
+                                 @Value("${app.images.pipeline.queue-size:200}") int queueSize,
+                                 @Value("${app.images.pipeline.failure-ttl-minutes:60}") long failureTtlMinutes,
+                                 @Value("${app.images.pipeline.max-pixels:40000000}") long maxPixels) {
+        this.maxPixels = maxPixels;
+        this.failed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(failureTtlMinutes))
+                .build();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "image-pipeline-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queue variant generation for source. target maps (variant, file extension) to the output path.
+     * False when nothing was queued: the source failed before and is unchanged, is already
+     * queued, or the queue is full.
+     */
+    public boolean submit(Path source, BiFunction<ImageVariant, String, Path> target) {
+        FileTime modified = lastModified(source);
+        if (modified != null && modified.equals(failed.getIfPresent(source))) return false;
+        if (!inFlight.add(source)) return false;
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!generate(source, target) && modified != null) {
+                        failed.put(source, modified);
+                    }
+                } finally {
+                    inFlight.remove(source);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(source);
+            log.warn("Image pipeline queue full, skipping variants for {}", source.getFileName());
+            return false;
+        }
+    }
+
+    // No job queued or running
+    boolean idle() {
+        return inFlight.isEmpty();
+    }
+
+    // False when the source could not be turned into variants
+    boolean generate(Path source, BiFunction<ImageVariant, String, Path> target) {
+        try {
+            BufferedImage image = decode(source);
+            if (image == null) {
+                return false;
+            }
+            image = ExifOrientation.apply(image, ExifOrientation.read(source));
+            boolean alpha = image.getColorModel().hasAlpha();
+            String ext = alpha ? "png" : "jpg";
+
+            // Largest first, so each step scales down from an already-reduced image
+            BufferedImage current = image;
+            ImageVariant[] variants = ImageVariant.values();
+            for (int i = variants.length - 1; i >= 0; i--) {
+                ImageVariant variant = variants[i];
+                current = scaleToFit(current, variant.getMaxEdge(), alpha);
+                Path out = target.apply(variant, ext);
+                if (!Files.exists(out)) {
+                    write(current, ext, out);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to generate image variants for {}", source.getFileName(), e);
+            return false;
+        }
+    }
+
+    // The decoded image; null when no reader knows the format or it is over the pixel budget
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No ImageIO reader for {}, keeping original only", source.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Read from the header alone
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image {} is {} pixels, over the {} pixel limit; keeping original only",
+                            source.getFileName(), pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path source) {
+        try {
+            return Files.getLastModifiedTime(source);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage src, int maxEdge, boolean alpha) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        int targetW = Math.max(1, (int) Math.round(w * scale));
+        int targetH = Math.max(1, (int) Math.round(h * scale));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        if (targetW == w && targetH == h && src.getType() == type) {
+            return src;
+        }
+
+        // Halve repeatedly, then finish with one bilinear step: close to area averaging at a fraction of the cost
+        BufferedImage current = src;
+        do {
+            int nextW = current.getWidth() / 2;
+            int nextH = current.getHeight() / 2;
+            if (nextW < targetW || nextH < targetH) {
+                nextW = targetW;
+                nextH = targetH;
+            }
+            BufferedImage next = new BufferedImage(nextW, nextH, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, nextW, nextH, null);
+            g.dispose();
+            current = next;
+        } while (current.getWidth() != targetW || current.getHeight() != targetH);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String ext, Path out) throws IOException {
+        Files.createDirectories(out.getParent());
+        Path tmp = Files.createTempFile(out.getParent(), "variant-", ".tmp");
+        try {
+            if ("jpg".equals(ext)) {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                try (ImageOutputStream ios = ImageIO.createImageOutputStream(tmp.toFile())) {
+                    writer.setOutput(ios);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            } else {
+                ImageIO.write(image, "png", tmp.toFile());
+            }
+            try {
+                Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
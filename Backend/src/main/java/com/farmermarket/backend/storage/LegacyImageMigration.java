@@ -0,0 +1,72 @@
+package com.farmermarket.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * One-off migration for rows created before images moved to the ImageStore.
+ * Copies each legacy products.image BLOB into the store (streamed, one row at a time),
+ * records its key and clears the BLOB. Safe to run repeatedly; does nothing once done
+ * or when the legacy column no longer exists.
+ */
+@Component
+public class LegacyImageMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyImageMigration.class);
+
+    private final JdbcTemplate jdbc;
+    private final ImageStore imageStore;
+    private final boolean enabled;
+
+    public LegacyImageMigration(JdbcTemplate jdbc, ImageStore imageStore,
+                                @Value("${app.storage.migrate-legacy-images:true}") boolean enabled) {
+        this.jdbc = jdbc;
+        this.imageStore = imageStore;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+
+        List<Long> ids;
+        try {
+            ids = jdbc.queryForList(
+                    "SELECT id FROM products WHERE image IS NOT NULL AND image_key IS NULL", Long.class);
+        } catch (DataAccessException e) {
+            // No legacy image column: nothing to migrate
+            return;
+        }
+
+        for (Long id : ids) {
+            ImageStore.StoredImage stored = jdbc.query("SELECT image FROM products WHERE id = ?", rs -> {
+                if (!rs.next()) return null;
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    return in == null ? null : imageStore.store(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, id);
+
+            if (stored != null) {
+                jdbc.update("UPDATE products SET image_key = ?, image_size = ?, image = NULL WHERE id = ?",
+                        stored.key(), stored.size(), id);
+            }
+        }
+
+        if (!ids.isEmpty()) {
+            log.info("Migrated {} product image(s) to the image store", ids.size());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.farmermarket.backend.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hash round trips, upgrades of plain-text and weaker hashes, and the bounded queue
+ * refusing work instead of growing.
+ */
+class PasswordHasherTest {
+
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        hashers.forEach(PasswordHasher::shutdown);
+    }
+
+    @Test
+    void hashesVerifyAndAreSalted() {
+        PasswordHasher hasher = hasher(1000, 1, 10);
+        String first = hasher.hash("tomato").join();
+        String second = hasher.hash("tomato").join();
+
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("tomato", first).join());
+        assertFalse(hasher.verify("potato", first).join());
+        assertFalse(hasher.verify("tomato", null).join());
+        assertFalse(hasher.needsRehash(first));
+    }
+
+    @Test
+    void plainTextAndWeakerHashesAskForRehash() {
+        String weak = hasher(1000, 1, 10).hash("tomato").join();
+        PasswordHasher stronger = hasher(2000, 1, 10);
+
+        assertTrue(stronger.verify("tomato", weak).join(), "older work factors still verify");
+        assertTrue(stronger.needsRehash(weak));
+        assertTrue(stronger.verify("legacy", "legacy").join());
+        assertTrue(stronger.needsRehash("legacy"));
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfWaiting() {
+        PasswordHasher hasher = hasher(200_000, 1, 1);
+        List<CompletableFuture<String>> burst = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            burst.add(hasher.hash("pw" + i));
+        }
+
+        CompletableFuture<String> rejected = burst.get(burst.size() - 1);
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    private PasswordHasher hasher(int iterations, int threads, int queueSize) {
+        PasswordHasher hasher = new PasswordHasher(iterations, threads, queueSize);
+        hashers.add(hasher);
+        return hasher;
+    }
+}
@@ -0,0 +1,114 @@
+package com.farmermarket.backend.auth;
+
+import com.farmermarket.backend.repository.UserRepository.Account;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Signing and verifying round trips, and tokens that must not verify: signed with another
+ * secret, edited, malformed or expired.
+ */
+class TokenServiceTest {
+
+    private static final String SECRET = "test-secret";
+    private static final long TTL_MINUTES = 60;
+    private static final Account BUYER = new Account(7L, "Ann", "ann@example.com", "buyer", 3);
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final TokenService tokens = new TokenService(json, SECRET, TTL_MINUTES, now::get);
+
+    @Test
+    void issuedTokensVerifyWithTheirClaims() {
+        Optional<AuthUser> user = tokens.verify(tokens.issue(BUYER));
+
+        assertEquals(Optional.of(new AuthUser(7L, "ann@example.com", "buyer", "Ann", 3)), user);
+    }
+
+    @Test
+    void anotherSecretDoesNotVerify() {
+        TokenService other = new TokenService(json, "other-secret", TTL_MINUTES, now::get);
+
+        assertTrue(other.verify(tokens.issue(BUYER)).isEmpty());
+    }
+
+    @Test
+    void editedClaimsDoNotVerify() {
+        String token = tokens.issue(BUYER);
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        String forged = encode(payload.replace("\"buyer\"", "\"farmer\"").getBytes(StandardCharsets.UTF_8))
+                + token.substring(token.indexOf('.'));
+
+        assertTrue(tokens.verify(forged).isEmpty());
+    }
+
+    @Test
+    void editedSignaturesDoNotVerify() {
+        String token = tokens.issue(BUYER);
+        int dot = token.indexOf('.');
+        // The signature's first character, since the last one carries unused bits
+        String flipped = token.substring(0, dot + 1) + (token.charAt(dot + 1) == 'A' ? 'B' : 'A')
+                + token.substring(dot + 2);
+
+        assertTrue(tokens.verify(flipped).isEmpty());
+        assertTrue(tokens.verify(token.substring(0, token.indexOf('.') + 1)).isEmpty(), "no signature");
+    }
+
+    @Test
+    void malformedTokensDoNotVerify() {
+        String token = tokens.issue(BUYER);
+
+        assertTrue(tokens.verify(null).isEmpty());
+        assertTrue(tokens.verify("").isEmpty());
+        assertTrue(tokens.verify("no-dot").isEmpty());
+        assertTrue(tokens.verify(token + ".extra").isEmpty());
+        assertTrue(tokens.verify("!!!." + token.substring(token.indexOf('.') + 1)).isEmpty());
+        assertTrue(tokens.verify(signed("not json")).isEmpty(), "signed, but not claims");
+    }
+
+    @Test
+    void tokensExpireAfterTheirTtl() {
+        String token = tokens.issue(BUYER);
+
+        now.addAndGet(TTL_MINUTES * 60_000 - 1_000);
+        assertTrue(tokens.verify(token).isPresent());
+        now.addAndGet(1_000);
+        assertTrue(tokens.verify(token).isEmpty());
+    }
+
+    @Test
+    void tokensFromBeforeVersionsReadAsVersionZero() {
+        long exp = now.get() / 1000 + 60;
+        String legacy = signed("{\"id\":7,\"email\":\"ann@example.com\",\"role\":\"buyer\",\"name\":\"Ann\",\"exp\":"
+                + exp + "}");
+
+        assertEquals(0, tokens.verify(legacy).orElseThrow().tokenVersion());
+    }
+
+    // A token for this payload, signed with SECRET the way TokenService signs
+    private static String signed(String payload) {
+        try {
+            String encoded = encode(payload.getBytes(StandardCharsets.UTF_8));
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return encoded + "." + encode(mac.doFinal(encoded.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
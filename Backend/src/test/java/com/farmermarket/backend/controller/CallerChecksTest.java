@@ -0,0 +1,90 @@
+package com.farmermarket.backend.controller;
+
+import com.farmermarket.backend.auth.AuthUser;
+import com.farmermarket.backend.model.Address;
+import com.farmermarket.backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Endpoints that used to trust anyone: the farmer's tools refuse buyers, and a buyer's
+ * address and account are refused to other buyers. No caller at all is 401.
+ */
+@SpringBootTest
+class CallerChecksTest {
+
+    private static final AuthUser BUYER = new AuthUser(1L, "ann@example.com", "buyer", "Ann", 0);
+
+    @Autowired
+    private AdminController admin;
+
+    @Autowired
+    private AnalyticsController analytics;
+
+    @Autowired
+    private ProductController products;
+
+    @Autowired
+    private AddressController addresses;
+
+    @Autowired
+    private UserController users;
+
+    @Test
+    void adminEndpointsAreForFarmers() {
+        assertStatus(HttpStatus.UNAUTHORIZED, () -> admin.getRecentTraces(null, 10));
+        assertStatus(HttpStatus.FORBIDDEN, () -> admin.getRecentTraces(BUYER, 10));
+        assertStatus(HttpStatus.FORBIDDEN, () -> admin.getCacheStats(BUYER));
+        assertStatus(HttpStatus.FORBIDDEN, () -> admin.getConnectionWaits(BUYER));
+    }
+
+    @Test
+    void analyticsAreForFarmers() {
+        assertStatus(HttpStatus.UNAUTHORIZED, () -> analytics.getTopProducts(null, null, null, "revenue", 10));
+        assertStatus(HttpStatus.FORBIDDEN, () -> analytics.getTopProducts(BUYER, null, null, "revenue", 10));
+        assertStatus(HttpStatus.FORBIDDEN, () -> analytics.getTrend(BUYER, null, null, null, null));
+        assertStatus(HttpStatus.FORBIDDEN, () -> analytics.getCategorySales(BUYER, null, null));
+        assertStatus(HttpStatus.FORBIDDEN, () -> analytics.getDistrictSales(BUYER, null, null));
+    }
+
+    @Test
+    void catalogWritesAreForFarmers() {
+        assertStatus(HttpStatus.UNAUTHORIZED,
+                () -> products.createProduct(null, "Free Apple", Product.Category.FRUIT, 0.0, null, 1, null));
+        assertStatus(HttpStatus.FORBIDDEN,
+                () -> products.createProduct(BUYER, "Free Apple", Product.Category.FRUIT, 0.0, null, 1, null));
+        assertStatus(HttpStatus.FORBIDDEN,
+                () -> products.updateProduct(BUYER, 1L, "Free Apple", Product.Category.FRUIT, 0.0, null, null, null, null));
+        assertStatus(HttpStatus.FORBIDDEN, () -> products.deleteProduct(BUYER, 1L));
+        assertStatus(HttpStatus.FORBIDDEN, () -> products.exportProducts(BUYER, "csv"));
+    }
+
+    @Test
+    void addressesAreForTheirBuyer() {
+        Address other = new Address();
+        other.setBuyerEmail("bob@example.com");
+
+        assertStatus(HttpStatus.UNAUTHORIZED, () -> addresses.getAddress(null, "bob@example.com"));
+        assertStatus(HttpStatus.FORBIDDEN, () -> addresses.getAddress(BUYER, "bob@example.com"));
+        assertStatus(HttpStatus.FORBIDDEN, () -> addresses.saveAddress(BUYER, other));
+        assertStatus(HttpStatus.FORBIDDEN, () -> addresses.deleteAddress(BUYER, "bob@example.com"));
+    }
+
+    @Test
+    void accountsAreForTheirOwner() {
+        assertStatus(HttpStatus.UNAUTHORIZED, () -> users.getUserByEmail(null, "bob@example.com"));
+        assertStatus(HttpStatus.FORBIDDEN, () -> users.getUserByEmail(BUYER, "bob@example.com"));
+        assertStatus(HttpStatus.FORBIDDEN, () -> users.setRole(BUYER, "ann@example.com", "farmer"));
+    }
+
+    private static void assertStatus(HttpStatus expected, Executable call) {
+        assertEquals(expected, assertThrows(ResponseStatusException.class, call).getStatusCode());
+    }
+}
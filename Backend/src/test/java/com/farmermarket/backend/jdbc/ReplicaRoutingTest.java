@@ -0,0 +1,182 @@
+package com.farmermarket.backend.jdbc;
+
+import com.farmermarket.backend.dto.OrderSummaryDTO;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.service.OrderService;
+import com.farmermarket.backend.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. "Replication" is an
+ * explicit copy of the primary, so in between the replica is exactly as stale as a lagging one.
+ * ReplicaReads runs on a test clock, so the sticky window expires without waiting.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replica.sticky-ms=" + ReplicaRoutingTest.STICKY_MS,
+        "app.analytics.enabled=false",
+        "app.orders.archive.enabled=false"
+})
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final long STICKY_MS = 5000;
+    static final AtomicLong NOW = new AtomicLong(1_000_000);
+
+    @TestConfiguration
+    static class Clocked {
+        @Bean
+        @Primary
+        ReplicaReads clockedReplicaReads(PlatformTransactionManager txManager) {
+            return new ReplicaReads(txManager, STICKY_MS, NOW::get);
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @BeforeEach
+    void replicate() throws Exception {
+        Path dump = Files.createTempFile("primary", ".sql");
+        try {
+            execute(PRIMARY_URL, "SCRIPT TO '" + dump + "'");
+            execute(REPLICA_URL, "DROP ALL OBJECTS");
+            execute(REPLICA_URL, "RUNSCRIPT FROM '" + dump + "'");
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @Test
+    void writesGoToThePrimaryAndListingsReadTheReplica() throws Exception {
+        int before = newestFruit().size();
+
+        productService.saveProduct("Replica Guava", Product.Category.FRUIT, 120.0, null, 5, null);
+        assertEquals(before, newestFruit().size(), "replica has not caught up yet");
+
+        replicate();
+        assertEquals(before + 1, newestFruit().size());
+    }
+
+    @Test
+    void buyerReadsTheirOwnOrderRightAfterPlacingIt() throws Exception {
+        String buyer = "sticky-" + System.nanoTime() + "@example.com";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Order placed = inRequest(new MockHttpServletRequest(), response, () -> orderService.placeOrder(order(buyer)));
+        String until = response.getHeader(ReplicaReads.PRIMARY_UNTIL_HEADER);
+        assertEquals(Long.toString(NOW.get() + STICKY_MS), until);
+
+        // Requests carrying the marker read the primary, whichever instance serves them
+        assertEquals(List.of(placed.getOrderId()), orderIds(inRequest(marked(until),
+                () -> orderService.getBuyerOrderSummaries(buyer, null, 10))));
+        assertTrue(inRequest(marked(until), () -> orderService.getOrderById(placed.getOrderId())).isPresent());
+        // Everyone else reads the replica, which does not have the order yet
+        assertTrue(inRequest(new MockHttpServletRequest(),
+                () -> orderService.getOrderById(placed.getOrderId())).isEmpty());
+        // A marker further ahead than the sticky window is not honoured
+        assertTrue(inRequest(marked(Long.toString(NOW.get() + 10 * STICKY_MS)),
+                () -> orderService.getOrderById(placed.getOrderId())).isEmpty());
+
+        NOW.addAndGet(STICKY_MS);
+        assertTrue(inRequest(marked(until), () -> orderService.getBuyerOrderSummaries(buyer, null, 10)).isEmpty(),
+                "back on the lagging replica");
+
+        replicate();
+        assertEquals(List.of(placed.getOrderId()), orderIds(orderService.getBuyerOrderSummaries(buyer, null, 10)));
+        assertTrue(orderService.getOrderById(placed.getOrderId()).isPresent());
+    }
+
+    @Test
+    void pendingQueueReadsThePrimary() {
+        Order placed = orderService.placeOrder(order("queue-" + System.nanoTime() + "@example.com"));
+
+        // The change feed's cursor comes from the primary, so the page it continues must too
+        assertTrue(orderIds(orderService.getPendingOrderSummaries(null, 10_000)).contains(placed.getOrderId()));
+        assertTrue(orderService.getPendingOrders(null, 10_000).stream()
+                .anyMatch(o -> o.orderId.equals(placed.getOrderId())));
+    }
+
+    private static MockHttpServletRequest marked(String until) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReplicaReads.PRIMARY_UNTIL_HEADER, until);
+        return request;
+    }
+
+    private static <T> T inRequest(MockHttpServletRequest request, Supplier<T> work) {
+        return inRequest(request, new MockHttpServletResponse(), work);
+    }
+
+    private static <T> T inRequest(MockHttpServletRequest request, MockHttpServletResponse response, Supplier<T> work) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            return work.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private List<Product> newestFruit() {
+        return productService.listProducts(Product.Category.FRUIT, null, null,
+                ProductService.ListingSort.NEWEST, null, 200);
+    }
+
+    private static List<String> orderIds(List<OrderSummaryDTO> summaries) {
+        return summaries.stream().map(s -> s.orderId).toList();
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection con = DriverManager.getConnection(url, "sa", "");
+             Statement statement = con.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Order order(String buyer) {
+        OrderItem item = new OrderItem();
+        item.setProductName("Replica Lime");
+        item.setPrice(BigDecimal.valueOf(80));
+        item.setQuantity(1);
+
+        Order order = new Order();
+        order.setBuyerEmail(buyer);
+        order.setFirstName("Replica");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setTotal(BigDecimal.valueOf(80));
+        order.setItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
@@ -0,0 +1,54 @@
+package com.farmermarket.backend.logging;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Traces carry the final status and duration, also for requests that finish asynchronously,
+ * and no buyer emails.
+ */
+class RequestTracingFilterTest {
+
+    private final RequestTraceBuffer traces = new RequestTraceBuffer(10);
+    private final RequestTracingFilter filter = new RequestTracingFilter(traces);
+
+    @Test
+    void synchronousRequestsAreRecordedOnReturn() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/buyer/ann@example.com");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> response.setStatus(204));
+
+        RequestTraceBuffer.Trace trace = traces.recent(10).get(0);
+        assertEquals("/api/orders/buyer/{email}", trace.path());
+        assertEquals(204, trace.status());
+    }
+
+    @Test
+    void asyncRequestsAreRecordedWhenTheyComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain startsAsync = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, response, startsAsync);
+        assertTrue(traces.recent(10).isEmpty(), "still running on another thread");
+
+        Thread.sleep(20);
+        response.setStatus(401);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        List<RequestTraceBuffer.Trace> recorded = traces.recent(10);
+        assertEquals(1, recorded.size());
+        assertEquals(401, recorded.get(0).status());
+        assertTrue(recorded.get(0).durationMs() >= 20, "includes the async part");
+    }
+}
@@ -0,0 +1,75 @@
+package com.farmermarket.backend.repository;
+
+import com.farmermarket.backend.model.ConversationSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The single-statement updates that keep the farmer inbox current: first message, moving the
+ * last message forward, and the unread counter.
+ */
+@SpringBootTest
+class ConversationSummaryRepositoryTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    @Autowired
+    private ConversationSummaryRepository summaries;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    void createIfAbsentLeavesAnExistingRowAlone() {
+        String email = "create@example.com";
+
+        assertEquals(1, inTx(() -> summaries.createIfAbsent(email, "Ann", 10L, "hi", "buyer", AT, 1)));
+        assertEquals(0, inTx(() -> summaries.createIfAbsent(email, "Ann", 11L, "again", "buyer", AT, 1)));
+
+        ConversationSummary s = summaries.findById(email).orElseThrow();
+        assertEquals(10L, s.getLastMessageId());
+        assertEquals(1, s.getUnreadCount());
+    }
+
+    @Test
+    void advanceNeverMovesBackToAnOlderMessage() {
+        String email = "advance@example.com";
+        inTx(() -> summaries.createIfAbsent(email, "Ann", 10L, "first", "buyer", AT, 1));
+
+        assertEquals(1, inTx(() -> summaries.advance(email, "Ann B", 20L, "newer", "admin", AT.plusMinutes(1))));
+        assertEquals(0, inTx(() -> summaries.advance(email, "Ann", 15L, "late", "buyer", AT)));
+        assertEquals(0, inTx(() -> summaries.advance("nobody@example.com", "X", 30L, "x", "buyer", AT)));
+
+        ConversationSummary s = summaries.findById(email).orElseThrow();
+        assertEquals(20L, s.getLastMessageId());
+        assertEquals("newer", s.getLastMessage());
+        assertEquals("admin", s.getLastSenderRole());
+        assertEquals("Ann B", s.getBuyerName());
+    }
+
+    @Test
+    void unreadCountsUpAndClears() {
+        String email = "unread@example.com";
+        inTx(() -> summaries.createIfAbsent(email, "Ann", 10L, "hi", "buyer", AT, 1));
+
+        assertEquals(1, inTx(() -> summaries.incrementUnread(email)));
+        inTx(() -> summaries.incrementUnread(email));
+        assertEquals(3, summaries.findById(email).orElseThrow().getUnreadCount());
+
+        assertEquals(1, inTx(() -> summaries.clearUnread(email)));
+        assertEquals(0, summaries.findById(email).orElseThrow().getUnreadCount());
+        assertEquals(0, inTx(() -> summaries.incrementUnread("nobody@example.com")));
+    }
+
+    private int inTx(Supplier<Integer> update) {
+        return new TransactionTemplate(txManager).execute(status -> update.get());
+    }
+}
@@ -0,0 +1,53 @@
+package com.farmermarket.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One-time data fixes: applied once per database, and retried on the next start when they fail.
+ */
+@SpringBootTest
+class DataMigrationsTest {
+
+    @Autowired
+    private DataMigrations migrations;
+
+    @Autowired
+    private DataMigrationRepository markers;
+
+    @Test
+    void runsOncePerDatabase() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(migrations.runOnce("test-once", runs::incrementAndGet));
+        assertFalse(migrations.runOnce("test-once", runs::incrementAndGet));
+        assertEquals(1, runs.get());
+        assertTrue(markers.existsById("test-once"));
+    }
+
+    @Test
+    void failedFixesAreNotMarked() {
+        assertThrows(IllegalStateException.class, () -> migrations.runOnce("test-failing", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertFalse(markers.existsById("test-failing"));
+
+        assertTrue(migrations.runOnce("test-failing", () -> {}));
+    }
+
+    @Test
+    void startupFixesAreMarked() {
+        assertTrue(markers.existsById("orders-normalize-buyer-emails"));
+        assertTrue(markers.existsById("orders-fill-missing-version"));
+        assertTrue(markers.existsById("orders-normalize-statuses"));
+        assertTrue(markers.existsById("conversation-summaries-normalize-emails"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.cache.CatalogCache;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Every clean cart counts as idle here (idle-eviction 0) and a held price is never honoured
+ * (max-hold 0), so flush evicts between edits and every change re-reads the price.
+ */
+@SpringBootTest(properties = {
+        "app.cart.idle-eviction-minutes=0",
+        "app.cart.max-hold-minutes=0",
+        "app.cart.flush-ms=3600000",
+        "app.analytics.enabled=false",
+        "app.orders.archive.enabled=false"
+})
+class CartServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 200;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Test
+    void editsRacingWithEvictionAreNotLost() throws Exception {
+        String buyer = "evict-" + System.nanoTime() + "@example.com";
+        Long productId = createProduct("Evict Plum", 100.0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    cartService.addItem(buyer, productId, 1);
+                }
+                return null;
+            }));
+        }
+        AtomicBoolean adding = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (adding.get()) {
+                cartService.flush();
+            }
+        });
+        flusher.start();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        adding.set(false);
+        flusher.join();
+        pool.shutdown();
+
+        assertEquals(THREADS * ADDS_PER_THREAD, quantity(buyer, productId));
+        // Persisted, evicted and loaded back
+        cartService.flush();
+        cartService.flush();
+        assertEquals(THREADS * ADDS_PER_THREAD, quantity(buyer, productId));
+    }
+
+    @Test
+    void heldPriceIsNotRenewedPastMaxHold() {
+        String buyer = "hold-" + System.nanoTime() + "@example.com";
+        Long productId = createProduct("Hold Fig", 100.0);
+
+        cartService.addItem(buyer, productId, 1);
+        Product product = productRepo.findById(productId).orElseThrow();
+        product.setPrice(120.0);
+        productRepo.save(product);
+        catalogCache.invalidateProduct(productId);
+
+        CartService.CartLine line = cartService.addItem(buyer, productId, 1).orElseThrow().items().get(0);
+        assertEquals(0, BigDecimal.valueOf(120.0).compareTo(line.price()), "edits do not extend the old price");
+        assertEquals(2, line.quantity());
+        assertFalse(line.heldUntil().isAfter(line.pricedAt()));
+    }
+
+    private int quantity(String buyer, Long productId) {
+        return cartService.getCart(buyer).items().stream()
+                .filter(l -> l.productId().equals(productId))
+                .mapToInt(CartService.CartLine::quantity)
+                .sum();
+    }
+
+    private Long createProduct(String name, double price) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(price);
+        return productRepo.save(p).getId();
+    }
+}
@@ -0,0 +1,96 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Orders posted by clients: prices, delivery fee and total come from the catalog, never the
+ * request, and items without a usable product or quantity are refused before any stock moves.
+ */
+@SpringBootTest
+class ClientOrdersTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Test
+    void itemsArePricedFromTheCatalog() {
+        Long productId = createProduct("Priced Fig", 10);
+        Order request = order(item(productId, 3));
+        request.setDeliveryFee(BigDecimal.ZERO);
+        request.setVersion(7L);
+
+        Order placed = orderService.placeClientOrder(request, null);
+
+        OrderItem item = placed.getItems().get(0);
+        assertEquals(0, new BigDecimal("100").compareTo(item.getPrice()));
+        assertEquals("Priced Fig", item.getProductName());
+        assertEquals("FRUIT", item.getCategory());
+        assertEquals(0, new BigDecimal("200").compareTo(placed.getDeliveryFee()));
+        assertEquals(0, new BigDecimal("500").compareTo(placed.getTotal()), "3 x 100 + delivery");
+        assertNotEquals(7L, placed.getVersion());
+        assertEquals(7, productRepo.findStockById(productId));
+    }
+
+    @Test
+    void unusableItemsAreRefused() {
+        Long productId = createProduct("Refused Date", 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeClientOrder(order(item(productId, 2), item(productId, 0)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeClientOrder(order(item(productId, -1)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeClientOrder(order(item(null, 1)), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeClientOrder(order(item(Long.MAX_VALUE, 1)), null));
+        assertThrows(IllegalArgumentException.class, () -> orderService.placeClientOrder(order(), null));
+        assertEquals(10, productRepo.findStockById(productId));
+    }
+
+    private Long createProduct(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(100.0);
+        p.setStock(stock);
+        return productRepo.save(p).getId();
+    }
+
+    // What a client might send: its own names and prices, all of which are replaced
+    private static OrderItem item(Long productId, int qty) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("cheap");
+        item.setPrice(BigDecimal.ONE);
+        item.setQuantity(qty);
+        return item;
+    }
+
+    private static Order order(OrderItem... items) {
+        Order order = new Order();
+        order.setBuyerEmail("client-" + System.nanoTime() + "@example.com");
+        order.setFirstName("Client");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setTotal(BigDecimal.ONE);
+        order.setItems(new ArrayList<>(List.of(items)));
+        return order;
+    }
+}
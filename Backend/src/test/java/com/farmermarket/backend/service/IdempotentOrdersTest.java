@@ -0,0 +1,126 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.OrderRepository;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Replays of an Idempotency-Key: sequential and concurrent duplicates get the first order
+ * and take stock once; the same key with a different payload is refused.
+ */
+@SpringBootTest
+class IdempotentOrdersTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Test
+    void replayReturnsTheFirstOrder() {
+        Long productId = createProduct("Replay Pear", 10);
+        String buyer = "replay-" + System.nanoTime() + "@example.com";
+
+        Order first = orderService.placeOrder(order(buyer, productId, 2, "1 Main St"), "key-1");
+        // The retry is a fresh request body, as after a lost response
+        Order again = orderService.placeOrder(order(buyer, productId, 2, "1 Main St"), "key-1");
+
+        assertEquals(first.getOrderId(), again.getOrderId());
+        assertEquals(8, productRepo.findStockById(productId));
+
+        Order other = orderService.placeOrder(order(buyer, productId, 2, "1 Main St"), "key-2");
+        assertNotEquals(first.getOrderId(), other.getOrderId());
+        assertEquals(6, productRepo.findStockById(productId));
+    }
+
+    @Test
+    void concurrentDuplicatesPlaceOneOrder() throws Exception {
+        Long productId = createProduct("Burst Quince", 100);
+        String buyer = "burst-" + System.nanoTime() + "@example.com";
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> orderIds = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                orderIds.add(orderService.placeOrder(order(buyer, productId, 1, "2 Main St"), "burst").getOrderId());
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, orderIds.size());
+        assertEquals(99, productRepo.findStockById(productId));
+        assertEquals(1, orderRepo.findByBuyerEmailAndIdempotencyKey(buyer, "burst").stream().count());
+    }
+
+    @Test
+    void sameKeyWithDifferentPayloadIsRefused() {
+        Long productId = createProduct("Reuse Plum", 10);
+        String buyer = "reuse-" + System.nanoTime() + "@example.com";
+        orderService.placeOrder(order(buyer, productId, 1, "3 Main St"), "reused");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> orderService.placeOrder(order(buyer, productId, 3, "3 Main St"), "reused"));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> orderService.placeOrder(order(buyer, productId, 1, "4 Other Rd"), "reused"));
+        assertEquals(9, productRepo.findStockById(productId));
+    }
+
+    private Long createProduct(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(100.0);
+        p.setStock(stock);
+        return productRepo.save(p).getId();
+    }
+
+    private static Order order(String buyer, Long productId, int qty, String address) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("replay");
+        item.setPrice(BigDecimal.valueOf(100));
+        item.setQuantity(qty);
+
+        Order order = new Order();
+        order.setBuyerEmail(buyer);
+        order.setFirstName("Replay");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setAddress(address);
+        order.setTotal(BigDecimal.valueOf(100L * qty));
+        order.setItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+}
@@ -0,0 +1,123 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A client whose send blocks must not delay anyone else, and is dropped once its queue fills
+ * or its send outlasts the timeout.
+ */
+class MessageBroadcasterTest {
+
+    private static final int QUEUE_SIZE = 3;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MessageBroadcaster broadcaster;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void blockedClientDoesNotDelayOthersAndIsDroppedWhenItsQueueFills() throws Exception {
+        broadcaster = new MessageBroadcaster(60_000, QUEUE_SIZE, 60_000);
+        BlockingEmitter stuck = new BlockingEmitter();
+        CountingEmitter buyer = new CountingEmitter();
+        CountingEmitter admin = new CountingEmitter();
+        broadcaster.subscribeBuyer("ann@example.com", stuck);
+        broadcaster.subscribeBuyer("Ann@Example.com", buyer);
+        broadcaster.subscribeAdmin(admin);
+
+        // One send in progress, QUEUE_SIZE waiting, and one more overflows the stuck client's queue
+        for (int n = 1; n <= QUEUE_SIZE + 2; n++) {
+            broadcaster.publish(message(n));
+            int expected = n;
+            await(() -> buyer.sent.get() == expected, "buyer stream received message " + expected);
+            await(() -> admin.sent.get() == expected, "admin stream received message " + expected);
+            if (n == 1) {
+                assertTrue(stuck.sending.await(10, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(2, broadcaster.subscriberCount(), "the stuck client was dropped");
+
+        release.countDown();
+        await(() -> stuck.completed, "the stuck client's stream was closed");
+    }
+
+    @Test
+    void sendOutlastingTheTimeoutIsDroppedOnHeartbeat() throws Exception {
+        broadcaster = new MessageBroadcaster(60_000, QUEUE_SIZE, 50);
+        BlockingEmitter stuck = new BlockingEmitter();
+        broadcaster.subscribeAdmin(stuck);
+
+        broadcaster.publish(message(1));
+        assertTrue(stuck.sending.await(10, TimeUnit.SECONDS));
+        broadcaster.heartbeat();
+        assertEquals(1, broadcaster.subscriberCount(), "still within the send timeout");
+
+        Thread.sleep(100);
+        broadcaster.heartbeat();
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    private static Message message(int n) {
+        Message m = new Message();
+        m.setBuyerEmail("ann@example.com");
+        m.setSenderRole("buyer");
+        m.setMessage("hello " + n);
+        return m;
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, what);
+            Thread.sleep(10);
+        }
+    }
+
+    private static class CountingEmitter extends SseEmitter {
+        final AtomicInteger sent = new AtomicInteger();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            sent.incrementAndGet();
+        }
+    }
+
+    // A client that stops reading: its first send blocks until the test ends
+    private class BlockingEmitter extends SseEmitter {
+        final CountDownLatch sending = new CountDownLatch(1);
+        volatile boolean completed;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
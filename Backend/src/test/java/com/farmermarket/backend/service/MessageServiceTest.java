@@ -0,0 +1,50 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.ConversationSummary;
+import com.farmermarket.backend.model.Message;
+import com.farmermarket.backend.repository.ConversationSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Saving a message keeps its buyer's inbox row current, whatever case or spacing the email
+ * arrives with.
+ */
+@SpringBootTest
+class MessageServiceTest {
+
+    @Autowired
+    private MessageService service;
+
+    @Autowired
+    private ConversationSummaryRepository summaries;
+
+    @Test
+    void oneSummaryPerBuyerWhateverTheEmailCase() {
+        service.save(message(" Cara@Example.com", "buyer", "hello"));
+        service.save(message("cara@example.com", "buyer", "anyone there?"));
+        Message reply = service.save(message("CARA@example.com ", "admin", "yes, hi"));
+
+        ConversationSummary s = summaries.findById("cara@example.com").orElseThrow();
+        assertEquals(reply.getId(), s.getLastMessageId());
+        assertEquals("yes, hi", s.getLastMessage());
+        assertEquals(2, s.getUnreadCount(), "the farmer's reply is not unread");
+        assertFalse(summaries.existsById(" Cara@Example.com"));
+
+        service.markConversationRead("Cara@Example.com");
+        assertEquals(0, summaries.findById("cara@example.com").orElseThrow().getUnreadCount());
+    }
+
+    private static Message message(String email, String senderRole, String text) {
+        Message m = new Message();
+        m.setBuyerName("Cara");
+        m.setBuyerEmail(email);
+        m.setSenderRole(senderRole);
+        m.setMessage(text);
+        return m;
+    }
+}
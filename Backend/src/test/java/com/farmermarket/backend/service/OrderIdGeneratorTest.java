@@ -0,0 +1,94 @@
+package com.farmermarket.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Order numbers sort by creation time and stay strictly increasing within a millisecond,
+ * across a random-bits carry and when the clock steps back.
+ */
+class OrderIdGeneratorTest {
+
+    private static final String CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    void formatIsPrefixedCrockfordUlid() {
+        String id = new OrderIdGenerator().next();
+
+        assertEquals(OrderIdGenerator.PREFIX.length() + 26, id.length());
+        assertTrue(id.startsWith(OrderIdGenerator.PREFIX));
+        assertTrue(id.substring(OrderIdGenerator.PREFIX.length()).chars().allMatch(c -> CROCKFORD.indexOf(c) >= 0));
+    }
+
+    @Test
+    void laterMillisecondsSortLater() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        OrderIdGenerator ids = new OrderIdGenerator(now::get, new Random(1));
+
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            issued.add(ids.next());
+            now.addAndGet(1 + i % 3);
+        }
+        assertStrictlyIncreasing(issued);
+        // The first 10 characters are the timestamp
+        assertEquals(timestamp(1_700_000_000_000L), issued.get(0).substring(3, 13));
+    }
+
+    @Test
+    void sameMillisecondAndClockSteppingBackStayIncreasing() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        OrderIdGenerator ids = new OrderIdGenerator(now::get, new Random(2));
+
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            issued.add(ids.next());
+        }
+        now.addAndGet(-5_000);
+        for (int i = 0; i < 1000; i++) {
+            issued.add(ids.next());
+        }
+        assertStrictlyIncreasing(issued);
+    }
+
+    @Test
+    void exhaustedRandomBitsCarryUpward() {
+        // All random bits set: the next id in that millisecond has to carry into the timestamp
+        Random allOnes = new Random() {
+            @Override
+            public int nextInt() { return -1; }
+
+            @Override
+            public long nextLong() { return -1L; }
+        };
+        OrderIdGenerator ids = new OrderIdGenerator(() -> 1_700_000_000_000L, allOnes);
+
+        String first = ids.next();
+        String second = ids.next();
+        assertTrue(second.compareTo(first) > 0);
+        assertEquals(timestamp(1_700_000_000_001L), second.substring(3, 13));
+    }
+
+    private static void assertStrictlyIncreasing(List<String> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0, ids.get(i - 1) + " then " + ids.get(i));
+        }
+    }
+
+    // 48-bit milliseconds as the 10 leading Crockford characters
+    private static String timestamp(long millis) {
+        char[] out = new char[10];
+        for (int i = 9; i >= 0; i--) {
+            out[i] = CROCKFORD.charAt((int) (millis & 31));
+            millis >>>= 5;
+        }
+        return new String(out);
+    }
+}
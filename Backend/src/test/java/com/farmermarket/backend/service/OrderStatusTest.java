@@ -0,0 +1,168 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.OrderDTO;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.model.OrderStatusEvent;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.OrderStatusEventRepository;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Status transitions (allowed moves only, one winner per race, stale versions refused)
+ * and the status event feed's settle cut.
+ */
+@SpringBootTest(properties = {
+        "app.orders.feed-settle-ms=2000",
+        "app.analytics.enabled=false",
+        "app.orders.archive.enabled=false"
+})
+class OrderStatusTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatusEventRepository eventRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Test
+    void onlyAllowedTransitionsApply() {
+        String orderId = placeOrder();
+
+        OrderStateException skipped = assertThrows(OrderStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED, null));
+        assertEquals(OrderStatus.PENDING, skipped.getCurrentStatus());
+
+        orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED, null);
+        orderService.updateOrderStatus(orderId, OrderStatus.DISPATCHED, null);
+        assertThrows(OrderStateException.class, () -> orderService.cancelOrder(orderId));
+        orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED, null);
+        assertThrows(OrderStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.PENDING, null));
+
+        List<OrderStatus> history = orderService.getStatusHistory(orderId).stream()
+                .map(OrderStatusEvent::getToStatus).toList();
+        assertEquals(List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.DISPATCHED,
+                OrderStatus.DELIVERED), history);
+    }
+
+    @Test
+    void staleVersionIsRefused() {
+        String orderId = placeOrder();
+        OrderDTO seen = orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED, null).orElseThrow();
+        orderService.updateOrderStatus(orderId, OrderStatus.DISPATCHED, seen.version);
+
+        assertThrows(OrderStateException.class,
+                () -> orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED, seen.version));
+    }
+
+    @Test
+    void racingTransitionsHaveOneWinner() throws Exception {
+        String orderId = placeOrder();
+        OrderStatus[] targets = {OrderStatus.CONFIRMED, OrderStatus.REJECTED, OrderStatus.CANCELLED};
+
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            OrderStatus target = targets[i % targets.length];
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    if (target == OrderStatus.CANCELLED) {
+                        orderService.cancelOrder(orderId);
+                    } else {
+                        orderService.updateOrderStatus(orderId, target, null);
+                    }
+                } catch (OrderStateException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // One move out of Pending. A cancel that ran after a confirm may legally follow it, but
+        // every event must start from the status the previous one left.
+        List<OrderStatusEvent> history = orderService.getStatusHistory(orderId);
+        assertEquals(1, history.stream().filter(e -> e.getFromStatus() == OrderStatus.PENDING).count());
+        for (int i = 1; i < history.size(); i++) {
+            assertEquals(history.get(i - 1).getToStatus(), history.get(i).getFromStatus());
+        }
+        assertTrue(history.size() <= 3, "events: " + history.size());
+        assertTrue(refused.get() >= 12 - 8, "refused: " + refused.get());
+    }
+
+    @Test
+    void feedStopsAtFirstUnsettledEvent() {
+        long start = lastEventId();
+        LocalDateTime settled = LocalDateTime.now().minusMinutes(1);
+        OrderStatusEvent first = eventRepo.save(new OrderStatusEvent("FEED-1", null, OrderStatus.PENDING, settled));
+        // A lower id stamped later than the ids after it, as when its transaction started first
+        eventRepo.save(new OrderStatusEvent("FEED-2", null, OrderStatus.PENDING, LocalDateTime.now()));
+        eventRepo.save(new OrderStatusEvent("FEED-3", null, OrderStatus.PENDING, settled));
+
+        List<OrderStatusEvent> page = orderService.getStatusEvents(start, 100);
+        assertEquals(List.of(first.getId()), page.stream().map(OrderStatusEvent::getId).toList());
+
+        // Nothing past the young event until it has settled
+        assertEquals(List.of(), orderService.getStatusEvents(first.getId(), 100));
+        // Once it has, the rest follow
+        assertTrue(eventRepo.findSettledAfter(first.getId(), LocalDateTime.now(), 100).size() >= 2);
+    }
+
+    private long lastEventId() {
+        return eventRepo.findAll().stream().mapToLong(OrderStatusEvent::getId).max().orElse(0);
+    }
+
+    private String placeOrder() {
+        Product p = new Product();
+        p.setName("Status Melon");
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(100.0);
+        p.setStock(100);
+        Long productId = productRepo.save(p).getId();
+
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("Status Melon");
+        item.setPrice(BigDecimal.valueOf(100));
+        item.setQuantity(1);
+
+        Order order = new Order();
+        order.setBuyerEmail("status@example.com");
+        order.setFirstName("Status");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setTotal(BigDecimal.valueOf(100));
+        order.setItems(new ArrayList<>(List.of(item)));
+        return orderService.placeOrder(order).getOrderId();
+    }
+}
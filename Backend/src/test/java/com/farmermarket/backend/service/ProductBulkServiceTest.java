@@ -0,0 +1,157 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.BulkImportResult;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV parsing, per-row validation, the export/import round trip, and imports never writing
+ * back stock that was sold after the file was exported.
+ */
+@SpringBootTest
+class ProductBulkServiceTest {
+
+    @Autowired
+    private ProductBulkService bulkService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void csvRecordsHandleQuotesAndLineBreaks() throws IOException {
+        ProductBulkService.CsvRows rows = csv("﻿Name,Category,Price,Description\r\n"
+                + "\"Apple, red\",fruit,1.5,\"says \"\"crisp\"\"\"\r\n"
+                + "\n"
+                + "Kale,vegetable,2,\"line one\r\nline two\"\n"
+                + "Leek,vegetable,3,");
+
+        assertEquals(Map.of("name", "Apple, red", "category", "fruit", "price", "1.5",
+                "description", "says \"crisp\""), rows.next());
+        assertEquals("line one\r\nline two", rows.next().get("description"));
+        assertEquals(2, rows.lastRow(), "a multi-line record is one row and blank lines are not rows");
+        assertEquals("", rows.next().get("description"));
+        assertNull(rows.next());
+    }
+
+    @Test
+    void csvRejectsBadRecordsAndHeaders() throws IOException {
+        ProductBulkService.CsvRows rows = csv("name,category,price\nA,fruit,1,extra\nB,fruit,\"2\n");
+
+        IllegalArgumentException tooMany = assertThrows(IllegalArgumentException.class, rows::next);
+        assertEquals("Expected 3 fields, found 4", tooMany.getMessage());
+        IllegalArgumentException unterminated = assertThrows(IllegalArgumentException.class, rows::next);
+        assertEquals("Unterminated quoted field", unterminated.getMessage());
+        assertEquals(2, rows.lastRow());
+
+        assertThrows(IllegalArgumentException.class, () -> csv("name,price\nA,1\n"));
+        assertThrows(IllegalArgumentException.class, () -> csv(""));
+    }
+
+    @Test
+    void invalidRowsAreReportedAndTheRestSaved() throws IOException {
+        BulkImportResult result = importCsv("name,category,price,stock\n"
+                + "Bulk Plum,fruit,10,5\n"
+                + ",fruit,10,\n"
+                + "Bulk Yam,root,10,\n"
+                + "Bulk Fig,fruit,-1,\n"
+                + "Bulk Okra,vegetable,ten,\n"
+                + "Bulk Pea,vegetable,10,-3\n"
+                + "Bulk Bean,vegetable,10,\n");
+
+        assertEquals(2, result.created);
+        assertEquals(5, result.failed);
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), result.errors.stream().map(e -> e.row).toList());
+        assertEquals("name is required", result.errors.get(0).error);
+        assertEquals("Unknown category: root", result.errors.get(1).error);
+        assertEquals("price must be zero or more", result.errors.get(2).error);
+        assertEquals("price is not a number: ten", result.errors.get(3).error);
+        assertEquals("stock must be between 0 and " + Integer.MAX_VALUE, result.errors.get(4).error);
+    }
+
+    @Test
+    void exportedCatalogImportsBackUnchanged() throws IOException {
+        Long quoted = createProduct("Round \"Trip\", Melon", "sweet,\r\nripe \"today\"", 7);
+        Long untracked = createProduct("Round Trip Squash", null, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkService.exportProducts(ProductBulkService.Format.CSV, out);
+        BulkImportResult result = bulkService.importProducts(
+                new MockMultipartFile("file", "products.csv", "text/csv", out.toByteArray()), null,
+                ProductBulkService.Format.CSV);
+
+        assertEquals(0, result.failed, () -> "errors: " + result.errors.stream().map(e -> e.error).toList());
+        assertEquals(0, result.created);
+        assertEquals(productRepo.count(), result.updated);
+        Product melon = productRepo.findById(quoted).orElseThrow();
+        assertEquals("Round \"Trip\", Melon", melon.getName());
+        assertEquals("sweet,\r\nripe \"today\"", melon.getDescription());
+        assertEquals(7, productRepo.findStockById(quoted));
+        assertNull(productRepo.findStockById(untracked));
+    }
+
+    @Test
+    void importNeverWritesBackSoldStock() throws IOException {
+        Long sold = createProduct("Stale Kiwi", null, 10);
+        Long edited = createProduct("Edited Kiwi", null, 10);
+        Long blank = createProduct("Blank Kiwi", null, 10);
+        Long tracked = createProduct("Tracked Kiwi", null, null);
+        // Units sold after the file was exported
+        jdbc.update("UPDATE products SET stock = 7 WHERE id IN (?, ?)", sold, edited);
+
+        BulkImportResult result = importCsv("id,name,category,price,stock,stock_was\n"
+                + sold + ",Stale Kiwi,fruit,100,10,10\n"
+                + edited + ",Edited Kiwi,fruit,100,20,7\n"
+                + blank + ",Blank Kiwi 2,fruit,100,,\n"
+                + tracked + ",Tracked Kiwi,fruit,100,4,\n");
+
+        assertEquals(3, result.updated);
+        assertEquals(1, result.failed);
+        assertEquals(1L, result.errors.get(0).row);
+        assertTrue(result.errors.get(0).error.contains("stock has changed to 7"), result.errors.get(0).error);
+        assertEquals(7, productRepo.findStockById(sold));
+        assertEquals(20, productRepo.findStockById(edited));
+        assertEquals(10, productRepo.findStockById(blank), "a row without stock keeps it");
+        assertEquals("Blank Kiwi 2", productRepo.findById(blank).orElseThrow().getName());
+        assertEquals(4, productRepo.findStockById(tracked));
+    }
+
+    private BulkImportResult importCsv(String csv) throws IOException {
+        return bulkService.importProducts(new MockMultipartFile("file", "products.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)), null, ProductBulkService.Format.CSV);
+    }
+
+    private static ProductBulkService.CsvRows csv(String text) throws IOException {
+        return new ProductBulkService.CsvRows(new BufferedReader(new StringReader(text)));
+    }
+
+    private Long createProduct(String name, String description, Integer stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(100.0);
+        p.setDescription(description);
+        p.setStock(stock);
+        return productRepo.save(p).getId();
+    }
+}
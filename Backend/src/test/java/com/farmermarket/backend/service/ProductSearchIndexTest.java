@@ -0,0 +1,82 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Matching (trigram and short prefix queries), filters, ranking and paging of the in-memory index.
+ */
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void ranksNamePrefixThenNameThenDescription() {
+        index.rebuild(List.of(
+                product(1L, "Red Apple", "crisp", Product.Category.FRUIT, 100.0),
+                product(2L, "Apple Juice", "pressed", Product.Category.VEGETABLE, 250.0),
+                product(3L, "Pie", "made with APPLE", Product.Category.VEGETABLE, 400.0),
+                product(4L, "Carrot", "orange", Product.Category.VEGETABLE, 80.0)));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search("apple", null, null, null, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void shortQueriesMatchWordPrefixes() {
+        index.rebuild(List.of(
+                product(1L, "Banana", null, Product.Category.FRUIT, 50.0),
+                product(2L, "Green Beans", null, Product.Category.VEGETABLE, 60.0),
+                product(3L, "Carrot", null, Product.Category.VEGETABLE, 80.0)));
+
+        assertEquals(List.of(1L, 2L), ids(index.search("b", null, null, null, PageRequest.of(0, 10))));
+        assertEquals(List.of(), ids(index.search("zz", null, null, null, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void filtersAndPages() {
+        index.rebuild(List.of(
+                product(1L, "Mango A", null, Product.Category.FRUIT, 100.0),
+                product(2L, "Mango B", null, Product.Category.FRUIT, 200.0),
+                product(3L, "Mango C", null, Product.Category.FRUIT, 300.0),
+                product(4L, "Mango Chutney", null, Product.Category.VEGETABLE, 150.0)));
+
+        Page<Long> fruit = index.search("mango", Product.Category.FRUIT, 150.0, null, PageRequest.of(0, 1));
+        assertEquals(2, fruit.getTotalElements());
+        assertEquals(List.of(2L), ids(fruit));
+        assertEquals(List.of(3L), ids(index.search("mango", Product.Category.FRUIT, 150.0, null, PageRequest.of(1, 1))));
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceOldPostings() {
+        index.rebuild(List.of(product(1L, "Pumpkin", null, Product.Category.VEGETABLE, 90.0)));
+
+        index.put(product(1L, "Squash", null, Product.Category.VEGETABLE, 90.0));
+        assertTrue(index.search("pumpkin", null, null, null, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("squ", null, null, null, PageRequest.of(0, 10))));
+
+        index.remove(1L);
+        assertEquals(0, index.size());
+        assertTrue(index.search("squ", null, null, null, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private static List<Long> ids(Page<Long> page) {
+        return page.getContent();
+    }
+
+    private static Product product(Long id, String name, String description, Product.Category category, Double price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setDescription(description);
+        p.setCategory(category);
+        p.setPrice(price);
+        return p;
+    }
+}
@@ -0,0 +1,142 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.dto.DailySalesDTO;
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.OrderStatus;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import com.farmermarket.backend.repository.SalesDailyProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Sales rollups follow the order event log: placed orders count, cancelled and rejected ones
+ * are taken off again, orders already archived are read from the archive, and orders from
+ * before the log are backfilled on the first run.
+ */
+@SpringBootTest(properties = {
+        "app.orders.feed-settle-ms=0",
+        "app.analytics.enabled=false",
+        "app.orders.archive.enabled=false"
+})
+class SalesRollupJobTest {
+
+    @Autowired
+    private SalesRollupJob rollups;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderArchiveService archiveService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private SalesDailyProductRepository productSales;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void cancelledAndRejectedOrdersAreTakenOff() {
+        Long productId = createProduct("Rollup Apricot");
+        placeOrder(productId, 2);
+        String cancelled = placeOrder(productId, 3);
+        orderService.cancelOrder(cancelled);
+        // Placed and cancelled within the same batch: nets to nothing
+        orderService.cancelOrder(placeOrder(productId, 4));
+        rollups.catchUp();
+
+        assertSales(productId, 2, 1, 20);
+
+        String rejected = placeOrder(productId, 5);
+        rollups.catchUp();
+        assertSales(productId, 7, 2, 70);
+
+        orderService.updateOrderStatus(rejected, OrderStatus.REJECTED, null);
+        rollups.catchUp();
+        assertSales(productId, 2, 1, 20);
+    }
+
+    @Test
+    void archivedOrdersAreReadFromTheArchive() {
+        Long productId = createProduct("Rollup Date");
+        rollups.catchUp();
+        String delivered = placeOrder(productId, 6);
+        for (OrderStatus status : List.of(OrderStatus.CONFIRMED, OrderStatus.DISPATCHED, OrderStatus.DELIVERED)) {
+            orderService.updateOrderStatus(delivered, status, null);
+        }
+        archiveService.archiveClosedBefore(LocalDateTime.now().plusMinutes(1));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM orders WHERE order_id = ?", Integer.class, delivered));
+
+        rollups.catchUp();
+        assertSales(productId, 6, 1, 60);
+    }
+
+    @Test
+    void ordersFromBeforeTheLogAreBackfilled() {
+        Long productId = createProduct("Rollup Elderberry");
+        String kept = placeOrder(productId, 2);
+        String cancelled = placeOrder(productId, 1);
+        orderService.cancelOrder(cancelled);
+        rollups.catchUp();
+        // As if the log had never recorded these orders, and rollups had never run
+        jdbc.update("DELETE FROM order_status_events WHERE order_id IN (?, ?)", kept, cancelled);
+        jdbc.update("DELETE FROM sales_daily_product WHERE product_id = ?", productId);
+        jdbc.update("DELETE FROM analytics_watermarks WHERE name = ?", SalesRollupJob.WATERMARK);
+
+        rollups.catchUp();
+
+        assertEquals(List.of(OrderStatus.PENDING), orderService.getStatusHistory(kept).stream()
+                .map(e -> e.getToStatus()).toList());
+        assertSales(productId, 2, 1, 20);
+    }
+
+    private void assertSales(Long productId, long units, long orders, long revenue) {
+        LocalDate today = LocalDate.now();
+        List<DailySalesDTO> days = productSales.findDailyForProduct(productId, today.minusDays(1), today.plusDays(1));
+        assertEquals(units, days.stream().mapToLong(d -> d.units).sum(), "units");
+        assertEquals(orders, days.stream().mapToLong(d -> d.orders).sum(), "orders");
+        assertEquals(0, BigDecimal.valueOf(revenue).compareTo(
+                days.stream().map(d -> d.revenue).reduce(BigDecimal.ZERO, BigDecimal::add)), "revenue");
+    }
+
+    private Long createProduct(String name) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(10.0);
+        return productRepo.save(p).getId();
+    }
+
+    private String placeOrder(Long productId, int qty) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("rollup");
+        item.setPrice(BigDecimal.TEN);
+        item.setQuantity(qty);
+
+        Order order = new Order();
+        order.setBuyerEmail("rollup@example.com");
+        order.setFirstName("Rollup");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setDistrict("Kandy");
+        order.setTotal(BigDecimal.valueOf(10L * qty));
+        order.setItems(new ArrayList<>(List.of(item)));
+        return orderService.placeOrder(order).getOrderId();
+    }
+}
@@ -0,0 +1,200 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.Order;
+import com.farmermarket.backend.model.OrderItem;
+import com.farmermarket.backend.model.Product;
+import com.farmermarket.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flash-sale checkouts against one product: stock must never go negative
+ * and exactly as many units must be sold as were in stock. Reads after a sale see the new stock.
+ */
+@SpringBootTest
+class StockConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockConcurrencyTest.class);
+
+    private static final int THREADS = 64;
+    private static final int CHECKOUTS = 600;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void concurrentSingleUnitCheckoutsNeverOversell() throws Exception {
+        int stock = 150;
+        Long productId = createProduct("Flash Mango", stock);
+
+        Result result = runCheckouts(productId, () -> 1);
+
+        assertEquals(stock, result.soldUnits, "every unit sold exactly once");
+        assertEquals(CHECKOUTS - stock, result.rejected);
+        assertEquals(0, productRepo.findStockById(productId));
+        result.check("single-unit");
+    }
+
+    @Test
+    void concurrentMultiUnitCheckoutsNeverOversell() throws Exception {
+        int stock = 500;
+        Long productId = createProduct("Flash Papaya", stock);
+
+        Result result = runCheckouts(productId, () -> ThreadLocalRandom.current().nextInt(1, 4));
+
+        int remaining = productRepo.findStockById(productId);
+        assertTrue(remaining >= 0, "stock went negative: " + remaining);
+        assertEquals(stock, result.soldUnits + remaining, "sold + remaining must equal starting stock");
+        result.check("multi-unit");
+    }
+
+    @Test
+    void farmerEditsDoNotOverwriteSales() throws Exception {
+        Long productId = createProduct("Edit Guava", 10);
+        orderService.placeOrder(order("edit-1", productId, 3));
+
+        // The form was loaded at 10; three units sold since
+        assertThrows(StockChangedException.class, () -> productService.updateProduct(productId, "Edit Guava",
+                Product.Category.FRUIT, 100.0, null, 20, 10, null));
+        assertEquals(7, productRepo.findStockById(productId));
+
+        assertEquals(20, productService.updateProduct(productId, "Edit Guava", Product.Category.FRUIT, 100.0,
+                null, 20, 7, null).getStock());
+        orderService.placeOrder(order("edit-2", productId, 2));
+
+        // Editing other fields leaves stock alone, however old the loaded copy
+        Product renamed = productService.updateProduct(productId, "Guava", Product.Category.FRUIT, 100.0,
+                null, null, null, null);
+        assertEquals(18, renamed.getStock());
+        assertEquals(18, productRepo.findStockById(productId));
+    }
+
+    @Test
+    void cancelReturnsStock() {
+        Long productId = createProduct("Cancel Lime", 5);
+        Order order = orderService.placeOrder(order("cancel-1", productId, 3));
+        assertEquals(2, productRepo.findStockById(productId));
+
+        assertTrue(orderService.cancelOrder(order.getOrderId()));
+        assertEquals(5, productRepo.findStockById(productId));
+
+        // The returned units can be sold again straight away
+        orderService.placeOrder(order("cancel-2", productId, 5));
+        assertEquals(0, productRepo.findStockById(productId));
+    }
+
+    @Test
+    void searchShowsStockAfterASale() throws Exception {
+        Long productId = productService.saveProduct("Search Quince", Product.Category.FRUIT, 100.0, null, 5, null)
+                .getId();
+        assertEquals(List.of(5), searchStock("search quince"));
+
+        orderService.placeOrder(order("search-1", productId, 2));
+        assertEquals(List.of(3), searchStock("search quince"), "results are read through the catalog cache");
+    }
+
+    private List<Integer> searchStock(String q) {
+        return productService.search(q, null, null, null, PageRequest.of(0, 10)).getContent().stream()
+                .map(Product::getStock)
+                .toList();
+    }
+
+    private Result runCheckouts(Long productId, QuantitySource quantities) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < CHECKOUTS; i++) {
+            String orderId = "stress-" + productId + "-" + i;
+            futures.add(pool.submit(() -> {
+                int qty = quantities.next();
+                start.await();
+                try {
+                    orderService.placeOrder(order(orderId, productId, qty));
+                    sold.addAndGet(qty);
+                    placed.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - began;
+        pool.shutdown();
+        return new Result(sold.get(), placed.get(), rejected.get(), elapsedNanos);
+    }
+
+    private Long createProduct(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setCategory(Product.Category.FRUIT);
+        p.setPrice(100.0);
+        p.setStock(stock);
+        return productRepo.save(p).getId();
+    }
+
+    private static Order order(String orderId, Long productId, int qty) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("stress");
+        item.setPrice(BigDecimal.valueOf(100));
+        item.setQuantity(qty);
+
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setBuyerEmail("stress@example.com");
+        order.setFirstName("Stress");
+        order.setLastName("Test");
+        order.setPhone("0000000000");
+        order.setTotal(BigDecimal.valueOf(100L * qty));
+        order.setItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+
+    private interface QuantitySource {
+        int next();
+    }
+
+    private record Result(int soldUnits, int placed, int rejected, long elapsedNanos) {
+        // Every checkout was answered, either placed or turned away as out of stock
+        void check(String label) {
+            assertEquals(CHECKOUTS, placed + rejected, label + ": checkouts placed + rejected");
+            log.info("{}: {} checkouts on {} threads in {} ms, {} units sold, {} rejected",
+                    label, CHECKOUTS, THREADS, elapsedNanos / 1_000_000, soldUnits, rejected);
+        }
+    }
+}
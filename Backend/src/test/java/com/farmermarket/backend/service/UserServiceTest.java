@@ -0,0 +1,57 @@
+package com.farmermarket.backend.service;
+
+import com.farmermarket.backend.model.User;
+import com.farmermarket.backend.repository.UserRepository.Account;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Who becomes a farmer: nobody through public registration, except the bootstrap emails in
+ * app.auth.farmer-emails, and otherwise only by setRole, which revokes the account's old tokens.
+ */
+@SpringBootTest(properties = "app.auth.farmer-emails=Boss@Example.com, second@example.com")
+class UserServiceTest {
+
+    @Autowired
+    private UserService users;
+
+    @Test
+    void registeringAsFarmerIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> users.register(user("sneaky@example.com", "farmer")));
+        assertTrue(users.findByEmail("sneaky@example.com").isEmpty());
+
+        assertEquals("buyer", users.register(user("honest@example.com", "buyer")).join().role());
+    }
+
+    @Test
+    void bootstrapEmailsMayRegisterAsFarmer() {
+        assertEquals("farmer", users.register(user("boss@example.com", "farmer")).join().role());
+    }
+
+    @Test
+    void setRoleRevokesEarlierTokens() {
+        Account buyer = users.register(user("promoted@example.com", "buyer")).join();
+
+        Account farmer = users.setRole("promoted@example.com", "farmer").orElseThrow();
+
+        assertEquals("farmer", farmer.role());
+        assertEquals(buyer.tokenVersion() + 1, farmer.tokenVersion());
+        assertEquals(farmer, users.findById(buyer.id()).orElseThrow());
+        assertThrows(IllegalArgumentException.class, () -> users.setRole("promoted@example.com", "admin"));
+        assertTrue(users.setRole("nobody@example.com", "farmer").isEmpty());
+    }
+
+    private static User user(String email, String role) {
+        User u = new User();
+        u.setName("Test");
+        u.setEmail(email);
+        u.setPassword("secret-password");
+        u.setRole(role);
+        return u;
+    }
+}
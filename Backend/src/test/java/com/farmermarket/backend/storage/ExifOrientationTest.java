@@ -0,0 +1,118 @@
+package com.farmermarket.backend.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Reading the Orientation tag from JPEG EXIF data in either byte order, and turning the pixels
+ * for each of the eight orientations.
+ */
+class ExifOrientationTest {
+
+    private static final int W = 2;
+    private static final int H = 3;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTheTagInBothByteOrders() throws IOException {
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            assertEquals(orientation, ExifOrientation.read(jpeg(orientation, ByteOrder.BIG_ENDIAN)));
+            assertEquals(orientation, ExifOrientation.read(jpeg(orientation, ByteOrder.LITTLE_ENDIAN)));
+        }
+    }
+
+    @Test
+    void missingOrInvalidTagsAreNormal() throws IOException {
+        Path plain = dir.resolve("plain.jpg");
+        ImageIO.write(new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB), "jpg", plain.toFile());
+        Path text = Files.writeString(dir.resolve("text.jpg"), "not an image");
+
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(plain));
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(text));
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(dir.resolve("missing.jpg")));
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(jpeg(9, ByteOrder.BIG_ENDIAN)));
+    }
+
+    @Test
+    void appliesEveryOrientation() {
+        BufferedImage src = new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                src.setRGB(x, y, color(x, y));
+            }
+        }
+
+        assertSame(src, ExifOrientation.apply(src, ExifOrientation.NORMAL));
+        for (int orientation = 2; orientation <= 8; orientation++) {
+            BufferedImage out = ExifOrientation.apply(src, orientation);
+            boolean swap = orientation >= 5;
+            assertEquals(swap ? H : W, out.getWidth(), "width for " + orientation);
+            assertEquals(swap ? W : H, out.getHeight(), "height for " + orientation);
+            for (int y = 0; y < out.getHeight(); y++) {
+                for (int x = 0; x < out.getWidth(); x++) {
+                    int[] from = sourceOf(orientation, x, y);
+                    assertEquals(color(from[0], from[1]), out.getRGB(x, y) & 0xFFFFFF,
+                            "orientation " + orientation + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    // The source pixel displayed at (x, y), per the EXIF definition of each orientation
+    private static int[] sourceOf(int orientation, int x, int y) {
+        return switch (orientation) {
+            case 2 -> new int[]{W - 1 - x, y};
+            case 3 -> new int[]{W - 1 - x, H - 1 - y};
+            case 4 -> new int[]{x, H - 1 - y};
+            case 5 -> new int[]{y, x};
+            case 6 -> new int[]{y, H - 1 - x};
+            case 7 -> new int[]{W - 1 - y, H - 1 - x};
+            default -> new int[]{W - 1 - y, x};
+        };
+    }
+
+    private static int color(int x, int y) {
+        return (x * 100 + 20) << 16 | (y * 80 + 10) << 8 | 0x40;
+    }
+
+    // A JPEG whose APP1 segment holds a one-entry IFD0 with this orientation
+    private Path jpeg(int orientation, ByteOrder order) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(W, H, BufferedImage.TYPE_INT_RGB), "jpg", plain);
+        byte[] image = plain.toByteArray();
+
+        ByteBuffer tiff = ByteBuffer.allocate(26).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? "MM".getBytes(StandardCharsets.US_ASCII)
+                : "II".getBytes(StandardCharsets.US_ASCII));
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        // Tag, type SHORT, count 1, value in the first two bytes of the value field
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        int length = 2 + exif.length + tiff.capacity();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(image, 0, 2); // SOI
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length});
+        out.write(exif);
+        out.write(tiff.array());
+        out.write(image, 2, image.length - 2);
+        return Files.write(dir.resolve("o" + orientation + "-" + order + ".jpg"), out.toByteArray());
+    }
+}
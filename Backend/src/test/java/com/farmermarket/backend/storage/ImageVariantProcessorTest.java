@@ -0,0 +1,168 @@
+package com.farmermarket.backend.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Variant sizes and formats, refusing images over the pixel budget before decoding them, the
+ * negative cache for sources that cannot be decoded, and dropping work when the queue is full.
+ */
+class ImageVariantProcessorTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<ImageVariantProcessor> processors = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        processors.forEach(ImageVariantProcessor::shutdown);
+    }
+
+    @Test
+    void writesEachVariantWithinItsEdge() throws IOException {
+        Path source = png("wide.png", 2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        assertTrue(processor(1, 10, 1_000_000_000).generate(source, target(source)));
+
+        assertSize(1600, 800, dir.resolve("wide-full.jpg"));
+        assertSize(480, 240, dir.resolve("wide-card.jpg"));
+        assertSize(160, 80, dir.resolve("wide-thumb.jpg"));
+    }
+
+    @Test
+    void keepsTransparencyAndNeverUpscales() throws IOException {
+        Path source = png("small.png", 100, 50, BufferedImage.TYPE_INT_ARGB);
+
+        assertTrue(processor(1, 10, 1_000_000_000).generate(source, target(source)));
+
+        assertSize(100, 50, dir.resolve("small-full.png"));
+        assertSize(100, 50, dir.resolve("small-card.png"));
+        assertSize(100, 50, dir.resolve("small-thumb.png"));
+    }
+
+    @Test
+    void refusesImagesOverThePixelBudget() throws IOException {
+        Path small = png("budget.png", 20, 20, BufferedImage.TYPE_INT_RGB);
+        assertFalse(processor(1, 10, 399).generate(small, target(small)));
+        assertTrue(processor(1, 10, 400).generate(small, target(small)));
+
+        // A few hundred bytes claiming 100000 x 100000: refused from the header, never decoded
+        Path bomb = withDimensions(png("bomb.png", 8, 8, BufferedImage.TYPE_INT_RGB), 100_000, 100_000);
+        assertFalse(processor(1, 10, 40_000_000).generate(bomb, target(bomb)));
+        assertFalse(Files.exists(dir.resolve("bomb-full.jpg")));
+    }
+
+    @Test
+    void undecodableSourcesAreNotRetriedUntilChanged() throws Exception {
+        ImageVariantProcessor processor = processor(1, 10, 1_000_000_000);
+        Path broken = Files.writeString(dir.resolve("broken.png"), "not an image");
+
+        assertTrue(processor.submit(broken, target(broken)));
+        awaitIdle(processor);
+        assertFalse(processor.submit(broken, target(broken)), "known failure");
+
+        Files.setLastModifiedTime(broken, FileTime.fromMillis(Files.getLastModifiedTime(broken).toMillis() + 5000));
+        assertTrue(processor.submit(broken, target(broken)), "the file changed");
+        awaitIdle(processor);
+    }
+
+    @Test
+    void fullQueueDropsWorkInsteadOfWaiting() throws Exception {
+        ImageVariantProcessor processor = processor(1, 1, 1_000_000_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Path running = png("running.png", 10, 10, BufferedImage.TYPE_INT_RGB);
+        BiFunction<ImageVariant, String, Path> blocking = (variant, ext) -> {
+            started.countDown();
+            await(release);
+            return target(running).apply(variant, ext);
+        };
+        Path queued = png("queued.png", 10, 10, BufferedImage.TYPE_INT_RGB);
+        Path dropped = png("dropped.png", 10, 10, BufferedImage.TYPE_INT_RGB);
+
+        assertTrue(processor.submit(running, blocking));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertFalse(processor.submit(running, blocking), "already in flight");
+        assertTrue(processor.submit(queued, target(queued)));
+        assertFalse(processor.submit(dropped, target(dropped)), "queue full");
+
+        release.countDown();
+        awaitIdle(processor);
+        assertTrue(Files.exists(dir.resolve("queued-thumb.jpg")));
+        assertFalse(Files.exists(dir.resolve("dropped-thumb.jpg")));
+        // Dropped work is not remembered as a failure: a later request queues it again
+        assertTrue(processor.submit(dropped, target(dropped)));
+        awaitIdle(processor);
+    }
+
+    private ImageVariantProcessor processor(int threads, int queueSize, long maxPixels) {
+        ImageVariantProcessor processor = new ImageVariantProcessor(threads, queueSize, 60, maxPixels);
+        processors.add(processor);
+        return processor;
+    }
+
+    // <name>-<variant>.<ext> next to the source
+    private static BiFunction<ImageVariant, String, Path> target(Path source) {
+        String name = source.getFileName().toString().replaceFirst("\\.png$", "");
+        return (variant, ext) -> source.resolveSibling(name + "-" + variant.suffix() + "." + ext);
+    }
+
+    private Path png(String name, int width, int height, int type) throws IOException {
+        Path path = dir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, type), "png", path.toFile());
+        return path;
+    }
+
+    // Rewrites the IHDR chunk's width and height (and its CRC), leaving the pixel data as it was
+    private static Path withDimensions(Path png, int width, int height) throws IOException {
+        byte[] bytes = Files.readAllBytes(png);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        buf.putInt(16, width).putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 12, 17);
+        buf.putInt(29, (int) crc.getValue());
+        return Files.write(png, bytes);
+    }
+
+    private static void assertSize(int width, int height, Path image) throws IOException {
+        BufferedImage read = ImageIO.read(image.toFile());
+        assertEquals(width, read.getWidth(), image.getFileName() + " width");
+        assertEquals(height, read.getHeight(), image.getFileName() + " height");
+    }
+
+    private static void awaitIdle(ImageVariantProcessor processor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!processor.idle()) {
+            assertTrue(System.nanoTime() < deadline, "pipeline still busy");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import BuyerDashboard from "./pages/BuyerDashboard";
 import Login from "./components/Login";
 import Register from "./components/Register";
 import FarmerMarketWebsite from "./components/FarmerMarketWebsite";
+import { setAuthToken } from "./api/auth";
 
 const App: React.FC = () => {
   const [view, setView] = useState<
@@ -12,11 +13,14 @@ const App: React.FC = () => {
   >("landing");
 
   const [loggedInEmail, setLoggedInEmail] = useState<string>("");
+  const [loggedInName, setLoggedInName] = useState<string>("");
 
   // Logout handler
   const handleLogout = () => {
     setView("login");
     setLoggedInEmail("");
+    setLoggedInName("");
+    setAuthToken(null);
   };
 
   // Navigation handlers
@@ -24,9 +28,10 @@ const App: React.FC = () => {
   const switchToLogin = () => setView("login");
   const switchToLanding = () => setView("landing");
 
-  // After successful login (role, email)
-  const handleLoginSuccess = (role: string, email: string) => {
+  // After successful login (role, email, name)
+  const handleLoginSuccess = (role: string, email: string, name: string) => {
     setLoggedInEmail(email);
+    setLoggedInName(name);
     if (role.toLowerCase() === "farmer") setView("farmer");
     else setView("buyer");
   };
@@ -45,13 +50,13 @@ const App: React.FC = () => {
         <FarmerDashboard
           onLogout={handleLogout}
           farmerEmail={loggedInEmail}
-          farmerName={""}
+          farmerName={loggedInName}
         />
       )}
 
       {/* Buyer Dashboard */}
       {view === "buyer" && (
-        <BuyerDashboard onLogout={handleLogout} buyerEmail={loggedInEmail} />
+        <BuyerDashboard onLogout={handleLogout} buyerEmail={loggedInEmail} buyerName={loggedInName || "User"} />
       )}
 
       {/* Login Page (with working close) */}
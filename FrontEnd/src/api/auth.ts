@@ -0,0 +1,21 @@
+import type { AxiosInstance } from "axios";
+
+// Bearer token from the last login, kept for this browser tab only
+const TOKEN_KEY = "authToken";
+
+export const getAuthToken = (): string | null => sessionStorage.getItem(TOKEN_KEY);
+
+export const setAuthToken = (token: string | null) => {
+  if (token) sessionStorage.setItem(TOKEN_KEY, token);
+  else sessionStorage.removeItem(TOKEN_KEY);
+};
+
+// Sends the token with every request made through this instance
+export const withAuthToken = (instance: AxiosInstance): AxiosInstance => {
+  instance.interceptors.request.use((config) => {
+    const token = getAuthToken();
+    if (token) config.headers.Authorization = `Bearer ${token}`;
+    return config;
+  });
+  return instance;
+};
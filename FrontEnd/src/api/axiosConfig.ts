@@ -1,8 +1,10 @@
 import axios from "axios";
+import { withAuthToken } from "./auth";
+import { withReadPrimary } from "./readPrimary";
 
-const api = axios.create({
+const api = withReadPrimary(withAuthToken(axios.create({
 
    baseURL: "http://localhost:8080/api",
-});
+})));
 
 export default api;
@@ -0,0 +1,12 @@
+const BASE_URL = "http://localhost:8080";
+
+export type ImageSize = "thumb" | "card" | "full";
+
+// Absolute URL for a backend image path; product images and message attachments can be requested as a smaller variant
+export const imageSrc = (url: string, size?: ImageSize) => {
+  const absolute = url.startsWith("http") ? url : `${BASE_URL}${url}`;
+  if (!size || !(absolute.includes("/api/products/") || absolute.includes("/api/messages/attachments/"))) {
+    return absolute;
+  }
+  return `${absolute}${absolute.includes("?") ? "&" : "?"}size=${size}`;
+};
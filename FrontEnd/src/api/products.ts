@@ -2,4 +2,7 @@ import api from "./axiosConfig";
 
 export const getAllProducts = () => api.get("/products");
 
+export const searchProducts = (q: string, page = 0, size = 10) =>
+  api.get("/products/search", { params: { q, page, size } });
+
 export const addToCart = (productId: number) => api.post("/cart", { productId });
@@ -0,0 +1,20 @@
+import type { AxiosInstance } from "axios";
+
+// Set by the backend after an order is placed or cancelled: until then (epoch ms) this tab's
+// reads must go to the primary database, or the change may not be visible yet
+const HEADER = "X-Read-Primary-Until";
+let primaryUntil: string | null = null;
+
+// Echoes the last X-Read-Primary-Until back on every request made through this instance
+export const withReadPrimary = (instance: AxiosInstance): AxiosInstance => {
+  instance.interceptors.request.use((config) => {
+    if (primaryUntil && Number(primaryUntil) > Date.now()) config.headers[HEADER] = primaryUntil;
+    return config;
+  });
+  instance.interceptors.response.use((response) => {
+    const until = response.headers[HEADER.toLowerCase()];
+    if (until) primaryUntil = String(until);
+    return response;
+  });
+  return instance;
+};
@@ -1,9 +1,10 @@
 import axios from "axios";
+import { withAuthToken } from "./auth";
 
-const api = axios.create({
+const api = withAuthToken(axios.create({
 
  baseURL: "http://localhost:8080/api/users", // backend endpoint
   
-});
+}));
 
 export default api;
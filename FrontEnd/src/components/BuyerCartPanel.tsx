@@ -2,6 +2,7 @@
 import React, { useEffect, useState } from "react";
 import "../styles/BuyerCartPanel.css";
 import api from "../api/axiosConfig";
+import { imageSrc } from "../api/images";
 
 export interface CartProduct {
   id: number;
@@ -13,6 +14,35 @@ export interface CartProduct {
   category?: string;
 }
 
+// Cart line as returned by /api/cart; id is the product id
+export interface CartLine {
+  productId: number;
+  name: string;
+  category?: string;
+  price: number;
+  quantity: number;
+  imageUrl?: string;
+  heldUntil?: string;
+}
+
+export interface CartResponse {
+  buyerEmail: string;
+  items: CartLine[];
+  subtotal: number;
+  deliveryFee: number;
+  total: number;
+}
+
+export const toCartProduct = (line: CartLine): CartProduct => ({
+  id: line.productId,
+  productId: line.productId,
+  name: line.name,
+  price: line.price,
+  quantity: line.quantity,
+  imageUrl: line.imageUrl,
+  category: line.category,
+});
+
 export interface Address {
   id?: number;
   buyerEmail: string;
@@ -123,7 +153,7 @@ const BuyerCartPanel: React.FC<Props> = ({ cart, removeFromCart, onCheckout, onC
               <div className="cart-card" key={item.id}>
                 <div className="cart-img-wrap">
                   {item.imageUrl ? (
-                    <img src={item.imageUrl.startsWith("http") ? item.imageUrl : `http://localhost:8080${item.imageUrl}`} alt={item.name} />
+                    <img src={imageSrc(item.imageUrl, "thumb")} alt={item.name} />
                   ) : (
                     <div className="no-img">No Image</div>
                   )}
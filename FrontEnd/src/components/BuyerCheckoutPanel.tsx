@@ -1,5 +1,5 @@
 // src/components/BuyerCheckoutPanel.tsx
-import React, { useState, useEffect, useMemo } from "react";
+import React, { useState, useEffect, useMemo, useRef } from "react";
 import api from "../api/axiosConfig";
 import "../styles/CheckoutPanel.css";
 
@@ -37,6 +37,8 @@ const BuyerCheckoutPanel: React.FC<Props> = ({ cart, buyerEmail, onCancel, onPla
   const [payment, setPayment] = useState("Cash");
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
+  // One key per checkout attempt: a retried or double-clicked submit replays the same order
+  const idempotencyKey = useRef<string | null>(null);
 
   // Fill buyer address automatically if exists
   useEffect(() => {
@@ -63,12 +65,6 @@ const BuyerCheckoutPanel: React.FC<Props> = ({ cart, buyerEmail, onCancel, onPla
   const subtotal = useMemo(() => cart.reduce((s, it) => s + it.price * it.quantity, 0), [cart]);
   const total = useMemo(() => subtotal + DELIVERY_FEE, [subtotal]);
 
-  const generateOrderId = () => {
-    const t = new Date();
-    const stamp = t.toISOString().replace(/[-:.TZ]/g, "");
-    return `ORD${stamp}-${Math.floor(Math.random() * 900 + 100)}`;
-  };
-
   const validate = () => {
     if (!firstName || !lastName || !phone || !province || !district || !city || !address) {
       setError("⚠️ Please fill all required fields.");
@@ -85,10 +81,11 @@ const BuyerCheckoutPanel: React.FC<Props> = ({ cart, buyerEmail, onCancel, onPla
       return;
     }
 
-    const orderId = generateOrderId();
+    // Items, prices and totals are taken from the server-side cart; the order ID is assigned by the server
+    if (!idempotencyKey.current) {
+      idempotencyKey.current = crypto.randomUUID();
+    }
     const payload = {
-      orderId,
-      buyerEmail,
       firstName,
       lastName,
       phone,
@@ -97,28 +94,21 @@ const BuyerCheckoutPanel: React.FC<Props> = ({ cart, buyerEmail, onCancel, onPla
       city,
       address,
       payment,
-      deliveryFee: DELIVERY_FEE,
-      total,
-      status: "Pending",
-      items: cart.map(item => ({
-        productId: item.productId ?? item.id,
-        productName: item.name,
-        category: item.category ?? "",
-        price: item.price,
-        quantity: item.quantity,
-        imageUrl: item.imageUrl ?? "",
-      })),
     };
 
     try {
       setLoading(true);
-      await api.post("/orders", payload, { headers: { "Content-Type": "application/json" } });
+      const res = await api.post(`/cart/${buyerEmail}/checkout`, payload, {
+        headers: { "Idempotency-Key": idempotencyKey.current },
+      });
       setLoading(false);
-      onPlaced(orderId);
+      idempotencyKey.current = null;
+      onPlaced(res.data.orderId);
     } catch (err: any) {
       setLoading(false);
       console.error("❌ Order placement error:", err);
-      setError(err?.response?.data?.message || err?.message || "Failed to place order.");
+      const data = err?.response?.data;
+      setError((typeof data === "string" ? data : data?.message) || err?.message || "Failed to place order.");
     }
   };
 
@@ -1,5 +1,7 @@
 import React, { useEffect, useRef, useState } from "react";
 import api from "../api/axiosConfig";
+import { getAuthToken } from "../api/auth";
+import { imageSrc } from "../api/images";
 import "../styles/BuyerMessagePanel.css";
 
 interface Message {
@@ -17,26 +19,74 @@ interface Props {
   buyerEmail: string;
 }
 
+const PAGE_SIZE = 50;
+
 const BuyerMessagePanel: React.FC<Props> = ({ buyerName, buyerEmail }) => {
   const [message, setMessage] = useState("");
   const [file, setFile] = useState<File | null>(null);
   const [messages, setMessages] = useState<Message[]>([]);
   const [loading, setLoading] = useState(false);
   const messagesEndRef = useRef<HTMLDivElement>(null);
+  const lastIdRef = useRef(0);
+  // Cursor for older history from the X-Next-Cursor header; null when fully loaded
+  const [olderCursor, setOlderCursor] = useState<string | null>(null);
+
+  // Merge new messages, skipping any we already have
+  const appendMessages = (incoming: Message[]) => {
+    if (incoming.length === 0) return;
+    setMessages((prev) => {
+      const known = new Set(prev.map((m) => m.id));
+      const fresh = incoming.filter((m) => !known.has(m.id));
+      return fresh.length ? [...prev, ...fresh] : prev;
+    });
+    incoming.forEach((m) => {
+      if (m.id && m.id > lastIdRef.current) lastIdRef.current = m.id;
+    });
+  };
 
-  // Fetch messages from backend
+  // Latest page on first load, then only what arrived since the last message we saw
   const fetchMessages = async () => {
     try {
-      const res = await api.get(`/messages/buyer/${buyerEmail}`);
-      setMessages(res.data);
+      const since = lastIdRef.current;
+      const res = await api.get(`/messages/buyer/${buyerEmail}`, {
+        params: since ? { since } : { size: PAGE_SIZE },
+      });
+      appendMessages(res.data);
+      if (!since) setOlderCursor(res.headers["x-next-cursor"] ?? null);
     } catch (err) {
       console.error("Error fetching messages", err);
     }
   };
 
+  const fetchOlderMessages = async () => {
+    if (!olderCursor) return;
+    try {
+      const res = await api.get(`/messages/buyer/${buyerEmail}`, {
+        params: { before: olderCursor, size: PAGE_SIZE },
+      });
+      setMessages((prev) => {
+        const known = new Set(prev.map((m) => m.id));
+        return [...res.data.filter((m: Message) => !known.has(m.id)), ...prev];
+      });
+      setOlderCursor(res.headers["x-next-cursor"] ?? null);
+    } catch (err) {
+      console.error("Error fetching earlier messages", err);
+    }
+  };
+
   useEffect(() => {
     fetchMessages();
-  }, []);
+    // Live updates; on (re)connect, catch up on anything missed while disconnected
+    const source = new EventSource(
+      `http://localhost:8080/api/messages/stream/buyer/${encodeURIComponent(buyerEmail)}` +
+        `?access_token=${encodeURIComponent(getAuthToken() ?? "")}`
+    );
+    source.onmessage = (e) => appendMessages([JSON.parse(e.data)]);
+    source.onopen = () => {
+      if (lastIdRef.current) fetchMessages();
+    };
+    return () => source.close();
+  }, [buyerEmail]);
 
   useEffect(() => {
     messagesEndRef.current?.scrollIntoView({ behavior: "smooth" });
@@ -58,13 +108,13 @@ const BuyerMessagePanel: React.FC<Props> = ({ buyerName, buyerEmail }) => {
 
     try {
       setLoading(true);
-      await api.post("/messages/send", formData, {
+      const res = await api.post("/messages/send", formData, {
         headers: { "Content-Type": "multipart/form-data" },
       });
 
       setMessage("");
       setFile(null);
-      fetchMessages();
+      appendMessages([res.data]);
     } catch (error) {
       console.error("Failed to send message", error);
       alert("Error sending message");
@@ -85,6 +135,11 @@ const BuyerMessagePanel: React.FC<Props> = ({ buyerName, buyerEmail }) => {
 
       {/* Chat Body */}
       <div className="buyer-message-body">
+        {olderCursor && (
+          <button className="load-earlier" onClick={fetchOlderMessages}>
+            Load earlier messages
+          </button>
+        )}
         {messages.map((m) => (
           <div
             key={m.id}
@@ -93,7 +148,7 @@ const BuyerMessagePanel: React.FC<Props> = ({ buyerName, buyerEmail }) => {
             {m.message && <div className="message-text">{m.message}</div>}
             {m.imagePath && (
               <img
-                src={`http://localhost:8080${m.imagePath}`}
+                src={imageSrc(m.imagePath, "card")}
                 alt="Attachment"
                 className="chat-image"
               />
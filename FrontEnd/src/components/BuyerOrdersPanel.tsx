@@ -2,12 +2,10 @@
 import React, { useEffect, useState } from "react";
 import api from "../api/axiosConfig";
 import "../styles/BuyerOrdersPanel.css";
+import { imageSrc } from "../api/images";
 
 interface OrderItemDTO {
-  id?: number;
-  productId?: number;
   productName?: string;
-  category?: string;
   price?: number;
   quantity?: number;
   imageUrl?: string;
@@ -15,7 +13,6 @@ interface OrderItemDTO {
 
 interface OrderDTO {
   orderId: string;
-  buyerEmail: string;
   firstName?: string;
   lastName?: string;
   phone?: string;
@@ -23,7 +20,6 @@ interface OrderDTO {
   district?: string;
   city?: string;
   address?: string;
-  payment?: string;
   deliveryFee?: number;
   total?: number;
   status?: string;
@@ -40,6 +36,10 @@ const BuyerOrdersPanel: React.FC<Props> = ({ buyerEmail, refreshKey = 0 }) => {
   const [orders, setOrders] = useState<OrderDTO[]>([]);
   const [loading, setLoading] = useState(false);
   const [message, setMessage] = useState<string>("");
+  // Closed orders older than the archive age live on a separate endpoint
+  const [archived, setArchived] = useState<OrderDTO[]>([]);
+  // beforeId for the next archive page: "" before the first load, null when there is nothing more
+  const [archiveCursor, setArchiveCursor] = useState<string | null>("");
 
   const fetchOrders = async () => {
     if (!buyerEmail) {
@@ -54,32 +54,9 @@ const BuyerOrdersPanel: React.FC<Props> = ({ buyerEmail, refreshKey = 0 }) => {
       const res = await api.get(`/orders/buyer/${encodeURIComponent(buyerEmail)}`);
       console.log("✅ API Response:", res.data);
 
-      const formattedOrders: OrderDTO[] = (Array.isArray(res.data) ? res.data : []).map((o: any) => ({
-        orderId: o.orderId || o.order_id,
-        buyerEmail: o.buyerEmail || o.buyer_email,
-        firstName: o.firstName || o.first_name,
-        lastName: o.lastName || o.last_name,
-        phone: o.phone,
-        province: o.province,
-        district: o.district,
-        city: o.city,
-        address: o.address,
-        payment: o.payment,
-        deliveryFee: o.deliveryFee || o.delivery_fee,
-        total: o.total,
-        status: o.status,
-        orderDate: o.orderDate || o.order_date,
-        items: Array.isArray(o.items)
-          ? o.items.map((item: any) => ({
-              id: item.id,
-              productId: item.productId || item.product_id,
-              productName: item.productName || item.product_name,
-              category: item.category,
-              price: item.price,
-              quantity: item.quantity,
-              imageUrl: item.imageUrl || item.image_url,
-            }))
-          : [],
+      const formattedOrders: OrderDTO[] = (Array.isArray(res.data) ? res.data : []).map((o: OrderDTO) => ({
+        ...o,
+        items: Array.isArray(o.items) ? o.items : [],
       }));
 
       setOrders(formattedOrders);
@@ -92,6 +69,24 @@ const BuyerOrdersPanel: React.FC<Props> = ({ buyerEmail, refreshKey = 0 }) => {
     }
   };
 
+  const fetchArchive = async (beforeId?: string) => {
+    setLoading(true);
+    try {
+      const res = await api.get(`/orders/archive/buyer/${encodeURIComponent(buyerEmail)}`, {
+        params: { beforeId },
+      });
+      const page: OrderDTO[] = Array.isArray(res.data) ? res.data : [];
+      setArchived((prev) => (beforeId ? [...prev, ...page] : page));
+      setArchiveCursor(res.headers["x-next-cursor"] ?? null);
+      if (!beforeId && page.length === 0) setMessage("No archived orders.");
+    } catch (err) {
+      console.error("❌ Failed to load archived orders:", err);
+      setMessage("Failed to load archived orders.");
+    } finally {
+      setLoading(false);
+    }
+  };
+
   useEffect(() => {
     fetchOrders();
   }, [buyerEmail, refreshKey]);
@@ -102,9 +97,15 @@ const BuyerOrdersPanel: React.FC<Props> = ({ buyerEmail, refreshKey = 0 }) => {
       await api.delete(`/orders/cancel/${orderId}`);
       setMessage("✅ Order cancelled successfully.");
       fetchOrders();
-    } catch (err) {
+    } catch (err: any) {
       console.error("Cancel failed", err);
-      setMessage("❌ Failed to cancel order.");
+      if (err?.response?.status === 409) {
+        // Already confirmed further along or closed; show the current state
+        await fetchOrders();
+        setMessage(`⚠️ ${err.response.data}`);
+      } else {
+        setMessage("❌ Failed to cancel order.");
+      }
     }
   };
 
@@ -114,79 +115,94 @@ const BuyerOrdersPanel: React.FC<Props> = ({ buyerEmail, refreshKey = 0 }) => {
     return isNaN(d.getTime()) ? "—" : d.toLocaleString();
   };
 
-  return (
-    <div className="buyer-orders">
-      <h3>Your Orders</h3>
-      {loading && <p className="loading">Loading your orders...</p>}
-      {message && <p className="message">{message}</p>}
+  // Archived orders are closed, so they are shown without actions
+  const renderOrder = (o: OrderDTO, live: boolean) => (
+    <div className="order-card" key={o.orderId}>
+      <div className="order-head">
+        <div>
+          <strong>{o.orderId}</strong>
+          <div className="muted">{formatDate(o.orderDate)}</div>
+        </div>
+        <div className={`status ${o.status?.toLowerCase() || "pending"}`}>
+          {o.status || "Pending"}
+        </div>
+      </div>
 
-      <div className="orders-grid">
-        {orders.map((o) => (
-          <div className="order-card" key={o.orderId}>
-            <div className="order-head">
-              <div>
-                <strong>{o.orderId}</strong>
-                <div className="muted">{formatDate(o.orderDate)}</div>
-              </div>
-              <div className={`status ${o.status?.toLowerCase() || "pending"}`}>
-                {o.status || "Pending"}
-              </div>
-            </div>
+      <div className="order-address">
+        <div>
+          <strong>{o.firstName ?? ""} {o.lastName ?? ""}</strong> • {o.phone ?? ""}
+        </div>
+        <div className="muted">
+          {[o.province, o.district, o.city].filter(Boolean).join(" / ")}
+        </div>
+        <div className="muted">{o.address ?? ""}</div>
+      </div>
 
-            <div className="order-address">
-              <div>
-                <strong>{o.firstName ?? ""} {o.lastName ?? ""}</strong> • {o.phone ?? ""}
+      <div className="items-list">
+        {o.items && o.items.length > 0 ? (
+          o.items.map((item, idx) => (
+            <div className="item-row" key={idx}>
+              <div className="item-img">
+                {item.imageUrl ? (
+                  <img
+                    src={imageSrc(item.imageUrl, "thumb")}
+                    alt={item.productName ?? "Product"}
+                  />
+                ) : (
+                  <div className="placeholder" />
+                )}
+              </div>
+              <div className="item-info">
+                <div className="name">{item.productName ?? ""}</div>
+                <div className="qty">x{item.quantity ?? 0}</div>
               </div>
-              <div className="muted">
-                {[o.province, o.district, o.city].filter(Boolean).join(" / ")}
+              <div className="item-price">
+                LKR {((item.price ?? 0) * (item.quantity ?? 0)).toFixed(2)}
               </div>
-              <div className="muted">{o.address ?? ""}</div>
             </div>
+          ))
+        ) : (
+          <div className="muted small">No items in this order.</div>
+        )}
+      </div>
 
-            <div className="items-list">
-              {o.items && o.items.length > 0 ? (
-                o.items.map((item, idx) => (
-                  <div className="item-row" key={idx}>
-                    <div className="item-img">
-                      {item.imageUrl ? (
-                        <img
-                          src={item.imageUrl.startsWith("http") ? item.imageUrl : `http://localhost:8080${item.imageUrl}`}
-                          alt={item.productName ?? "Product"}
-                        />
-                      ) : (
-                        <div className="placeholder" />
-                      )}
-                    </div>
-                    <div className="item-info">
-                      <div className="name">{item.productName ?? ""}</div>
-                      <div className="qty">x{item.quantity ?? 0}</div>
-                    </div>
-                    <div className="item-price">
-                      LKR {((item.price ?? 0) * (item.quantity ?? 0)).toFixed(2)}
-                    </div>
-                  </div>
-                ))
-              ) : (
-                <div className="muted small">No items in this order.</div>
-              )}
-            </div>
+      <div className="order-footer">
+        <div className="totals">
+          <div>Delivery: LKR {(o.deliveryFee ?? 0).toFixed(2)}</div>
+          <div className="grand">Total: LKR {(o.total ?? 0).toFixed(2)}</div>
+        </div>
+        <div className="order-actions">
+          {live && (o.status === "Pending" || o.status === "Confirmed") && (
+            <button className="cancel-btn" onClick={() => cancelOrder(o.orderId)}>
+              Cancel
+            </button>
+          )}
+        </div>
+      </div>
+    </div>
+  );
 
-            <div className="order-footer">
-              <div className="totals">
-                <div>Delivery: LKR {(o.deliveryFee ?? 0).toFixed(2)}</div>
-                <div className="grand">Total: LKR {(o.total ?? 0).toFixed(2)}</div>
-              </div>
-              <div className="order-actions">
-                {o.status === "Pending" && (
-                  <button className="cancel-btn" onClick={() => cancelOrder(o.orderId)}>
-                    Cancel
-                  </button>
-                )}
-              </div>
-            </div>
-          </div>
-        ))}
+  return (
+    <div className="buyer-orders">
+      <h3>Your Orders</h3>
+      {loading && <p className="loading">Loading your orders...</p>}
+      {message && <p className="message">{message}</p>}
+
+      <div className="orders-grid">
+        {orders.map((o) => renderOrder(o, true))}
       </div>
+
+      {archiveCursor !== null && (
+        <button className="load-more" onClick={() => fetchArchive(archiveCursor || undefined)} disabled={loading}>
+          {archived.length === 0 ? "Show archived orders" : "Show more archived orders"}
+        </button>
+      )}
+      {archived.length > 0 && (
+        <>
+          <h4 className="archive-title">Archived orders</h4>
+          <div className="orders-grid">{archived.map((o) => renderOrder(o, false))}</div>
+        </>
+      )}
     </div>
   );
 };
@@ -2,6 +2,7 @@ import React, { useEffect, useState } from "react";
 import api from "../api/axiosConfig";
 import "../styles/BuyerProductPanel.css";
 import { FaShoppingCart } from "react-icons/fa";
+import { imageSrc } from "../api/images";
 
 interface Product {
   id: number;
@@ -55,7 +56,7 @@ const BuyerProductPanel: React.FC<Props> = ({ addToCart, products ,hideTitle  })
           <div key={product.id} className="product-card">
             {product.imageUrl && (
               <img
-                src={product.imageUrl.startsWith("http") ? product.imageUrl : `http://localhost:8080${product.imageUrl}`}
+                src={imageSrc(product.imageUrl, "card")}
                 alt={product.name}
                 className="product-image"
               />
@@ -1,5 +1,6 @@
 import React, { useEffect, useState } from "react";
 import api from "../api/axiosConfig";
+import { setAuthToken } from "../api/auth";
 import "../styles/BuyerSettingsPanel.css";
 import { AiOutlineEye, AiOutlineEyeInvisible } from "react-icons/ai";
 
@@ -17,18 +18,14 @@ const BuyerSettingsPanel: React.FC<Props> = ({ buyerEmail }) => {
   const [message, setMessage] = useState("");
   const [error, setError] = useState("");
   const [showPassword, setShowPassword] = useState(false);
-  const [existingPassword, setExistingPassword] = useState("");
 
-  // Fetch current user details
+  // Fetch current user details (the signed-in user; passwords are never sent back)
   useEffect(() => {
     const fetchUser = async () => {
       try {
-        const res = await api.get(`/users/${buyerEmail}`);
+        const res = await api.get("/users/me");
         setName(res.data.name);
         setEmail(res.data.email);
-        setPassword(res.data.password);
-        setConfirmPassword(res.data.password);
-        setExistingPassword(res.data.password);
       } catch (err) {
         console.error("Failed to fetch user", err);
         setMessage("Failed to load user details");
@@ -65,16 +62,14 @@ const BuyerSettingsPanel: React.FC<Props> = ({ buyerEmail }) => {
 
     setLoading(true);
     try {
-      const payload = {
-        name,
-        email,
-        password: password || existingPassword,
-      };
-
-      await api.put(`/users/update/${buyerEmail}`, payload);
+      // A blank password keeps the current one
+      const res = await api.put("/users/me", { name, email, password });
 
+      // The token carries name and email, so a fresh one comes back
+      setAuthToken(res.data.token);
       setMessage("Profile updated successfully!");
-      setExistingPassword(payload.password);
+      setPassword("");
+      setConfirmPassword("");
     } catch (err) {
       console.error(err);
       setError("Update failed. Please try again.");
@@ -112,7 +107,7 @@ const BuyerSettingsPanel: React.FC<Props> = ({ buyerEmail }) => {
             type={showPassword ? "text" : "password"}
             value={password}
             onChange={(e) => setPassword(e.target.value)}
-            placeholder="Enter password"
+            placeholder="Leave blank to keep current password"
           />
           <span
             className="eye-icon"
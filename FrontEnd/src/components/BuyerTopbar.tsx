@@ -8,6 +8,7 @@ import {
   FaShoppingCart,
 } from "react-icons/fa";
 import api from "../api/axiosConfig";
+import { imageSrc } from "../api/images";
 
 interface Product {
   id: number;
@@ -28,9 +29,10 @@ interface Props {
   buyerName: string;
   onLogout: () => void;
   onSearch?: (query: string) => void;
+  onAddToCart?: (product: Product) => Promise<void> | void;
 }
 
-const BuyerTopbar: React.FC<Props> = ({ buyerName, onLogout, onSearch }) => {
+const BuyerTopbar: React.FC<Props> = ({ buyerName, onLogout, onSearch, onAddToCart }) => {
   const [searchQuery, setSearchQuery] = useState("");
   const [searchResults, setSearchResults] = useState<Product[]>([]);
   const [notifications, setNotifications] = useState<Notification[]>([]);
@@ -46,11 +48,10 @@ const BuyerTopbar: React.FC<Props> = ({ buyerName, onLogout, onSearch }) => {
         return;
       }
       try {
-        const res = await api.get("/products");
-        const filtered = res.data.filter((p: Product) =>
-          p.name.toLowerCase().includes(searchQuery.toLowerCase())
-        );
-        setSearchResults(filtered);
+        const res = await api.get("/products/search", {
+          params: { q: searchQuery.trim(), size: 10 },
+        });
+        setSearchResults(res.data.content);
       } catch (err) {
         console.error("Search error:", err);
       }
@@ -87,7 +88,7 @@ const BuyerTopbar: React.FC<Props> = ({ buyerName, onLogout, onSearch }) => {
 
   const handleAddToCart = async (product: Product) => {
     try {
-      await api.post("/cart/add", { productId: product.id, buyerName });
+      await onAddToCart?.(product);
       alert(`${product.name} added to cart`);
     } catch (err) {
       console.error("Add to cart error:", err);
@@ -140,7 +141,7 @@ const BuyerTopbar: React.FC<Props> = ({ buyerName, onLogout, onSearch }) => {
                 <li key={product.id} className="search-result-item">
                   {product.imageUrl && (
                     <img
-                      src={`http://localhost:8080${product.imageUrl}`}
+                      src={imageSrc(product.imageUrl, "thumb")}
                       alt={product.name}
                       className="result-img"
                     />
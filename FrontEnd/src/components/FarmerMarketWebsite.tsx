@@ -3,6 +3,7 @@ import api from "../api/axiosConfig";
 import "../styles/FarmerMarketWebsite.css";
 import logo from "../assets/img/GreenCart.png";
 import banner from "../assets/img/banner.jpg";
+import { imageSrc } from "../api/images";
 
 interface Product {
   id: number;
@@ -13,6 +14,12 @@ interface Product {
   imageUrl?: string;
 }
 
+// Filter buttons to the backend's category names ("all" sends no filter)
+const CATEGORY_PARAMS: Record<string, string | undefined> = {
+  fruits: "FRUIT",
+  vegetables: "VEGETABLE",
+};
+
 interface FarmerMarketWebsiteProps {
   onLoginClick: () => void;
 }
@@ -31,21 +38,15 @@ const FarmerMarketWebsite: React.FC<FarmerMarketWebsiteProps> = ({ onLoginClick
     setLoading(true);
     setError(null);
     try {
+      // The 20 newest products, filtered and sorted by the server
       const response = await api.get("/products", {
-        params: category !== "all" ? { category } : {},
+        params: { category: CATEGORY_PARAMS[category], sort: "newest", limit: 20 },
       });
 
-      const productsWithImages = response.data
-        .map((product: Product) => ({
-          ...product,
-          imageUrl: product.imageUrl
-            ? product.imageUrl.startsWith("http")
-              ? product.imageUrl
-              : `http://localhost:8080${product.imageUrl}`
-            : null,
-        }))
-        .sort((a: Product, b: Product) => b.id - a.id)
-        .slice(0, 20);
+      const productsWithImages = response.data.map((product: Product) => ({
+        ...product,
+        imageUrl: product.imageUrl ? imageSrc(product.imageUrl, "card") : null,
+      }));
 
       setProducts(productsWithImages);
     } catch (error) {
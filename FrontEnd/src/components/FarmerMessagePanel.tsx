@@ -1,5 +1,7 @@
 import React, { useEffect, useRef, useState } from "react";
 import api from "../api/axiosConfig";
+import { getAuthToken } from "../api/auth";
+import { imageSrc } from "../api/images";
 import "../styles/FarmerMessagePanel.css";
 
 interface Message {
@@ -9,7 +11,7 @@ interface Message {
   senderRole: "buyer" | "admin";
   subject: string;
   message: string;
-  filePath?: string;
+  imagePath?: string;
   createdAt?: string;
 }
 
@@ -17,8 +19,19 @@ interface Buyer {
   name: string;
   email: string;
   lastMessage?: string;
+  unreadCount?: number;
 }
 
+interface ConversationSummary {
+  buyerEmail: string;
+  buyerName: string;
+  lastMessageId: number;
+  lastMessage?: string;
+  unreadCount: number;
+}
+
+const PAGE_SIZE = 50;
+
 interface Props {
   farmerName: string
   farmerEmail: string;
@@ -30,41 +43,69 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
   const [messages, setMessages] = useState<Message[]>([]);
   const [replyText, setReplyText] = useState("");
   const messagesEndRef = useRef<HTMLDivElement>(null);
+  const selectedEmailRef = useRef<string | null>(null);
+  // Keyset cursors from the X-Next-Cursor header; null when there is nothing older
+  const [buyersCursor, setBuyersCursor] = useState<string | null>(null);
+  const [messagesCursor, setMessagesCursor] = useState<string | null>(null);
 
-  // Fetch all buyers with messages
-  const fetchBuyers = async () => {
+  // Fetch one page of the inbox (one row per buyer, most recent first)
+  const fetchBuyers = async (before?: string) => {
     try {
-      const res = await api.get("/messages/admin"); // returns all messages
-      const grouped: { [email: string]: Buyer } = {};
-      res.data.forEach((m: Message) => {
-        if (!grouped[m.buyerEmail]) {
-          grouped[m.buyerEmail] = {
-            name: m.buyerName,
-            email: m.buyerEmail,
-            lastMessage: m.message,
-          };
-        } else {
-          grouped[m.buyerEmail].lastMessage = m.message;
-        }
+      const res = await api.get("/messages/inbox", { params: { before, size: PAGE_SIZE } });
+      const page: Buyer[] = res.data.map((c: ConversationSummary) => ({
+        name: c.buyerName,
+        email: c.buyerEmail,
+        lastMessage: c.lastMessage,
+        unreadCount: c.unreadCount,
+      }));
+      setBuyers((prev) => {
+        if (!before) return page;
+        const seen = new Set(prev.map((b) => b.email));
+        return [...prev, ...page.filter((b) => !seen.has(b.email))];
       });
-      setBuyers(Object.values(grouped));
+      setBuyersCursor(res.headers["x-next-cursor"] ?? null);
     } catch (err) {
       console.error("Error fetching buyers", err);
     }
   };
 
-  // Fetch messages for selected buyer
-  const fetchMessages = async (buyerEmail: string) => {
+  // Fetch the latest page of messages for the selected buyer, or an older page before the cursor
+  const fetchMessages = async (buyerEmail: string, before?: string) => {
     try {
-      const res = await api.get(`/messages/buyer/${buyerEmail}`);
-      setMessages(res.data);
+      const res = await api.get(`/messages/buyer/${buyerEmail}`, {
+        params: { before, size: PAGE_SIZE },
+      });
+      setMessages((prev) => (before ? [...res.data, ...prev] : res.data));
+      setMessagesCursor(res.headers["x-next-cursor"] ?? null);
     } catch (err) {
       console.error("Error fetching messages", err);
     }
   };
 
+  // Apply one pushed message to the buyer list and, if open, the conversation
+  const applyIncoming = (m: Message) => {
+    setBuyers((prev) => {
+      const others = prev.filter((b) => b.email !== m.buyerEmail);
+      const existing = prev.find((b) => b.email === m.buyerEmail);
+      const isOpen = selectedEmailRef.current === m.buyerEmail;
+      const unread = (existing?.unreadCount ?? 0) + (m.senderRole === "buyer" && !isOpen ? 1 : 0);
+      return [
+        { name: existing?.name ?? m.buyerName, email: m.buyerEmail, lastMessage: m.message, unreadCount: unread },
+        ...others,
+      ];
+    });
+    if (selectedEmailRef.current === m.buyerEmail) {
+      setMessages((prev) => (prev.some((p) => p.id === m.id) ? prev : [...prev, m]));
+    }
+  };
+
   useEffect(() => {
     fetchBuyers();
+    const source = new EventSource(
+      `http://localhost:8080/api/messages/stream/admin?access_token=${encodeURIComponent(getAuthToken() ?? "")}`
+    );
+    source.onmessage = (e) => applyIncoming(JSON.parse(e.data));
+    return () => source.close();
   }, []);
 
   useEffect(() => {
@@ -73,8 +114,15 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
 
   const selectBuyer = (buyer: Buyer) => {
     setSelectedBuyer(buyer);
+    selectedEmailRef.current = buyer.email;
     fetchMessages(buyer.email);
     setReplyText("");
+    if (buyer.unreadCount) {
+      api.put(`/messages/inbox/${buyer.email}/read`).catch((err) =>
+        console.error("Failed to mark conversation read", err)
+      );
+      setBuyers((prev) => prev.map((b) => (b.email === buyer.email ? { ...b, unreadCount: 0 } : b)));
+    }
   };
 
   const replyToBuyer = async () => {
@@ -88,10 +136,9 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
     formData.append("message", replyText);
 
     try {
-      await api.post("/messages/send", formData);
+      const res = await api.post("/messages/send", formData);
       setReplyText("");
-      fetchMessages(selectedBuyer.email);
-      fetchBuyers();
+      applyIncoming(res.data);
     } catch (err) {
       console.error("Failed to send reply", err);
     }
@@ -108,10 +155,16 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
             onClick={() => selectBuyer(b)}
           >
             <strong>{b.name}</strong>
+            {!!b.unreadCount && <span className="unread-badge">{b.unreadCount}</span>}
             <p className="email">{b.email}</p>
             <p className="preview">{b.lastMessage}</p>
           </div>
         ))}
+        {buyersCursor && (
+          <button className="load-more" onClick={() => fetchBuyers(buyersCursor)}>
+            Load more
+          </button>
+        )}
       </div>
 
       <div className="chat-section">
@@ -122,6 +175,14 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
               <p>{selectedBuyer.email}</p>
             </div>
             <div className="chat-body">
+              {messagesCursor && (
+                <button
+                  className="load-more"
+                  onClick={() => fetchMessages(selectedBuyer.email, messagesCursor)}
+                >
+                  Load earlier messages
+                </button>
+              )}
               {messages.map((m) => (
                 <div
                   key={m.id}
@@ -129,9 +190,9 @@ const FarmerMessagePanel: React.FC<Props> = ({ farmerName }) => {
                 >
                   {m.subject && <div className="subject">{m.subject}</div>}
                   <div className="message-text">{m.message}</div>
-                  {m.filePath && (
+                  {m.imagePath && (
                     <a
-                      href={`http://localhost:8080${m.filePath}`}
+                      href={imageSrc(m.imagePath)}
                       target="_blank"
                       rel="noreferrer"
                       className="file-link"
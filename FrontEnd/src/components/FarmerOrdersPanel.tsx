@@ -1,11 +1,10 @@
 // src/components/FarmerOrdersPanel.tsx
-import React, { useEffect, useState } from "react";
+import React, { useEffect, useRef, useState } from "react";
 import api from "../api/axiosConfig";
 import "../styles/FarmerOrdersPanel.css";
+import { imageSrc } from "../api/images";
 
 interface OrderItem {
-  id?: number;
-  productId?: number;
   productName: string;
   quantity: number;
   price: number;
@@ -13,9 +12,7 @@ interface OrderItem {
 }
 
 interface Order {
-  id?: number;
   orderId: string;
-  buyerEmail: string;
   firstName: string;
   lastName: string;
   phone: string;
@@ -23,52 +20,104 @@ interface Order {
   district?: string;
   city?: string;
   address?: string;
-  payment?: string;
   deliveryFee?: number;
   total?: number;
   status?: string;
+  version?: number;
   orderDate?: string;
   items?: OrderItem[];
 }
 
+interface PendingChanges {
+  pending: Order[];
+  removed: string[];
+  cursor: string;
+}
+
+const PAGE_SIZE = 50;
+const POLL_MS = 15000;
+
 const FarmerOrdersPanel: React.FC = () => {
   const [orders, setOrders] = useState<Order[]>([]);
   const [loading, setLoading] = useState(false);
   const [message, setMessage] = useState("");
+  // after= cursor for the next page of the queue (null once everything is loaded)
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const nextCursorRef = useRef<string | null>(null);
+  // since= cursor for the change feed
+  const feedCursor = useRef<string | null>(null);
+
+  const setPageCursor = (cursor: string | null) => {
+    nextCursorRef.current = cursor;
+    setNextCursor(cursor);
+  };
 
-  // Fetch pending orders from backend
-  const fetchOrders = async () => {
+  // Fetch a page of the pending queue (oldest first)
+  const fetchOrders = async (after?: string) => {
     setLoading(true);
     setMessage("");
     try {
-      const res = await api.get("/orders/pending");
-      console.log("Fetched orders:", res.data); // debug log
-      if (Array.isArray(res.data) && res.data.length > 0) {
-        setOrders(res.data);
-      } else {
-        setOrders([]);
-        setMessage("No pending orders.");
-      }
+      const res = await api.get("/orders/pending", { params: { size: PAGE_SIZE, after } });
+      const page: Order[] = Array.isArray(res.data) ? res.data : [];
+      setOrders((prev) => {
+        const merged = after ? [...prev, ...page.filter((o) => !prev.some((p) => p.orderId === o.orderId))] : page;
+        if (merged.length === 0) setMessage("No pending orders.");
+        return merged;
+      });
+      setPageCursor(res.headers["x-next-cursor"] ?? null);
     } catch (err) {
       console.error("Failed to load pending orders", err);
       setMessage("❌ Failed to load pending orders. Check backend or network.");
-      setOrders([]);
     } finally {
       setLoading(false);
     }
   };
 
-  // Confirm an order
-  const confirmOrder = async (orderId: string) => {
+  // Apply changes since the last poll instead of reloading the queue
+  const pollChanges = async () => {
+    try {
+      const res = await api.get<PendingChanges>("/orders/pending/changes", {
+        params: { since: feedCursor.current ?? undefined },
+      });
+      const { pending, removed, cursor } = res.data;
+      feedCursor.current = cursor;
+      if (pending.length === 0 && removed.length === 0) return;
+      setOrders((prev) => {
+        const kept = prev.filter((o) => !removed.includes(o.orderId));
+        const updated = kept.map((o) => pending.find((p) => p.orderId === o.orderId) ?? o);
+        // New orders join the end of the queue; if more pages are unloaded they arrive with "Load more"
+        const added = nextCursorRef.current
+          ? []
+          : pending.filter((p) => !kept.some((o) => o.orderId === p.orderId));
+        const next = [...updated, ...added];
+        if (next.length === 0) setMessage("No pending orders.");
+        return next;
+      });
+    } catch (err) {
+      console.error("Failed to poll order changes", err);
+    }
+  };
+
+  // Confirm an order; the version makes this fail instead of overwriting a change made meanwhile
+  const confirmOrder = async (order: Order) => {
+    const { orderId } = order;
     if (!window.confirm("Confirm this order?")) return;
     try {
-      const res = await api.put(`/orders/status/${orderId}?status=Confirmed`);
+      const res = await api.put(`/orders/status/${orderId}`, null, {
+        params: { status: "Confirmed", version: order.version },
+      });
       console.log("Order confirmed:", res.data);
       setMessage(`✅ Order ${orderId} confirmed.`);
-      fetchOrders(); // refresh list after confirming
-    } catch (err) {
+      // It has left the pending queue; no need to reload the list
+      setOrders((prev) => prev.filter((o) => o.orderId !== orderId));
+    } catch (err: any) {
       console.error("Failed to confirm order", err);
-      setMessage(`❌ Failed to confirm order ${orderId}.`);
+      if (err?.response?.status === 409) {
+        setMessage(`⚠️ ${err.response.data}`);
+        pollChanges();
+      } else {
+        setMessage(`❌ Failed to confirm order ${orderId}.`);
+      }
     }
   };
 
@@ -79,7 +128,14 @@ const FarmerOrdersPanel: React.FC = () => {
   };
 
   useEffect(() => {
-    fetchOrders();
+    // Take the feed cursor first so nothing placed while the first page loads is missed
+    const start = async () => {
+      await pollChanges();
+      await fetchOrders();
+    };
+    start();
+    const timer = window.setInterval(pollChanges, POLL_MS);
+    return () => window.clearInterval(timer);
   }, []);
 
   return (
@@ -91,7 +147,7 @@ const FarmerOrdersPanel: React.FC = () => {
 
       <div className="orders-grid">
         {orders.map((o) => (
-          <div className="order-card" key={o.orderId || o.id}>
+          <div className="order-card" key={o.orderId}>
             <div className="order-head">
               <div>
                 <strong>{o.orderId || "N/A"}</strong>
@@ -119,7 +175,7 @@ const FarmerOrdersPanel: React.FC = () => {
                     <div className="item-img">
                       {it.imageUrl ? (
                         <img
-                          src={it.imageUrl.startsWith("http") ? it.imageUrl : `http://localhost:8080${it.imageUrl}`}
+                          src={imageSrc(it.imageUrl, "thumb")}
                           alt={it.productName}
                         />
                       ) : (
@@ -147,7 +203,7 @@ const FarmerOrdersPanel: React.FC = () => {
               </div>
               <div className="order-actions">
                 {o.status?.toLowerCase() === "pending" && (
-                  <button className="confirm-btn" onClick={() => confirmOrder(o.orderId)}>
+                  <button className="confirm-btn" onClick={() => confirmOrder(o)}>
                     Confirm
                   </button>
                 )}
@@ -159,6 +215,12 @@ const FarmerOrdersPanel: React.FC = () => {
           </div>
         ))}
       </div>
+
+      {nextCursor && (
+        <button className="load-more-btn" onClick={() => fetchOrders(nextCursor)} disabled={loading}>
+          {loading ? "Loading..." : "Load more"}
+        </button>
+      )}
     </div>
   );
 };
@@ -1,12 +1,13 @@
 import React, { useState } from "react";
 import api from "../api/users";
+import { setAuthToken } from "../api/auth";
 import "../styles/loginregister.css";
 import { FaTimes } from "react-icons/fa";
 import logo from "../assets/img/GreenCart.png";
 
 interface LoginProps {
   switchForm: () => void;
-  onLoginSuccess: (role: string, email: string) => void;
+  onLoginSuccess: (role: string, email: string, name: string) => void;
   onClose: () => void; // ✅ New prop to go back to FarmerMarketWebsite
 }
 
@@ -38,11 +39,12 @@ const Login: React.FC<LoginProps> = ({ switchForm, onLoginSuccess, onClose }) =>
         return;
       }
 
+      setAuthToken(user.token);
       setMessage(`✅ Login successful as ${user.role}`);
       setEmail("");
       setPassword("");
 
-      onLoginSuccess(user.role, user.email);
+      onLoginSuccess(user.role, user.email, user.name);
     } catch (error: any) {
       setMessage(error.response?.data?.message || "Invalid credentials.");
     }
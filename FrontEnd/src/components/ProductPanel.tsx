@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from "react";
 import api from "../api/axiosConfig";
 import "../styles/ProductPanel.css";
+import { imageSrc } from "../api/images";
 
 interface Product {
   id: number;
@@ -9,6 +10,7 @@ interface Product {
   price: number;
   description?: string;
   imageUrl?: string;
+  stock?: number | null;
 }
 
 const ProductPanel: React.FC = () => {
@@ -20,6 +22,8 @@ const ProductPanel: React.FC = () => {
   const [category, setCategory] = useState("FRUIT");
   const [price, setPrice] = useState<number>(0);
   const [description, setDescription] = useState("");
+  // Empty means stock is not tracked for this product
+  const [stock, setStock] = useState<string>("");
   const [image, setImage] = useState<File | null>(null);
 
   const fetchProducts = async () => {
@@ -37,6 +41,7 @@ const ProductPanel: React.FC = () => {
     setCategory("FRUIT");
     setPrice(0);
     setDescription("");
+    setStock("");
     setImage(null);
     setShowForm(true);
   };
@@ -47,6 +52,7 @@ const ProductPanel: React.FC = () => {
     setCategory(product.category);
     setPrice(product.price);
     setDescription(product.description || "");
+    setStock(product.stock != null ? String(product.stock) : "");
     setImage(null);
     setShowForm(true);
   };
@@ -60,10 +66,26 @@ const ProductPanel: React.FC = () => {
     if (image) formData.append("image", image);
 
     if (editingProduct) {
-      await api.put(`/products/${editingProduct.id}`, formData, {
-        headers: { "Content-Type": "multipart/form-data" },
-      });
+      // Stock is only sent when edited, together with the value it was edited from,
+      // so units sold while the form was open are not overwritten
+      const loaded = editingProduct.stock != null ? String(editingProduct.stock) : "";
+      if (stock.trim() !== "" && stock.trim() !== loaded) {
+        formData.append("stock", stock.trim());
+        if (editingProduct.stock != null) formData.append("stockWas", String(editingProduct.stock));
+      }
+      try {
+        await api.put(`/products/${editingProduct.id}`, formData, {
+          headers: { "Content-Type": "multipart/form-data" },
+        });
+      } catch (err: any) {
+        if (err.response?.status !== 409) throw err;
+        alert(`${err.response.data} Please check the stock and save again.`);
+        setShowForm(false);
+        fetchProducts();
+        return;
+      }
     } else {
+      if (stock.trim() !== "") formData.append("stock", stock.trim());
       await api.post("/products", formData, {
         headers: { "Content-Type": "multipart/form-data" },
       });
@@ -100,6 +122,7 @@ const ProductPanel: React.FC = () => {
           </select>
           <input type="number" placeholder="Price" value={price} onChange={(e) => setPrice(parseFloat(e.target.value))} />
           <input type="text" placeholder="Description" value={description} onChange={(e) => setDescription(e.target.value)} />
+          <input type="number" min={0} placeholder="Stock (leave empty if not tracked)" value={stock} onChange={(e) => setStock(e.target.value)} />
           <input type="file" onChange={(e) => e.target.files && setImage(e.target.files[0])} />
           <div className="form-actions">
             <button onClick={handleSave} className="save-btn">Save</button>
@@ -114,7 +137,7 @@ const ProductPanel: React.FC = () => {
           <div key={product.id} className="product-card">
             {product.imageUrl && (
               <img
-                src={`http://localhost:8080${product.imageUrl}`}
+                src={imageSrc(product.imageUrl, "card")}
                 alt={product.name}
                 className="product-image"
               />
@@ -123,6 +146,9 @@ const ProductPanel: React.FC = () => {
               <h2>{product.name}</h2>
               <p className="product-category">{product.category}</p>
               <p className="product-price">{product.price} LKR</p>
+              {product.stock != null && (
+                <p className="product-stock">{product.stock > 0 ? `${product.stock} in stock` : "Sold out"}</p>
+              )}
               <p className="product-description">{product.description}</p>
               <div className="product-actions">
                 <button className="edit-btn" onClick={() => openEditForm(product)}>Edit</button>
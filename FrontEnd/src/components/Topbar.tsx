@@ -2,6 +2,7 @@ import React, { useState, useEffect } from "react";
 import "../styles/Topbar.css";
 import { FaBell, FaSignOutAlt, FaSearch, FaTimes } from "react-icons/fa";
 import api from "../api/axiosConfig";
+import { imageSrc } from "../api/images";
 
 interface Product {
   id: number;
@@ -28,11 +29,10 @@ const Topbar: React.FC<Props> = ({ farmerName, onLogout, onViewProduct }) => {
         return;
       }
       try {
-        const res = await api.get("/products");
-        const filtered = res.data.filter((p: Product) =>
-          p.name.toLowerCase().includes(searchQuery.toLowerCase())
-        );
-        setSearchResults(filtered);
+        const res = await api.get("/products/search", {
+          params: { q: searchQuery.trim(), size: 10 },
+        });
+        setSearchResults(res.data.content);
       } catch (err) {
         console.error("Search error:", err);
       }
@@ -69,7 +69,7 @@ const Topbar: React.FC<Props> = ({ farmerName, onLogout, onViewProduct }) => {
                 <li key={product.id} className="search-result-item">
                   {product.imageUrl && (
                     <img
-                      src={`http://localhost:8080${product.imageUrl}`}
+                      src={imageSrc(product.imageUrl, "thumb")}
                       alt={product.name}
                       className="result-img"
                     />
@@ -2,7 +2,7 @@ import React, { useEffect, useState } from "react";
 import BuyerSidebar from "../components/BuyerSidebar";
 import BuyerTopbar from "../components/BuyerTopbar";
 import BuyerProductPanel from "../components/BuyerProductPanel";
-import BuyerCartPanel, { type CartProduct } from "../components/BuyerCartPanel";
+import BuyerCartPanel, { type CartProduct, type CartResponse, toCartProduct } from "../components/BuyerCartPanel";
 import BuyerCheckoutPanel from "../components/BuyerCheckoutPanel";
 import BuyerOrdersPanel from "../components/BuyerOrdersPanel";
 import BuyerMessagePanel from "../components/BuyerMessagesPanel";
@@ -13,6 +13,8 @@ import "../styles/BuyerProductPanel.css"; // Import the panel CSS here
 
 interface Props {
   buyerEmail: string;
+  // From the login response, so the dashboard does not look the user up again
+  buyerName: string;
   onLogout: () => void;
 }
 
@@ -30,45 +32,43 @@ interface OrderSummary {
   status: string;
 }
 
-const BuyerDashboard: React.FC<Props> = ({ buyerEmail, onLogout }) => {
-  const [buyerName, setBuyerName] = useState(""); 
+interface DashboardSummary {
+  totalProducts: number;
+  totalOrders: number;
+  ordersByStatus: Record<string, number>;
+  recentPending: OrderSummary[];
+}
+
+const BuyerDashboard: React.FC<Props> = ({ buyerEmail, buyerName, onLogout }) => {
   const [activeTab, setActiveTab] = useState<"dashboard" | "products" | "cart" | "orders" | "messages" | "settings">("dashboard");
   const [cart, setCart] = useState<CartProduct[]>([]);
   const [showCheckout, setShowCheckout] = useState(false);
   const [totalProducts, setTotalProducts] = useState(0);
   const [confirmedOrdersCount, setConfirmedOrdersCount] = useState(0);
   const [pendingOrdersCount, setPendingOrdersCount] = useState(0);
-  const [allProducts, setAllProducts] = useState<Product[]>([]);
+  const [featuredProducts, setFeaturedProducts] = useState<Product[]>([]);
   const [pendingOrders, setPendingOrders] = useState<OrderSummary[]>([]);
 
-  // Load buyer info
-  useEffect(() => {
-    const fetchBuyerInfo = async () => {
-      try {
-        const res = await api.get(`/users/${buyerEmail}`);
-        setBuyerName(res.data.name || "User");
-      } catch (err) {
-        console.error("Failed to load buyer info", err);
-        setBuyerName("User");
-      }
-    };
-    fetchBuyerInfo();
-  }, [buyerEmail]);
-
-  // Fetch products & orders
+  // Counts and the latest pending orders come pre-aggregated in one call
   const fetchDashboardData = async () => {
     try {
-      const productsRes = await api.get("/products"); // fetch all products
-      const ordersRes = await api.get(`/orders/buyer/${buyerEmail}`);
-      const ordersData: OrderSummary[] = ordersRes.data;
+      const res = await api.get(`/dashboard/buyer/${encodeURIComponent(buyerEmail)}`, { params: { recent: 3 } });
+      const summary: DashboardSummary = res.data;
 
-      setAllProducts(productsRes.data);
-      setTotalProducts(productsRes.data.length);
-      setConfirmedOrdersCount(ordersData.filter(o => o.status.toLowerCase() === "confirmed").length);
+      setTotalProducts(summary.totalProducts);
+      setConfirmedOrdersCount(summary.ordersByStatus["Confirmed"] ?? 0);
+      setPendingOrdersCount(summary.ordersByStatus["Pending"] ?? 0);
+      setPendingOrders(summary.recentPending);
+    } catch (err) {
+      console.error(err);
+    }
+  };
 
-      const pending = ordersData.filter(o => o.status.toLowerCase() === "pending");
-      setPendingOrdersCount(pending.length);
-      setPendingOrders(pending.slice(-3).reverse()); // last 3 pending orders
+  // The overview only shows a handful of products; the products tab loads the full list itself
+  const fetchFeaturedProducts = async () => {
+    try {
+      const res = await api.get("/products/search", { params: { size: 16 } });
+      setFeaturedProducts(res.data.content);
     } catch (err) {
       console.error(err);
     }
@@ -76,23 +76,45 @@ const BuyerDashboard: React.FC<Props> = ({ buyerEmail, onLogout }) => {
 
   useEffect(() => {
     fetchDashboardData();
+    fetchFeaturedProducts();
   }, []);
 
-  const addToCart = (p: Product) => {
-    const existing = cart.find(c => c.productId === p.id);
-    if (existing) {
-      setCart(cart.map(c => c.productId === p.id ? { ...c, quantity: c.quantity + 1 } : c));
-    } else {
-      setCart(prev => [
-        ...prev,
-        { id: Date.now(), productId: p.id, name: p.name, price: p.price, quantity: 1, imageUrl: p.imageUrl, category: p.category }
-      ]);
+  // The cart lives on the server; every change returns the updated cart with server prices
+  const applyCart = (data: CartResponse) => setCart(data.items.map(toCartProduct));
+
+  useEffect(() => {
+    api.get(`/cart/${buyerEmail}`)
+      .then(res => applyCart(res.data))
+      .catch(err => console.error("Failed to load cart", err));
+  }, [buyerEmail]);
+
+  const addToCart = async (p: Product) => {
+    try {
+      const res = await api.post("/cart/add", { buyerEmail, productId: p.id, quantity: 1 });
+      applyCart(res.data);
+    } catch (err) {
+      console.error("Add to cart error:", err);
     }
     // Do NOT switch to cart automatically
   };
 
-  const removeFromCart = (id: number) => setCart(prev => prev.filter(i => i.id !== id));
-  const changeQty = (id: number, qty: number) => setCart(prev => prev.map(i => i.id === id ? { ...i, quantity: qty } : i));
+  const removeFromCart = async (id: number) => {
+    try {
+      const res = await api.delete(`/cart/${buyerEmail}/items/${id}`);
+      applyCart(res.data);
+    } catch (err) {
+      console.error("Remove from cart error:", err);
+    }
+  };
+
+  const changeQty = async (id: number, qty: number) => {
+    try {
+      const res = await api.put(`/cart/${buyerEmail}/items/${id}`, null, { params: { quantity: qty } });
+      applyCart(res.data);
+    } catch (err) {
+      console.error("Update cart error:", err);
+    }
+  };
   const handleCheckout = () => setShowCheckout(true);
 
   const handlePlaced = (orderId: string) => {
@@ -161,13 +183,13 @@ const BuyerDashboard: React.FC<Props> = ({ buyerEmail, onLogout }) => {
                 <h3>Products</h3>
                 <button onClick={() => setActiveTab("products")} className="view-all-btn">View All</button>
               </div>
-              <BuyerProductPanel addToCart={addToCart} products={allProducts.slice(0, 16)} hideTitle={true} />
+              <BuyerProductPanel addToCart={addToCart} products={featuredProducts} hideTitle={true} />
             </div>
           </div>
         );
 
       case "products":
-        return <BuyerProductPanel addToCart={addToCart} products={allProducts} />;
+        return <BuyerProductPanel addToCart={addToCart} />;
 
       case "cart":
         return <BuyerCartPanel cart={cart} removeFromCart={removeFromCart} onCheckout={handleCheckout} onChangeQty={changeQty} buyerEmail={buyerEmail} />;
@@ -190,7 +212,7 @@ const BuyerDashboard: React.FC<Props> = ({ buyerEmail, onLogout }) => {
     <div className="buyer-dashboard">
       <BuyerSidebar buyerName={buyerName} buyerEmail={buyerEmail} onSelect={setActiveTab} />
       <div className="buyer-main">
-        <BuyerTopbar buyerName={buyerName} onLogout={onLogout} onSearch={() => {}} />
+        <BuyerTopbar buyerName={buyerName} onLogout={onLogout} onSearch={() => {}} onAddToCart={addToCart} />
         <main className="buyer-content">{renderPanel()}</main>
       </div>
     </div>